@@ -9,6 +9,8 @@ public class OpenAIConfig {
 
     private Api api = new Api();
     private Model model = new Model();
+    private Scheduler scheduler = new Scheduler();
+    private Cache cache = new Cache();
 
     public Api getApi() {
         return api;
@@ -26,6 +28,22 @@ public class OpenAIConfig {
         this.model = model;
     }
 
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
     // Convenience methods for backward compatibility
     public String getApiKey() {
         return api.getKey();
@@ -66,4 +84,152 @@ public class OpenAIConfig {
             this.name = name;
         }
     }
+
+    public static class Scheduler {
+        private int initialConcurrency = 4;
+        private int minConcurrency = 1;
+        private int maxConcurrency = 32;
+        // Multiplicative cut applied to the concurrency limit on a 429, at most once per cooldown
+        private double concurrencyDecrease = 0.5;
+        private long decreaseCooldownMs = 2000;
+        // Share of the per-minute request/token budget left unused so throughput settles under the limit
+        private double budgetHeadroom = 0.05;
+        // Added to the prompt estimate when reserving tokens for a call
+        private int maxCompletionTokens = 1500;
+        private int maxAttempts = 6;
+        private long retryBaseMs = 1000;
+        private long retryMaxMs = 60000;
+        // Total time a call may spend queued and retrying; keep below the credit reservation TTL
+        private long maxWaitMs = 600000;
+
+        public int getInitialConcurrency() {
+            return initialConcurrency;
+        }
+
+        public void setInitialConcurrency(int initialConcurrency) {
+            this.initialConcurrency = initialConcurrency;
+        }
+
+        public int getMinConcurrency() {
+            return minConcurrency;
+        }
+
+        public void setMinConcurrency(int minConcurrency) {
+            this.minConcurrency = minConcurrency;
+        }
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public double getConcurrencyDecrease() {
+            return concurrencyDecrease;
+        }
+
+        public void setConcurrencyDecrease(double concurrencyDecrease) {
+            this.concurrencyDecrease = concurrencyDecrease;
+        }
+
+        public long getDecreaseCooldownMs() {
+            return decreaseCooldownMs;
+        }
+
+        public void setDecreaseCooldownMs(long decreaseCooldownMs) {
+            this.decreaseCooldownMs = decreaseCooldownMs;
+        }
+
+        public double getBudgetHeadroom() {
+            return budgetHeadroom;
+        }
+
+        public void setBudgetHeadroom(double budgetHeadroom) {
+            this.budgetHeadroom = budgetHeadroom;
+        }
+
+        public int getMaxCompletionTokens() {
+            return maxCompletionTokens;
+        }
+
+        public void setMaxCompletionTokens(int maxCompletionTokens) {
+            this.maxCompletionTokens = maxCompletionTokens;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getRetryBaseMs() {
+            return retryBaseMs;
+        }
+
+        public void setRetryBaseMs(long retryBaseMs) {
+            this.retryBaseMs = retryBaseMs;
+        }
+
+        public long getRetryMaxMs() {
+            return retryMaxMs;
+        }
+
+        public void setRetryMaxMs(long retryMaxMs) {
+            this.retryMaxMs = retryMaxMs;
+        }
+
+        public long getMaxWaitMs() {
+            return maxWaitMs;
+        }
+
+        public void setMaxWaitMs(long maxWaitMs) {
+            this.maxWaitMs = maxWaitMs;
+        }
+    }
+
+    public static class Cache {
+        private boolean enabled = true;
+        // Bound on the in-memory tier, weighed by stored request/response size
+        private long memoryMaxBytes = 64L * 1024 * 1024;
+        // Keep entries in docdb (nlp_parse_cache) across restarts and instances
+        private boolean persistent = true;
+        // Persistent entries not hit for this long are purged
+        private int retentionDays = 90;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMemoryMaxBytes() {
+            return memoryMaxBytes;
+        }
+
+        public void setMemoryMaxBytes(long memoryMaxBytes) {
+            this.memoryMaxBytes = memoryMaxBytes;
+        }
+
+        public boolean isPersistent() {
+            return persistent;
+        }
+
+        public void setPersistent(boolean persistent) {
+            this.persistent = persistent;
+        }
+
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(int retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+    }
 }
@@ -9,6 +9,7 @@ public class ProcessingConfig {
 
     private Temp temp = new Temp();
     private Cleanup cleanup = new Cleanup();
+    private Duplicates duplicates = new Duplicates();
 
     public Temp getTemp() {
         return temp;
@@ -26,6 +27,14 @@ public class ProcessingConfig {
         this.cleanup = cleanup;
     }
 
+    public Duplicates getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(Duplicates duplicates) {
+        this.duplicates = duplicates;
+    }
+
     // Convenience methods for backward compatibility
     public String getTempDirectory() {
         return temp.getDirectory();
@@ -66,4 +75,31 @@ public class ProcessingConfig {
             this.hours = hours;
         }
     }
+
+    public static class Duplicates {
+        private boolean enabled = true;
+        // REJECT fails the upload; RETURN_EXISTING hands back the invoice already parsed from the same file
+        private Action action = Action.REJECT;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public void setAction(Action action) {
+            this.action = action;
+        }
+
+        public enum Action {
+            REJECT,
+            RETURN_EXISTING
+        }
+    }
 }
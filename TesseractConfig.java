@@ -9,6 +9,7 @@ public class TesseractConfig {
 
     private Data data = new Data();
     private Language language = new Language();
+    private Pool pool = new Pool();
 
     public Data getData() {
         return data;
@@ -26,6 +27,14 @@ public class TesseractConfig {
         this.language = language;
     }
 
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
     // Convenience methods for backward compatibility
     public String getDataPath() {
         return data.getPath();
@@ -66,4 +75,45 @@ public class TesseractConfig {
             this.code = code;
         }
     }
+
+    public static class Pool {
+        // OCR worker threads, each with its own initialized Tesseract; 0 = one per available core
+        private int threads = 0;
+        // Pages waiting for a worker; beyond this new work is rejected
+        private int queueCapacity = 500;
+        private int renderDpi = 300;
+        private long pageTimeoutSeconds = 120;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getRenderDpi() {
+            return renderDpi;
+        }
+
+        public void setRenderDpi(int renderDpi) {
+            this.renderDpi = renderDpi;
+        }
+
+        public long getPageTimeoutSeconds() {
+            return pageTimeoutSeconds;
+        }
+
+        public void setPageTimeoutSeconds(long pageTimeoutSeconds) {
+            this.pageTimeoutSeconds = pageTimeoutSeconds;
+        }
+    }
 }
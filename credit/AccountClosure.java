@@ -0,0 +1,100 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import com.code.aplusbinary.accountmanagement.model.Account;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Closure table of the account tree: one row per (ancestor, descendant) pair, including each account
+ * paired with itself at depth 0. "Is A above B" and "everything under A" are single indexed lookups.
+ */
+@Entity
+@Table(name = "account_closure", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_closure_ancestor_descendant", columnNames = { "ancestor_id", "descendant_id" })
+}, indexes = {
+    @Index(name = "idx_closure_descendant_depth", columnList = "descendant_id, depth")
+})
+public class AccountClosure implements Serializable {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", columnDefinition = "bigint", unique = true, nullable = false)
+    private Long id;
+    
+    @ManyToOne
+    @JoinColumn(name = "ancestor_id", nullable = false)
+    private Account ancestor;
+    
+    @ManyToOne
+    @JoinColumn(name = "descendant_id", nullable = false)
+    private Account descendant;
+    
+    @Column(name = "depth", nullable = false)
+    private Integer depth;
+    
+    @Column(name = "created_on", updatable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date createdOn;
+    
+    @PrePersist
+    protected void onInsert() {
+        this.createdOn = new Date();
+    }
+
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Account getAncestor() {
+        return ancestor;
+    }
+
+    public void setAncestor(Account ancestor) {
+        this.ancestor = ancestor;
+    }
+
+    public Account getDescendant() {
+        return descendant;
+    }
+
+    public void setDescendant(Account descendant) {
+        this.descendant = descendant;
+    }
+
+    public Integer getDepth() {
+        return depth;
+    }
+
+    public void setDepth(Integer depth) {
+        this.depth = depth;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(Date createdOn) {
+        this.createdOn = createdOn;
+    }
+}
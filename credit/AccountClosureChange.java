@@ -0,0 +1,65 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * One account whose place in the tree changed, written in the same transaction as the account_closure
+ * change so every instance can evict it from its ancestor cache. A null account means the whole tree
+ * (a rebuild).
+ */
+@Entity
+@Table(name = "account_closure_changes", indexes = {
+    @Index(name = "idx_closure_change_created_on", columnList = "created_on")
+})
+public class AccountClosureChange implements Serializable {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", columnDefinition = "bigint", unique = true, nullable = false)
+    private Long id;
+    
+    // Not a foreign key: the change of a deleted account still has to be seen
+    @Column(name = "account_id", columnDefinition = "bigint")
+    private Long accountId;
+    
+    @Column(name = "created_on", columnDefinition = "datetime(3)", nullable = false, updatable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date createdOn;
+
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getAccountId() {
+        return accountId;
+    }
+    
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+    
+    public Date getCreatedOn() {
+        return createdOn;
+    }
+    
+    public void setCreatedOn(Date createdOn) {
+        this.createdOn = createdOn;
+    }
+}
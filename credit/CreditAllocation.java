@@ -16,6 +16,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -28,7 +29,11 @@ import jakarta.persistence.Table;
  * Maintains the flow of credits through the account hierarchy ensuring proper tallying.
  */
 @Entity
-@Table(name = "credit_allocations")
+@Table(name = "credit_allocations", indexes = {
+    // Drawdown order per receiving account: oldest first (FIFO) or soonest-expiring first (FEFO)
+    @Index(name = "idx_allocation_to_status_allocated", columnList = "to_account_id, status, allocated_on"),
+    @Index(name = "idx_allocation_to_status_expires", columnList = "to_account_id, status, expires_on")
+})
 public class CreditAllocation implements Serializable {
     
     @Id
@@ -67,6 +72,10 @@ public class CreditAllocation implements Serializable {
     @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
     private Date allocatedOn;
     
+    @Column(name = "expires_on")
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date expiresOn;
+    
     @Column(name = "revoked_on")
     @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
     private Date revokedOn;
@@ -181,6 +190,14 @@ public class CreditAllocation implements Serializable {
         this.allocatedOn = allocatedOn;
     }
 
+    public Date getExpiresOn() {
+        return expiresOn;
+    }
+
+    public void setExpiresOn(Date expiresOn) {
+        this.expiresOn = expiresOn;
+    }
+
     public Date getRevokedOn() {
         return revokedOn;
     }
@@ -0,0 +1,141 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Credit amount in fixed-point minor units (hundredths), matching the decimal(10, 2) credit columns.
+ *
+ * The static helpers work on raw {@code long} minor units so hot paths (guards, running balances,
+ * greedy batch selection) never allocate; instances exist for APIs that want a typed value.
+ * Conversion from {@link BigDecimal} is explicit about scale: {@link #toMinor(BigDecimal)} rejects
+ * values with more than two decimals, {@link #toMinor(BigDecimal, RoundingMode)} rounds them.
+ * Arithmetic is overflow-checked.
+ */
+public final class CreditAmount implements Comparable<CreditAmount>, Serializable {
+
+    public static final int SCALE = 2;
+    public static final CreditAmount ZERO = new CreditAmount(0L);
+
+    private static final long serialVersionUID = 1L;
+
+    private final long minorUnits;
+
+    private CreditAmount(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static CreditAmount ofMinor(long minorUnits) {
+        return minorUnits == 0L ? ZERO : new CreditAmount(minorUnits);
+    }
+
+    public static CreditAmount of(BigDecimal value) {
+        return ofMinor(toMinor(value));
+    }
+
+    public static CreditAmount of(BigDecimal value, RoundingMode roundingMode) {
+        return ofMinor(toMinor(value, roundingMode));
+    }
+
+    /**
+     * Exact conversion; throws {@link ArithmeticException} if the value has more than two decimals
+     * or does not fit in a long.
+     */
+    public static long toMinor(BigDecimal value) {
+        return toMinor(value, RoundingMode.UNNECESSARY);
+    }
+
+    public static long toMinor(BigDecimal value, RoundingMode roundingMode) {
+        if (value == null) {
+            throw new IllegalArgumentException("Credit amount is required");
+        }
+        if (value.scale() == SCALE) {
+            // Common case for values read from decimal(10, 2) columns: no rescale needed
+            return value.unscaledValue().longValueExact();
+        }
+        return value.setScale(SCALE, roundingMode).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Minor units of a decimal column read through queryForMap or queryForList: a BigDecimal, or another
+     * Number for some drivers' SUM and COALESCE results. NULL reads as zero.
+     */
+    public static long columnToMinor(Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        return toMinor(value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString()));
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(minorUnits);
+    }
+
+    public CreditAmount plus(CreditAmount other) {
+        return ofMinor(add(minorUnits, other.minorUnits));
+    }
+
+    public CreditAmount minus(CreditAmount other) {
+        return ofMinor(subtract(minorUnits, other.minorUnits));
+    }
+
+    public CreditAmount negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public boolean isAtLeast(CreditAmount other) {
+        return minorUnits >= other.minorUnits;
+    }
+
+    @Override
+    public int compareTo(CreditAmount other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof CreditAmount other && minorUnits == other.minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
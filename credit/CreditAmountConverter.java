@@ -0,0 +1,26 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps {@link CreditAmount} to a decimal(10, 2) column. Not auto-applied: existing entities keep their
+ * BigDecimal fields, new columns opt in with {@code @Convert(converter = CreditAmountConverter.class)}.
+ * Values read with a wider scale are rounded half-up rather than failing the load.
+ */
+@Converter
+public class CreditAmountConverter implements AttributeConverter<CreditAmount, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(CreditAmount attribute) {
+        return attribute == null ? null : attribute.toBigDecimal();
+    }
+
+    @Override
+    public CreditAmount convertToEntityAttribute(BigDecimal dbData) {
+        return dbData == null ? null : CreditAmount.of(dbData, RoundingMode.HALF_UP);
+    }
+}
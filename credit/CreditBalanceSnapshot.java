@@ -0,0 +1,165 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import com.code.aplusbinary.accountmanagement.model.Account;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+//Folded balance of an account up to a ledger position (append-only ledger mode)
+@Entity
+@Table(name = "credit_balance_snapshots", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_snapshot_account_ledger_seq", columnNames = { "account_id", "ledger_seq" })
+}, indexes = {
+    @Index(name = "idx_snapshot_account_as_of", columnList = "account_id, as_of")
+})
+public class CreditBalanceSnapshot implements Serializable {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", columnDefinition = "bigint", unique = true, nullable = false)
+    private Long id;
+    
+    @ManyToOne
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+    
+    // Last credit_transactions.ledger_seq folded into this snapshot (0 = seeded from user_credits)
+    @Column(name = "ledger_seq", columnDefinition = "bigint", nullable = false)
+    private Long ledgerSeq;
+    
+    @Column(name = "as_of", nullable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date asOf;
+    
+    @Column(name = "current_balance", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal currentBalance = BigDecimal.ZERO;
+    
+    @Column(name = "reserved_balance", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal reservedBalance = BigDecimal.ZERO;
+    
+    @Column(name = "total_purchased", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal totalPurchased = BigDecimal.ZERO;
+    
+    @Column(name = "total_consumed", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal totalConsumed = BigDecimal.ZERO;
+    
+    @Column(name = "allocated_to_children", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal allocatedToChildren = BigDecimal.ZERO;
+    
+    @Column(name = "allocated_from_parent", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal allocatedFromParent = BigDecimal.ZERO;
+    
+    @Column(name = "created_on", updatable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date createdOn;
+    
+    @PrePersist
+    protected void onInsert() {
+        this.createdOn = new Date();
+    }
+
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public Long getLedgerSeq() {
+        return ledgerSeq;
+    }
+
+    public void setLedgerSeq(Long ledgerSeq) {
+        this.ledgerSeq = ledgerSeq;
+    }
+
+    public Date getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(Date asOf) {
+        this.asOf = asOf;
+    }
+
+    public BigDecimal getCurrentBalance() {
+        return currentBalance;
+    }
+
+    public void setCurrentBalance(BigDecimal currentBalance) {
+        this.currentBalance = currentBalance;
+    }
+
+    public BigDecimal getReservedBalance() {
+        return reservedBalance;
+    }
+
+    public void setReservedBalance(BigDecimal reservedBalance) {
+        this.reservedBalance = reservedBalance;
+    }
+
+    public BigDecimal getTotalPurchased() {
+        return totalPurchased;
+    }
+
+    public void setTotalPurchased(BigDecimal totalPurchased) {
+        this.totalPurchased = totalPurchased;
+    }
+
+    public BigDecimal getTotalConsumed() {
+        return totalConsumed;
+    }
+
+    public void setTotalConsumed(BigDecimal totalConsumed) {
+        this.totalConsumed = totalConsumed;
+    }
+
+    public BigDecimal getAllocatedToChildren() {
+        return allocatedToChildren;
+    }
+
+    public void setAllocatedToChildren(BigDecimal allocatedToChildren) {
+        this.allocatedToChildren = allocatedToChildren;
+    }
+
+    public BigDecimal getAllocatedFromParent() {
+        return allocatedFromParent;
+    }
+
+    public void setAllocatedFromParent(BigDecimal allocatedFromParent) {
+        this.allocatedFromParent = allocatedFromParent;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(Date createdOn) {
+        this.createdOn = createdOn;
+    }
+}
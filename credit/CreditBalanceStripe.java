@@ -0,0 +1,140 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import com.code.aplusbinary.accountmanagement.model.Account;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * One slice of a hot account's spendable balance. Allocations debit a single stripe, so concurrent
+ * allocations from the same parent lock different rows; the account's balance and allocated total
+ * are the user_credits values plus the sum over its stripes.
+ */
+@Entity
+@Table(name = "credit_balance_stripes", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_stripe_account_stripe_no", columnNames = { "account_id", "stripe_no" })
+})
+public class CreditBalanceStripe implements Serializable {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", columnDefinition = "bigint", unique = true, nullable = false)
+    private Long id;
+    
+    @ManyToOne
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+    
+    @Column(name = "stripe_no", nullable = false)
+    private Integer stripeNo;
+    
+    @Column(name = "balance", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal balance = BigDecimal.ZERO;
+    
+    // Allocated to children from this stripe since the last rebalance folded it into user_credits
+    @Column(name = "allocated_to_children", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal allocatedToChildren = BigDecimal.ZERO;
+    
+    @Column(name = "version", columnDefinition = "bigint default 0", nullable = false)
+    private Long version = 0L;
+    
+    @Column(name = "created_on", updatable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date createdOn;
+
+    @Column(name = "modified_on")
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date modifiedOn;
+    
+    @PrePersist
+    protected void onInsert() {
+        this.modifiedOn = new Date();
+        this.createdOn = new Date();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.modifiedOn = new Date();
+    }
+
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public Integer getStripeNo() {
+        return stripeNo;
+    }
+
+    public void setStripeNo(Integer stripeNo) {
+        this.stripeNo = stripeNo;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public BigDecimal getAllocatedToChildren() {
+        return allocatedToChildren;
+    }
+
+    public void setAllocatedToChildren(BigDecimal allocatedToChildren) {
+        this.allocatedToChildren = allocatedToChildren;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(Date createdOn) {
+        this.createdOn = createdOn;
+    }
+
+    public Date getModifiedOn() {
+        return modifiedOn;
+    }
+
+    public void setModifiedOn(Date modifiedOn) {
+        this.modifiedOn = modifiedOn;
+    }
+}
@@ -0,0 +1,57 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Shared version of a cached catalog. Bumped whenever the catalog changes; every node polls it and
+ * rebuilds its in-memory copy when the number moves.
+ */
+@Entity
+@Table(name = "credit_catalog_versions")
+public class CreditCatalogVersion implements Serializable {
+
+    @Id
+    @Column(name = "name", columnDefinition = "varchar(50)", nullable = false)
+    private String name;
+
+    @Column(name = "version", columnDefinition = "bigint default 0", nullable = false)
+    private Long version = 0L;
+
+    @Column(name = "modified_on")
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date modifiedOn;
+
+    // Getters and Setters
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Date getModifiedOn() {
+        return modifiedOn;
+    }
+
+    public void setModifiedOn(Date modifiedOn) {
+        this.modifiedOn = modifiedOn;
+    }
+}
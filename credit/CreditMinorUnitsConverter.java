@@ -0,0 +1,25 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps a primitive {@code long} minor-unit field to a decimal(10, 2) column, for entities that keep
+ * amounts as raw minor units instead of {@link CreditAmount} instances.
+ */
+@Converter
+public class CreditMinorUnitsConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long attribute) {
+        return attribute == null ? null : CreditAmount.toBigDecimal(attribute);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal dbData) {
+        return dbData == null ? null : CreditAmount.toMinor(dbData, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,223 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import com.code.aplusbinary.accountmanagement.model.Account;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * A credit movement waiting to be relayed to the event sinks. Written in the same transaction as its
+ * credit_transactions row, so an event exists exactly when the movement committed.
+ */
+@Entity
+@Table(name = "credit_outbox", indexes = {
+    @Index(name = "idx_outbox_status_lane", columnList = "status, lane, id"),
+    // Finds an account's earlier held-back event when picking the next batch
+    @Index(name = "idx_outbox_account_status", columnList = "account_id, status, id"),
+    @Index(name = "idx_outbox_published", columnList = "published_on")
+})
+public class CreditOutboxEvent implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", columnDefinition = "bigint", unique = true, nullable = false)
+    private Long id;
+
+    @Column(name = "lane", nullable = false)
+    private Integer lane;
+
+    @ManyToOne
+    @JoinColumn(name = "account_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Account account;
+
+    @Column(name = "transaction_id", columnDefinition = "varchar(100)", nullable = false)
+    private String transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false)
+    private TransactionType transactionType;
+
+    @Column(name = "amount", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    @Column(name = "reservation_id", columnDefinition = "varchar(100)")
+    private String reservationId;
+
+    @Column(name = "reference_id", columnDefinition = "varchar(100)")
+    private String referenceId;
+
+    @Column(name = "reference_type", columnDefinition = "varchar(50)")
+    private String referenceType;
+
+    @Column(name = "package_purchase_id", columnDefinition = "bigint")
+    private Long packagePurchaseId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "attempts", columnDefinition = "int default 0", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_on")
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date nextAttemptOn;
+
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+
+    @Column(name = "created_on", nullable = false, updatable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date createdOn;
+
+    @Column(name = "published_on")
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date publishedOn;
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getLane() {
+        return lane;
+    }
+
+    public void setLane(Integer lane) {
+        this.lane = lane;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public void setTransactionType(TransactionType transactionType) {
+        this.transactionType = transactionType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public String getReferenceId() {
+        return referenceId;
+    }
+
+    public void setReferenceId(String referenceId) {
+        this.referenceId = referenceId;
+    }
+
+    public String getReferenceType() {
+        return referenceType;
+    }
+
+    public void setReferenceType(String referenceType) {
+        this.referenceType = referenceType;
+    }
+
+    public Long getPackagePurchaseId() {
+        return packagePurchaseId;
+    }
+
+    public void setPackagePurchaseId(Long packagePurchaseId) {
+        this.packagePurchaseId = packagePurchaseId;
+    }
+
+    public OutboxStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OutboxStatus status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getNextAttemptOn() {
+        return nextAttemptOn;
+    }
+
+    public void setNextAttemptOn(Date nextAttemptOn) {
+        this.nextAttemptOn = nextAttemptOn;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(Date createdOn) {
+        this.createdOn = createdOn;
+    }
+
+    public Date getPublishedOn() {
+        return publishedOn;
+    }
+
+    public void setPublishedOn(Date publishedOn) {
+        this.publishedOn = publishedOn;
+    }
+}
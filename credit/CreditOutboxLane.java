@@ -0,0 +1,46 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * One relay lane of the credit outbox. A relay locks the lane row while it publishes the lane's
+ * events, so each lane, and with it each account, is delivered by one node at a time and in order.
+ */
+@Entity
+@Table(name = "credit_outbox_lanes")
+public class CreditOutboxLane implements Serializable {
+
+    @Id
+    @Column(name = "lane", nullable = false)
+    private Integer lane;
+
+    @Column(name = "modified_on")
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date modifiedOn;
+
+    // Getters and Setters
+
+    public Integer getLane() {
+        return lane;
+    }
+
+    public void setLane(Integer lane) {
+        this.lane = lane;
+    }
+
+    public Date getModifiedOn() {
+        return modifiedOn;
+    }
+
+    public void setModifiedOn(Date modifiedOn) {
+        this.modifiedOn = modifiedOn;
+    }
+}
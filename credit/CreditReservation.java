@@ -16,6 +16,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -24,7 +25,10 @@ import jakarta.persistence.Table;
 
 //Track temporary credit holds during processing
 @Entity
-@Table(name = "credit_reservations")
+@Table(name = "credit_reservations", indexes = {
+    // Drives the expiry wheel bootstrap and the overdue sweep without scanning the table
+    @Index(name = "idx_reservation_status_expires_on", columnList = "status, expires_on")
+})
 public class CreditReservation implements Serializable {
     
     @Id
@@ -42,6 +46,10 @@ public class CreditReservation implements Serializable {
     @Column(name = "reserved_amount", columnDefinition = "decimal(10, 2)", nullable = false)
     private BigDecimal reservedAmount;
     
+    // Credit leases are consumed in parts; reserved_amount is what is still held
+    @Column(name = "consumed_amount", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal consumedAmount = BigDecimal.ZERO;
+    
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
     private ReservationStatus status = ReservationStatus.RESERVED;
@@ -128,6 +136,14 @@ public class CreditReservation implements Serializable {
         this.reservedAmount = reservedAmount;
     }
 
+    public BigDecimal getConsumedAmount() {
+        return consumedAmount;
+    }
+
+    public void setConsumedAmount(BigDecimal consumedAmount) {
+        this.consumedAmount = consumedAmount;
+    }
+
     public ReservationStatus getStatus() {
         return status;
     }
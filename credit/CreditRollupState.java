@@ -0,0 +1,70 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Progress of a worker following credit_transactions by id (the daily rollup, ledger compaction):
+ * every id up to the watermark has been applied except the pending gaps, ids that were skipped because
+ * their transaction had not committed yet.
+ */
+@Entity
+@Table(name = "credit_rollup_state")
+public class CreditRollupState implements Serializable {
+
+    @Id
+    @Column(name = "name", columnDefinition = "varchar(50)", nullable = false)
+    private String name;
+
+    @Column(name = "watermark_id", columnDefinition = "bigint default 0", nullable = false)
+    private Long watermarkId = 0L;
+
+    // Comma-separated id:firstSeenMillis pairs
+    @Column(name = "pending_gaps", columnDefinition = "mediumtext")
+    private String pendingGaps;
+
+    @Column(name = "modified_on")
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date modifiedOn;
+
+    // Getters and Setters
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getWatermarkId() {
+        return watermarkId;
+    }
+
+    public void setWatermarkId(Long watermarkId) {
+        this.watermarkId = watermarkId;
+    }
+
+    public String getPendingGaps() {
+        return pendingGaps;
+    }
+
+    public void setPendingGaps(String pendingGaps) {
+        this.pendingGaps = pendingGaps;
+    }
+
+    public Date getModifiedOn() {
+        return modifiedOn;
+    }
+
+    public void setModifiedOn(Date modifiedOn) {
+        this.modifiedOn = modifiedOn;
+    }
+}
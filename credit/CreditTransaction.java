@@ -10,12 +10,15 @@ import java.util.Date;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -23,20 +26,27 @@ import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 
 //Track all credit movements (purchases, consumption, refunds)
+//Range-partitioned by month on created_on (see sql queries/partition_credit_transactions.sql), so the table
+//has no foreign keys and MySQL could only enforce unique keys per partition. transaction_id and
+//(account_id, ledger_seq) are unique across the whole ledger through CreditTransactionKey instead
 @Entity
-@Table(name = "credit_transactions")
+@Table(name = "credit_transactions", indexes = {
+        @Index(name = "idx_transaction_transaction_id", columnList = "transaction_id"),
+        @Index(name = "idx_transaction_account_ledger_seq", columnList = "account_id, ledger_seq"),
+        @Index(name = "idx_transaction_account_created", columnList = "account_id, created_on")
+})
 public class CreditTransaction implements Serializable {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
-    @Column(name = "id", columnDefinition = "bigint", unique = true, nullable = false)
+    @Column(name = "id", columnDefinition = "bigint", nullable = false)
     private Long id;
     
-    @Column(name = "transaction_id", columnDefinition = "varchar(100)", nullable = false, unique = true)
+    @Column(name = "transaction_id", columnDefinition = "varchar(100)", nullable = false)
     private String transactionId;
     
     @ManyToOne
-    @JoinColumn(name = "account_id", nullable = false)
+    @JoinColumn(name = "account_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Account account;
     
     @Enumerated(EnumType.STRING)
@@ -58,6 +68,9 @@ public class CreditTransaction implements Serializable {
     @Column(name = "reserved_after", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
     private BigDecimal reservedAfter = BigDecimal.ZERO;
     
+    @Column(name = "ledger_seq", columnDefinition = "bigint")
+    private Long ledgerSeq;
+    
     @Column(name = "reservation_id", columnDefinition = "varchar(100)")
     private String reservationId;
     
@@ -68,13 +81,13 @@ public class CreditTransaction implements Serializable {
     private String referenceType;
     
     @ManyToOne
-    @JoinColumn(name = "package_purchase_id")
+    @JoinColumn(name = "package_purchase_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private PackagePurchase packagePurchase;
     
     @Column(name = "description", columnDefinition = "text")
     private String description;
     
-    @Column(name = "created_on", updatable = false)
+    @Column(name = "created_on", nullable = false, updatable = false)
     @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
     private Date createdOn;
 
@@ -167,6 +180,14 @@ public class CreditTransaction implements Serializable {
         this.reservedAfter = reservedAfter;
     }
 
+    public Long getLedgerSeq() {
+        return ledgerSeq;
+    }
+
+    public void setLedgerSeq(Long ledgerSeq) {
+        this.ledgerSeq = ledgerSeq;
+    }
+
     public String getReservationId() {
         return reservationId;
     }
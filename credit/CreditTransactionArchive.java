@@ -0,0 +1,148 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+
+/**
+ * One closed month of credit_transactions that was moved out of the hot table into a compressed
+ * columnar file. Row count and amount total are checked against the database before the month is dropped.
+ */
+@Entity
+@Table(name = "credit_transaction_archives")
+public class CreditTransactionArchive implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", columnDefinition = "bigint", unique = true, nullable = false)
+    private Long id;
+
+    // First instant of the archived month; rows with period_start <= created_on < period_end
+    @Column(name = "period_start", nullable = false, unique = true)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date periodStart;
+
+    @Column(name = "period_end", nullable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date periodEnd;
+
+    @Column(name = "file_path", columnDefinition = "varchar(500)", nullable = false)
+    private String filePath;
+
+    @Column(name = "row_count", columnDefinition = "bigint", nullable = false)
+    private Long rowCount;
+
+    @Column(name = "amount_total", columnDefinition = "decimal(19, 2)", nullable = false)
+    private BigDecimal amountTotal;
+
+    @Column(name = "min_transaction_id", columnDefinition = "bigint")
+    private Long minTransactionId;
+
+    @Column(name = "max_transaction_id", columnDefinition = "bigint")
+    private Long maxTransactionId;
+
+    // SHA-256 of the archive file
+    @Column(name = "file_sha256", columnDefinition = "char(64)", nullable = false)
+    private String fileSha256;
+
+    @Column(name = "archived_on", updatable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date archivedOn;
+
+    @PrePersist
+    protected void onInsert() {
+        this.archivedOn = new Date();
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Date getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(Date periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public Date getPeriodEnd() {
+        return periodEnd;
+    }
+
+    public void setPeriodEnd(Date periodEnd) {
+        this.periodEnd = periodEnd;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public Long getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(Long rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public BigDecimal getAmountTotal() {
+        return amountTotal;
+    }
+
+    public void setAmountTotal(BigDecimal amountTotal) {
+        this.amountTotal = amountTotal;
+    }
+
+    public Long getMinTransactionId() {
+        return minTransactionId;
+    }
+
+    public void setMinTransactionId(Long minTransactionId) {
+        this.minTransactionId = minTransactionId;
+    }
+
+    public Long getMaxTransactionId() {
+        return maxTransactionId;
+    }
+
+    public void setMaxTransactionId(Long maxTransactionId) {
+        this.maxTransactionId = maxTransactionId;
+    }
+
+    public String getFileSha256() {
+        return fileSha256;
+    }
+
+    public void setFileSha256(String fileSha256) {
+        this.fileSha256 = fileSha256;
+    }
+
+    public Date getArchivedOn() {
+        return archivedOn;
+    }
+
+    public void setArchivedOn(Date archivedOn) {
+        this.archivedOn = archivedOn;
+    }
+}
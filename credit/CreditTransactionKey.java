@@ -0,0 +1,80 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Global uniqueness of credit_transactions keys. The ledger table is range-partitioned on created_on,
+ * and MySQL only enforces unique keys there per partition, so every ledger row also inserts its
+ * transaction_id and (account_id, ledger_seq) here, in the same transaction. This table is not
+ * partitioned and keeps its rows when a month is archived.
+ */
+@Entity
+@Table(name = "credit_transaction_keys", uniqueConstraints = {
+    // Append-only ledger order per account; legacy rows keep ledger_seq NULL
+    @UniqueConstraint(name = "uk_transaction_key_account_ledger_seq", columnNames = { "account_id", "ledger_seq" })
+})
+public class CreditTransactionKey implements Serializable {
+
+    @Id
+    @Column(name = "transaction_id", columnDefinition = "varchar(100)", nullable = false)
+    private String transactionId;
+
+    @Column(name = "account_id", columnDefinition = "bigint", nullable = false)
+    private Long accountId;
+
+    @Column(name = "ledger_seq", columnDefinition = "bigint")
+    private Long ledgerSeq;
+
+    @Column(name = "created_on", updatable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date createdOn;
+
+    @PrePersist
+    protected void onInsert() {
+        this.createdOn = new Date();
+    }
+
+    // Getters and Setters
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Long getLedgerSeq() {
+        return ledgerSeq;
+    }
+
+    public void setLedgerSeq(Long ledgerSeq) {
+        this.ledgerSeq = ledgerSeq;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(Date createdOn) {
+        this.createdOn = createdOn;
+    }
+}
@@ -0,0 +1,132 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Stored response of a credit call made with an Idempotency-Key, so a retried call returns the
+ * original result instead of being applied again. Keys belong to the calling account, so callers cannot
+ * collide on (or read back) each other's keys. Rows are purged once expires_on has passed.
+ */
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_idempotency_caller_scope_key",
+            columnNames = { "caller_id", "scope", "idempotency_key" })
+}, indexes = {
+    @Index(name = "idx_idempotency_expires_on", columnList = "expires_on")
+})
+public class IdempotencyRecord implements Serializable {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", columnDefinition = "bigint", unique = true, nullable = false)
+    private Long id;
+    
+    // Account of the authenticated caller that claimed the key
+    @Column(name = "caller_id", columnDefinition = "bigint", nullable = false)
+    private Long callerId;
+    
+    @Column(name = "scope", columnDefinition = "varchar(50)", nullable = false)
+    private String scope;
+    
+    @Column(name = "idempotency_key", columnDefinition = "varchar(100)", nullable = false)
+    private String idempotencyKey;
+    
+    // SHA-256 of the request body, to spot a key reused for a different request
+    @Column(name = "request_hash", columnDefinition = "char(64)", nullable = false)
+    private String requestHash;
+    
+    @Column(name = "response_body", columnDefinition = "mediumtext")
+    private String responseBody;
+    
+    @Column(name = "expires_on", nullable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date expiresOn;
+    
+    @Column(name = "created_on", updatable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date createdOn;
+    
+    @PrePersist
+    protected void onInsert() {
+        this.createdOn = new Date();
+    }
+
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCallerId() {
+        return callerId;
+    }
+
+    public void setCallerId(Long callerId) {
+        this.callerId = callerId;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public Date getExpiresOn() {
+        return expiresOn;
+    }
+
+    public void setExpiresOn(Date expiresOn) {
+        this.expiresOn = expiresOn;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(Date createdOn) {
+        this.createdOn = createdOn;
+    }
+}
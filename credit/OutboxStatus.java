@@ -0,0 +1,7 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+public enum OutboxStatus {
+    PENDING,
+    PUBLISHED,
+    FAILED
+}
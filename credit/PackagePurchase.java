@@ -71,6 +71,14 @@ public class PackagePurchase implements Serializable {
     @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
     private Date completedOn;
     
+    // Account whose approval completed the purchase, and what it paid out of its own balance (0 for root)
+    @ManyToOne
+    @JoinColumn(name = "approved_by_account_id")
+    private Account approvedBy;
+    
+    @Column(name = "approver_charged", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal approverCharged = BigDecimal.ZERO;
+    
     @Column(name = "refunded_on")
     @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
     private Date refundedOn;
@@ -198,6 +206,22 @@ public class PackagePurchase implements Serializable {
         this.completedOn = completedOn;
     }
 
+    public Account getApprovedBy() {
+        return approvedBy;
+    }
+
+    public void setApprovedBy(Account approvedBy) {
+        this.approvedBy = approvedBy;
+    }
+
+    public BigDecimal getApproverCharged() {
+        return approverCharged;
+    }
+
+    public void setApproverCharged(BigDecimal approverCharged) {
+        this.approverCharged = approverCharged;
+    }
+
     public Date getRefundedOn() {
         return refundedOn;
     }
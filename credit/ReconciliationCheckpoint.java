@@ -0,0 +1,156 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import com.code.aplusbinary.accountmanagement.model.Account;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+
+/**
+ * How far the reconciler has replayed an account's credit_transactions. The totals are the ledger
+ * sums up to and including last_transaction_id, so the next run only replays rows after it.
+ */
+@Entity
+@Table(name = "credit_reconciliation_checkpoints")
+public class ReconciliationCheckpoint implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", columnDefinition = "bigint", unique = true, nullable = false)
+    private Long id;
+
+    @OneToOne
+    @JoinColumn(name = "account_id", nullable = false, unique = true)
+    private Account account;
+
+    // credit_transactions.id of the last replayed row
+    @Column(name = "last_transaction_id", columnDefinition = "bigint default 0", nullable = false)
+    private Long lastTransactionId = 0L;
+
+    @Column(name = "current_balance", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal currentBalance = BigDecimal.ZERO;
+
+    @Column(name = "reserved_balance", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal reservedBalance = BigDecimal.ZERO;
+
+    @Column(name = "total_purchased", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal totalPurchased = BigDecimal.ZERO;
+
+    @Column(name = "total_consumed", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal totalConsumed = BigDecimal.ZERO;
+
+    @Column(name = "allocated_to_children", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal allocatedToChildren = BigDecimal.ZERO;
+
+    @Column(name = "allocated_from_parent", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
+    private BigDecimal allocatedFromParent = BigDecimal.ZERO;
+
+    // Whether user_credits agreed with these totals when they were last verified
+    @Column(name = "in_balance", nullable = false)
+    private Boolean inBalance = Boolean.TRUE;
+
+    @Column(name = "verified_on")
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date verifiedOn;
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public Long getLastTransactionId() {
+        return lastTransactionId;
+    }
+
+    public void setLastTransactionId(Long lastTransactionId) {
+        this.lastTransactionId = lastTransactionId;
+    }
+
+    public BigDecimal getCurrentBalance() {
+        return currentBalance;
+    }
+
+    public void setCurrentBalance(BigDecimal currentBalance) {
+        this.currentBalance = currentBalance;
+    }
+
+    public BigDecimal getReservedBalance() {
+        return reservedBalance;
+    }
+
+    public void setReservedBalance(BigDecimal reservedBalance) {
+        this.reservedBalance = reservedBalance;
+    }
+
+    public BigDecimal getTotalPurchased() {
+        return totalPurchased;
+    }
+
+    public void setTotalPurchased(BigDecimal totalPurchased) {
+        this.totalPurchased = totalPurchased;
+    }
+
+    public BigDecimal getTotalConsumed() {
+        return totalConsumed;
+    }
+
+    public void setTotalConsumed(BigDecimal totalConsumed) {
+        this.totalConsumed = totalConsumed;
+    }
+
+    public BigDecimal getAllocatedToChildren() {
+        return allocatedToChildren;
+    }
+
+    public void setAllocatedToChildren(BigDecimal allocatedToChildren) {
+        this.allocatedToChildren = allocatedToChildren;
+    }
+
+    public BigDecimal getAllocatedFromParent() {
+        return allocatedFromParent;
+    }
+
+    public void setAllocatedFromParent(BigDecimal allocatedFromParent) {
+        this.allocatedFromParent = allocatedFromParent;
+    }
+
+    public Boolean getInBalance() {
+        return inBalance;
+    }
+
+    public void setInBalance(Boolean inBalance) {
+        this.inBalance = inBalance;
+    }
+
+    public Date getVerifiedOn() {
+        return verifiedOn;
+    }
+
+    public void setVerifiedOn(Date verifiedOn) {
+        this.verifiedOn = verifiedOn;
+    }
+}
@@ -0,0 +1,132 @@
+package com.code.aplusbinary.accountmanagement.model.credit;
+
+import com.code.aplusbinary.accountmanagement.model.Account;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+
+/**
+ * One user_credits column that did not match what its history adds up to, as found by a
+ * reconciliation run. Expected is derived from the ledger (or allocations), actual is the stored value.
+ */
+@Entity
+@Table(name = "credit_reconciliation_discrepancies", indexes = {
+    @Index(name = "idx_discrepancy_run_id", columnList = "run_id"),
+    @Index(name = "idx_discrepancy_account_detected", columnList = "account_id, detected_on")
+})
+public class ReconciliationDiscrepancy implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", columnDefinition = "bigint", unique = true, nullable = false)
+    private Long id;
+
+    @Column(name = "run_id", columnDefinition = "varchar(100)", nullable = false)
+    private String runId;
+
+    @ManyToOne
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(name = "field_name", columnDefinition = "varchar(50)", nullable = false)
+    private String fieldName;
+
+    @Column(name = "expected_amount", columnDefinition = "decimal(10, 2)", nullable = false)
+    private BigDecimal expectedAmount;
+
+    @Column(name = "actual_amount", columnDefinition = "decimal(10, 2)", nullable = false)
+    private BigDecimal actualAmount;
+
+    // Ledger position the expected amount was computed at
+    @Column(name = "last_transaction_id", columnDefinition = "bigint")
+    private Long lastTransactionId;
+
+    @Column(name = "detected_on", updatable = false)
+    @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
+    private Date detectedOn;
+
+    @PrePersist
+    protected void onInsert() {
+        this.detectedOn = new Date();
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public void setFieldName(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public BigDecimal getExpectedAmount() {
+        return expectedAmount;
+    }
+
+    public void setExpectedAmount(BigDecimal expectedAmount) {
+        this.expectedAmount = expectedAmount;
+    }
+
+    public BigDecimal getActualAmount() {
+        return actualAmount;
+    }
+
+    public void setActualAmount(BigDecimal actualAmount) {
+        this.actualAmount = actualAmount;
+    }
+
+    public Long getLastTransactionId() {
+        return lastTransactionId;
+    }
+
+    public void setLastTransactionId(Long lastTransactionId) {
+        this.lastTransactionId = lastTransactionId;
+    }
+
+    public Date getDetectedOn() {
+        return detectedOn;
+    }
+
+    public void setDetectedOn(Date detectedOn) {
+        this.detectedOn = detectedOn;
+    }
+}
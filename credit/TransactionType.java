@@ -5,5 +5,11 @@ public enum TransactionType {
     CONSUMPTION,
     REFUND,
     ADMIN_ADJUSTMENT,
-    RESERVATION_EXPIRED
+    RESERVATION,
+    RESERVATION_RELEASED,
+    RESERVATION_EXPIRED,
+    ALLOCATION_OUT,
+    ALLOCATION_IN,
+    ALLOCATION_RETURNED,
+    STRIPE_TRANSFER
 }
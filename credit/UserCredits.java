@@ -18,6 +18,7 @@ import jakarta.persistence.OneToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 //Track user's current credit balance with reservation
 @Entity
@@ -51,6 +52,11 @@ public class UserCredits implements Serializable {
     @Column(name = "allocated_from_parent", columnDefinition = "decimal(10, 2) default 0.00", nullable = false)
     private BigDecimal allocatedFromParent = BigDecimal.ZERO;
     
+    // Bumped by every guarded balance update so stale entity writes fail instead of overwriting
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0", nullable = false)
+    private Long version = 0L;
+    
     @Column(name = "created_on", updatable = false)
     @DateTimeFormat(pattern = "dd-MM-yyyy HH:mm:ss")
     private Date createdOn;
@@ -170,4 +176,12 @@ public class UserCredits implements Serializable {
     public void setAllocatedFromParent(BigDecimal allocatedFromParent) {
         this.allocatedFromParent = allocatedFromParent;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
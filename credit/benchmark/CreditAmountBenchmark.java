@@ -0,0 +1,181 @@
+package com.code.aplusbinary.accountmanagement.benchmark;
+
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Microbenchmark of the credit hot path on {@link CreditAmount} minor units against the BigDecimal
+ * code it replaced. Each scenario works on one batch of 500 items (the default maximum batch size):
+ * <ul>
+ *   <li>guard: the available-balance check and running balance of a grouped mutation;</li>
+ *   <li>bestEffort: the greedy subset pick of a BEST_EFFORT batch reserve;</li>
+ *   <li>boundary: reading decimal(10, 2) values and writing them back (the BigDecimal that both paths
+ *       still materialize at the JDBC and API edge).</li>
+ * </ul>
+ *
+ * Self-contained (no JMH on the classpath in this tree): 5 warm-up and 5 measured iterations of one
+ * second each, results consumed into a sink, allocation read from the thread's allocated-bytes
+ * counter. Run with:
+ * <pre>
+ * javac -d /tmp/bench credit/CreditAmount.java credit/benchmark/CreditAmountBenchmark.java
+ * java -cp /tmp/bench com.code.aplusbinary.accountmanagement.benchmark.CreditAmountBenchmark
+ * </pre>
+ *
+ * Results, OpenJDK 17.0.9 (Temurin), Linux x86_64, per 500-item batch:
+ * <pre>
+ * scenario     path         ns/batch   bytes/batch
+ * guard        BigDecimal     4,813        15,864
+ * guard        long minor       519             0
+ * bestEffort   BigDecimal     1,284         1,032
+ * bestEffort   long minor       262             0
+ * boundary     BigDecimal     2,277        12,000
+ * boundary     long minor     2,773        12,000
+ * </pre>
+ * The boundary row is the cost both paths keep; the long path pays it once per value instead of on
+ * every intermediate step.
+ */
+public final class CreditAmountBenchmark {
+
+    private static final int BATCH = 500;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 1_000_000_000L;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sink;
+
+    private final BigDecimal[] amounts = new BigDecimal[BATCH];
+    private final long[] amountsMinor = new long[BATCH];
+    private final BigDecimal balance = new BigDecimal("100000.00");
+    private final BigDecimal reserved = new BigDecimal("2500.00");
+    private final long balanceMinor = CreditAmount.toMinor(balance);
+    private final long reservedMinor = CreditAmount.toMinor(reserved);
+
+    private CreditAmountBenchmark() {
+        Random random = new Random(42);
+        for (int i = 0; i < BATCH; i++) {
+            amounts[i] = BigDecimal.valueOf(1 + random.nextInt(50_000), CreditAmount.SCALE);
+            amountsMinor[i] = CreditAmount.toMinor(amounts[i]);
+        }
+    }
+
+    public static void main(String[] args) {
+        CreditAmountBenchmark benchmark = new CreditAmountBenchmark();
+        System.out.printf("%-12s %-12s %12s %13s%n", "scenario", "path", "ns/batch", "bytes/batch");
+        run("guard", "BigDecimal", benchmark::guardBigDecimal);
+        run("guard", "long minor", benchmark::guardMinor);
+        run("bestEffort", "BigDecimal", benchmark::bestEffortBigDecimal);
+        run("bestEffort", "long minor", benchmark::bestEffortMinor);
+        run("boundary", "BigDecimal", benchmark::boundaryBigDecimal);
+        run("boundary", "long minor", benchmark::boundaryMinor);
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    long guardBigDecimal() {
+        BigDecimal running = balance;
+        long applied = 0;
+        for (BigDecimal amount : amounts) {
+            if (running.subtract(reserved).compareTo(amount) >= 0) {
+                running = running.subtract(amount);
+                applied++;
+            }
+        }
+        return applied + running.unscaledValue().longValue();
+    }
+
+    long guardMinor() {
+        long running = balanceMinor;
+        long applied = 0;
+        for (long amount : amountsMinor) {
+            if (CreditAmount.subtract(running, reservedMinor) >= amount) {
+                running = CreditAmount.subtract(running, amount);
+                applied++;
+            }
+        }
+        return applied + running;
+    }
+
+    long bestEffortBigDecimal() {
+        BigDecimal available = new BigDecimal("5000.00");
+        long accepted = 0;
+        for (BigDecimal amount : amounts) {
+            if (available.compareTo(amount) >= 0) {
+                available = available.subtract(amount);
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    long bestEffortMinor() {
+        long available = 500_000L;
+        long accepted = 0;
+        for (long amount : amountsMinor) {
+            if (available >= amount) {
+                available -= amount;
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    long boundaryBigDecimal() {
+        long total = 0;
+        for (BigDecimal amount : amounts) {
+            BigDecimal stored = amount.setScale(CreditAmount.SCALE);
+            total += stored.unscaledValue().longValue();
+        }
+        return total;
+    }
+
+    long boundaryMinor() {
+        long total = 0;
+        for (BigDecimal amount : amounts) {
+            long minor = CreditAmount.toMinor(amount);
+            total += CreditAmount.toBigDecimal(minor).scale() + minor;
+        }
+        return total;
+    }
+
+    private static void run(String scenario, String path, LongSupplier batch) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(batch);
+        }
+        double nanos = 0;
+        double bytes = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            double[] result = iteration(batch);
+            nanos += result[0];
+            bytes += result[1];
+        }
+        System.out.printf("%-12s %-12s %12.0f %13.0f%n", scenario, path,
+                nanos / MEASURED_ITERATIONS, bytes / MEASURED_ITERATIONS);
+    }
+
+    // ns and allocated bytes per batch, averaged over one iteration
+    private static double[] iteration(LongSupplier batch) {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long started = System.nanoTime();
+        long deadline = started + ITERATION_NANOS;
+        long operations = 0;
+        long now;
+        do {
+            for (int i = 0; i < 100; i++) {
+                sink += batch.getAsLong();
+            }
+            operations += 100;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new double[] { (double) (now - started) / operations, (double) allocated / operations };
+    }
+}
@@ -0,0 +1,889 @@
+package com.code.aplusbinary.accountmanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.credit")
+public class CreditEngineProperties {
+
+    private Mutation mutation = new Mutation();
+    private Reservation reservation = new Reservation();
+    private Expiry expiry = new Expiry();
+    private Ids ids = new Ids();
+    private Ledger ledger = new Ledger();
+    private Stripes stripes = new Stripes();
+    private Hierarchy hierarchy = new Hierarchy();
+    private Drawdown drawdown = new Drawdown();
+    private Purchases purchases = new Purchases();
+    private Idempotency idempotency = new Idempotency();
+    private Reconciliation reconciliation = new Reconciliation();
+    private History history = new History();
+    private Rollups rollups = new Rollups();
+    private Outbox outbox = new Outbox();
+    private Catalog catalog = new Catalog();
+
+    public Mutation getMutation() {
+        return mutation;
+    }
+
+    public void setMutation(Mutation mutation) {
+        this.mutation = mutation;
+    }
+
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    public void setReservation(Reservation reservation) {
+        this.reservation = reservation;
+    }
+
+    public Expiry getExpiry() {
+        return expiry;
+    }
+
+    public void setExpiry(Expiry expiry) {
+        this.expiry = expiry;
+    }
+
+    public Ids getIds() {
+        return ids;
+    }
+
+    public void setIds(Ids ids) {
+        this.ids = ids;
+    }
+
+    public Ledger getLedger() {
+        return ledger;
+    }
+
+    public void setLedger(Ledger ledger) {
+        this.ledger = ledger;
+    }
+
+    public Stripes getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(Stripes stripes) {
+        this.stripes = stripes;
+    }
+
+    public Hierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    public void setHierarchy(Hierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    public Drawdown getDrawdown() {
+        return drawdown;
+    }
+
+    public void setDrawdown(Drawdown drawdown) {
+        this.drawdown = drawdown;
+    }
+
+    public Purchases getPurchases() {
+        return purchases;
+    }
+
+    public void setPurchases(Purchases purchases) {
+        this.purchases = purchases;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public void setIdempotency(Idempotency idempotency) {
+        this.idempotency = idempotency;
+    }
+
+    public enum LedgerMode {
+        // user_credits is the balance of record, credit_transactions is its history
+        UPDATE_IN_PLACE,
+        // credit_transactions is the source of truth; balances are snapshot + ledger tail
+        APPEND_ONLY
+    }
+
+    public enum DrawdownPolicy {
+        // Oldest allocation first
+        FIFO,
+        // Soonest-expiring allocation first; allocations without expiry go last, oldest first
+        FEFO
+    }
+
+    public Reconciliation getReconciliation() {
+        return reconciliation;
+    }
+
+    public void setReconciliation(Reconciliation reconciliation) {
+        this.reconciliation = reconciliation;
+    }
+
+    public History getHistory() {
+        return history;
+    }
+
+    public void setHistory(History history) {
+        this.history = history;
+    }
+
+    public Rollups getRollups() {
+        return rollups;
+    }
+
+    public void setRollups(Rollups rollups) {
+        this.rollups = rollups;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public void setOutbox(Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    public void setCatalog(Catalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public static class Mutation {
+        // Attempts per mutation when the guarded update loses a lock race (deadlock / lock wait timeout)
+        private int maxAttempts = 3;
+        private long retryBackoffMs = 15;
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getRetryBackoffMs() {
+            return retryBackoffMs;
+        }
+
+        public void setRetryBackoffMs(long retryBackoffMs) {
+            this.retryBackoffMs = retryBackoffMs;
+        }
+    }
+
+    public static class Reservation {
+        private long ttlSeconds = 900;
+        // Upper bound for a single lease extension, so a stuck client cannot park credits indefinitely
+        private long maxExtendSeconds = 3600;
+        // Upper bound for a hold's whole life (created_on to expires_on), however often it is extended
+        private long maxLifetimeSeconds = 21600;
+        private int maxBatchSize = 500;
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public long getMaxExtendSeconds() {
+            return maxExtendSeconds;
+        }
+
+        public void setMaxExtendSeconds(long maxExtendSeconds) {
+            this.maxExtendSeconds = maxExtendSeconds;
+        }
+
+        public long getMaxLifetimeSeconds() {
+            return maxLifetimeSeconds;
+        }
+
+        public void setMaxLifetimeSeconds(long maxLifetimeSeconds) {
+            this.maxLifetimeSeconds = maxLifetimeSeconds;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    public static class Expiry {
+        // Timer wheel geometry: tickMs * wheelSize^levels is the horizon before holds sit in overflow
+        private long tickMs = 1000;
+        private int wheelSize = 64;
+        private int levels = 3;
+        // Reservations expired per transaction
+        private int batchSize = 200;
+        // Backstop scan of the (status, expires_on) index for holds the wheel never saw
+        private long sweepIntervalMs = 60000;
+
+        public long getTickMs() {
+            return tickMs;
+        }
+
+        public void setTickMs(long tickMs) {
+            this.tickMs = tickMs;
+        }
+
+        public int getWheelSize() {
+            return wheelSize;
+        }
+
+        public void setWheelSize(int wheelSize) {
+            this.wheelSize = wheelSize;
+        }
+
+        public int getLevels() {
+            return levels;
+        }
+
+        public void setLevels(int levels) {
+            this.levels = levels;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getSweepIntervalMs() {
+            return sweepIntervalMs;
+        }
+
+        public void setSweepIntervalMs(long sweepIntervalMs) {
+            this.sweepIntervalMs = sweepIntervalMs;
+        }
+    }
+
+    public static class Ids {
+        // 0-65535, unique per running instance; negative derives one from host name and pid
+        private int nodeId = -1;
+
+        public int getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(int nodeId) {
+            this.nodeId = nodeId;
+        }
+    }
+
+    public static class Ledger {
+        private LedgerMode mode = LedgerMode.UPDATE_IN_PLACE;
+        private long compactionIntervalMs = 300000;
+        // Ledger rows past the latest snapshot before a new snapshot is written
+        private int compactionMinTail = 200;
+        // Ledger rows scanned per compaction page
+        private int compactionPageSize = 5000;
+
+        public LedgerMode getMode() {
+            return mode;
+        }
+
+        public void setMode(LedgerMode mode) {
+            this.mode = mode;
+        }
+
+        public long getCompactionIntervalMs() {
+            return compactionIntervalMs;
+        }
+
+        public void setCompactionIntervalMs(long compactionIntervalMs) {
+            this.compactionIntervalMs = compactionIntervalMs;
+        }
+
+        public int getCompactionMinTail() {
+            return compactionMinTail;
+        }
+
+        public void setCompactionMinTail(int compactionMinTail) {
+            this.compactionMinTail = compactionMinTail;
+        }
+
+        public int getCompactionPageSize() {
+            return compactionPageSize;
+        }
+
+        public void setCompactionPageSize(int compactionPageSize) {
+            this.compactionPageSize = compactionPageSize;
+        }
+    }
+
+    public static class Stripes {
+        private int stripeCount = 8;
+        // Accounts striped at startup (e.g. resellers that fan out month-start top-ups)
+        private List<Long> hotAccountIds = new ArrayList<>();
+        private long rebalanceIntervalMs = 30000;
+        // Balance each stripe is topped up to; the rest stays on user_credits for reservations and refunds
+        private BigDecimal stripeTarget = new BigDecimal("500.00");
+
+        public int getStripeCount() {
+            return stripeCount;
+        }
+
+        public void setStripeCount(int stripeCount) {
+            this.stripeCount = stripeCount;
+        }
+
+        public List<Long> getHotAccountIds() {
+            return hotAccountIds;
+        }
+
+        public void setHotAccountIds(List<Long> hotAccountIds) {
+            this.hotAccountIds = hotAccountIds;
+        }
+
+        public long getRebalanceIntervalMs() {
+            return rebalanceIntervalMs;
+        }
+
+        public void setRebalanceIntervalMs(long rebalanceIntervalMs) {
+            this.rebalanceIntervalMs = rebalanceIntervalMs;
+        }
+
+        public BigDecimal getStripeTarget() {
+            return stripeTarget;
+        }
+
+        public void setStripeTarget(BigDecimal stripeTarget) {
+            this.stripeTarget = stripeTarget;
+        }
+    }
+
+    public static class Hierarchy {
+        // Source of truth for the account tree; account_closure is seeded and kept in sync from it
+        private String accountTable = "am_account";
+        private String accountIdColumn = "account_id";
+        private String parentIdColumn = "parent_account_id";
+        private boolean seedOnStartup = true;
+        private int cacheSize = 10000;
+        // Backstop only: tree changes are evicted on every instance through account_closure_changes
+        private long cacheTtlMs = 300000;
+        // How often account_closure_changes is polled for other instances' tree changes
+        private long invalidationPollMs = 2000;
+        // How often accounts created or re-parented outside this service are synced into account_closure
+        private long syncIntervalMs = 60000;
+
+        public String getAccountTable() {
+            return accountTable;
+        }
+
+        public void setAccountTable(String accountTable) {
+            this.accountTable = accountTable;
+        }
+
+        public String getAccountIdColumn() {
+            return accountIdColumn;
+        }
+
+        public void setAccountIdColumn(String accountIdColumn) {
+            this.accountIdColumn = accountIdColumn;
+        }
+
+        public String getParentIdColumn() {
+            return parentIdColumn;
+        }
+
+        public void setParentIdColumn(String parentIdColumn) {
+            this.parentIdColumn = parentIdColumn;
+        }
+
+        public boolean isSeedOnStartup() {
+            return seedOnStartup;
+        }
+
+        public void setSeedOnStartup(boolean seedOnStartup) {
+            this.seedOnStartup = seedOnStartup;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public long getCacheTtlMs() {
+            return cacheTtlMs;
+        }
+
+        public void setCacheTtlMs(long cacheTtlMs) {
+            this.cacheTtlMs = cacheTtlMs;
+        }
+
+        public long getInvalidationPollMs() {
+            return invalidationPollMs;
+        }
+
+        public void setInvalidationPollMs(long invalidationPollMs) {
+            this.invalidationPollMs = invalidationPollMs;
+        }
+
+        public long getSyncIntervalMs() {
+            return syncIntervalMs;
+        }
+
+        public void setSyncIntervalMs(long syncIntervalMs) {
+            this.syncIntervalMs = syncIntervalMs;
+        }
+    }
+
+    public static class Drawdown {
+        private boolean enabled = true;
+        private DrawdownPolicy policy = DrawdownPolicy.FEFO;
+        // Accounts whose active allocations are indexed in memory
+        private int cacheSize = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DrawdownPolicy getPolicy() {
+            return policy;
+        }
+
+        public void setPolicy(DrawdownPolicy policy) {
+            this.policy = policy;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+    }
+
+    public static class Purchases {
+        // Upper bound for one bulk approve or refund call
+        private int maxBatchSize = 1000;
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    public static class Idempotency {
+        // How long a key replays its original response; keep above the longest client retry window
+        private long ttlSeconds = 86400;
+        private int cacheSize = 10000;
+        private long purgeIntervalMs = 3600000;
+        private int purgeBatchSize = 1000;
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public long getPurgeIntervalMs() {
+            return purgeIntervalMs;
+        }
+
+        public void setPurgeIntervalMs(long purgeIntervalMs) {
+            this.purgeIntervalMs = purgeIntervalMs;
+        }
+
+        public int getPurgeBatchSize() {
+            return purgeBatchSize;
+        }
+
+        public void setPurgeBatchSize(int purgeBatchSize) {
+            this.purgeBatchSize = purgeBatchSize;
+        }
+    }
+
+    public static class Reconciliation {
+        private boolean enabled = true;
+        private String cron = "0 30 2 * * *";
+        // Worker threads of the reconciliation pool
+        private int parallelism = 4;
+        // Accounts per range handed to one worker
+        private int rangeSize = 500;
+        // Workers back off while the average account check takes longer than this
+        private long targetLatencyMs = 50;
+        private long maxPauseMs = 2000;
+        // Checkpoints only cover ledger rows at least this old, so rows still committing are not skipped
+        private long checkpointLagSeconds = 300;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getRangeSize() {
+            return rangeSize;
+        }
+
+        public void setRangeSize(int rangeSize) {
+            this.rangeSize = rangeSize;
+        }
+
+        public long getTargetLatencyMs() {
+            return targetLatencyMs;
+        }
+
+        public void setTargetLatencyMs(long targetLatencyMs) {
+            this.targetLatencyMs = targetLatencyMs;
+        }
+
+        public long getMaxPauseMs() {
+            return maxPauseMs;
+        }
+
+        public void setMaxPauseMs(long maxPauseMs) {
+            this.maxPauseMs = maxPauseMs;
+        }
+
+        public long getCheckpointLagSeconds() {
+            return checkpointLagSeconds;
+        }
+
+        public void setCheckpointLagSeconds(long checkpointLagSeconds) {
+            this.checkpointLagSeconds = checkpointLagSeconds;
+        }
+    }
+
+    public static class History {
+        // Moving closed months out of credit_transactions is opt-in
+        private boolean archiveEnabled = false;
+        private String archiveCron = "0 15 3 * * *";
+        private String partitionCron = "0 5 0 * * *";
+        private String archiveDirectory = "archive/credit-transactions";
+        // Months kept in the hot table, counting the current one
+        private int hotMonths = 6;
+        // Monthly partitions created ahead of time
+        private int futureMonths = 3;
+        private int rowGroupSize = 8192;
+        private int deleteBatchSize = 5000;
+        // Longest range one history query may cover
+        private int maxQueryDays = 366;
+        // Longest range one streamed statement may cover
+        private int maxStatementDays = 3660;
+
+        public boolean isArchiveEnabled() {
+            return archiveEnabled;
+        }
+
+        public void setArchiveEnabled(boolean archiveEnabled) {
+            this.archiveEnabled = archiveEnabled;
+        }
+
+        public String getArchiveCron() {
+            return archiveCron;
+        }
+
+        public void setArchiveCron(String archiveCron) {
+            this.archiveCron = archiveCron;
+        }
+
+        public String getPartitionCron() {
+            return partitionCron;
+        }
+
+        public void setPartitionCron(String partitionCron) {
+            this.partitionCron = partitionCron;
+        }
+
+        public String getArchiveDirectory() {
+            return archiveDirectory;
+        }
+
+        public void setArchiveDirectory(String archiveDirectory) {
+            this.archiveDirectory = archiveDirectory;
+        }
+
+        public int getHotMonths() {
+            return hotMonths;
+        }
+
+        public void setHotMonths(int hotMonths) {
+            this.hotMonths = hotMonths;
+        }
+
+        public int getFutureMonths() {
+            return futureMonths;
+        }
+
+        public void setFutureMonths(int futureMonths) {
+            this.futureMonths = futureMonths;
+        }
+
+        public int getRowGroupSize() {
+            return rowGroupSize;
+        }
+
+        public void setRowGroupSize(int rowGroupSize) {
+            this.rowGroupSize = rowGroupSize;
+        }
+
+        public int getDeleteBatchSize() {
+            return deleteBatchSize;
+        }
+
+        public void setDeleteBatchSize(int deleteBatchSize) {
+            this.deleteBatchSize = deleteBatchSize;
+        }
+
+        public int getMaxQueryDays() {
+            return maxQueryDays;
+        }
+
+        public void setMaxQueryDays(int maxQueryDays) {
+            this.maxQueryDays = maxQueryDays;
+        }
+
+        public int getMaxStatementDays() {
+            return maxStatementDays;
+        }
+
+        public void setMaxStatementDays(int maxStatementDays) {
+            this.maxStatementDays = maxStatementDays;
+        }
+    }
+
+    public static class Rollups {
+        private boolean enabled = true;
+        private long intervalMs = 5000;
+        // Rows read per batch; a tick keeps going while batches come back full, up to maxBatchesPerTick
+        private int batchSize = 5000;
+        private int maxBatchesPerTick = 20;
+        // How long a skipped id may still commit; keep above the longest credit transaction
+        private long gapGraceSeconds = 300;
+        private int maxTrackedGaps = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public void setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxBatchesPerTick() {
+            return maxBatchesPerTick;
+        }
+
+        public void setMaxBatchesPerTick(int maxBatchesPerTick) {
+            this.maxBatchesPerTick = maxBatchesPerTick;
+        }
+
+        public long getGapGraceSeconds() {
+            return gapGraceSeconds;
+        }
+
+        public void setGapGraceSeconds(long gapGraceSeconds) {
+            this.gapGraceSeconds = gapGraceSeconds;
+        }
+
+        public int getMaxTrackedGaps() {
+            return maxTrackedGaps;
+        }
+
+        public void setMaxTrackedGaps(int maxTrackedGaps) {
+            this.maxTrackedGaps = maxTrackedGaps;
+        }
+    }
+
+    public static class Outbox {
+        private boolean enabled = true;
+        // Accounts are hashed onto lanes; a lane is relayed by one node at a time, in id order
+        private int lanes = 32;
+        private long pollIntervalMs = 200;
+        private int lanesPerClaim = 8;
+        private int batchSize = 500;
+        // Failed events are retried with doubling delays and parked as FAILED after maxAttempts
+        private int maxAttempts = 10;
+        private long retryBaseMs = 1000;
+        private long retryMaxMs = 300000;
+        private int retentionHours = 72;
+        private int purgeBatchSize = 5000;
+        private String purgeCron = "0 15 * * * *";
+        // Set to append every relayed event to this file as NDJSON
+        private String fileSinkPath;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLanes() {
+            return lanes;
+        }
+
+        public void setLanes(int lanes) {
+            this.lanes = lanes;
+        }
+
+        public long getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(long pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+
+        public int getLanesPerClaim() {
+            return lanesPerClaim;
+        }
+
+        public void setLanesPerClaim(int lanesPerClaim) {
+            this.lanesPerClaim = lanesPerClaim;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getRetryBaseMs() {
+            return retryBaseMs;
+        }
+
+        public void setRetryBaseMs(long retryBaseMs) {
+            this.retryBaseMs = retryBaseMs;
+        }
+
+        public long getRetryMaxMs() {
+            return retryMaxMs;
+        }
+
+        public void setRetryMaxMs(long retryMaxMs) {
+            this.retryMaxMs = retryMaxMs;
+        }
+
+        public int getRetentionHours() {
+            return retentionHours;
+        }
+
+        public void setRetentionHours(int retentionHours) {
+            this.retentionHours = retentionHours;
+        }
+
+        public int getPurgeBatchSize() {
+            return purgeBatchSize;
+        }
+
+        public void setPurgeBatchSize(int purgeBatchSize) {
+            this.purgeBatchSize = purgeBatchSize;
+        }
+
+        public String getPurgeCron() {
+            return purgeCron;
+        }
+
+        public void setPurgeCron(String purgeCron) {
+            this.purgeCron = purgeCron;
+        }
+
+        public String getFileSinkPath() {
+            return fileSinkPath;
+        }
+
+        public void setFileSinkPath(String fileSinkPath) {
+            this.fileSinkPath = fileSinkPath;
+        }
+    }
+
+    public static class Catalog {
+        // How often each node checks the shared catalog version
+        private long pollIntervalMs = 2000;
+
+        public long getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(long pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.code.aplusbinary.accountmanagement.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the background jobs of the credit module (reservation expiry and its backstop sweep).
+ */
+@Configuration
+@EnableScheduling
+public class CreditSchedulingConfig {
+}
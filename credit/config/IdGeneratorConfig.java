@@ -0,0 +1,41 @@
+package com.code.aplusbinary.accountmanagement.config;
+
+import com.code.aplusbinary.accountmanagement.util.IdGenerator;
+import com.code.aplusbinary.accountmanagement.util.MonotonicIdGenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    @Bean
+    @ConditionalOnMissingBean(IdGenerator.class)
+    public IdGenerator idGenerator(CreditEngineProperties properties) {
+        int nodeId = properties.getIds().getNodeId();
+        if (nodeId < 0) {
+            nodeId = deriveNodeId();
+            logger.info("No app.credit.ids.node-id configured, derived node id {} from host and pid", nodeId);
+        }
+        return new MonotonicIdGenerator(nodeId);
+    }
+
+    private static int deriveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        int hash = (host + ":" + ProcessHandle.current().pid()).hashCode();
+        return (hash ^ (hash >>> 16)) & 0xFFFF;
+    }
+}
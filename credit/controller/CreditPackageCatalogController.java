@@ -0,0 +1,58 @@
+package com.code.aplusbinary.accountmanagement.controller.credit;
+
+import com.code.aplusbinary.accountmanagement.service.credit.CreditPackageCatalog;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/credits/packages")
+public class CreditPackageCatalogController {
+
+    private final CreditPackageCatalog catalog;
+
+    public CreditPackageCatalogController(CreditPackageCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Active credit packages in display order, served from the in-memory catalog. Clients that send
+     * the ETag they hold get 304 Not Modified until the catalog changes.
+     */
+    @GetMapping
+    public ResponseEntity<byte[]> list(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CreditPackageCatalog.Snapshot snapshot = catalog.current();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.getBody());
+    }
+
+    /**
+     * Reload the catalog on every node, after credit_packages has been edited.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refresh() {
+        CreditPackageCatalog.Snapshot snapshot = catalog.invalidate();
+        return ResponseEntity.ok(Map.of("version", snapshot.getVersion(), "packages", snapshot.getSize(),
+                "etag", snapshot.getEtag()));
+    }
+}
@@ -0,0 +1,69 @@
+package com.code.aplusbinary.accountmanagement.controller.credit;
+
+import com.code.aplusbinary.accountmanagement.dto.credit.BulkPurchaseActionRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BulkPurchaseResponse;
+import com.code.aplusbinary.accountmanagement.exception.IdempotencyKeyReuseException;
+import com.code.aplusbinary.accountmanagement.service.credit.IdempotencyService;
+import com.code.aplusbinary.accountmanagement.service.credit.PackagePurchaseBulkService;
+import com.code.aplusbinary.accountmanagement.util.CreditCaller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/credits/purchases")
+public class CreditPurchaseController {
+
+    private final PackagePurchaseBulkService bulkService;
+    private final IdempotencyService idempotencyService;
+
+    public CreditPurchaseController(PackagePurchaseBulkService bulkService,
+                                    IdempotencyService idempotencyService) {
+        this.bulkService = bulkService;
+        this.idempotencyService = idempotencyService;
+    }
+
+    /**
+     * Approve pending purchases as the caller's account. Purchases that cannot be approved are reported
+     * per item; the rest commit.
+     */
+    @PostMapping("/bulk/approve")
+    public ResponseEntity<BulkPurchaseResponse> approveBulk(@RequestBody BulkPurchaseActionRequest request,
+            @RequestHeader(value = CreditReservationController.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        Long approver = CreditCaller.accountId();
+        return ResponseEntity.ok(idempotencyService.execute(approver, "purchases.approve", idempotencyKey, request,
+                BulkPurchaseResponse.class, () -> bulkService.approveBulk(request, approver)));
+    }
+
+    @PostMapping("/bulk/refund")
+    public ResponseEntity<BulkPurchaseResponse> refundBulk(@RequestBody BulkPurchaseActionRequest request,
+            @RequestHeader(value = CreditReservationController.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        Long caller = CreditCaller.accountId();
+        return ResponseEntity.ok(idempotencyService.execute(caller, "purchases.refund", idempotencyKey, request,
+                BulkPurchaseResponse.class, () -> bulkService.refundBulk(request, caller)));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<Map<String, Object>> handleKeyReuse(IdempotencyKeyReuseException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, Object>> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
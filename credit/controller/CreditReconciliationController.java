@@ -0,0 +1,47 @@
+package com.code.aplusbinary.accountmanagement.controller.credit;
+
+import com.code.aplusbinary.accountmanagement.service.credit.CreditReconciliationService;
+import com.code.aplusbinary.accountmanagement.service.credit.ReconciliationReport;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/credits/reconciliation")
+public class CreditReconciliationController {
+
+    private final CreditReconciliationService reconciliationService;
+
+    public CreditReconciliationController(CreditReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+    }
+
+    /**
+     * Run a reconciliation now and return its report. Only replays ledger rows since each account's checkpoint.
+     * Answers 409 with the id of the run in progress if there is one.
+     */
+    @PostMapping("/run")
+    public ResponseEntity<?> run() {
+        Optional<ReconciliationReport> report = reconciliationService.reconcile();
+        if (report.isEmpty()) {
+            String runId = reconciliationService.getRunningId();
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "A credit reconciliation run is already in progress",
+                    "runId", runId != null ? runId : ""));
+        }
+        return ResponseEntity.ok(report.get());
+    }
+
+    @GetMapping("/latest")
+    public ResponseEntity<ReconciliationReport> latest() {
+        ReconciliationReport report = reconciliationService.getLastReport();
+        return report == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(report);
+    }
+}
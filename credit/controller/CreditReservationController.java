@@ -0,0 +1,138 @@
+package com.code.aplusbinary.accountmanagement.controller.credit;
+
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationActionRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationExtendRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationResponse;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseResponse;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseSettleRequest;
+import com.code.aplusbinary.accountmanagement.exception.CreditConcurrencyException;
+import com.code.aplusbinary.accountmanagement.exception.CreditOperationException;
+import com.code.aplusbinary.accountmanagement.exception.IdempotencyKeyReuseException;
+import com.code.aplusbinary.accountmanagement.exception.InsufficientCreditException;
+import com.code.aplusbinary.accountmanagement.service.credit.CreditLeaseService;
+import com.code.aplusbinary.accountmanagement.service.credit.CreditReservationBatchService;
+import com.code.aplusbinary.accountmanagement.service.credit.IdempotencyService;
+import com.code.aplusbinary.accountmanagement.util.CreditCaller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/credits/reservations")
+public class CreditReservationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditReservationController.class);
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private final CreditReservationBatchService batchService;
+    private final CreditLeaseService leaseService;
+    private final IdempotencyService idempotencyService;
+
+    public CreditReservationController(CreditReservationBatchService batchService,
+                                       CreditLeaseService leaseService,
+                                       IdempotencyService idempotencyService) {
+        this.batchService = batchService;
+        this.leaseService = leaseService;
+        this.idempotencyService = idempotencyService;
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchReservationResponse> reserveBatch(@RequestBody BatchReservationRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        CreditCaller caller = CreditCaller.current();
+        return ResponseEntity.ok(idempotencyService.execute(caller.getAccountId(), "reservations.reserve",
+                idempotencyKey, request, BatchReservationResponse.class,
+                () -> batchService.reserveBatch(request, caller)));
+    }
+
+    @PostMapping("/batch/confirm")
+    public ResponseEntity<BatchReservationResponse> confirmBatch(@RequestBody BatchReservationActionRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        CreditCaller caller = CreditCaller.current();
+        return ResponseEntity.ok(idempotencyService.execute(caller.getAccountId(), "reservations.confirm",
+                idempotencyKey, request, BatchReservationResponse.class,
+                () -> batchService.confirmBatch(request, caller)));
+    }
+
+    @PostMapping("/batch/release")
+    public ResponseEntity<BatchReservationResponse> releaseBatch(@RequestBody BatchReservationActionRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        CreditCaller caller = CreditCaller.current();
+        return ResponseEntity.ok(idempotencyService.execute(caller.getAccountId(), "reservations.release",
+                idempotencyKey, request, BatchReservationResponse.class,
+                () -> batchService.releaseBatch(request, caller)));
+    }
+
+    @PostMapping("/batch/extend")
+    public ResponseEntity<BatchReservationResponse> extendBatch(@RequestBody BatchReservationExtendRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        CreditCaller caller = CreditCaller.current();
+        return ResponseEntity.ok(idempotencyService.execute(caller.getAccountId(), "reservations.extend",
+                idempotencyKey, request, BatchReservationResponse.class,
+                () -> batchService.extendBatch(request, caller)));
+    }
+
+    @PostMapping("/leases")
+    public ResponseEntity<CreditLeaseResponse> grantLease(@RequestBody CreditLeaseRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        CreditCaller caller = CreditCaller.current();
+        return ResponseEntity.ok(idempotencyService.execute(caller.getAccountId(), "leases.grant",
+                idempotencyKey, request, CreditLeaseResponse.class, () -> leaseService.grant(request, caller)));
+    }
+
+    @PostMapping("/leases/settle")
+    public ResponseEntity<CreditLeaseResponse> settleLease(@RequestBody CreditLeaseSettleRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        CreditCaller caller = CreditCaller.current();
+        return ResponseEntity.ok(idempotencyService.execute(caller.getAccountId(), "leases.settle",
+                idempotencyKey, request, CreditLeaseResponse.class, () -> leaseService.settle(request, caller)));
+    }
+
+    @ExceptionHandler(InsufficientCreditException.class)
+    public ResponseEntity<Map<String, Object>> handleInsufficient(InsufficientCreditException e) {
+        return ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED).body(Map.of(
+                "error", e.getMessage(),
+                "requested", e.getRequested(),
+                "available", e.getAvailable()));
+    }
+
+    @ExceptionHandler(CreditConcurrencyException.class)
+    public ResponseEntity<Map<String, Object>> handleConcurrency(CreditConcurrencyException e) {
+        logger.warn("Credit reservation call hit contention: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<Map<String, Object>> handleKeyReuse(IdempotencyKeyReuseException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(CreditOperationException.class)
+    public ResponseEntity<Map<String, Object>> handleCreditOperation(CreditOperationException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, Object>> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,84 @@
+package com.code.aplusbinary.accountmanagement.controller.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.TransactionType;
+import com.code.aplusbinary.accountmanagement.service.credit.CreditAccessPolicy;
+import com.code.aplusbinary.accountmanagement.service.credit.CreditRollupService;
+import com.code.aplusbinary.accountmanagement.service.credit.DailyCreditRollup;
+import com.code.aplusbinary.accountmanagement.util.CreditCaller;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/credits/rollups")
+public class CreditRollupController {
+
+    private final CreditRollupService rollupService;
+    private final CreditAccessPolicy accessPolicy;
+
+    public CreditRollupController(CreditRollupService rollupService, CreditAccessPolicy accessPolicy) {
+        this.rollupService = rollupService;
+        this.accessPolicy = accessPolicy;
+    }
+
+    /**
+     * Daily totals of one account between two dates, both inclusive. Open to the account itself and the
+     * accounts above it, like the subtree series.
+     */
+    @GetMapping("/{accountId}")
+    public ResponseEntity<List<DailyCreditRollup>> account(@PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) TransactionType type) {
+        accessPolicy.check(CreditCaller.current(), accountId);
+        return ResponseEntity.ok(rollupService.accountSeries(accountId, from, to, type));
+    }
+
+    /**
+     * Daily totals of an account and all of its descendants.
+     */
+    @GetMapping("/{accountId}/subtree")
+    public ResponseEntity<List<DailyCreditRollup>> subtree(@PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) TransactionType type) {
+        accessPolicy.check(CreditCaller.current(), accountId);
+        return ResponseEntity.ok(rollupService.subtreeSeries(accountId, from, to, type));
+    }
+
+    /**
+     * Recompute the rollups of a date range from the ledger. Needs the CREDIT_ADMIN role.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!CreditCaller.current().isAdmin()) {
+            throw new AccessDeniedException("Rebuilding credit rollups needs the " + CreditCaller.ADMIN_ROLE + " role");
+        }
+        return ResponseEntity.ok(Map.of("buckets", rollupService.rebuild(from, to)));
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, Object>> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
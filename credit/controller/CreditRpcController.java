@@ -0,0 +1,54 @@
+package com.code.aplusbinary.accountmanagement.controller.credit;
+
+import com.code.aplusbinary.accountmanagement.service.credit.CreditRpcService;
+import com.code.aplusbinary.accountmanagement.util.CreditCaller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Binary endpoint for the doc service. External callers keep using the JSON endpoints under
+ * /credits/reservations; this one only exists to save serialization and round trips between our
+ * own services. It is not under the unauthenticated /internal/** paths: the doc service forwards
+ * the user's JWT, and the calls run and are idempotency-scoped for that user's account.
+ */
+@RestController
+@RequestMapping("/credits")
+public class CreditRpcController {
+
+    private static final String CONTENT_TYPE = "application/x-credit-rpc";
+
+    private final CreditRpcService rpcService;
+
+    public CreditRpcController(CreditRpcService rpcService) {
+        this.rpcService = rpcService;
+    }
+
+    @PostMapping(value = "/rpc", consumes = CONTENT_TYPE)
+    public ResponseEntity<byte[]> call(@RequestBody byte[] frame) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(CONTENT_TYPE))
+                .body(rpcService.handle(frame, CreditCaller.current()));
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, Object>> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,101 @@
+package com.code.aplusbinary.accountmanagement.controller.credit;
+
+import com.code.aplusbinary.accountmanagement.dto.credit.StatementFormat;
+import com.code.aplusbinary.accountmanagement.service.credit.CreditAccessPolicy;
+import com.code.aplusbinary.accountmanagement.service.credit.CreditStatementService;
+import com.code.aplusbinary.accountmanagement.util.CreditCaller;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/credits/statements")
+public class CreditStatementController {
+
+    private final CreditStatementService statementService;
+    private final CreditAccessPolicy accessPolicy;
+
+    public CreditStatementController(CreditStatementService statementService, CreditAccessPolicy accessPolicy) {
+        this.statementService = statementService;
+        this.accessPolicy = accessPolicy;
+    }
+
+    /**
+     * Stream every credit transaction of an account (and by default its subtree) between two dates,
+     * both inclusive. Gzipped when the client accepts it, except for XLSX which is compressed already.
+     * Open to the account itself and the accounts above it.
+     */
+    @GetMapping("/{accountId}")
+    public ResponseEntity<StreamingResponseBody> statement(@PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "true") boolean subtree,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        accessPolicy.check(CreditCaller.current(), accountId);
+        StatementFormat statementFormat = parseFormat(format);
+        Date start = Timestamp.valueOf(from.atStartOfDay());
+        Date end = Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+        List<Long> accounts = statementService.statementAccounts(accountId, subtree, start, end);
+        boolean gzip = statementFormat.isCompressible() && acceptEncoding != null
+                && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 1 << 16);
+                statementService.write(accounts, start, end, statementFormat, compressed);
+                compressed.finish();
+            } else {
+                statementService.write(accounts, start, end, statementFormat, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(statementFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"credit-statement-" + accountId
+                        + "-" + from + "-" + to + "." + statementFormat.getExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, Object>> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    private static StatementFormat parseFormat(String format) {
+        try {
+            return StatementFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported statement format: " + format);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Confirm or release a set of holds by reservationId. Defaults to ALL_OR_NOTHING, like reserve.
+ * Only holds of accountId (the caller's own account when absent) are found.
+ */
+public class BatchReservationActionRequest {
+
+    private Long accountId;
+    private BatchReservationMode mode = BatchReservationMode.ALL_OR_NOTHING;
+    private List<String> reservationIds = new ArrayList<>();
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public BatchReservationMode getMode() {
+        return mode;
+    }
+
+    public void setMode(BatchReservationMode mode) {
+        this.mode = mode;
+    }
+
+    public List<String> getReservationIds() {
+        return reservationIds;
+    }
+
+    public void setReservationIds(List<String> reservationIds) {
+        this.reservationIds = reservationIds;
+    }
+}
@@ -0,0 +1,39 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heartbeat for in-flight holds: push expiresOn of each reservation to now + ttlSeconds.
+ * Only holds of accountId (the caller's own account when absent) are found.
+ */
+public class BatchReservationExtendRequest {
+
+    private Long accountId;
+    private Long ttlSeconds;
+    private List<String> reservationIds = new ArrayList<>();
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(Long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public List<String> getReservationIds() {
+        return reservationIds;
+    }
+
+    public void setReservationIds(List<String> reservationIds) {
+        this.reservationIds = reservationIds;
+    }
+}
@@ -0,0 +1,8 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+public enum BatchReservationMode {
+    // Every item succeeds or the whole batch is rolled back
+    ALL_OR_NOTHING,
+    // Items are applied in order while credit lasts; the rest are reported as rejected
+    BEST_EFFORT
+}
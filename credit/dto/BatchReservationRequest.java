@@ -0,0 +1,85 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchReservationRequest {
+
+    private Long accountId;
+    private BatchReservationMode mode = BatchReservationMode.ALL_OR_NOTHING;
+    // Optional override of app.credit.reservation.ttl-seconds for this batch
+    private Long ttlSeconds;
+    private List<Item> items = new ArrayList<>();
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public BatchReservationMode getMode() {
+        return mode;
+    }
+
+    public void setMode(BatchReservationMode mode) {
+        this.mode = mode;
+    }
+
+    public Long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(Long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    public static class Item {
+        private BigDecimal amount;
+        private String referenceId;
+        private String referenceType;
+        private String notes;
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public String getReferenceId() {
+            return referenceId;
+        }
+
+        public void setReferenceId(String referenceId) {
+            this.referenceId = referenceId;
+        }
+
+        public String getReferenceType() {
+            return referenceType;
+        }
+
+        public void setReferenceType(String referenceType) {
+            this.referenceType = referenceType;
+        }
+
+        public String getNotes() {
+            return notes;
+        }
+
+        public void setNotes(String notes) {
+            this.notes = notes;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class BatchReservationResponse {
+
+    private List<ReservationOutcome> outcomes;
+    private int appliedCount;
+    private int rejectedCount;
+    private BigDecimal appliedAmount;
+
+    public BatchReservationResponse() {
+    }
+
+    public BatchReservationResponse(List<ReservationOutcome> outcomes) {
+        this.outcomes = outcomes;
+        this.appliedAmount = BigDecimal.ZERO;
+        for (ReservationOutcome outcome : outcomes) {
+            if (outcome.isApplied()) {
+                appliedCount++;
+                if (outcome.getAmount() != null) {
+                    appliedAmount = appliedAmount.add(outcome.getAmount());
+                }
+            } else {
+                rejectedCount++;
+            }
+        }
+    }
+
+    public List<ReservationOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public void setOutcomes(List<ReservationOutcome> outcomes) {
+        this.outcomes = outcomes;
+    }
+
+    public int getAppliedCount() {
+        return appliedCount;
+    }
+
+    public void setAppliedCount(int appliedCount) {
+        this.appliedCount = appliedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public void setRejectedCount(int rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+
+    public BigDecimal getAppliedAmount() {
+        return appliedAmount;
+    }
+
+    public void setAppliedAmount(BigDecimal appliedAmount) {
+        this.appliedAmount = appliedAmount;
+    }
+}
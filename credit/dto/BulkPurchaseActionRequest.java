@@ -0,0 +1,21 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Approve or refund a set of package purchases by purchaseId. The approver is always the authenticated
+ * caller's account.
+ */
+public class BulkPurchaseActionRequest {
+
+    private List<String> purchaseIds = new ArrayList<>();
+
+    public List<String> getPurchaseIds() {
+        return purchaseIds;
+    }
+
+    public void setPurchaseIds(List<String> purchaseIds) {
+        this.purchaseIds = purchaseIds;
+    }
+}
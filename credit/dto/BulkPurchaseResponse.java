@@ -0,0 +1,62 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class BulkPurchaseResponse {
+
+    private List<PurchaseOutcome> outcomes;
+    private int appliedCount;
+    private int rejectedCount;
+    private BigDecimal appliedCredits;
+
+    public BulkPurchaseResponse() {
+    }
+
+    public BulkPurchaseResponse(List<PurchaseOutcome> outcomes) {
+        this.outcomes = outcomes;
+        this.appliedCredits = BigDecimal.ZERO;
+        for (PurchaseOutcome outcome : outcomes) {
+            if (outcome.isApplied()) {
+                appliedCount++;
+                if (outcome.getCredits() != null) {
+                    appliedCredits = appliedCredits.add(outcome.getCredits());
+                }
+            } else {
+                rejectedCount++;
+            }
+        }
+    }
+
+    public List<PurchaseOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public void setOutcomes(List<PurchaseOutcome> outcomes) {
+        this.outcomes = outcomes;
+    }
+
+    public int getAppliedCount() {
+        return appliedCount;
+    }
+
+    public void setAppliedCount(int appliedCount) {
+        this.appliedCount = appliedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public void setRejectedCount(int rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+
+    public BigDecimal getAppliedCredits() {
+        return appliedCredits;
+    }
+
+    public void setAppliedCredits(BigDecimal appliedCredits) {
+        this.appliedCredits = appliedCredits;
+    }
+}
@@ -0,0 +1,56 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+import java.math.BigDecimal;
+
+/**
+ * Ask for a block of credit to be held for a client that debits it locally. When the full amount is
+ * not available, anything down to minAmount is granted instead.
+ */
+public class CreditLeaseRequest {
+
+    private Long accountId;
+    private BigDecimal amount;
+    private BigDecimal minAmount;
+    private Long ttlSeconds;
+    private String referenceId;
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public Long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(Long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public String getReferenceId() {
+        return referenceId;
+    }
+
+    public void setReferenceId(String referenceId) {
+        this.referenceId = referenceId;
+    }
+}
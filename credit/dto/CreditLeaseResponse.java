@@ -0,0 +1,86 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * State of a credit lease after a grant or settlement.
+ */
+public class CreditLeaseResponse {
+
+    private String reservationId;
+    private Long accountId;
+    private BigDecimal remainingAmount;
+    private BigDecimal consumedAmount;
+    private String status;
+    private Date expiresOn;
+    private String message;
+
+    public CreditLeaseResponse() {
+    }
+
+    public CreditLeaseResponse(String reservationId, Long accountId, BigDecimal remainingAmount,
+                               BigDecimal consumedAmount, String status) {
+        this.reservationId = reservationId;
+        this.accountId = accountId;
+        this.remainingAmount = remainingAmount;
+        this.consumedAmount = consumedAmount;
+        this.status = status;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public BigDecimal getRemainingAmount() {
+        return remainingAmount;
+    }
+
+    public void setRemainingAmount(BigDecimal remainingAmount) {
+        this.remainingAmount = remainingAmount;
+    }
+
+    public BigDecimal getConsumedAmount() {
+        return consumedAmount;
+    }
+
+    public void setConsumedAmount(BigDecimal consumedAmount) {
+        this.consumedAmount = consumedAmount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Date getExpiresOn() {
+        return expiresOn;
+    }
+
+    public void setExpiresOn(Date expiresOn) {
+        this.expiresOn = expiresOn;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
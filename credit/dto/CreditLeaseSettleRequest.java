@@ -0,0 +1,57 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+import java.math.BigDecimal;
+
+/**
+ * Report usage against a credit lease. consumedTotal is cumulative over the life of the lease, so a
+ * retried settlement charges nothing twice. With release set, whatever is left is returned.
+ * Only a lease of accountId (the caller's own account when absent) is found.
+ */
+public class CreditLeaseSettleRequest {
+
+    private Long accountId;
+    private String reservationId;
+    private BigDecimal consumedTotal = BigDecimal.ZERO;
+    private boolean release;
+    private Long ttlSeconds;
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public BigDecimal getConsumedTotal() {
+        return consumedTotal;
+    }
+
+    public void setConsumedTotal(BigDecimal consumedTotal) {
+        this.consumedTotal = consumedTotal;
+    }
+
+    public boolean isRelease() {
+        return release;
+    }
+
+    public void setRelease(boolean release) {
+        this.release = release;
+    }
+
+    public Long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(Long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+}
@@ -0,0 +1,100 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+
+/**
+ * Per-purchase result of a bulk approve or refund. Status is the payment status after the call,
+ * or REJECTED / NOT_FOUND when nothing was applied for this purchase.
+ */
+public class PurchaseOutcome {
+
+    public static final String REJECTED = "REJECTED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    private String purchaseId;
+    private Long accountId;
+    private Long approverAccountId;
+    private BigDecimal credits;
+    private String status;
+    private String transactionId;
+    private String message;
+
+    public PurchaseOutcome() {
+    }
+
+    public PurchaseOutcome(String purchaseId, Long accountId, BigDecimal credits, String status) {
+        this.purchaseId = purchaseId;
+        this.accountId = accountId;
+        this.credits = credits;
+        this.status = status;
+    }
+
+    @JsonIgnore
+    public boolean isApplied() {
+        return !REJECTED.equals(status) && !NOT_FOUND.equals(status);
+    }
+
+    public void reject(String message) {
+        this.status = REJECTED;
+        this.transactionId = null;
+        this.message = message;
+    }
+
+    public String getPurchaseId() {
+        return purchaseId;
+    }
+
+    public void setPurchaseId(String purchaseId) {
+        this.purchaseId = purchaseId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Long getApproverAccountId() {
+        return approverAccountId;
+    }
+
+    public void setApproverAccountId(Long approverAccountId) {
+        this.approverAccountId = approverAccountId;
+    }
+
+    public BigDecimal getCredits() {
+        return credits;
+    }
+
+    public void setCredits(BigDecimal credits) {
+        this.credits = credits;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,95 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Per-item result of a batch reservation call. Status is the reservation status after the call,
+ * or REJECTED / NOT_FOUND when nothing was applied for this item.
+ */
+public class ReservationOutcome {
+
+    public static final String REJECTED = "REJECTED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    private String reservationId;
+    private String referenceId;
+    private BigDecimal amount;
+    private String status;
+    private String transactionId;
+    private Date expiresOn;
+    private String message;
+
+    public ReservationOutcome() {
+    }
+
+    public ReservationOutcome(String reservationId, String referenceId, BigDecimal amount, String status) {
+        this.reservationId = reservationId;
+        this.referenceId = referenceId;
+        this.amount = amount;
+        this.status = status;
+    }
+
+    @JsonIgnore
+    public boolean isApplied() {
+        return !REJECTED.equals(status) && !NOT_FOUND.equals(status);
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public String getReferenceId() {
+        return referenceId;
+    }
+
+    public void setReferenceId(String referenceId) {
+        this.referenceId = referenceId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public Date getExpiresOn() {
+        return expiresOn;
+    }
+
+    public void setExpiresOn(Date expiresOn) {
+        this.expiresOn = expiresOn;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
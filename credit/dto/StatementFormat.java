@@ -0,0 +1,31 @@
+package com.code.aplusbinary.accountmanagement.dto.credit;
+
+public enum StatementFormat {
+    CSV("text/csv", "csv", true),
+    // One JSON object per line
+    NDJSON("application/x-ndjson", "ndjson", true),
+    // Already a zip container, so never gzipped again on the wire
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx", false);
+
+    private final String contentType;
+    private final String extension;
+    private final boolean compressible;
+
+    StatementFormat(String contentType, String extension, boolean compressible) {
+        this.contentType = contentType;
+        this.extension = extension;
+        this.compressible = compressible;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public boolean isCompressible() {
+        return compressible;
+    }
+}
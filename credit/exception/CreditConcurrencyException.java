@@ -0,0 +1,16 @@
+package com.code.aplusbinary.accountmanagement.exception;
+
+/**
+ * Raised when a credit row kept changing underneath a mutation and the retry budget ran out,
+ * or when the caller's expected version no longer matches.
+ */
+public class CreditConcurrencyException extends CreditOperationException {
+
+    public CreditConcurrencyException(Long accountId, String message) {
+        super(accountId, message);
+    }
+
+    public CreditConcurrencyException(Long accountId, String message, Throwable cause) {
+        super(accountId, message, cause);
+    }
+}
@@ -0,0 +1,23 @@
+package com.code.aplusbinary.accountmanagement.exception;
+
+/**
+ * Base failure for credit balance mutations (reserve, confirm, release, purchase, refund).
+ */
+public class CreditOperationException extends RuntimeException {
+
+    private final Long accountId;
+
+    public CreditOperationException(Long accountId, String message) {
+        super(message);
+        this.accountId = accountId;
+    }
+
+    public CreditOperationException(Long accountId, String message, Throwable cause) {
+        super(message, cause);
+        this.accountId = accountId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.code.aplusbinary.accountmanagement.exception;
+
+/**
+ * Raised when an Idempotency-Key is replayed with a different request body than the one it was first
+ * used with. The original response is not returned, since it answers a different request.
+ */
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    private final String idempotencyKey;
+
+    public IdempotencyKeyReuseException(String idempotencyKey) {
+        super("Idempotency key " + idempotencyKey + " was already used with a different request");
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
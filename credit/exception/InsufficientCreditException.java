@@ -0,0 +1,27 @@
+package com.code.aplusbinary.accountmanagement.exception;
+
+import java.math.BigDecimal;
+
+/**
+ * Raised when a guarded update finds less available (or reserved) credit than the operation needs.
+ */
+public class InsufficientCreditException extends CreditOperationException {
+
+    private final BigDecimal requested;
+    private final BigDecimal available;
+
+    public InsufficientCreditException(Long accountId, BigDecimal requested, BigDecimal available) {
+        super(accountId, "Insufficient credits for account " + accountId
+                + ": requested " + requested + ", available " + available);
+        this.requested = requested;
+        this.available = available;
+    }
+
+    public BigDecimal getRequested() {
+        return requested;
+    }
+
+    public BigDecimal getAvailable() {
+        return available;
+    }
+}
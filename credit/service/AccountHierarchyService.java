@@ -0,0 +1,448 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.exception.CreditOperationException;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.util.AfterCommit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The account tree (root, reseller, admin, end user) kept as a closure table, so ancestor checks and
+ * subtree rollups are one indexed query instead of a parent lookup per level.
+ *
+ * account_closure is maintained incrementally by {@link #attach}, {@link #move} and {@link #detach}.
+ * The account table's parent column stays the source of truth: when the closure table is empty at
+ * startup it is rebuilt from it with one recursive query, and a scheduled sync (also run at startup)
+ * attaches accounts that have no closure rows yet and moves accounts whose parent changed, so accounts
+ * created or re-parented elsewhere are picked up without a call from their creator. Until then, an
+ * ancestor check against an account that is not in the closure table walks the parent column instead;
+ * reads never write to account_closure.
+ *
+ * Each account's ancestor chain (at most a handful of ids) is cached in memory. Every tree change also
+ * writes the affected accounts to account_closure_changes in its transaction; each instance polls that
+ * table and evicts them, so a change made on another instance is seen within one poll. The TTL is only
+ * a backstop.
+ */
+@Service
+public class AccountHierarchyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountHierarchyService.class);
+
+    private static final long[] NO_ANCESTORS = new long[0];
+
+    private static final String COUNT_CLOSURE = "SELECT COUNT(*) FROM account_closure";
+
+    private static final String ANCESTORS =
+            "SELECT ancestor_id FROM account_closure WHERE descendant_id = ? AND depth > 0 ORDER BY depth";
+
+    private static final String DESCENDANTS =
+            "SELECT descendant_id FROM account_closure WHERE ancestor_id = ? AND depth > 0 AND depth <= ? "
+            + "ORDER BY depth, descendant_id";
+
+    private static final String SUBTREE =
+            "SELECT descendant_id FROM account_closure WHERE ancestor_id = ?";
+
+    private static final String IS_IN_CLOSURE =
+            "SELECT COUNT(*) FROM account_closure WHERE ancestor_id = ? AND descendant_id = ?";
+
+    // Every ancestor of the parent gains the child one level deeper, plus the child's own row
+    private static final String ATTACH =
+            "INSERT INTO account_closure (ancestor_id, descendant_id, depth, created_on) "
+            + "SELECT ancestor_id, ?, depth + 1, ? FROM account_closure WHERE descendant_id = ? "
+            + "UNION ALL SELECT ?, ?, 0, ?";
+
+    // Cut every path that enters the subtree from outside it; paths inside the subtree stay
+    private static final String DETACH_SUBTREE =
+            "DELETE c FROM account_closure c "
+            + "JOIN account_closure sub ON sub.descendant_id = c.descendant_id AND sub.ancestor_id = ? "
+            + "LEFT JOIN account_closure inside ON inside.ancestor_id = ? AND inside.descendant_id = c.ancestor_id "
+            + "WHERE inside.ancestor_id IS NULL";
+
+    private static final String GRAFT_SUBTREE =
+            "INSERT INTO account_closure (ancestor_id, descendant_id, depth, created_on) "
+            + "SELECT above.ancestor_id, sub.descendant_id, above.depth + sub.depth + 1, ? "
+            + "FROM account_closure above JOIN account_closure sub "
+            + "ON above.descendant_id = ? AND sub.ancestor_id = ?";
+
+    private static final String DELETE_SUBTREE =
+            "DELETE c FROM account_closure c JOIN account_closure sub "
+            + "ON sub.descendant_id = c.descendant_id AND sub.ancestor_id = ?";
+
+    private static final String RECORD_CHANGE =
+            "INSERT INTO account_closure_changes (account_id, created_on) VALUES (?, NOW(3))";
+
+    private static final String RECENT_CHANGES =
+            "SELECT id, account_id FROM account_closure_changes WHERE created_on >= NOW(3) - INTERVAL ? SECOND";
+
+    private static final String PURGE_CHANGES =
+            "DELETE FROM account_closure_changes WHERE created_on < NOW(3) - INTERVAL ? SECOND LIMIT 1000";
+
+    // Stops runaway recursion when the account table's parent column has a cycle
+    private static final int MAX_DEPTH = 32;
+
+    private static final String SUBTREE_BALANCES =
+            "SELECT COUNT(*) AS accounts, "
+            + "COALESCE(SUM(uc.current_balance + COALESCE(s.balance, 0)), 0) AS current_balance, "
+            + "COALESCE(SUM(uc.reserved_balance), 0) AS reserved_balance, "
+            + "COALESCE(SUM(uc.total_purchased), 0) AS total_purchased, "
+            + "COALESCE(SUM(uc.total_consumed), 0) AS total_consumed "
+            + "FROM account_closure c JOIN user_credits uc ON uc.account_id = c.descendant_id "
+            + "LEFT JOIN (SELECT account_id, SUM(balance) AS balance FROM credit_balance_stripes GROUP BY account_id) s "
+            + "ON s.account_id = uc.account_id "
+            + "WHERE c.ancestor_id = ?";
+
+    private static final String SUBTREE_CONSUMPTION =
+            "SELECT COALESCE(SUM(t.amount), 0) FROM account_closure c "
+            + "JOIN credit_transactions t ON t.account_id = c.descendant_id "
+            + "WHERE c.ancestor_id = ? AND t.transaction_type = 'CONSUMPTION' AND t.created_on >= ? AND t.created_on < ?";
+
+    private static final class CachedAncestors {
+        final long[] ancestors;
+        final long loadedAt;
+
+        CachedAncestors(long[] ancestors, long loadedAt) {
+            this.ancestors = ancestors;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CreditEngineProperties.Hierarchy config;
+    private final Map<Long, CachedAncestors> ancestorCache = new ConcurrentHashMap<>();
+    // account_closure_changes ids inside the poll window that were already applied here
+    private final Set<Long> seenChanges = ConcurrentHashMap.newKeySet();
+
+    public AccountHierarchyService(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   CreditEngineProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = properties.getHierarchy();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        if (!config.isSeedOnStartup()) {
+            return;
+        }
+        Long rows = jdbcTemplate.queryForObject(COUNT_CLOSURE, Long.class);
+        if (rows != null && rows > 0) {
+            syncWithAccounts();
+            return;
+        }
+        try {
+            logger.info("Seeded account_closure with {} rows from {}", rebuild(), config.getAccountTable());
+        } catch (RuntimeException e) {
+            logger.error("Could not seed account_closure from {}.{}: {}", config.getAccountTable(),
+                    config.getParentIdColumn(), e.getMessage());
+        }
+    }
+
+    /**
+     * Bring account_closure in line with the account table: attach accounts that have no closure rows
+     * (parents before children) and move accounts whose parent column no longer matches their closure
+     * parent. Also drops change records that no instance needs any more.
+     */
+    @Scheduled(fixedDelayString = "${app.credit.hierarchy.sync-interval-ms:60000}",
+            initialDelayString = "${app.credit.hierarchy.sync-interval-ms:60000}")
+    public void syncWithAccounts() {
+        String table = config.getAccountTable();
+        String id = config.getAccountIdColumn();
+        String parent = config.getParentIdColumn();
+        int attached = 0;
+        int moved = 0;
+        try {
+            // Each pass attaches one more level, since a child needs its parent's rows first
+            String missing = "SELECT a." + id + " AS id, a." + parent + " AS parent_id FROM " + table + " a "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM account_closure s WHERE s.ancestor_id = a." + id
+                    + " AND s.descendant_id = a." + id + ") AND (a." + parent + " IS NULL OR EXISTS "
+                    + "(SELECT 1 FROM account_closure p WHERE p.ancestor_id = a." + parent
+                    + " AND p.descendant_id = a." + parent + "))";
+            for (int pass = 0; pass < MAX_DEPTH; pass++) {
+                int attachedThisPass = 0;
+                for (Map<String, Object> row : jdbcTemplate.queryForList(missing)) {
+                    Long accountId = ((Number) row.get("id")).longValue();
+                    Long parentId = row.get("parent_id") != null ? ((Number) row.get("parent_id")).longValue() : null;
+                    if (syncOne(() -> attach(accountId, parentId), accountId)) {
+                        attachedThisPass++;
+                    }
+                }
+                if (attachedThisPass == 0) {
+                    break;
+                }
+                attached += attachedThisPass;
+            }
+
+            String reparented = "SELECT a." + id + " AS id, a." + parent + " AS parent_id FROM " + table + " a "
+                    + "JOIN account_closure s ON s.ancestor_id = a." + id + " AND s.descendant_id = a." + id + " "
+                    + "LEFT JOIN account_closure up ON up.descendant_id = a." + id + " AND up.depth = 1 "
+                    + "WHERE NOT (up.ancestor_id <=> a." + parent + ") AND (a." + parent + " IS NULL OR EXISTS "
+                    + "(SELECT 1 FROM account_closure p WHERE p.ancestor_id = a." + parent
+                    + " AND p.descendant_id = a." + parent + "))";
+            for (Map<String, Object> row : jdbcTemplate.queryForList(reparented)) {
+                Long accountId = ((Number) row.get("id")).longValue();
+                Long parentId = row.get("parent_id") != null ? ((Number) row.get("parent_id")).longValue() : null;
+                if (syncOne(() -> move(accountId, parentId), accountId)) {
+                    moved++;
+                }
+            }
+            jdbcTemplate.update(PURGE_CHANGES, 2 * changeWindowSeconds());
+        } catch (RuntimeException e) {
+            logger.error("Could not sync account_closure with {}: {}", table, e.getMessage());
+        }
+        if (attached > 0 || moved > 0) {
+            logger.info("Synced account_closure with {}: {} accounts attached, {} moved", table, attached, moved);
+        }
+    }
+
+    /**
+     * Evict the ancestor chains of accounts whose place in the tree changed on any instance.
+     */
+    @Scheduled(fixedDelayString = "${app.credit.hierarchy.invalidation-poll-ms:2000}")
+    public void pollChanges() {
+        if (ancestorCache.isEmpty() && seenChanges.isEmpty()) {
+            return;
+        }
+        Set<Long> inWindow = new HashSet<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(RECENT_CHANGES, changeWindowSeconds())) {
+            Long changeId = ((Number) row.get("id")).longValue();
+            inWindow.add(changeId);
+            if (seenChanges.add(changeId)) {
+                Object accountId = row.get("account_id");
+                if (accountId == null) {
+                    ancestorCache.clear();
+                } else {
+                    ancestorCache.remove(((Number) accountId).longValue());
+                }
+            }
+        }
+        seenChanges.retainAll(inWindow);
+    }
+
+    /**
+     * Rebuild the closure table from the account table. Meant for seeding and repair, not for routine use.
+     */
+    @Transactional
+    public int rebuild() {
+        String table = config.getAccountTable();
+        String id = config.getAccountIdColumn();
+        String parent = config.getParentIdColumn();
+        jdbcTemplate.update("DELETE FROM account_closure");
+        int rows = jdbcTemplate.update("INSERT INTO account_closure (ancestor_id, descendant_id, depth, created_on) "
+                + "WITH RECURSIVE tree (ancestor_id, descendant_id, depth) AS ("
+                + "SELECT " + id + ", " + id + ", 0 FROM " + table + " "
+                + "UNION ALL SELECT tree.ancestor_id, a." + id + ", tree.depth + 1 "
+                + "FROM tree JOIN " + table + " a ON a." + parent + " = tree.descendant_id) "
+                + "SELECT ancestor_id, descendant_id, depth, ? FROM tree", new Timestamp(System.currentTimeMillis()));
+        jdbcTemplate.update(RECORD_CHANGE, (Object) null);
+        AfterCommit.run(ancestorCache::clear);
+        return rows;
+    }
+
+    /**
+     * Ancestors of an account, nearest first; empty for a root or an unknown account.
+     */
+    public long[] ancestors(Long accountId) {
+        CachedAncestors cached = ancestorCache.get(accountId);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.loadedAt < config.getCacheTtlMs()) {
+            return cached.ancestors.clone();
+        }
+        List<Long> ids = jdbcTemplate.queryForList(ANCESTORS, Long.class, accountId);
+        long[] ancestors = ids.isEmpty() ? NO_ANCESTORS : ids.stream().mapToLong(Long::longValue).toArray();
+        if (ancestorCache.size() >= config.getCacheSize()) {
+            // Chains are cheap to reload; a full clear keeps the cache bounded without LRU bookkeeping
+            ancestorCache.clear();
+        }
+        ancestorCache.put(accountId, new CachedAncestors(ancestors, now));
+        return ancestors.clone();
+    }
+
+    public Long parentOf(Long accountId) {
+        long[] ancestors = ancestors(accountId);
+        return ancestors.length == 0 ? null : ancestors[0];
+    }
+
+    /**
+     * True when {@code ancestorId} is strictly above {@code accountId} in the tree. For an account the
+     * closure table does not know yet, the account table's parent column is followed instead.
+     */
+    public boolean isAncestor(Long ancestorId, Long accountId) {
+        if (ancestorId == null || accountId == null || ancestorId.equals(accountId)) {
+            return false;
+        }
+        if (contains(ancestors(accountId), ancestorId)) {
+            return true;
+        }
+        if (isInHierarchy(accountId)) {
+            return false;
+        }
+        Long current = accountId;
+        for (int depth = 0; depth < MAX_DEPTH && current != null; depth++) {
+            current = parentFromAccounts(current);
+            if (ancestorId.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True when the account has closure rows, i.e. its place in the tree is known.
+     */
+    public boolean isInHierarchy(Long accountId) {
+        return accountId != null && count(IS_IN_CLOSURE, accountId, accountId) > 0;
+    }
+
+    /**
+     * Descendants of an account down to {@code maxDepth} levels, shallowest first.
+     */
+    public List<Long> descendants(Long accountId, int maxDepth) {
+        return jdbcTemplate.queryForList(DESCENDANTS, Long.class, accountId, maxDepth);
+    }
+
+    public List<Long> descendants(Long accountId) {
+        return descendants(accountId, Integer.MAX_VALUE);
+    }
+
+    public SubtreeCreditSummary subtreeBalances(Long accountId) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(SUBTREE_BALANCES, accountId);
+        return new SubtreeCreditSummary(accountId, ((Number) row.get("accounts")).intValue(),
+                CreditAmount.columnToMinor(row.get("current_balance")),
+                CreditAmount.columnToMinor(row.get("reserved_balance")),
+                CreditAmount.columnToMinor(row.get("total_purchased")),
+                CreditAmount.columnToMinor(row.get("total_consumed")));
+    }
+
+    /**
+     * Credits consumed by an account and everything below it in [from, to).
+     */
+    public long subtreeConsumptionMinor(Long accountId, Date from, Date to) {
+        return CreditAmount.columnToMinor(jdbcTemplate.queryForObject(SUBTREE_CONSUMPTION, BigDecimal.class, accountId,
+                new Timestamp(from.getTime()), new Timestamp(to.getTime())));
+    }
+
+    /**
+     * Add a new account under {@code parentId} (null for a root).
+     */
+    @Transactional
+    public void attach(Long accountId, Long parentId) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        if (parentId != null && count(IS_IN_CLOSURE, parentId, parentId) == 0) {
+            throw new CreditOperationException(accountId, "Parent account " + parentId + " is not in the hierarchy");
+        }
+        // With no parent the first branch selects nothing and only the self row is inserted
+        jdbcTemplate.update(ATTACH, accountId, now, parentId, accountId, accountId, now);
+        recordChanges(List.of(accountId));
+        AfterCommit.run(() -> ancestorCache.remove(accountId));
+    }
+
+    /**
+     * Re-parent an account together with its whole subtree.
+     */
+    @Transactional
+    public void move(Long accountId, Long newParentId) {
+        if (newParentId != null && (newParentId.equals(accountId) || count(IS_IN_CLOSURE, accountId, newParentId) > 0)) {
+            throw new CreditOperationException(accountId, "Account " + accountId
+                    + " cannot be moved under its own descendant " + newParentId);
+        }
+        List<Long> subtree = jdbcTemplate.queryForList(SUBTREE, Long.class, accountId);
+        jdbcTemplate.update(DETACH_SUBTREE, accountId, accountId);
+        if (newParentId != null) {
+            jdbcTemplate.update(GRAFT_SUBTREE, new Timestamp(System.currentTimeMillis()), newParentId, accountId);
+        }
+        recordChanges(subtree);
+        AfterCommit.run(() -> evict(subtree));
+        logger.info("Moved account {} and {} descendants under {}", accountId, subtree.size() - 1, newParentId);
+    }
+
+    /**
+     * Remove an account and its whole subtree from the hierarchy, returning the removed ids (the account
+     * first) so the caller can cascade its own deletes.
+     */
+    @Transactional
+    public List<Long> detach(Long accountId) {
+        List<Long> subtree = jdbcTemplate.queryForList(
+                "SELECT descendant_id FROM account_closure WHERE ancestor_id = ? ORDER BY depth", Long.class, accountId);
+        jdbcTemplate.update(DELETE_SUBTREE, accountId);
+        recordChanges(subtree);
+        AfterCommit.run(() -> evict(subtree));
+        return subtree;
+    }
+
+    // Parent of an account per the account table, null for a root or an unknown account
+    private Long parentFromAccounts(Long accountId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT " + config.getParentIdColumn()
+                + " AS parent_id FROM " + config.getAccountTable() + " WHERE " + config.getAccountIdColumn() + " = ?",
+                accountId);
+        Object parent = rows.isEmpty() ? null : rows.get(0).get("parent_id");
+        return parent != null ? ((Number) parent).longValue() : null;
+    }
+
+    private boolean syncOne(Runnable change, Long accountId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> change.run());
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Another instance synced it first
+            return false;
+        } catch (RuntimeException e) {
+            logger.warn("Could not sync account {} into account_closure: {}", accountId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void recordChanges(Collection<Long> accountIds) {
+        List<Object[]> rows = new ArrayList<>(accountIds.size());
+        for (Long accountId : accountIds) {
+            rows.add(new Object[] { accountId });
+        }
+        jdbcTemplate.batchUpdate(RECORD_CHANGE, rows);
+    }
+
+    // Changes older than the cache TTL need no eviction, the entries they affect have expired already
+    private long changeWindowSeconds() {
+        return Math.max(1L, (config.getCacheTtlMs() + 999) / 1000);
+    }
+
+    private static boolean contains(long[] ids, long id) {
+        for (long candidate : ids) {
+            if (candidate == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evict(Collection<Long> accountIds) {
+        accountIds.forEach(ancestorCache::remove);
+    }
+
+    private int count(String sql, Object... args) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,231 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.model.credit.AllocationStatus;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.util.AfterCommit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which allocations a consumption draws from, oldest first (FIFO) or soonest-expiring first
+ * (FEFO), and keeps each allocation's remaining/consumed amounts in step.
+ *
+ * The active allocations of each receiving account are held in memory as an ordered set, loaded once
+ * per account through the (to_account_id, status, ...) indexes. A drawdown walks that set for just
+ * enough allocations to cover the amount, locks those rows, re-checks them and writes every share in
+ * one JDBC batch; an allocation that reaches zero flips to FULLY_CONSUMED in the same statement. The
+ * in-memory set follows after commit. If the locked rows disagree with the cached amounts (another
+ * instance drew from them) the account is reloaded and the plan redone once.
+ */
+@Service
+public class AllocationDrawdownService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AllocationDrawdownService.class);
+
+    private static final String LOAD_ACTIVE =
+            "SELECT id, allocation_id, remaining_amount, allocated_on, expires_on FROM credit_allocations "
+            + "WHERE to_account_id = ? AND status = 'ACTIVE' AND remaining_amount > 0";
+
+    private static final String ORDER_FIFO = " ORDER BY allocated_on, id";
+
+    private static final String ORDER_FEFO = " ORDER BY expires_on IS NULL, expires_on, allocated_on, id";
+
+    private static final String LOCK_ALLOCATIONS =
+            "SELECT id, remaining_amount, status FROM credit_allocations WHERE id IN (:ids) FOR UPDATE";
+
+    // status is assigned first so it sees remaining_amount before this draw
+    private static final String DRAW =
+            "UPDATE credit_allocations SET status = CASE WHEN remaining_amount <= ? THEN 'FULLY_CONSUMED' ELSE status END, "
+            + "remaining_amount = remaining_amount - ?, consumed_amount = consumed_amount + ?, modified_on = ? WHERE id = ?";
+
+    private static final class Slot {
+        final long id;
+        final String allocationId;
+        final Date allocatedOn;
+        final Date expiresOn;
+        long remaining;
+
+        Slot(long id, String allocationId, Date allocatedOn, Date expiresOn, long remaining) {
+            this.id = id;
+            this.allocationId = allocationId;
+            this.allocatedOn = allocatedOn;
+            this.expiresOn = expiresOn;
+            this.remaining = remaining;
+        }
+
+        boolean isExpired(long now) {
+            return expiresOn != null && expiresOn.getTime() <= now;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final CreditEngineProperties.Drawdown config;
+    private final Map<Long, TreeSet<Slot>> indexes = new ConcurrentHashMap<>();
+
+    public AllocationDrawdownService(JdbcTemplate jdbcTemplate, CreditEngineProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.config = properties.getDrawdown();
+    }
+
+    /**
+     * Split {@code amountMinor} of consumption by {@code accountId} over its active allocations, in the
+     * caller's transaction.
+     */
+    public DrawdownResult drawdown(Long accountId, long amountMinor) {
+        if (!config.isEnabled() || amountMinor <= 0) {
+            return new DrawdownResult(accountId, List.of(), Math.max(amountMinor, 0L));
+        }
+        for (int attempt = 1; ; attempt++) {
+            TreeSet<Slot> index = index(accountId);
+            List<Slot> planned = plan(index, amountMinor);
+            if (planned.isEmpty()) {
+                return new DrawdownResult(accountId, List.of(), amountMinor);
+            }
+
+            Map<Long, Object[]> locked = lock(planned);
+            boolean stale = false;
+            for (Slot slot : planned) {
+                Object[] row = locked.get(slot.id);
+                if (row == null || !AllocationStatus.ACTIVE.name().equals(row[1]) || (long) row[0] != slot.remaining) {
+                    stale = true;
+                    break;
+                }
+            }
+            if (stale && attempt == 1) {
+                indexes.remove(accountId);
+                continue;
+            }
+            return apply(accountId, index, planned, locked, amountMinor);
+        }
+    }
+
+    /**
+     * Forget an account's cached allocations, e.g. after a new allocation to it or a revoke.
+     */
+    public void invalidate(Long accountId) {
+        AfterCommit.run(() -> indexes.remove(accountId), () -> indexes.remove(accountId));
+    }
+
+    private DrawdownResult apply(Long accountId, TreeSet<Slot> index, List<Slot> planned,
+                                 Map<Long, Object[]> locked, long amountMinor) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        long left = amountMinor;
+        List<DrawdownResult.Draw> draws = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        Map<Slot, Long> taken = new HashMap<>();
+        for (Slot slot : planned) {
+            Object[] row = locked.get(slot.id);
+            if (left == 0 || row == null || !AllocationStatus.ACTIVE.name().equals(row[1])) {
+                continue;
+            }
+            long remaining = (long) row[0];
+            long take = Math.min(remaining, left);
+            if (take <= 0) {
+                continue;
+            }
+            BigDecimal amount = CreditAmount.toBigDecimal(take);
+            rows.add(new Object[] { amount, amount, amount, now, slot.id });
+            draws.add(new DrawdownResult.Draw(slot.allocationId, take, take == remaining));
+            taken.put(slot, remaining - take);
+            left -= take;
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(DRAW, rows);
+        }
+        AfterCommit.run(() -> {
+            synchronized (index) {
+                taken.forEach((slot, remaining) -> {
+                    index.remove(slot);
+                    if (remaining > 0) {
+                        slot.remaining = remaining;
+                        index.add(slot);
+                    }
+                });
+            }
+        }, () -> indexes.remove(accountId));
+        logger.debug("Drew {} for account {} from {} allocations, {} uncovered",
+                CreditAmount.toBigDecimal(amountMinor - left), accountId, draws.size(), CreditAmount.toBigDecimal(left));
+        return new DrawdownResult(accountId, draws, left);
+    }
+
+    /**
+     * Leading allocations of the index whose cached remaining covers the amount (or all of them).
+     */
+    private List<Slot> plan(TreeSet<Slot> index, long amountMinor) {
+        long now = System.currentTimeMillis();
+        List<Slot> planned = new ArrayList<>();
+        long covered = 0L;
+        synchronized (index) {
+            for (Slot slot : index) {
+                if (covered >= amountMinor) {
+                    break;
+                }
+                if (slot.isExpired(now)) {
+                    continue;
+                }
+                planned.add(slot);
+                covered += slot.remaining;
+            }
+        }
+        return planned;
+    }
+
+    private Map<Long, Object[]> lock(List<Slot> planned) {
+        List<Long> ids = planned.stream().map(slot -> slot.id).toList();
+        Map<Long, Object[]> locked = new HashMap<>();
+        for (Map<String, Object> row : namedJdbcTemplate.queryForList(LOCK_ALLOCATIONS,
+                new MapSqlParameterSource("ids", ids))) {
+            locked.put(((Number) row.get("id")).longValue(), new Object[] {
+                    CreditAmount.toMinor((BigDecimal) row.get("remaining_amount")), row.get("status") });
+        }
+        return locked;
+    }
+
+    private TreeSet<Slot> index(Long accountId) {
+        TreeSet<Slot> index = indexes.get(accountId);
+        if (index != null) {
+            return index;
+        }
+        TreeSet<Slot> loaded = new TreeSet<>(comparator());
+        boolean fefo = config.getPolicy() == CreditEngineProperties.DrawdownPolicy.FEFO;
+        jdbcTemplate.query(LOAD_ACTIVE + (fefo ? ORDER_FEFO : ORDER_FIFO), rs -> {
+            loaded.add(new Slot(rs.getLong("id"), rs.getString("allocation_id"), rs.getTimestamp("allocated_on"),
+                    rs.getTimestamp("expires_on"), CreditAmount.toMinor(rs.getBigDecimal("remaining_amount"))));
+        }, accountId);
+        if (indexes.size() >= config.getCacheSize()) {
+            // Reloading one account is a single indexed query, so a full clear is a fine bound
+            indexes.clear();
+        }
+        TreeSet<Slot> existing = indexes.putIfAbsent(accountId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private Comparator<Slot> comparator() {
+        Comparator<Slot> fifo = Comparator.comparing((Slot slot) -> slot.allocatedOn,
+                Comparator.nullsLast(Comparator.naturalOrder())).thenComparingLong(slot -> slot.id);
+        if (config.getPolicy() == CreditEngineProperties.DrawdownPolicy.FIFO) {
+            return fifo;
+        }
+        return Comparator.comparing((Slot slot) -> slot.expiresOn, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(fifo);
+    }
+}
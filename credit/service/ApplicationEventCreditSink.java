@@ -0,0 +1,24 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hands relayed credit events to in-process {@code @EventListener(CreditEvent.class)} methods. The
+ * listeners run on the relay thread, after the ledger transaction has committed, instead of inside
+ * the request that moved the credit.
+ */
+@Service
+public class ApplicationEventCreditSink implements CreditEventSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ApplicationEventCreditSink(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void publish(CreditEvent event) {
+        eventPublisher.publishEvent(event);
+    }
+}
@@ -0,0 +1,52 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.util.CreditCaller;
+
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Which credit accounts a caller may act for: its own account and every account below it in the
+ * hierarchy. Callers with the CREDIT_SERVICE role act for any account, since internal jobs such as the
+ * doc service's lease keeper renew holds across all accounts.
+ */
+@Service
+public class CreditAccessPolicy {
+
+    private final AccountHierarchyService hierarchyService;
+
+    public CreditAccessPolicy(AccountHierarchyService hierarchyService) {
+        this.hierarchyService = hierarchyService;
+    }
+
+    /**
+     * The account a call acts for: {@code accountId} when the caller may act for it, the caller's own
+     * account when none is named.
+     */
+    public Long resolve(CreditCaller caller, Long accountId) {
+        if (accountId == null) {
+            return caller.getAccountId();
+        }
+        check(caller, accountId);
+        return accountId;
+    }
+
+    /**
+     * Account filter for lookups by reservation id: like {@link #resolve}, except that a service caller
+     * naming no account gets null, meaning rows of any account.
+     */
+    public Long scope(CreditCaller caller, Long accountId) {
+        if (accountId == null && caller.isService()) {
+            return null;
+        }
+        return resolve(caller, accountId);
+    }
+
+    public void check(CreditCaller caller, Long accountId) {
+        if (caller.isService() || caller.getAccountId().equals(accountId)
+                || hierarchyService.isAncestor(caller.getAccountId(), accountId)) {
+            return;
+        }
+        throw new AccessDeniedException("Account " + caller.getAccountId() + " may not act for account " + accountId);
+    }
+}
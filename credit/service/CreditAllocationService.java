@@ -0,0 +1,148 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.exception.CreditOperationException;
+import com.code.aplusbinary.accountmanagement.model.credit.AllocationStatus;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.util.IdGenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Move credit from a parent account to a child account and record the allocation.
+ *
+ * The parent side is an ALLOCATE_OUT debit: through {@link StripedBalanceService} when the parent is
+ * striped, otherwise the usual guarded update in {@link CreditMutationEngine}. The child side is an
+ * ALLOCATE_IN credit on its own row. Both rows are touched in account-id order so two opposite
+ * allocations between the same pair of accounts cannot deadlock on each other.
+ */
+@Service
+public class CreditAllocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditAllocationService.class);
+
+    private static final String INSERT_ALLOCATION =
+            "INSERT INTO credit_allocations (allocation_id, from_account_id, to_account_id, allocated_amount, "
+            + "remaining_amount, consumed_amount, returned_amount, status, allocated_on, expires_on, notes, created_on, "
+            + "modified_on) VALUES (?, ?, ?, ?, ?, 0, 0, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CreditMutationEngine mutationEngine;
+    private final StripedBalanceService stripedBalanceService;
+    private final AccountHierarchyService hierarchyService;
+    private final AllocationDrawdownService drawdownService;
+    private final IdGenerator idGenerator;
+
+    public CreditAllocationService(JdbcTemplate jdbcTemplate,
+                                   CreditMutationEngine mutationEngine,
+                                   StripedBalanceService stripedBalanceService,
+                                   AccountHierarchyService hierarchyService,
+                                   AllocationDrawdownService drawdownService,
+                                   IdGenerator idGenerator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mutationEngine = mutationEngine;
+        this.stripedBalanceService = stripedBalanceService;
+        this.hierarchyService = hierarchyService;
+        this.drawdownService = drawdownService;
+        this.idGenerator = idGenerator;
+    }
+
+    public static class AllocationResult {
+        private final String allocationId;
+        private final Long fromAccountId;
+        private final Long toAccountId;
+        private final long amount;
+        private final boolean striped;
+
+        AllocationResult(String allocationId, Long fromAccountId, Long toAccountId, long amount, boolean striped) {
+            this.allocationId = allocationId;
+            this.fromAccountId = fromAccountId;
+            this.toAccountId = toAccountId;
+            this.amount = amount;
+            this.striped = striped;
+        }
+
+        public String getAllocationId() {
+            return allocationId;
+        }
+
+        public Long getFromAccountId() {
+            return fromAccountId;
+        }
+
+        public Long getToAccountId() {
+            return toAccountId;
+        }
+
+        public BigDecimal getAmount() {
+            return CreditAmount.toBigDecimal(amount);
+        }
+
+        public boolean isStriped() {
+            return striped;
+        }
+    }
+
+    @Transactional
+    public AllocationResult allocate(Long fromAccountId, Long toAccountId, BigDecimal amount, String notes) {
+        return allocate(fromAccountId, toAccountId, amount, null, notes);
+    }
+
+    /**
+     * Allocate credit that the child should use up by {@code expiresOn} (null for no expiry); under the
+     * FEFO drawdown policy the child's consumption draws from it before allocations that expire later.
+     */
+    @Transactional
+    public AllocationResult allocate(Long fromAccountId, Long toAccountId, BigDecimal amount, Date expiresOn,
+                                     String notes) {
+        if (fromAccountId == null || toAccountId == null || fromAccountId.equals(toAccountId)) {
+            throw new IllegalArgumentException("Allocation needs two different accounts");
+        }
+        if (!hierarchyService.isAncestor(fromAccountId, toAccountId)) {
+            throw new CreditOperationException(fromAccountId, "Account " + fromAccountId
+                    + " can only allocate to accounts below it, not to " + toAccountId);
+        }
+        String allocationId = idGenerator.nextId("ALC-");
+        CreditMutation out = CreditMutation.of(fromAccountId, CreditOperation.ALLOCATE_OUT, amount)
+                .reference(allocationId, "ALLOCATION")
+                .description("Allocated to account " + toAccountId);
+        CreditMutation in = CreditMutation.ofMinor(toAccountId, CreditOperation.ALLOCATE_IN, out.getAmountMinor())
+                .reference(allocationId, "ALLOCATION")
+                .description("Allocated from account " + fromAccountId);
+
+        boolean striped = stripedBalanceService.isStriped(fromAccountId);
+        if (fromAccountId < toAccountId) {
+            debitParent(out, striped);
+            mutationEngine.applyGrouped(List.of(in));
+        } else {
+            mutationEngine.applyGrouped(List.of(in));
+            debitParent(out, striped);
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        BigDecimal allocated = CreditAmount.toBigDecimal(out.getAmountMinor());
+        jdbcTemplate.update(INSERT_ALLOCATION, allocationId, fromAccountId, toAccountId, allocated, allocated,
+                AllocationStatus.ACTIVE.name(), now, expiresOn != null ? new Timestamp(expiresOn.getTime()) : null,
+                notes, now, now);
+        drawdownService.invalidate(toAccountId);
+        logger.debug("Allocated {} from account {} to {} ({}, striped={})",
+                allocated, fromAccountId, toAccountId, allocationId, striped);
+        return new AllocationResult(allocationId, fromAccountId, toAccountId, out.getAmountMinor(), striped);
+    }
+
+    private void debitParent(CreditMutation out, boolean striped) {
+        if (striped) {
+            stripedBalanceService.debit(List.of(out));
+        } else {
+            mutationEngine.applyGrouped(List.of(out));
+        }
+    }
+}
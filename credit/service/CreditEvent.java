@@ -0,0 +1,83 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.model.credit.TransactionType;
+
+import java.math.BigDecimal;
+
+/**
+ * A committed credit movement as relayed from the outbox. Delivery is at least once, so consumers
+ * should ignore event ids they have already handled; events of one account arrive in commit order.
+ */
+public class CreditEvent {
+
+    private final long eventId;
+    private final Long accountId;
+    private final String transactionId;
+    private final TransactionType transactionType;
+    private final long amount;
+    private final String reservationId;
+    private final String referenceId;
+    private final String referenceType;
+    private final Long packagePurchaseId;
+    private final long createdOn;
+
+    CreditEvent(long eventId, Long accountId, String transactionId, TransactionType transactionType, long amount,
+                String reservationId, String referenceId, String referenceType, Long packagePurchaseId,
+                long createdOn) {
+        this.eventId = eventId;
+        this.accountId = accountId;
+        this.transactionId = transactionId;
+        this.transactionType = transactionType;
+        this.amount = amount;
+        this.reservationId = reservationId;
+        this.referenceId = referenceId;
+        this.referenceType = referenceType;
+        this.packagePurchaseId = packagePurchaseId;
+        this.createdOn = createdOn;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public BigDecimal getAmount() {
+        return CreditAmount.toBigDecimal(amount);
+    }
+
+    public long getAmountMinor() {
+        return amount;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public String getReferenceId() {
+        return referenceId;
+    }
+
+    public String getReferenceType() {
+        return referenceType;
+    }
+
+    public Long getPackagePurchaseId() {
+        return packagePurchaseId;
+    }
+
+    public long getCreatedOn() {
+        return createdOn;
+    }
+}
@@ -0,0 +1,18 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+/**
+ * Destination of relayed credit events. Every sink bean receives every event, in id order per
+ * account. A sink that throws holds back the later events of the failing event's account until a
+ * retry succeeds or the event is parked; events may therefore be delivered again, to this sink and to
+ * the others.
+ */
+public interface CreditEventSink {
+
+    void publish(CreditEvent event) throws Exception;
+
+    /**
+     * Called once the relay has handed over a batch, before the batch is marked published.
+     */
+    default void flush() throws Exception {
+    }
+}
@@ -0,0 +1,235 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationMode;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseResponse;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseSettleRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.ReservationOutcome;
+import com.code.aplusbinary.accountmanagement.exception.CreditOperationException;
+import com.code.aplusbinary.accountmanagement.exception.InsufficientCreditException;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.model.credit.ReservationStatus;
+import com.code.aplusbinary.accountmanagement.util.CreditCaller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Credit leases: one reservation holding a block of credit that a client (the doc service) debits
+ * locally and settles in arrears. A lease is an ordinary RESERVED hold with reference type
+ * CREDIT_LEASE, so the expiry wheel returns it if the client disappears; settlement consumes part of
+ * the hold, renews the lease and, on release, hands back what is left.
+ *
+ * Settlements carry the cumulative consumed total rather than a delta, so a retried call after a
+ * lost response is a no-op. Usage reported after the hold has expired or been released is still
+ * charged, straight against the available balance.
+ */
+@Service
+public class CreditLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditLeaseService.class);
+
+    public static final String LEASE_REFERENCE_TYPE = "CREDIT_LEASE";
+
+    private static final String LOCK_LEASE =
+            "SELECT reservation_id, account_id, reserved_amount, consumed_amount, status, reference_type, expires_on "
+            + "FROM credit_reservations WHERE reservation_id = ? AND (? IS NULL OR account_id = ?) FOR UPDATE";
+
+    private static final String UPDATE_LEASE =
+            "UPDATE credit_reservations SET reserved_amount = ?, consumed_amount = ?, status = ?, expires_on = ?, "
+            + "confirmed_on = COALESCE(?, confirmed_on), released_on = COALESCE(?, released_on), modified_on = ? "
+            + "WHERE reservation_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CreditMutationEngine mutationEngine;
+    private final CreditReservationBatchService batchService;
+    private final ReservationExpiryService expiryService;
+    private final AllocationDrawdownService drawdownService;
+    private final CreditAccessPolicy accessPolicy;
+    private final CreditEngineProperties properties;
+
+    public CreditLeaseService(JdbcTemplate jdbcTemplate,
+                              CreditMutationEngine mutationEngine,
+                              CreditReservationBatchService batchService,
+                              ReservationExpiryService expiryService,
+                              AllocationDrawdownService drawdownService,
+                              CreditAccessPolicy accessPolicy,
+                              CreditEngineProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mutationEngine = mutationEngine;
+        this.batchService = batchService;
+        this.expiryService = expiryService;
+        this.drawdownService = drawdownService;
+        this.accessPolicy = accessPolicy;
+        this.properties = properties;
+    }
+
+    /**
+     * Grant a lease to request.accountId, or to the caller's own account when it names none.
+     */
+    @Transactional
+    public CreditLeaseResponse grant(CreditLeaseRequest request, CreditCaller caller) {
+        Long accountId = accessPolicy.resolve(caller, request.getAccountId());
+        long wanted = toMinor(request.getAmount(), "amount");
+        if (wanted <= 0) {
+            throw new IllegalArgumentException("Lease amount must be positive");
+        }
+        long minimum = request.getMinAmount() != null
+                ? Math.min(toMinor(request.getMinAmount(), "minAmount"), wanted)
+                : wanted;
+
+        // Lock first so a partial grant is sized against a balance nobody else can move
+        long available = mutationEngine.lockAvailableMinor(accountId);
+        long granted = Math.min(wanted, available);
+        if (granted <= 0 || granted < minimum) {
+            throw new InsufficientCreditException(accountId, CreditAmount.toBigDecimal(minimum),
+                    CreditAmount.toBigDecimal(Math.max(available, 0L)));
+        }
+
+        BatchReservationRequest.Item item = new BatchReservationRequest.Item();
+        item.setAmount(CreditAmount.toBigDecimal(granted));
+        item.setReferenceId(request.getReferenceId());
+        item.setReferenceType(LEASE_REFERENCE_TYPE);
+        item.setNotes("Credit lease");
+        BatchReservationRequest reservation = new BatchReservationRequest();
+        reservation.setAccountId(accountId);
+        reservation.setMode(BatchReservationMode.ALL_OR_NOTHING);
+        reservation.setTtlSeconds(ttlSeconds(request.getTtlSeconds()));
+        reservation.setItems(List.of(item));
+
+        ReservationOutcome outcome = batchService.reserve(accountId, reservation).getOutcomes().get(0);
+        CreditLeaseResponse response = new CreditLeaseResponse(outcome.getReservationId(), accountId,
+                outcome.getAmount(), BigDecimal.ZERO.setScale(CreditAmount.SCALE), outcome.getStatus());
+        response.setExpiresOn(outcome.getExpiresOn());
+        logger.info("Granted credit lease {} of {} (asked {}) to account {}", outcome.getReservationId(),
+                outcome.getAmount(), request.getAmount(), accountId);
+        return response;
+    }
+
+    /**
+     * Settle a lease of request.accountId (the caller's own account when absent); a lease of any other
+     * account reads as not found.
+     */
+    @Transactional
+    public CreditLeaseResponse settle(CreditLeaseSettleRequest request, CreditCaller caller) {
+        String reservationId = request.getReservationId();
+        long consumedTotal = toMinor(request.getConsumedTotal(), "consumedTotal");
+        if (reservationId == null || consumedTotal < 0) {
+            throw new IllegalArgumentException("reservationId and a non-negative consumedTotal are required");
+        }
+        Long scope = accessPolicy.scope(caller, request.getAccountId());
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(LOCK_LEASE, reservationId, scope, scope);
+        if (rows.isEmpty()) {
+            throw new CreditOperationException(null, "Reservation " + reservationId + " not found");
+        }
+        Map<String, Object> row = rows.get(0);
+        if (!LEASE_REFERENCE_TYPE.equals(row.get("reference_type"))) {
+            throw new IllegalArgumentException("Reservation " + reservationId + " is not a credit lease");
+        }
+        Long accountId = ((Number) row.get("account_id")).longValue();
+        long held = CreditAmount.toMinor((BigDecimal) row.get("reserved_amount"));
+        long consumed = CreditAmount.toMinor((BigDecimal) row.get("consumed_amount"));
+        String status = (String) row.get("status");
+        Timestamp expiresOn = (Timestamp) row.get("expires_on");
+        boolean live = ReservationStatus.RESERVED.name().equals(status);
+
+        // Older or repeated settlements report a total we have already charged
+        long delta = Math.max(consumedTotal - consumed, 0L);
+        long fromHold = live ? Math.min(delta, held) : 0L;
+        long late = delta - fromHold;
+        if (fromHold > 0) {
+            mutationEngine.applyGrouped(List.of(CreditMutation.ofMinor(accountId, CreditOperation.CONSUME, fromHold)
+                    .reservationId(reservationId)
+                    .reference(reservationId, LEASE_REFERENCE_TYPE)
+                    .description("Credit lease " + reservationId + " settled")));
+            held -= fromHold;
+        }
+        if (late > 0) {
+            chargeLate(accountId, reservationId, late);
+        }
+        drawdownService.drawdown(accountId, delta);
+        consumed += delta;
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Timestamp confirmedOn = null;
+        Timestamp releasedOn = null;
+        if (live && (request.isRelease() || held == 0)) {
+            if (held > 0) {
+                mutationEngine.applyGrouped(List.of(CreditMutation.ofMinor(accountId, CreditOperation.RELEASE, held)
+                        .reservationId(reservationId)
+                        .reference(reservationId, LEASE_REFERENCE_TYPE)
+                        .description("Credit lease " + reservationId + " returned")));
+            }
+            if (consumed > 0) {
+                status = ReservationStatus.CONFIRMED.name();
+                confirmedOn = now;
+            } else {
+                status = ReservationStatus.RELEASED.name();
+            }
+            releasedOn = held > 0 ? now : null;
+            expiryService.untrack(List.of(reservationId));
+        } else if (live) {
+            Timestamp renewed = new Timestamp(now.getTime() + ttlSeconds(request.getTtlSeconds()) * 1000L);
+            if (renewed.after(expiresOn)) {
+                expiresOn = renewed;
+            }
+            expiryService.track(reservationId, expiresOn);
+        }
+        jdbcTemplate.update(UPDATE_LEASE, CreditAmount.toBigDecimal(held), CreditAmount.toBigDecimal(consumed),
+                status, expiresOn, confirmedOn, releasedOn, now, reservationId);
+
+        CreditLeaseResponse response = new CreditLeaseResponse(reservationId, accountId,
+                CreditAmount.toBigDecimal(ReservationStatus.RESERVED.name().equals(status) ? held : 0L),
+                CreditAmount.toBigDecimal(consumed), status);
+        response.setExpiresOn(expiresOn);
+        if (late > 0) {
+            response.setMessage(CreditAmount.toBigDecimal(late) + " settled after the lease had ended");
+        }
+        logger.debug("Settled credit lease {}: +{} consumed, {} held, {}", reservationId,
+                CreditAmount.toBigDecimal(delta), CreditAmount.toBigDecimal(held), status);
+        return response;
+    }
+
+    /**
+     * Usage that outlived its hold (expired, or released by an earlier settlement) is charged against
+     * the available balance: a fresh hold immediately consumed, so it goes through the same guards.
+     */
+    private void chargeLate(Long accountId, String reservationId, long amount) {
+        logger.warn("Credit lease {} of account {} settled {} after the hold ended", reservationId, accountId,
+                CreditAmount.toBigDecimal(amount));
+        mutationEngine.applyGrouped(List.of(CreditMutation.ofMinor(accountId, CreditOperation.RESERVE, amount)
+                .reference(reservationId, LEASE_REFERENCE_TYPE)
+                .description("Late settlement of credit lease " + reservationId)));
+        mutationEngine.applyGrouped(List.of(CreditMutation.ofMinor(accountId, CreditOperation.CONSUME, amount)
+                .reference(reservationId, LEASE_REFERENCE_TYPE)
+                .description("Late settlement of credit lease " + reservationId)));
+    }
+
+    private long ttlSeconds(Long requested) {
+        CreditEngineProperties.Reservation config = properties.getReservation();
+        return requested != null && requested > 0
+                ? Math.min(requested, config.getMaxExtendSeconds())
+                : config.getTtlSeconds();
+    }
+
+    private static long toMinor(BigDecimal value, String field) {
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return CreditAmount.toMinor(value);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(field + " must have at most " + CreditAmount.SCALE + " decimals: " + value);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Balances of one account folded from the latest snapshot plus the ledger rows after it,
+ * in {@link CreditAmount} minor units.
+ */
+public class CreditLedgerBalance {
+
+    private final Long accountId;
+    private final long ledgerSeq;
+    private final Date asOf;
+    private final long currentBalance;
+    private final long reservedBalance;
+    private final long totalPurchased;
+    private final long totalConsumed;
+    private final long allocatedToChildren;
+    private final long allocatedFromParent;
+    private final long snapshotSeq;
+    private final int tailLength;
+
+    public CreditLedgerBalance(Long accountId, long ledgerSeq, Date asOf,
+                               long currentBalance, long reservedBalance, long totalPurchased, long totalConsumed,
+                               long allocatedToChildren, long allocatedFromParent,
+                               long snapshotSeq, int tailLength) {
+        this.accountId = accountId;
+        this.ledgerSeq = ledgerSeq;
+        this.asOf = asOf;
+        this.currentBalance = currentBalance;
+        this.reservedBalance = reservedBalance;
+        this.totalPurchased = totalPurchased;
+        this.totalConsumed = totalConsumed;
+        this.allocatedToChildren = allocatedToChildren;
+        this.allocatedFromParent = allocatedFromParent;
+        this.snapshotSeq = snapshotSeq;
+        this.tailLength = tailLength;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Position of the last ledger row included; doubles as the account version in append-only mode.
+     */
+    public long getLedgerSeq() {
+        return ledgerSeq;
+    }
+
+    public Date getAsOf() {
+        return asOf;
+    }
+
+    public long getCurrentBalanceMinor() {
+        return currentBalance;
+    }
+
+    public long getReservedBalanceMinor() {
+        return reservedBalance;
+    }
+
+    public long getAvailableBalanceMinor() {
+        return currentBalance - reservedBalance;
+    }
+
+    public long getTotalPurchasedMinor() {
+        return totalPurchased;
+    }
+
+    public long getTotalConsumedMinor() {
+        return totalConsumed;
+    }
+
+    public long getAllocatedToChildrenMinor() {
+        return allocatedToChildren;
+    }
+
+    public long getAllocatedFromParentMinor() {
+        return allocatedFromParent;
+    }
+
+    public BigDecimal getCurrentBalance() {
+        return CreditAmount.toBigDecimal(currentBalance);
+    }
+
+    public BigDecimal getReservedBalance() {
+        return CreditAmount.toBigDecimal(reservedBalance);
+    }
+
+    public BigDecimal getAvailableBalance() {
+        return CreditAmount.toBigDecimal(currentBalance - reservedBalance);
+    }
+
+    public BigDecimal getTotalPurchased() {
+        return CreditAmount.toBigDecimal(totalPurchased);
+    }
+
+    public BigDecimal getTotalConsumed() {
+        return CreditAmount.toBigDecimal(totalConsumed);
+    }
+
+    public BigDecimal getAllocatedToChildren() {
+        return CreditAmount.toBigDecimal(allocatedToChildren);
+    }
+
+    public BigDecimal getAllocatedFromParent() {
+        return CreditAmount.toBigDecimal(allocatedFromParent);
+    }
+
+    long getSnapshotSeq() {
+        return snapshotSeq;
+    }
+
+    int getTailLength() {
+        return tailLength;
+    }
+}
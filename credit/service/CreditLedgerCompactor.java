@@ -0,0 +1,173 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Background compaction for the append-only ledger. Accounts that received ledger rows since the last
+ * run get a new credit_balance_snapshots row once their tail is long enough, which keeps balance reads
+ * to a short tail scan. Older snapshots are kept, since they are what makes "as of T" queries cheap.
+ *
+ * Each snapshot is also projected onto user_credits so readers of that table see balances that are at
+ * most one compaction interval old; it is no longer the balance of record in this mode. The projection
+ * bumps user_credits.version so optimistic writers notice it.
+ *
+ * Progress is kept in credit_rollup_state under {@value #STATE_NAME}, so a restart resumes where the
+ * last run stopped instead of rescanning the whole ledger.
+ */
+@Service
+public class CreditLedgerCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditLedgerCompactor.class);
+
+    private static final String CHANGED_ACCOUNTS =
+            "SELECT id, account_id FROM credit_transactions WHERE id > ? AND ledger_seq IS NOT NULL ORDER BY id LIMIT ?";
+
+    private static final String INSERT_SNAPSHOT =
+            "INSERT INTO credit_balance_snapshots (account_id, ledger_seq, as_of, current_balance, reserved_balance, "
+            + "total_purchased, total_consumed, allocated_to_children, allocated_from_parent, created_on) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String PROJECT_BALANCES =
+            "UPDATE user_credits SET current_balance = ?, reserved_balance = ?, total_purchased = ?, "
+            + "total_consumed = ?, allocated_to_children = ?, allocated_from_parent = ?, modified_on = ?, "
+            + "version = version + 1 WHERE account_id = ?";
+
+    static final String STATE_NAME = "ledger-compaction";
+
+    private static final String INIT_WATERMARK =
+            "INSERT IGNORE INTO credit_rollup_state (name, watermark_id, pending_gaps, modified_on) VALUES (?, 0, '', ?)";
+
+    private static final String LOAD_WATERMARK =
+            "SELECT watermark_id FROM credit_rollup_state WHERE name = ?";
+
+    // Only moves forward, so a slower node cannot rewind it
+    private static final String SAVE_WATERMARK =
+            "UPDATE credit_rollup_state SET watermark_id = ?, modified_on = ? WHERE name = ? AND watermark_id < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CreditLedgerService ledgerService;
+    private final CreditEngineProperties properties;
+    // Highest credit_transactions.id already looked at, persisted in credit_rollup_state; -1 until loaded
+    private long watermark = -1L;
+
+    public CreditLedgerCompactor(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 CreditLedgerService ledgerService,
+                                 CreditEngineProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ledgerService = ledgerService;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        if (!isAppendOnly()) {
+            return;
+        }
+        int seeded = ledgerService.seedSnapshots();
+        if (seeded > 0) {
+            logger.info("Seeded {} credit balance snapshots from user_credits for append-only ledger mode", seeded);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.credit.ledger.compaction-interval-ms:300000}")
+    public synchronized void compact() {
+        if (!isAppendOnly()) {
+            return;
+        }
+        CreditEngineProperties.Ledger config = properties.getLedger();
+        if (watermark < 0) {
+            watermark = loadWatermark();
+        }
+        int snapshots = 0;
+        while (true) {
+            List<Map<String, Object>> page = jdbcTemplate.queryForList(CHANGED_ACCOUNTS,
+                    watermark, config.getCompactionPageSize());
+            if (page.isEmpty()) {
+                break;
+            }
+            Set<Long> accounts = new LinkedHashSet<>();
+            for (Map<String, Object> row : page) {
+                accounts.add(((Number) row.get("account_id")).longValue());
+            }
+            for (Long accountId : accounts) {
+                if (compactAccount(accountId, config.getCompactionMinTail())) {
+                    snapshots++;
+                }
+            }
+            watermark = ((Number) page.get(page.size() - 1).get("id")).longValue();
+            jdbcTemplate.update(SAVE_WATERMARK, watermark, new Timestamp(System.currentTimeMillis()),
+                    STATE_NAME, watermark);
+            if (page.size() < config.getCompactionPageSize()) {
+                break;
+            }
+        }
+        if (snapshots > 0) {
+            logger.info("Credit ledger compaction wrote {} snapshots", snapshots);
+        }
+    }
+
+    /**
+     * Fold and snapshot one account if its tail is at least {@code minTail} rows. Returns true when a
+     * snapshot was written.
+     */
+    public boolean compactAccount(Long accountId, int minTail) {
+        try {
+            Boolean written = transactionTemplate.execute(status -> {
+                CreditLedgerBalance balance = ledgerService.current(accountId);
+                if (balance.getTailLength() == 0 || balance.getTailLength() < minTail) {
+                    return false;
+                }
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                Timestamp asOf = balance.getAsOf() != null ? new Timestamp(balance.getAsOf().getTime()) : now;
+                jdbcTemplate.update(INSERT_SNAPSHOT, accountId, balance.getLedgerSeq(), asOf,
+                        balance.getCurrentBalance(), balance.getReservedBalance(),
+                        balance.getTotalPurchased(), balance.getTotalConsumed(),
+                        balance.getAllocatedToChildren(), balance.getAllocatedFromParent(), now);
+                jdbcTemplate.update(PROJECT_BALANCES,
+                        CreditAmount.toBigDecimal(balance.getCurrentBalanceMinor()),
+                        CreditAmount.toBigDecimal(balance.getReservedBalanceMinor()),
+                        CreditAmount.toBigDecimal(balance.getTotalPurchasedMinor()),
+                        CreditAmount.toBigDecimal(balance.getTotalConsumedMinor()),
+                        CreditAmount.toBigDecimal(balance.getAllocatedToChildrenMinor()),
+                        CreditAmount.toBigDecimal(balance.getAllocatedFromParentMinor()),
+                        now, accountId);
+                return true;
+            });
+            return Boolean.TRUE.equals(written);
+        } catch (DuplicateKeyException e) {
+            // Another node snapshotted the same ledger position first
+            return false;
+        }
+    }
+
+    private long loadWatermark() {
+        jdbcTemplate.update(INIT_WATERMARK, STATE_NAME, new Timestamp(System.currentTimeMillis()));
+        Long stored = jdbcTemplate.queryForObject(LOAD_WATERMARK, Long.class, STATE_NAME);
+        return stored != null ? stored : 0L;
+    }
+
+    private boolean isAppendOnly() {
+        return properties.getLedger().getMode() == CreditEngineProperties.LedgerMode.APPEND_ONLY;
+    }
+}
@@ -0,0 +1,150 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.exception.CreditOperationException;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read side of the append-only ledger. A balance is the latest credit_balance_snapshots row plus the
+ * sum of credit_transactions after its ledger_seq; both lookups are bounded index range scans on
+ * (account_id, ledger_seq), and the compactor keeps the tail short. "As of T" picks the last snapshot
+ * at or before T and folds only the tail rows created up to T.
+ *
+ * Current and reserved balance deltas come from each row's before/after values; the running totals
+ * from PURCHASE / REFUND / CONSUMPTION / ALLOCATION_OUT / ALLOCATION_IN amounts.
+ */
+@Service
+public class CreditLedgerService {
+
+    private static final String SNAPSHOT_COLUMNS =
+            "SELECT ledger_seq, as_of, current_balance, reserved_balance, total_purchased, total_consumed, "
+            + "allocated_to_children, allocated_from_parent FROM credit_balance_snapshots ";
+
+    private static final String LATEST_SNAPSHOT =
+            SNAPSHOT_COLUMNS + "WHERE account_id = ? ORDER BY ledger_seq DESC LIMIT 1";
+
+    private static final String SNAPSHOT_AS_OF =
+            SNAPSHOT_COLUMNS + "WHERE account_id = ? AND as_of <= ? ORDER BY as_of DESC, ledger_seq DESC LIMIT 1";
+
+    private static final String TAIL =
+            "SELECT COUNT(*) AS tail_length, MAX(ledger_seq) AS last_seq, MAX(created_on) AS last_on, "
+            + "COALESCE(SUM(balance_after - balance_before), 0) AS current_delta, "
+            + "COALESCE(SUM(reserved_after - reserved_before), 0) AS reserved_delta, "
+            + "COALESCE(SUM(CASE transaction_type WHEN 'PURCHASE' THEN amount WHEN 'REFUND' THEN -amount ELSE 0 END), 0) "
+            + "AS purchased_delta, "
+            + "COALESCE(SUM(CASE transaction_type WHEN 'CONSUMPTION' THEN amount ELSE 0 END), 0) AS consumed_delta, "
+            + "COALESCE(SUM(CASE transaction_type WHEN 'ALLOCATION_OUT' THEN amount "
+            + "WHEN 'ALLOCATION_RETURNED' THEN -amount ELSE 0 END), 0) AS allocated_out_delta, "
+            + "COALESCE(SUM(CASE transaction_type WHEN 'ALLOCATION_IN' THEN amount ELSE 0 END), 0) AS allocated_in_delta "
+            + "FROM credit_transactions WHERE account_id = ? AND ledger_seq > ?";
+
+    // Locks the tail and the gap after it, so concurrent appenders for one account queue here
+    private static final String LOCK_TAIL = TAIL + " FOR UPDATE";
+
+    private static final String TAIL_AS_OF = TAIL + " AND created_on <= ?";
+
+    private static final String SEED_SNAPSHOT =
+            "INSERT INTO credit_balance_snapshots (account_id, ledger_seq, as_of, current_balance, reserved_balance, "
+            + "total_purchased, total_consumed, allocated_to_children, allocated_from_parent, created_on) "
+            + "SELECT uc.account_id, 0, ?, uc.current_balance, uc.reserved_balance, uc.total_purchased, "
+            + "uc.total_consumed, uc.allocated_to_children, uc.allocated_from_parent, ? FROM user_credits uc "
+            + "WHERE NOT EXISTS (SELECT 1 FROM credit_balance_snapshots s WHERE s.account_id = uc.account_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CreditLedgerService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(readOnly = true)
+    public CreditLedgerBalance current(Long accountId) {
+        return fold(accountId, snapshot(LATEST_SNAPSHOT, accountId), TAIL);
+    }
+
+    @Transactional(readOnly = true)
+    public CreditLedgerBalance asOf(Long accountId, Date asOf) {
+        Timestamp at = new Timestamp(asOf.getTime());
+        Map<String, Object> snapshot = snapshot(SNAPSHOT_AS_OF, accountId, at);
+        if (snapshot == null) {
+            throw new CreditOperationException(accountId, "No credit history for account " + accountId
+                    + " at or before " + asOf);
+        }
+        return fold(accountId, snapshot, TAIL_AS_OF, at);
+    }
+
+    /**
+     * Current balance with the ledger tail locked for an append in the caller's transaction.
+     * An account without a snapshot is seeded from its user_credits row first.
+     */
+    CreditLedgerBalance lockCurrent(Long accountId) {
+        Map<String, Object> snapshot = snapshot(LATEST_SNAPSHOT, accountId);
+        if (snapshot == null) {
+            seedSnapshot(accountId);
+            snapshot = snapshot(LATEST_SNAPSHOT, accountId);
+            if (snapshot == null) {
+                throw new CreditOperationException(accountId, "No credit record exists for account " + accountId);
+            }
+        }
+        return fold(accountId, snapshot, LOCK_TAIL);
+    }
+
+    /**
+     * Seed a ledger_seq 0 snapshot from user_credits for every account that has none; run once when
+     * switching to append-only mode. Returns the number of accounts seeded.
+     */
+    @Transactional
+    public int seedSnapshots() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return jdbcTemplate.update(SEED_SNAPSHOT, now, now);
+    }
+
+    private void seedSnapshot(Long accountId) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.update(SEED_SNAPSHOT + " AND uc.account_id = ?", now, now, accountId);
+    }
+
+    private Map<String, Object> snapshot(String sql, Object... args) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, args);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private CreditLedgerBalance fold(Long accountId, Map<String, Object> snapshot, String tailSql, Object... extraArgs) {
+        long snapshotSeq = snapshot == null ? 0L : ((Number) snapshot.get("ledger_seq")).longValue();
+        Object[] args = new Object[2 + extraArgs.length];
+        args[0] = accountId;
+        args[1] = snapshotSeq;
+        System.arraycopy(extraArgs, 0, args, 2, extraArgs.length);
+        Map<String, Object> tail = jdbcTemplate.queryForMap(tailSql, args);
+
+        int tailLength = ((Number) tail.get("tail_length")).intValue();
+        long ledgerSeq = tailLength == 0 ? snapshotSeq : ((Number) tail.get("last_seq")).longValue();
+        Date asOf = tailLength == 0
+                ? (snapshot == null ? null : (Date) snapshot.get("as_of"))
+                : (Date) tail.get("last_on");
+        return new CreditLedgerBalance(accountId, ledgerSeq, asOf,
+                minor(snapshot, "current_balance") + minor(tail, "current_delta"),
+                minor(snapshot, "reserved_balance") + minor(tail, "reserved_delta"),
+                minor(snapshot, "total_purchased") + minor(tail, "purchased_delta"),
+                minor(snapshot, "total_consumed") + minor(tail, "consumed_delta"),
+                minor(snapshot, "allocated_to_children") + minor(tail, "allocated_out_delta"),
+                minor(snapshot, "allocated_from_parent") + minor(tail, "allocated_in_delta"),
+                snapshotSeq, tailLength);
+    }
+
+    private static long minor(Map<String, Object> row, String column) {
+        if (row == null || row.get(column) == null) {
+            return 0L;
+        }
+        Object value = row.get(column);
+        return CreditAmount.toMinor(value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString()));
+    }
+}
@@ -0,0 +1,127 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+
+import java.math.BigDecimal;
+
+/**
+ * One requested balance movement. Built through {@link #of(Long, CreditOperation, BigDecimal)}
+ * and the fluent setters so call sites only name the fields they care about. The amount is held
+ * as {@link CreditAmount} minor units.
+ */
+public class CreditMutation {
+
+    private final Long accountId;
+    private final CreditOperation operation;
+    private final long amountMinor;
+    private Long expectedVersion;
+    private String reservationId;
+    private String referenceId;
+    private String referenceType;
+    private Long packagePurchaseId;
+    private String description;
+
+    private CreditMutation(Long accountId, CreditOperation operation, long amountMinor) {
+        this.accountId = accountId;
+        this.operation = operation;
+        this.amountMinor = amountMinor;
+    }
+
+    public static CreditMutation of(Long accountId, CreditOperation operation, BigDecimal amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Credit mutation amount must be positive: null");
+        }
+        long amountMinor;
+        try {
+            amountMinor = CreditAmount.toMinor(amount);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Credit mutation amount must have at most "
+                    + CreditAmount.SCALE + " decimals: " + amount);
+        }
+        return ofMinor(accountId, operation, amountMinor);
+    }
+
+    public static CreditMutation of(Long accountId, CreditOperation operation, CreditAmount amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Credit mutation amount must be positive: null");
+        }
+        return ofMinor(accountId, operation, amount.getMinorUnits());
+    }
+
+    public static CreditMutation ofMinor(Long accountId, CreditOperation operation, long amountMinor) {
+        if (accountId == null || operation == null) {
+            throw new IllegalArgumentException("Account and operation are required for a credit mutation");
+        }
+        if (amountMinor <= 0) {
+            throw new IllegalArgumentException("Credit mutation amount must be positive: "
+                    + CreditAmount.toBigDecimal(amountMinor));
+        }
+        return new CreditMutation(accountId, operation, amountMinor);
+    }
+
+    public CreditMutation expectedVersion(Long expectedVersion) {
+        this.expectedVersion = expectedVersion;
+        return this;
+    }
+
+    public CreditMutation reservationId(String reservationId) {
+        this.reservationId = reservationId;
+        return this;
+    }
+
+    public CreditMutation reference(String referenceId, String referenceType) {
+        this.referenceId = referenceId;
+        this.referenceType = referenceType;
+        return this;
+    }
+
+    public CreditMutation packagePurchaseId(Long packagePurchaseId) {
+        this.packagePurchaseId = packagePurchaseId;
+        return this;
+    }
+
+    public CreditMutation description(String description) {
+        this.description = description;
+        return this;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public CreditOperation getOperation() {
+        return operation;
+    }
+
+    public BigDecimal getAmount() {
+        return CreditAmount.toBigDecimal(amountMinor);
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public String getReferenceId() {
+        return referenceId;
+    }
+
+    public String getReferenceType() {
+        return referenceType;
+    }
+
+    public Long getPackagePurchaseId() {
+        return packagePurchaseId;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
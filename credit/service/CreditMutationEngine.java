@@ -0,0 +1,432 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.exception.CreditConcurrencyException;
+import com.code.aplusbinary.accountmanagement.exception.CreditOperationException;
+import com.code.aplusbinary.accountmanagement.exception.InsufficientCreditException;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.util.IdGenerator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies credit movements to user_credits as a single guarded UPDATE instead of
+ * load-entity / BigDecimal math / save. The guard ("available >= amount", "reserved >= amount")
+ * is evaluated by the database under the row lock, so concurrent uploads under one admin can
+ * neither double-spend nor lose updates. The matching credit_transactions row is inserted in the
+ * same transaction, with before/after values derived from the post-update row, together with the
+ * {@link CreditOutboxRelay} event that announces the movement to other consumers.
+ *
+ * With app.credit.ledger.mode=APPEND_ONLY the user_credits row is not touched at all: the guard is
+ * checked against {@link CreditLedgerService}'s snapshot + tail balance and the mutation is a pure
+ * insert with the next ledger_seq.
+ */
+@Service
+public class CreditMutationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditMutationEngine.class);
+
+    private static final String SELECT_BALANCES =
+            "SELECT current_balance, reserved_balance, version FROM user_credits WHERE account_id = ?";
+
+    private static final String LOCK_BALANCES =
+            "SELECT current_balance, reserved_balance FROM user_credits WHERE account_id = ? FOR UPDATE";
+
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO credit_transactions (transaction_id, account_id, transaction_type, amount, "
+            + "balance_before, balance_after, reserved_before, reserved_after, ledger_seq, reservation_id, "
+            + "reference_id, reference_type, package_purchase_id, description, created_on, modified_on) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Global uniqueness of transaction_id and (account_id, ledger_seq); credit_transactions is partitioned
+    private static final String INSERT_KEY =
+            "INSERT INTO credit_transaction_keys (transaction_id, account_id, ledger_seq, created_on) "
+            + "VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CreditEngineProperties properties;
+    private final IdGenerator idGenerator;
+    private final CreditLedgerService ledgerService;
+    private final CreditOutboxRelay outbox;
+    private final MeterRegistry meterRegistry;
+    private final Map<CreditOperation, String> updateSql = new EnumMap<>(CreditOperation.class);
+    private final Map<CreditOperation, String> versionedUpdateSql = new EnumMap<>(CreditOperation.class);
+    private final Counter contentionCounter;
+    private final Counter retryCounter;
+    private final DistributionSummary attemptsSummary;
+    private final Timer latencyTimer;
+
+    public CreditMutationEngine(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                CreditEngineProperties properties,
+                                IdGenerator idGenerator,
+                                CreditLedgerService ledgerService,
+                                CreditOutboxRelay outbox,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.idGenerator = idGenerator;
+        this.ledgerService = ledgerService;
+        this.outbox = outbox;
+        this.meterRegistry = meterRegistry;
+        for (CreditOperation operation : CreditOperation.values()) {
+            updateSql.put(operation, buildUpdateSql(operation, false));
+            versionedUpdateSql.put(operation, buildUpdateSql(operation, true));
+        }
+        this.contentionCounter = Counter.builder("credit.mutation.contention")
+                .description("Guarded credit updates that lost a lock race")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("credit.mutation.retries")
+                .description("Credit mutations re-attempted after contention")
+                .register(meterRegistry);
+        this.attemptsSummary = DistributionSummary.builder("credit.mutation.attempts")
+                .description("Attempts needed per successful credit mutation")
+                .register(meterRegistry);
+        this.latencyTimer = Timer.builder("credit.mutation.latency")
+                .description("Wall time of a credit mutation including retries")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Apply a mutation with bounded retries. When called inside an existing transaction the
+     * mutation joins it and is not retried here, since a lock failure has already doomed the
+     * caller's transaction.
+     */
+    public CreditMutationResult apply(CreditMutation mutation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return latencyTimer.record(() -> record(applyInCurrentTransaction(mutation)));
+        }
+
+        int maxAttempts = Math.max(1, properties.getMutation().getMaxAttempts());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    CreditMutationResult result = transactionTemplate.execute(status -> applyInCurrentTransaction(mutation));
+                    return record(result.withAttempts(attempt));
+                } catch (PessimisticLockingFailureException | TransientDataAccessException | DuplicateKeyException e) {
+                    contentionCounter.increment();
+                    if (attempt >= maxAttempts) {
+                        reject(mutation, "contention");
+                        throw new CreditConcurrencyException(mutation.getAccountId(),
+                                "Credit row for account " + mutation.getAccountId() + " stayed contended after "
+                                + attempt + " attempts", e);
+                    }
+                    retryCounter.increment();
+                    logger.debug("Retrying {} for account {} after contention (attempt {}/{})",
+                            mutation.getOperation(), mutation.getAccountId(), attempt, maxAttempts);
+                    backoff(attempt);
+                }
+            }
+        } finally {
+            sample.stop(latencyTimer);
+        }
+    }
+
+    /**
+     * Apply several mutations atomically, in the given order, in one transaction.
+     */
+    public List<CreditMutationResult> applyAll(List<CreditMutation> mutations) {
+        return transactionTemplate.execute(status -> mutations.stream()
+                .map(mutation -> record(applyInCurrentTransaction(mutation)))
+                .toList());
+    }
+
+    /**
+     * One guarded update plus its ledger insert, assuming a surrounding transaction.
+     */
+    CreditMutationResult applyInCurrentTransaction(CreditMutation mutation) {
+        return applyGroupedInCurrentTransaction(List.of(mutation)).get(0);
+    }
+
+    /**
+     * Apply several same-account, same-operation mutations as one guarded step for their total,
+     * then batch-insert one ledger row per part. The guarded step is a conditional update of
+     * user_credits, or in append-only ledger mode a locked read of the ledger tail with no update.
+     * Each part gets its own running before/after values, as if the parts had been applied one after
+     * another. Assumes a surrounding transaction.
+     */
+    List<CreditMutationResult> applyGroupedInCurrentTransaction(List<CreditMutation> parts) {
+        if (parts.isEmpty()) {
+            return List.of();
+        }
+        CreditMutation first = parts.get(0);
+        CreditOperation operation = first.getOperation();
+        long total = 0L;
+        for (CreditMutation part : parts) {
+            if (!part.getAccountId().equals(first.getAccountId()) || part.getOperation() != operation) {
+                throw new IllegalArgumentException("Grouped credit mutations must share account and operation");
+            }
+            total = CreditAmount.add(total, part.getAmountMinor());
+        }
+        CreditMutation combined = CreditMutation.ofMinor(first.getAccountId(), operation, total)
+                .expectedVersion(first.getExpectedVersion());
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        long[] start = isAppendOnly()
+                ? lockLedgerTail(combined, total)
+                : updateInPlace(combined, total, now);
+        return writeLedger(parts, start[0], start[1], start[2], isAppendOnly() ? start[2] : null, now);
+    }
+
+    /**
+     * Batch-insert one credit_transactions row per part, with running before/after values starting
+     * from the given balances, plus the matching outbox events. With a ledger sequence, rows take the
+     * next consecutive ledger_seq values and the version reported is the row's own position.
+     */
+    List<CreditMutationResult> writeLedger(List<CreditMutation> parts, long balance, long reserved, long version,
+                                           Long ledgerSeq, Timestamp now) {
+        CreditOperation operation = parts.get(0).getOperation();
+        List<CreditMutationResult> results = new ArrayList<>(parts.size());
+        List<Object[]> ledgerRows = new ArrayList<>(parts.size());
+        List<Object[]> keyRows = new ArrayList<>(parts.size());
+        List<Object[]> outboxRows = new ArrayList<>(outbox.isEnabled() ? parts.size() : 0);
+        for (CreditMutation part : parts) {
+            long balanceAfter = balance + part.getAmountMinor() * operation.getCurrentSign();
+            long reservedAfter = reserved + part.getAmountMinor() * operation.getReservedSign();
+            if (ledgerSeq != null) {
+                ledgerSeq = ledgerSeq + 1;
+                version = ledgerSeq;
+            }
+            String transactionId = idGenerator.nextId("TXN-");
+            ledgerRows.add(new Object[] {
+                    transactionId,
+                    part.getAccountId(),
+                    operation.getTransactionType().name(),
+                    CreditAmount.toBigDecimal(part.getAmountMinor()),
+                    CreditAmount.toBigDecimal(balance),
+                    CreditAmount.toBigDecimal(balanceAfter),
+                    CreditAmount.toBigDecimal(reserved),
+                    CreditAmount.toBigDecimal(reservedAfter),
+                    ledgerSeq,
+                    part.getReservationId(),
+                    part.getReferenceId(),
+                    part.getReferenceType(),
+                    part.getPackagePurchaseId(),
+                    part.getDescription(),
+                    now,
+                    now
+            });
+            keyRows.add(new Object[] { transactionId, part.getAccountId(), ledgerSeq, now });
+            if (outbox.isEnabled()) {
+                outboxRows.add(outbox.eventRow(part, operation, transactionId, now));
+            }
+            results.add(new CreditMutationResult(transactionId, part.getAccountId(), operation, part.getAmountMinor(),
+                    balance, balanceAfter, reserved, reservedAfter, version, 1));
+            balance = balanceAfter;
+            reserved = reservedAfter;
+        }
+
+        if (ledgerRows.size() == 1) {
+            jdbcTemplate.update(INSERT_KEY, keyRows.get(0));
+            jdbcTemplate.update(INSERT_TRANSACTION, ledgerRows.get(0));
+        } else {
+            jdbcTemplate.batchUpdate(INSERT_KEY, keyRows);
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, ledgerRows);
+        }
+        outbox.append(outboxRows);
+        return results;
+    }
+
+    /**
+     * Available credit of an account with its balance locked for the rest of the caller's transaction,
+     * for callers that pick what to apply based on it (best-effort batches).
+     */
+    public long lockAvailableMinor(Long accountId) {
+        if (isAppendOnly()) {
+            return ledgerService.lockCurrent(accountId).getAvailableBalanceMinor();
+        }
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(LOCK_BALANCES, accountId);
+        if (rows.isEmpty()) {
+            throw new CreditOperationException(accountId, "No credit record exists for account " + accountId);
+        }
+        Map<String, Object> row = rows.get(0);
+        return CreditAmount.toMinor((BigDecimal) row.get("current_balance"))
+                - CreditAmount.toMinor((BigDecimal) row.get("reserved_balance"));
+    }
+
+    private boolean isAppendOnly() {
+        return properties.getLedger().getMode() == CreditEngineProperties.LedgerMode.APPEND_ONLY;
+    }
+
+    /**
+     * Update-in-place mode: guarded update of the user_credits row for the total. Returns the balance,
+     * reserved balance and version before the parts are applied, as {balance, reserved, versionAfter}.
+     */
+    private long[] updateInPlace(CreditMutation combined, long total, Timestamp now) {
+        CreditOperation operation = combined.getOperation();
+        long currentDelta = total * operation.getCurrentSign();
+        long reservedDelta = total * operation.getReservedSign();
+
+        int updated;
+        if (combined.getExpectedVersion() != null) {
+            updated = jdbcTemplate.update(versionedUpdateSql.get(operation),
+                    updateArgs(combined, currentDelta, reservedDelta, now, true));
+        } else {
+            updated = jdbcTemplate.update(updateSql.get(operation),
+                    updateArgs(combined, currentDelta, reservedDelta, now, false));
+        }
+
+        if (updated == 0) {
+            throw rejection(combined);
+        }
+
+        // Our own uncommitted update is visible here, and the row stays locked until commit
+        Map<String, Object> row = jdbcTemplate.queryForMap(SELECT_BALANCES, combined.getAccountId());
+        return new long[] {
+                CreditAmount.toMinor((BigDecimal) row.get("current_balance")) - currentDelta,
+                CreditAmount.toMinor((BigDecimal) row.get("reserved_balance")) - reservedDelta,
+                ((Number) row.get("version")).longValue()
+        };
+    }
+
+    /**
+     * Append-only mode: no row is updated. The ledger tail is locked, the guard is checked against the
+     * folded balance, and the caller inserts rows with consecutive ledger_seq values. The unique
+     * (account_id, ledger_seq) key of credit_transaction_keys backs up the lock. Returns
+     * {balance, reserved, lastLedgerSeq}.
+     */
+    private long[] lockLedgerTail(CreditMutation combined, long total) {
+        Long accountId = combined.getAccountId();
+        CreditLedgerBalance current = ledgerService.lockCurrent(accountId);
+        if (combined.getExpectedVersion() != null && combined.getExpectedVersion() != current.getLedgerSeq()) {
+            reject(combined, "version_conflict");
+            throw new CreditConcurrencyException(accountId, "Credit ledger for account " + accountId
+                    + " changed (expected version " + combined.getExpectedVersion() + ", found "
+                    + current.getLedgerSeq() + ")");
+        }
+        long available = switch (combined.getOperation().getGuard()) {
+            case NONE -> Long.MAX_VALUE;
+            case AVAILABLE -> current.getAvailableBalanceMinor();
+            case RESERVED -> current.getReservedBalanceMinor();
+        };
+        if (available < total) {
+            reject(combined, "insufficient");
+            throw new InsufficientCreditException(accountId, CreditAmount.toBigDecimal(total),
+                    CreditAmount.toBigDecimal(available));
+        }
+        return new long[] { current.getCurrentBalanceMinor(), current.getReservedBalanceMinor(), current.getLedgerSeq() };
+    }
+
+    /**
+     * Grouped variant of {@link #apply(CreditMutation)} for callers that manage their own transaction.
+     */
+    public List<CreditMutationResult> applyGrouped(List<CreditMutation> parts) {
+        List<CreditMutationResult> results = applyGroupedInCurrentTransaction(parts);
+        results.forEach(this::record);
+        return results;
+    }
+
+    /**
+     * Bind values for the guarded update. This is the JDBC boundary, so minor units become BigDecimal here.
+     */
+    private Object[] updateArgs(CreditMutation mutation, long currentDelta, long reservedDelta,
+                                Timestamp now, boolean versioned) {
+        CreditOperation operation = mutation.getOperation();
+        long amount = mutation.getAmountMinor();
+        Object[] args = new Object[8 + (versioned ? 1 : 0) + (operation.getGuard() == CreditOperation.Guard.NONE ? 0 : 1)];
+        int i = 0;
+        args[i++] = CreditAmount.toBigDecimal(currentDelta);
+        args[i++] = CreditAmount.toBigDecimal(reservedDelta);
+        args[i++] = CreditAmount.toBigDecimal(amount * operation.getPurchasedSign());
+        args[i++] = CreditAmount.toBigDecimal(amount * operation.getConsumedSign());
+        args[i++] = CreditAmount.toBigDecimal(amount * operation.getAllocatedToChildrenSign());
+        args[i++] = CreditAmount.toBigDecimal(amount * operation.getAllocatedFromParentSign());
+        args[i++] = now;
+        args[i++] = mutation.getAccountId();
+        if (versioned) {
+            args[i++] = mutation.getExpectedVersion();
+        }
+        if (operation.getGuard() != CreditOperation.Guard.NONE) {
+            args[i] = CreditAmount.toBigDecimal(amount);
+        }
+        return args;
+    }
+
+    /**
+     * Work out why the guarded update matched no row. This read happens after the failed update,
+     * so it is only used for the error message, never to decide a balance.
+     */
+    private CreditOperationException rejection(CreditMutation mutation) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_BALANCES, mutation.getAccountId());
+        if (rows.isEmpty()) {
+            reject(mutation, "missing_account");
+            return new CreditOperationException(mutation.getAccountId(),
+                    "No credit record exists for account " + mutation.getAccountId());
+        }
+        Map<String, Object> row = rows.get(0);
+        long version = ((Number) row.get("version")).longValue();
+        if (mutation.getExpectedVersion() != null && mutation.getExpectedVersion() != version) {
+            reject(mutation, "version_conflict");
+            return new CreditConcurrencyException(mutation.getAccountId(),
+                    "Credit record for account " + mutation.getAccountId() + " changed (expected version "
+                    + mutation.getExpectedVersion() + ", found " + version + ")");
+        }
+        BigDecimal current = (BigDecimal) row.get("current_balance");
+        BigDecimal reserved = (BigDecimal) row.get("reserved_balance");
+        BigDecimal available = mutation.getOperation().getGuard() == CreditOperation.Guard.RESERVED
+                ? reserved
+                : current.subtract(reserved);
+        reject(mutation, "insufficient");
+        return new InsufficientCreditException(mutation.getAccountId(), mutation.getAmount(), available);
+    }
+
+    private CreditMutationResult record(CreditMutationResult result) {
+        attemptsSummary.record(result.getAttempts());
+        meterRegistry.counter("credit.mutation.applied", "operation", result.getOperation().name()).increment();
+        return result;
+    }
+
+    private void reject(CreditMutation mutation, String reason) {
+        meterRegistry.counter("credit.mutation.rejected",
+                "operation", mutation.getOperation().name(), "reason", reason).increment();
+    }
+
+    private void backoff(int attempt) {
+        long delay = properties.getMutation().getRetryBackoffMs() * attempt;
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String buildUpdateSql(CreditOperation operation, boolean versioned) {
+        return "UPDATE user_credits SET current_balance = current_balance + ?, "
+                + "reserved_balance = reserved_balance + ?, "
+                + "total_purchased = total_purchased + ?, "
+                + "total_consumed = total_consumed + ?, "
+                + "allocated_to_children = allocated_to_children + ?, "
+                + "allocated_from_parent = allocated_from_parent + ?, "
+                + "version = version + 1, modified_on = ? "
+                + "WHERE account_id = ?"
+                + (versioned ? " AND version = ?" : "")
+                + operation.getGuard().getSql();
+    }
+}
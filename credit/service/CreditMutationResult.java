@@ -0,0 +1,107 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+
+import java.math.BigDecimal;
+
+/**
+ * Outcome of an applied mutation: the ledger row that was written and the balances around it.
+ * Amounts are kept in {@link CreditAmount} minor units; the BigDecimal getters materialize on demand.
+ */
+public class CreditMutationResult {
+
+    private final String transactionId;
+    private final Long accountId;
+    private final CreditOperation operation;
+    private final long amount;
+    private final long balanceBefore;
+    private final long balanceAfter;
+    private final long reservedBefore;
+    private final long reservedAfter;
+    private final long version;
+    private final int attempts;
+
+    public CreditMutationResult(String transactionId, Long accountId, CreditOperation operation, long amount,
+                                long balanceBefore, long balanceAfter, long reservedBefore, long reservedAfter,
+                                long version, int attempts) {
+        this.transactionId = transactionId;
+        this.accountId = accountId;
+        this.operation = operation;
+        this.amount = amount;
+        this.balanceBefore = balanceBefore;
+        this.balanceAfter = balanceAfter;
+        this.reservedBefore = reservedBefore;
+        this.reservedAfter = reservedAfter;
+        this.version = version;
+        this.attempts = attempts;
+    }
+
+    CreditMutationResult withAttempts(int attempts) {
+        return new CreditMutationResult(transactionId, accountId, operation, amount, balanceBefore, balanceAfter,
+                reservedBefore, reservedAfter, version, attempts);
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public CreditOperation getOperation() {
+        return operation;
+    }
+
+    public BigDecimal getAmount() {
+        return CreditAmount.toBigDecimal(amount);
+    }
+
+    public long getAmountMinor() {
+        return amount;
+    }
+
+    public BigDecimal getBalanceBefore() {
+        return CreditAmount.toBigDecimal(balanceBefore);
+    }
+
+    public long getBalanceBeforeMinor() {
+        return balanceBefore;
+    }
+
+    public BigDecimal getBalanceAfter() {
+        return CreditAmount.toBigDecimal(balanceAfter);
+    }
+
+    public long getBalanceAfterMinor() {
+        return balanceAfter;
+    }
+
+    public BigDecimal getReservedBefore() {
+        return CreditAmount.toBigDecimal(reservedBefore);
+    }
+
+    public long getReservedBeforeMinor() {
+        return reservedBefore;
+    }
+
+    public BigDecimal getReservedAfter() {
+        return CreditAmount.toBigDecimal(reservedAfter);
+    }
+
+    public long getReservedAfterMinor() {
+        return reservedAfter;
+    }
+
+    public BigDecimal getAvailableAfter() {
+        return CreditAmount.toBigDecimal(balanceAfter - reservedAfter);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
@@ -0,0 +1,99 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.TransactionType;
+
+/**
+ * Balance movements the mutation engine knows how to apply to a user_credits row.
+ * Each operation is a set of signed column deltas plus the guard the update must satisfy.
+ */
+public enum CreditOperation {
+    RESERVE(TransactionType.RESERVATION, 0, 1, 0, 0, Guard.AVAILABLE),
+    RELEASE(TransactionType.RESERVATION_RELEASED, 0, -1, 0, 0, Guard.RESERVED),
+    EXPIRE(TransactionType.RESERVATION_EXPIRED, 0, -1, 0, 0, Guard.RESERVED),
+    CONSUME(TransactionType.CONSUMPTION, -1, -1, 0, 1, Guard.RESERVED),
+    PURCHASE(TransactionType.PURCHASE, 1, 0, 1, 0, Guard.NONE),
+    REFUND(TransactionType.REFUND, -1, 0, -1, 0, Guard.AVAILABLE),
+    // Parent side of an allocation: credits leave the balance and are tracked as allocated to children
+    ALLOCATE_OUT(TransactionType.ALLOCATION_OUT, -1, 0, 0, 0, 1, 0, Guard.AVAILABLE),
+    // Child side of an allocation
+    ALLOCATE_IN(TransactionType.ALLOCATION_IN, 1, 0, 0, 0, 0, 1, Guard.NONE),
+    // Undo of ALLOCATE_OUT, e.g. when a purchase the parent paid for is refunded
+    ALLOCATE_RETURN(TransactionType.ALLOCATION_RETURNED, 1, 0, 0, 0, -1, 0, Guard.NONE),
+    // Credit moved between an account's user_credits row and its balance stripes; the total is unchanged
+    STRIPE_TRANSFER(TransactionType.STRIPE_TRANSFER, 0, 0, 0, 0, Guard.NONE);
+
+    public enum Guard {
+        NONE(""),
+        AVAILABLE(" AND current_balance - reserved_balance >= ?"),
+        RESERVED(" AND reserved_balance >= ?");
+
+        private final String sql;
+
+        Guard(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+    }
+
+    private final TransactionType transactionType;
+    private final int currentSign;
+    private final int reservedSign;
+    private final int purchasedSign;
+    private final int consumedSign;
+    private final int allocatedToChildrenSign;
+    private final int allocatedFromParentSign;
+    private final Guard guard;
+
+    CreditOperation(TransactionType transactionType, int currentSign, int reservedSign,
+                    int purchasedSign, int consumedSign, Guard guard) {
+        this(transactionType, currentSign, reservedSign, purchasedSign, consumedSign, 0, 0, guard);
+    }
+
+    CreditOperation(TransactionType transactionType, int currentSign, int reservedSign,
+                    int purchasedSign, int consumedSign, int allocatedToChildrenSign, int allocatedFromParentSign,
+                    Guard guard) {
+        this.transactionType = transactionType;
+        this.currentSign = currentSign;
+        this.reservedSign = reservedSign;
+        this.purchasedSign = purchasedSign;
+        this.consumedSign = consumedSign;
+        this.allocatedToChildrenSign = allocatedToChildrenSign;
+        this.allocatedFromParentSign = allocatedFromParentSign;
+        this.guard = guard;
+    }
+
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public int getCurrentSign() {
+        return currentSign;
+    }
+
+    public int getReservedSign() {
+        return reservedSign;
+    }
+
+    public int getPurchasedSign() {
+        return purchasedSign;
+    }
+
+    public int getConsumedSign() {
+        return consumedSign;
+    }
+
+    public int getAllocatedToChildrenSign() {
+        return allocatedToChildrenSign;
+    }
+
+    public int getAllocatedFromParentSign() {
+        return allocatedFromParentSign;
+    }
+
+    public Guard getGuard() {
+        return guard;
+    }
+}
@@ -0,0 +1,317 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.model.credit.TransactionType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Transactional outbox for credit movements. {@link CreditMutationEngine} appends one event per
+ * credit_transactions row in the same transaction, so the request only pays for two inserts; this
+ * relay then delivers committed events to every {@link CreditEventSink} in the background.
+ *
+ * Events are spread over lanes by account. A relay claims lanes with FOR UPDATE SKIP LOCKED, so
+ * several nodes share the work without waiting on each other, and publishes each claimed lane's
+ * pending events in id order while holding the lane. Events are marked published in the same
+ * transaction after the sinks have flushed: a crash redelivers rather than loses them. A failing
+ * event holds back the rest of its account until it is retried successfully or parked as FAILED
+ * after the configured attempts.
+ */
+@Service
+public class CreditOutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditOutboxRelay.class);
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO credit_outbox (lane, account_id, transaction_id, transaction_type, amount, reservation_id, "
+            + "reference_id, reference_type, package_purchase_id, status, attempts, created_on) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 'PENDING', 0, ?)";
+
+    private static final String INIT_LANE =
+            "INSERT IGNORE INTO credit_outbox_lanes (lane, modified_on) VALUES (?, ?)";
+
+    private static final String PENDING_LANES =
+            "SELECT DISTINCT lane FROM credit_outbox WHERE status = 'PENDING'";
+
+    private static final String CLAIM_LANES =
+            "SELECT lane FROM credit_outbox_lanes WHERE lane IN (:lanes) FOR UPDATE SKIP LOCKED";
+
+    // Events that are due and not behind an earlier event of their account that is waiting for a retry,
+    // so a backlog of held-back events cannot fill the batch and starve the other accounts of the lane
+    private static final String PENDING_EVENTS =
+            "SELECT o.id, o.lane, o.account_id, o.transaction_id, o.transaction_type, o.amount, o.reservation_id, "
+            + "o.reference_id, o.reference_type, o.package_purchase_id, o.attempts, o.created_on "
+            + "FROM credit_outbox o WHERE o.status = 'PENDING' AND o.lane IN (:lanes) "
+            + "AND (o.next_attempt_on IS NULL OR o.next_attempt_on <= :now) "
+            + "AND NOT EXISTS (SELECT 1 FROM credit_outbox b WHERE b.account_id = o.account_id "
+            + "AND b.status = 'PENDING' AND b.id < o.id AND b.next_attempt_on > :now) "
+            + "ORDER BY o.id LIMIT :limit";
+
+    private static final String MARK_PUBLISHED =
+            "UPDATE credit_outbox SET status = 'PUBLISHED', published_on = :now WHERE id IN (:ids)";
+
+    private static final String RETRY_LATER =
+            "UPDATE credit_outbox SET attempts = ?, next_attempt_on = ?, last_error = ? WHERE id = ?";
+
+    private static final String PARK =
+            "UPDATE credit_outbox SET status = 'FAILED', attempts = ?, last_error = ? WHERE id = ?";
+
+    private static final String PURGE =
+            "DELETE FROM credit_outbox WHERE status = 'PUBLISHED' AND published_on < ? LIMIT ?";
+
+    private static final class PendingEvent {
+        final int attempts;
+        final CreditEvent event;
+
+        PendingEvent(int attempts, CreditEvent event) {
+            this.attempts = attempts;
+            this.event = event;
+        }
+    }
+
+    private static final RowMapper<PendingEvent> PENDING_MAPPER = (rs, rowNum) -> new PendingEvent(
+            rs.getInt("attempts"),
+            new CreditEvent(
+                    rs.getLong("id"),
+                    rs.getLong("account_id"),
+                    rs.getString("transaction_id"),
+                    TransactionType.valueOf(rs.getString("transaction_type")),
+                    CreditAmount.toMinor(rs.getBigDecimal("amount")),
+                    rs.getString("reservation_id"),
+                    rs.getString("reference_id"),
+                    rs.getString("reference_type"),
+                    rs.getObject("package_purchase_id", Long.class),
+                    rs.getTimestamp("created_on").getTime()));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CreditEngineProperties.Outbox config;
+    private final List<CreditEventSink> sinks;
+    private final Counter publishedCounter;
+    private final Counter failureCounter;
+    private final Counter parkedCounter;
+    private final Timer lagTimer;
+
+    public CreditOutboxRelay(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             CreditEngineProperties properties,
+                             List<CreditEventSink> sinks,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = properties.getOutbox();
+        this.sinks = sinks;
+        this.publishedCounter = Counter.builder("credit.outbox.published")
+                .description("Credit events delivered to all sinks")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("credit.outbox.failures")
+                .description("Credit event deliveries rejected by a sink")
+                .register(meterRegistry);
+        this.parkedCounter = Counter.builder("credit.outbox.parked")
+                .description("Credit events given up on after the maximum attempts")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("credit.outbox.lag")
+                .description("Time from ledger commit to delivery of a credit event")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initLanes() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> lanes = new ArrayList<>();
+        for (int lane = 0; lane < lanes(); lane++) {
+            lanes.add(new Object[] { lane, now });
+        }
+        jdbcTemplate.batchUpdate(INIT_LANE, lanes);
+    }
+
+    boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Outbox row for one ledger row, to be passed to {@link #append(List)}.
+     */
+    Object[] eventRow(CreditMutation part, CreditOperation operation, String transactionId, Timestamp now) {
+        return new Object[] {
+                Math.floorMod(part.getAccountId(), lanes()),
+                part.getAccountId(),
+                transactionId,
+                operation.getTransactionType().name(),
+                CreditAmount.toBigDecimal(part.getAmountMinor()),
+                part.getReservationId(),
+                part.getReferenceId(),
+                part.getReferenceType(),
+                part.getPackagePurchaseId(),
+                now
+        };
+    }
+
+    /**
+     * Insert outbox rows. Must run in the transaction that writes the matching ledger rows.
+     */
+    void append(List<Object[]> rows) {
+        if (rows.size() == 1) {
+            jdbcTemplate.update(INSERT_EVENT, rows.get(0));
+        } else if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.credit.outbox.poll-interval-ms:200}")
+    public void scheduledRelay() {
+        if (config.isEnabled()) {
+            relay();
+        }
+    }
+
+    /**
+     * Deliver pending events of every lane this node can claim, one pass over the lanes that had
+     * pending events when the pass started. Returns the number of events delivered.
+     */
+    public int relay() {
+        List<Integer> pending = new ArrayList<>(jdbcTemplate.queryForList(PENDING_LANES, Integer.class));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        // Nodes start from different lanes so their claims rarely collide
+        Collections.shuffle(pending);
+        int chunk = Math.max(1, config.getLanesPerClaim());
+        int delivered = 0;
+        for (int from = 0; from < pending.size(); from += chunk) {
+            List<Integer> lanes = pending.subList(from, Math.min(pending.size(), from + chunk));
+            try {
+                Integer count = transactionTemplate.execute(status -> relayLanes(lanes));
+                delivered += count == null ? 0 : count;
+            } catch (RuntimeException e) {
+                logger.warn("Credit outbox relay of lanes {} rolled back; events will be redelivered", lanes, e);
+            }
+        }
+        return delivered;
+    }
+
+    private int relayLanes(List<Integer> lanes) {
+        List<Integer> claimed = namedJdbcTemplate.queryForList(CLAIM_LANES,
+                new MapSqlParameterSource("lanes", lanes), Integer.class);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        List<PendingEvent> events = namedJdbcTemplate.query(PENDING_EVENTS, new MapSqlParameterSource()
+                .addValue("lanes", claimed)
+                .addValue("now", new Timestamp(now))
+                .addValue("limit", Math.max(1, config.getBatchSize())), PENDING_MAPPER);
+
+        // Accounts whose delivery failed in this batch; their later events wait for the retry
+        Set<Long> heldBack = new HashSet<>();
+        List<Long> delivered = new ArrayList<>(events.size());
+        for (PendingEvent pending : events) {
+            CreditEvent event = pending.event;
+            if (heldBack.contains(event.getAccountId())) {
+                continue;
+            }
+            try {
+                for (CreditEventSink sink : sinks) {
+                    sink.publish(event);
+                }
+            } catch (Exception e) {
+                failureCounter.increment();
+                if (!giveUp(pending, e, now)) {
+                    heldBack.add(event.getAccountId());
+                }
+                continue;
+            }
+            delivered.add(event.getEventId());
+            lagTimer.record(Duration.ofMillis(Math.max(0L, now - event.getCreatedOn())));
+        }
+        if (delivered.isEmpty()) {
+            return 0;
+        }
+
+        for (CreditEventSink sink : sinks) {
+            try {
+                sink.flush();
+            } catch (Exception e) {
+                throw new IllegalStateException("Credit event sink " + sink.getClass().getSimpleName()
+                        + " failed to flush", e);
+            }
+        }
+        Timestamp publishedOn = new Timestamp(now);
+        namedJdbcTemplate.update(MARK_PUBLISHED, new MapSqlParameterSource()
+                .addValue("now", publishedOn)
+                .addValue("ids", delivered));
+        publishedCounter.increment(delivered.size());
+        return delivered.size();
+    }
+
+    /**
+     * Record a failed delivery. Returns true when the event was parked, which lets the rest of its
+     * account through.
+     */
+    private boolean giveUp(PendingEvent pending, Exception e, long now) {
+        int attempts = pending.attempts + 1;
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        if (attempts >= config.getMaxAttempts()) {
+            parkedCounter.increment();
+            logger.error("Parking credit event {} ({} for account {}) after {} attempts",
+                    pending.event.getEventId(), pending.event.getTransactionType(), pending.event.getAccountId(),
+                    attempts, e);
+            jdbcTemplate.update(PARK, attempts, error, pending.event.getEventId());
+            return true;
+        }
+        long delay = Math.min(config.getRetryMaxMs(), config.getRetryBaseMs() << Math.min(attempts - 1, 20));
+        logger.warn("Credit event {} for account {} failed (attempt {}/{}), retrying in {} ms: {}",
+                pending.event.getEventId(), pending.event.getAccountId(), attempts, config.getMaxAttempts(),
+                delay, error);
+        jdbcTemplate.update(RETRY_LATER, attempts, new Timestamp(now + delay), error, pending.event.getEventId());
+        return false;
+    }
+
+    @Scheduled(cron = "${app.credit.outbox.purge-cron:0 15 * * * *}")
+    public void purgePublished() {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - config.getRetentionHours() * 3_600_000L);
+        int batch = Math.max(1, config.getPurgeBatchSize());
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE, cutoff, batch);
+            purged += deleted;
+        } while (deleted == batch);
+        if (purged > 0) {
+            logger.info("Purged {} published credit events older than {}", purged, cutoff);
+        }
+    }
+
+    private int lanes() {
+        return Math.max(1, config.getLanes());
+    }
+}
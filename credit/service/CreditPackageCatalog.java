@@ -0,0 +1,199 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory snapshot of the active credit packages, already serialized to JSON. Requests are served
+ * from the snapshot without touching MySQL or allocating a new body; the ETag is derived from the
+ * bytes, so every node hands out the same tag for the same catalog and clients revalidate with 304s.
+ *
+ * Changes are announced through credit_catalog_versions: {@link #invalidate()} bumps the shared
+ * version and rebuilds locally, and the other nodes pick the bump up on their next poll. A failed
+ * rebuild keeps the previous snapshot in service.
+ */
+@Service
+public class CreditPackageCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditPackageCatalog.class);
+
+    private static final String PACKAGES = "credit_packages";
+
+    private static final String INIT_VERSION =
+            "INSERT IGNORE INTO credit_catalog_versions (name, version, modified_on) VALUES (?, 0, ?)";
+
+    private static final String CURRENT_VERSION =
+            "SELECT version FROM credit_catalog_versions WHERE name = ?";
+
+    private static final String BUMP_VERSION =
+            "INSERT INTO credit_catalog_versions (name, version, modified_on) VALUES (?, 1, ?) "
+            + "ON DUPLICATE KEY UPDATE version = version + 1, modified_on = VALUES(modified_on)";
+
+    private static final String ACTIVE_PACKAGES =
+            "SELECT id, package_code, package_name, credits, price, currency, description, display_order "
+            + "FROM credit_packages WHERE is_active = true ORDER BY display_order, id";
+
+    private static final RowMapper<Map<String, Object>> PACKAGE_MAPPER = (rs, rowNum) -> {
+        Map<String, Object> creditPackage = new LinkedHashMap<>();
+        creditPackage.put("id", rs.getInt("id"));
+        creditPackage.put("packageCode", rs.getString("package_code"));
+        creditPackage.put("packageName", rs.getString("package_name"));
+        creditPackage.put("credits", rs.getBigDecimal("credits"));
+        creditPackage.put("price", rs.getBigDecimal("price"));
+        creditPackage.put("currency", rs.getString("currency"));
+        creditPackage.put("description", rs.getString("description"));
+        creditPackage.put("displayOrder", rs.getInt("display_order"));
+        return creditPackage;
+    };
+
+    /**
+     * One immutable version of the catalog.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final byte[] body;
+        private final String etag;
+        private final int size;
+
+        Snapshot(long version, byte[] body, String etag, int size) {
+            this.version = version;
+            this.body = body;
+            this.etag = etag;
+            this.size = size;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * The serialized JSON array. Shared between requests; callers must not modify it.
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Whether an If-None-Match header value names this snapshot.
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            // The tag is quoted, so a plain search cannot hit a longer tag; W/ prefixes compare weakly
+            return ifNoneMatch.indexOf(etag) >= 0 || ifNoneMatch.trim().equals("*");
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private volatile Snapshot snapshot;
+
+    public CreditPackageCatalog(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        jdbcTemplate.update(INIT_VERSION, PACKAGES, new Timestamp(System.currentTimeMillis()));
+        refresh();
+    }
+
+    /**
+     * The current snapshot. Only the very first call of a node, before startup has loaded the
+     * catalog, reads the database.
+     */
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    rebuild(currentVersion());
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Announce a catalog change to every node and rebuild this node's copy now.
+     */
+    public Snapshot invalidate() {
+        jdbcTemplate.update(BUMP_VERSION, PACKAGES, new Timestamp(System.currentTimeMillis()));
+        synchronized (this) {
+            rebuild(currentVersion());
+            return snapshot;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.credit.catalog.poll-interval-ms:2000}")
+    public void refresh() {
+        try {
+            long version = currentVersion();
+            Snapshot current = snapshot;
+            if (current == null || current.version != version) {
+                synchronized (this) {
+                    current = snapshot;
+                    if (current == null || current.version != version) {
+                        rebuild(version);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh the credit package catalog; serving the previous snapshot", e);
+        }
+    }
+
+    private long currentVersion() {
+        List<Long> versions = jdbcTemplate.queryForList(CURRENT_VERSION, Long.class, PACKAGES);
+        return versions.isEmpty() ? 0L : versions.get(0);
+    }
+
+    private void rebuild(long version) {
+        List<Map<String, Object>> packages = jdbcTemplate.query(ACTIVE_PACKAGES, PACKAGE_MAPPER);
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(packages);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the credit package catalog", e);
+        }
+        snapshot = new Snapshot(version, body, etag(body), packages.size());
+        logger.info("Loaded credit package catalog version {} ({} packages)", version, packages.size());
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.model.credit.TransactionType;
+import com.code.aplusbinary.accountmanagement.util.IdGenerator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Proves that every user_credits row equals what its credit_transactions history adds up to, and that
+ * allocated_to_children matches the allocations and approved purchases the account is still paying for.
+ *
+ * Each account keeps a checkpoint with the ledger totals up to the last transaction id it verified, so
+ * a run only replays the rows written since. Ids are handed out at insert but become visible at commit,
+ * so a row can appear below the newest id after a run has seen past it; the checkpoint therefore only
+ * moves up to rows older than {@code checkpoint-lag-seconds} (longer than any credit transaction stays
+ * open), and the younger tail is replayed again by the next run.
+ *
+ * Accounts are split into id ranges that a bounded fork-join pool works through in parallel; every
+ * check runs in its own REPEATABLE READ transaction, so the ledger and the balance row are read from the
+ * same snapshot without locking either. Workers pause while the average check is slower than the
+ * configured target, backing off further the longer the database stays slow.
+ *
+ * Mismatches are written to credit_reconciliation_discrepancies and returned in the run's report; the
+ * checkpoint still advances, so a discrepancy is reported again on every run until it is corrected.
+ */
+@Service
+public class CreditReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditReconciliationService.class);
+
+    private static final String RANGE_END =
+            "SELECT MAX(account_id) FROM (SELECT account_id FROM user_credits WHERE account_id > ? "
+            + "ORDER BY account_id LIMIT ?) page";
+
+    private static final String RANGE_ACCOUNTS =
+            "SELECT account_id FROM user_credits WHERE account_id > ? AND account_id <= ? ORDER BY account_id";
+
+    private static final String CHECKPOINT =
+            "SELECT last_transaction_id, current_balance, reserved_balance, total_purchased, total_consumed, "
+            + "allocated_to_children, allocated_from_parent FROM credit_reconciliation_checkpoints WHERE account_id = ?";
+
+    // Deltas are recomputed from amount and type rather than trusting balance_before/after
+    private static final String DELTA =
+            "SELECT COUNT(*) AS replayed, MAX(id) AS last_id, "
+            + sum(CreditOperation::getCurrentSign, "balance_after - balance_before", "current_balance") + ", "
+            + sum(CreditOperation::getReservedSign, "reserved_after - reserved_before", "reserved_balance") + ", "
+            + sum(CreditOperation::getPurchasedSign, null, "total_purchased") + ", "
+            + sum(CreditOperation::getConsumedSign, null, "total_consumed") + ", "
+            + sum(CreditOperation::getAllocatedToChildrenSign, null, "allocated_to_children") + ", "
+            + sum(CreditOperation::getAllocatedFromParentSign, null, "allocated_from_parent") + " "
+            + "FROM credit_transactions WHERE account_id = ? AND id > ? AND id <= ?";
+
+    // Newest row old enough that no row below it can still be waiting to commit
+    private static final String SETTLED_ID =
+            "SELECT MAX(id) FROM credit_transactions WHERE account_id = ? AND id > ? AND created_on <= ?";
+
+    private static final String BALANCES =
+            "SELECT current_balance, reserved_balance, total_purchased, total_consumed, allocated_to_children, "
+            + "allocated_from_parent FROM user_credits WHERE account_id = ?";
+
+    private static final String STRIPE_TOTALS =
+            "SELECT COALESCE(SUM(balance), 0) AS current_balance, COALESCE(SUM(allocated_to_children), 0) "
+            + "AS allocated_to_children FROM credit_balance_stripes WHERE account_id = ?";
+
+    // What the account has handed out and not had back: allocations net of returns, plus purchases it approved
+    private static final String ALLOCATED_OUT =
+            "SELECT (SELECT COALESCE(SUM(allocated_amount - returned_amount), 0) FROM credit_allocations "
+            + "WHERE from_account_id = ?) + (SELECT COALESCE(SUM(approver_charged), 0) FROM package_purchases "
+            + "WHERE approved_by_account_id = ? AND payment_status = 'COMPLETED')";
+
+    private static final String SAVE_CHECKPOINT =
+            "INSERT INTO credit_reconciliation_checkpoints (account_id, last_transaction_id, current_balance, "
+            + "reserved_balance, total_purchased, total_consumed, allocated_to_children, allocated_from_parent, "
+            + "in_balance, verified_on) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "last_transaction_id = VALUES(last_transaction_id), current_balance = VALUES(current_balance), "
+            + "reserved_balance = VALUES(reserved_balance), total_purchased = VALUES(total_purchased), "
+            + "total_consumed = VALUES(total_consumed), allocated_to_children = VALUES(allocated_to_children), "
+            + "allocated_from_parent = VALUES(allocated_from_parent), in_balance = VALUES(in_balance), "
+            + "verified_on = VALUES(verified_on)";
+
+    private static final String INSERT_DISCREPANCY =
+            "INSERT INTO credit_reconciliation_discrepancies (run_id, account_id, field_name, expected_amount, "
+            + "actual_amount, last_transaction_id, detected_on) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String[] LEDGER_FIELDS = {
+            "current_balance", "reserved_balance", "total_purchased", "total_consumed",
+            "allocated_to_children", "allocated_from_parent"
+    };
+
+    static final String ALLOCATIONS_FIELD = "allocated_to_children/allocations";
+
+    private static final class Range {
+        final long after;
+        final long last;
+
+        Range(long after, long last) {
+            this.after = after;
+            this.last = last;
+        }
+    }
+
+    private static final class Run {
+        final String runId;
+        final LongAdder accounts = new LongAdder();
+        final LongAdder replayed = new LongAdder();
+        final LongAdder throttledMillis = new LongAdder();
+        final ConcurrentLinkedQueue<ReconciliationReport.Discrepancy> discrepancies = new ConcurrentLinkedQueue<>();
+        volatile boolean complete = true;
+
+        Run(String runId) {
+            this.runId = runId;
+        }
+    }
+
+    /**
+     * Moving average of per-account check time; while it is above target the pause between checks
+     * doubles up to the cap, and it halves again once the database has caught up.
+     */
+    private static final class LatencyThrottle {
+        private final double targetMillis;
+        private final long maxPauseMillis;
+        private double averageMillis;
+        private long pauseMillis;
+
+        LatencyThrottle(long targetMillis, long maxPauseMillis) {
+            this.targetMillis = Math.max(1, targetMillis);
+            this.maxPauseMillis = Math.max(0, maxPauseMillis);
+        }
+
+        synchronized long record(long elapsedNanos) {
+            double millis = elapsedNanos / 1_000_000.0;
+            averageMillis = averageMillis == 0 ? millis : averageMillis + 0.2 * (millis - averageMillis);
+            if (averageMillis > targetMillis) {
+                pauseMillis = Math.min(maxPauseMillis, Math.max(pauseMillis * 2, 5));
+            } else {
+                pauseMillis /= 2;
+            }
+            return pauseMillis;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final CreditLedgerService ledgerService;
+    private final IdGenerator idGenerator;
+    private final CreditEngineProperties properties;
+    private final CreditEngineProperties.Reconciliation config;
+    private final AtomicReference<String> runningId = new AtomicReference<>();
+    private final AtomicLong discrepancyGauge = new AtomicLong();
+    private final Counter replayedCounter;
+    private final Counter discrepancyCounter;
+    private volatile ReconciliationReport lastReport;
+
+    public CreditReconciliationService(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       CreditLedgerService ledgerService,
+                                       IdGenerator idGenerator,
+                                       CreditEngineProperties properties,
+                                       MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.ledgerService = ledgerService;
+        this.idGenerator = idGenerator;
+        this.properties = properties;
+        this.config = properties.getReconciliation();
+        this.replayedCounter = Counter.builder("credit.reconciliation.transactions.replayed")
+                .description("Ledger rows replayed by reconciliation")
+                .register(meterRegistry);
+        this.discrepancyCounter = Counter.builder("credit.reconciliation.discrepancies")
+                .description("Balance columns found out of line with their history")
+                .register(meterRegistry);
+        meterRegistry.gauge("credit.reconciliation.last.discrepancies", discrepancyGauge);
+    }
+
+    @Scheduled(cron = "${app.credit.reconciliation.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (reconcile().isEmpty()) {
+            logger.info("Skipping scheduled credit reconciliation, run {} is still in progress", runningId.get());
+        }
+    }
+
+    /**
+     * Reconcile every account and return the report, or empty if another run is still in progress
+     * (see {@link #getRunningId()}). Only one run may be in progress at a time.
+     */
+    public Optional<ReconciliationReport> reconcile() {
+        String runId = idGenerator.nextId("RCN-");
+        if (!runningId.compareAndSet(null, runId)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(runAll(runId));
+        } finally {
+            runningId.set(null);
+        }
+    }
+
+    /**
+     * Id of the run in progress, or null when none is.
+     */
+    public String getRunningId() {
+        return runningId.get();
+    }
+
+    public ReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    private ReconciliationReport runAll(String runId) {
+        Date startedOn = new Date();
+        Run run = new Run(runId);
+        LatencyThrottle throttle = new LatencyThrottle(config.getTargetLatencyMs(), config.getMaxPauseMs());
+        List<Range> ranges = ranges(Math.max(1, config.getRangeSize()));
+
+        List<Callable<Void>> tasks = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            tasks.add(() -> {
+                checkRange(run, range, throttle);
+                return null;
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, config.getParallelism()), forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("credit-reconcile-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        try {
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    run.complete = false;
+                    logger.error("Credit reconciliation range failed in run {}", run.runId, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.complete = false;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<ReconciliationReport.Discrepancy> discrepancies = new ArrayList<>(run.discrepancies);
+        discrepancies.sort(Comparator.comparing(ReconciliationReport.Discrepancy::getAccountId)
+                .thenComparing(ReconciliationReport.Discrepancy::getField));
+        ReconciliationReport report = new ReconciliationReport(run.runId, startedOn, new Date(),
+                run.accounts.sum(), run.replayed.sum(), run.throttledMillis.sum(), run.complete, discrepancies);
+        lastReport = report;
+        discrepancyGauge.set(discrepancies.size());
+
+        if (discrepancies.isEmpty()) {
+            logger.info("Credit reconciliation {} checked {} accounts, replayed {} transactions, all in balance",
+                    run.runId, report.getAccountsChecked(), report.getTransactionsReplayed());
+        } else {
+            logger.warn("Credit reconciliation {} checked {} accounts and found {} discrepancies",
+                    run.runId, report.getAccountsChecked(), discrepancies.size());
+            for (ReconciliationReport.Discrepancy d : discrepancies) {
+                logger.warn("Account {} {}: expected {} but found {} (ledger up to transaction {})",
+                        d.getAccountId(), d.getField(), d.getExpected(), d.getActual(), d.getLastTransactionId());
+            }
+        }
+        if (!run.complete) {
+            logger.warn("Credit reconciliation {} did not cover every account", run.runId);
+        }
+        return report;
+    }
+
+    /**
+     * Cut the account id space into ranges of about {@code rangeSize} accounts, walking the index only.
+     */
+    private List<Range> ranges(int rangeSize) {
+        List<Range> ranges = new ArrayList<>();
+        long after = 0L;
+        while (true) {
+            Long last = jdbcTemplate.queryForObject(RANGE_END, Long.class, after, rangeSize);
+            if (last == null) {
+                return ranges;
+            }
+            ranges.add(new Range(after, last));
+            after = last;
+        }
+    }
+
+    private void checkRange(Run run, Range range, LatencyThrottle throttle) throws InterruptedException {
+        List<Long> accountIds = jdbcTemplate.queryForList(RANGE_ACCOUNTS, Long.class, range.after, range.last);
+        for (Long accountId : accountIds) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            long started = System.nanoTime();
+            try {
+                checkAccount(run, accountId);
+                run.accounts.increment();
+            } catch (RuntimeException e) {
+                run.complete = false;
+                logger.error("Could not reconcile credits of account {}", accountId, e);
+            }
+            long pause = throttle.record(System.nanoTime() - started);
+            if (pause > 0) {
+                run.throttledMillis.add(pause);
+                Thread.sleep(pause);
+            }
+        }
+    }
+
+    private void checkAccount(Run run, Long accountId) {
+        snapshotTemplate.executeWithoutResult(status -> {
+            List<Map<String, Object>> checkpoints = jdbcTemplate.queryForList(CHECKPOINT, accountId);
+            Map<String, Object> checkpoint = checkpoints.isEmpty() ? null : checkpoints.get(0);
+            long checkpointId = checkpoint == null ? 0L : ((Number) checkpoint.get("last_transaction_id")).longValue();
+
+            // Settled rows move the checkpoint; the tail after them is only compared
+            Timestamp settledBefore = new Timestamp(System.currentTimeMillis()
+                    - config.getCheckpointLagSeconds() * 1000L);
+            Long settled = jdbcTemplate.queryForObject(SETTLED_ID, Long.class, accountId, checkpointId, settledBefore);
+            long settledId = settled == null ? checkpointId : settled;
+            Map<String, Object> settledDelta = jdbcTemplate.queryForMap(DELTA, accountId, checkpointId, settledId);
+            Map<String, Object> tail = jdbcTemplate.queryForMap(DELTA, accountId, settledId, Long.MAX_VALUE);
+            long replayed = ((Number) settledDelta.get("replayed")).longValue()
+                    + ((Number) tail.get("replayed")).longValue();
+            long lastId = tail.get("last_id") != null ? ((Number) tail.get("last_id")).longValue() : settledId;
+
+            long[] checkpointed = new long[LEDGER_FIELDS.length];
+            long[] expected = new long[LEDGER_FIELDS.length];
+            for (int i = 0; i < LEDGER_FIELDS.length; i++) {
+                checkpointed[i] = minor(checkpoint, LEDGER_FIELDS[i]) + minor(settledDelta, LEDGER_FIELDS[i]);
+                expected[i] = checkpointed[i] + minor(tail, LEDGER_FIELDS[i]);
+            }
+
+            long[] actual = actual(accountId);
+            long allocatedOut = CreditAmount.columnToMinor(
+                    jdbcTemplate.queryForObject(ALLOCATED_OUT, BigDecimal.class, accountId, accountId));
+
+            List<ReconciliationReport.Discrepancy> found = new ArrayList<>();
+            for (int i = 0; i < LEDGER_FIELDS.length; i++) {
+                if (expected[i] != actual[i]) {
+                    found.add(new ReconciliationReport.Discrepancy(accountId, LEDGER_FIELDS[i],
+                            expected[i], actual[i], lastId));
+                }
+            }
+            // Index 4 is allocated_to_children
+            if (allocatedOut != actual[4]) {
+                found.add(new ReconciliationReport.Discrepancy(accountId, ALLOCATIONS_FIELD,
+                        allocatedOut, actual[4], lastId));
+            }
+
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            jdbcTemplate.update(SAVE_CHECKPOINT, accountId, settledId,
+                    CreditAmount.toBigDecimal(checkpointed[0]), CreditAmount.toBigDecimal(checkpointed[1]),
+                    CreditAmount.toBigDecimal(checkpointed[2]), CreditAmount.toBigDecimal(checkpointed[3]),
+                    CreditAmount.toBigDecimal(checkpointed[4]), CreditAmount.toBigDecimal(checkpointed[5]),
+                    found.isEmpty(), now);
+            if (!found.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_DISCREPANCY, found, found.size(), (ps, d) -> {
+                    ps.setString(1, run.runId);
+                    ps.setLong(2, d.getAccountId());
+                    ps.setString(3, d.getField());
+                    ps.setBigDecimal(4, d.getExpected());
+                    ps.setBigDecimal(5, d.getActual());
+                    ps.setLong(6, d.getLastTransactionId());
+                    ps.setTimestamp(7, now);
+                });
+            }
+
+            run.replayed.add(replayed);
+            replayedCounter.increment(replayed);
+            if (!found.isEmpty()) {
+                discrepancyCounter.increment(found.size());
+                run.discrepancies.addAll(found);
+            }
+        });
+    }
+
+    /**
+     * The stored balance in {@link #LEDGER_FIELDS} order. In append-only mode user_credits is only a
+     * projection that lags the ledger, so the latest snapshot plus its tail is what gets verified.
+     */
+    private long[] actual(Long accountId) {
+        if (properties.getLedger().getMode() == CreditEngineProperties.LedgerMode.APPEND_ONLY) {
+            CreditLedgerBalance balance = ledgerService.current(accountId);
+            return new long[] {
+                    balance.getCurrentBalanceMinor(), balance.getReservedBalanceMinor(),
+                    balance.getTotalPurchasedMinor(), balance.getTotalConsumedMinor(),
+                    balance.getAllocatedToChildrenMinor(), balance.getAllocatedFromParentMinor()
+            };
+        }
+        Map<String, Object> row = jdbcTemplate.queryForMap(BALANCES, accountId);
+        // Striped accounts hold part of their balance and allocations in credit_balance_stripes
+        Map<String, Object> stripes = jdbcTemplate.queryForMap(STRIPE_TOTALS, accountId);
+        long[] actual = new long[LEDGER_FIELDS.length];
+        for (int i = 0; i < LEDGER_FIELDS.length; i++) {
+            actual[i] = minor(row, LEDGER_FIELDS[i]);
+        }
+        actual[0] += minor(stripes, "current_balance");
+        actual[4] += minor(stripes, "allocated_to_children");
+        return actual;
+    }
+
+    /**
+     * SUM over the ledger of one balance column, signed per transaction type as {@link CreditOperation}
+     * applies it. Types no operation produces (manual adjustments) fall back to {@code fallback}.
+     */
+    private static String sum(ToIntFunction<CreditOperation> sign, String fallback, String alias) {
+        StringBuilder sql = new StringBuilder("COALESCE(SUM(CASE transaction_type");
+        List<TransactionType> covered = new ArrayList<>();
+        for (CreditOperation operation : CreditOperation.values()) {
+            covered.add(operation.getTransactionType());
+            int s = sign.applyAsInt(operation);
+            if (s != 0) {
+                sql.append(" WHEN '").append(operation.getTransactionType().name()).append("' THEN ")
+                        .append(s > 0 ? "amount" : "-amount");
+            }
+        }
+        if (fallback != null) {
+            for (TransactionType type : TransactionType.values()) {
+                if (!covered.contains(type)) {
+                    sql.append(" WHEN '").append(type.name()).append("' THEN ").append(fallback);
+                }
+            }
+        }
+        return sql.append(" ELSE 0 END), 0) AS ").append(alias).toString();
+    }
+
+    private static long minor(Map<String, Object> row, String column) {
+        return row == null ? 0L : CreditAmount.columnToMinor(row.get(column));
+    }
+}
@@ -0,0 +1,384 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationActionRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationExtendRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationMode;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationResponse;
+import com.code.aplusbinary.accountmanagement.dto.credit.ReservationOutcome;
+import com.code.aplusbinary.accountmanagement.exception.CreditOperationException;
+import com.code.aplusbinary.accountmanagement.exception.InsufficientCreditException;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.model.credit.ReservationStatus;
+import com.code.aplusbinary.accountmanagement.util.CreditCaller;
+import com.code.aplusbinary.accountmanagement.util.IdGenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reserve, confirm and release many credit holds in one call and one transaction.
+ * Reservation rows are written with JDBC batch inserts, and the balance side goes through
+ * {@link CreditMutationEngine} as one guarded update per account, so a 200-file upload costs
+ * three round trips (reserve, confirm, release) instead of one per file per step.
+ */
+@Service
+public class CreditReservationBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditReservationBatchService.class);
+
+    private static final String INSERT_RESERVATION =
+            "INSERT INTO credit_reservations (reservation_id, account_id, reserved_amount, status, reference_id, "
+            + "reference_type, reserved_on, expires_on, notes, created_on, modified_on) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String LOCK_RESERVATIONS =
+            "SELECT reservation_id, account_id, reserved_amount, status, reference_id "
+            + "FROM credit_reservations WHERE reservation_id IN (:ids) "
+            + "AND (:accountId IS NULL OR account_id = :accountId) FOR UPDATE";
+
+    // Never past created_on + the lifetime cap, so a hold renewed for a crashed job still lapses
+    private static final String EXTEND_RESERVATIONS =
+            "UPDATE credit_reservations "
+            + "SET expires_on = LEAST(:expiresOn, created_on + INTERVAL :maxLifetime SECOND), modified_on = :now "
+            + "WHERE reservation_id IN (:ids) AND (:accountId IS NULL OR account_id = :accountId) "
+            + "AND status = 'RESERVED' AND expires_on > :now "
+            + "AND expires_on < LEAST(:expiresOn, created_on + INTERVAL :maxLifetime SECOND)";
+
+    private static final String SELECT_RESERVATIONS =
+            "SELECT reservation_id, reserved_amount, status, reference_id, expires_on "
+            + "FROM credit_reservations WHERE reservation_id IN (:ids) "
+            + "AND (:accountId IS NULL OR account_id = :accountId)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final CreditMutationEngine mutationEngine;
+    private final ReservationExpiryService expiryService;
+    private final AllocationDrawdownService drawdownService;
+    private final IdGenerator idGenerator;
+    private final CreditAccessPolicy accessPolicy;
+    private final CreditEngineProperties properties;
+
+    public CreditReservationBatchService(JdbcTemplate jdbcTemplate,
+                                         CreditMutationEngine mutationEngine,
+                                         ReservationExpiryService expiryService,
+                                         AllocationDrawdownService drawdownService,
+                                         IdGenerator idGenerator,
+                                         CreditAccessPolicy accessPolicy,
+                                         CreditEngineProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.mutationEngine = mutationEngine;
+        this.expiryService = expiryService;
+        this.drawdownService = drawdownService;
+        this.idGenerator = idGenerator;
+        this.accessPolicy = accessPolicy;
+        this.properties = properties;
+    }
+
+    /**
+     * Reserve for request.accountId, or for the caller's own account when it names none.
+     */
+    @Transactional
+    public BatchReservationResponse reserveBatch(BatchReservationRequest request, CreditCaller caller) {
+        validate(request);
+        return reserve(accessPolicy.resolve(caller, request.getAccountId()), request);
+    }
+
+    /**
+     * Reserve for an account the caller has already been checked against, in the caller's transaction.
+     */
+    BatchReservationResponse reserve(Long accountId, BatchReservationRequest request) {
+        List<BatchReservationRequest.Item> items = request.getItems();
+
+        boolean[] accepted = new boolean[items.size()];
+        if (request.getMode() == BatchReservationMode.BEST_EFFORT) {
+            // Lock the balance first so the subset we pick is still affordable when we apply it
+            long available = mutationEngine.lockAvailableMinor(accountId);
+            for (int i = 0; i < items.size(); i++) {
+                long amount = CreditAmount.toMinor(items.get(i).getAmount());
+                if (available >= amount) {
+                    accepted[i] = true;
+                    available -= amount;
+                }
+            }
+        } else {
+            Arrays.fill(accepted, true);
+        }
+
+        long ttlSeconds = request.getTtlSeconds() != null && request.getTtlSeconds() > 0
+                ? request.getTtlSeconds()
+                : properties.getReservation().getTtlSeconds();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Timestamp expiresOn = new Timestamp(now.getTime() + ttlSeconds * 1000L);
+
+        List<CreditMutation> holds = new ArrayList<>();
+        List<Object[]> reservationRows = new ArrayList<>();
+        List<ReservationOutcome> outcomes = new ArrayList<>(items.size());
+        Map<Integer, ReservationOutcome> outcomeByHold = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchReservationRequest.Item item = items.get(i);
+            if (!accepted[i]) {
+                ReservationOutcome outcome = new ReservationOutcome(null, item.getReferenceId(), item.getAmount(),
+                        ReservationOutcome.REJECTED);
+                outcome.setMessage("Insufficient credits");
+                outcomes.add(outcome);
+                continue;
+            }
+            String reservationId = idGenerator.nextId("RSV-");
+            holds.add(CreditMutation.of(accountId, CreditOperation.RESERVE, item.getAmount())
+                    .reservationId(reservationId)
+                    .reference(item.getReferenceId(), item.getReferenceType())
+                    .description("Credit reserved for " + describe(item)));
+            reservationRows.add(new Object[] {
+                    reservationId,
+                    accountId,
+                    item.getAmount(),
+                    ReservationStatus.RESERVED.name(),
+                    item.getReferenceId(),
+                    item.getReferenceType(),
+                    now,
+                    expiresOn,
+                    item.getNotes(),
+                    now,
+                    now
+            });
+            ReservationOutcome outcome = new ReservationOutcome(reservationId, item.getReferenceId(), item.getAmount(),
+                    ReservationStatus.RESERVED.name());
+            outcome.setExpiresOn(expiresOn);
+            outcomeByHold.put(holds.size() - 1, outcome);
+            outcomes.add(outcome);
+        }
+
+        if (!holds.isEmpty()) {
+            List<CreditMutationResult> results;
+            try {
+                results = mutationEngine.applyGrouped(holds);
+            } catch (InsufficientCreditException e) {
+                logger.info("Batch reservation of {} items rejected for account {}: {}",
+                        items.size(), accountId, e.getMessage());
+                throw e;
+            }
+            for (int i = 0; i < results.size(); i++) {
+                outcomeByHold.get(i).setTransactionId(results.get(i).getTransactionId());
+            }
+            jdbcTemplate.batchUpdate(INSERT_RESERVATION, reservationRows);
+            for (CreditMutation hold : holds) {
+                expiryService.track(hold.getReservationId(), expiresOn);
+            }
+        }
+
+        logger.info("Batch reserved {} of {} holds for account {} ({})",
+                holds.size(), items.size(), accountId, request.getMode());
+        return new BatchReservationResponse(outcomes);
+    }
+
+    @Transactional
+    public BatchReservationResponse confirmBatch(BatchReservationActionRequest request, CreditCaller caller) {
+        return settleBatch(request, caller, ReservationStatus.CONFIRMED, CreditOperation.CONSUME, "confirmed_on");
+    }
+
+    @Transactional
+    public BatchReservationResponse releaseBatch(BatchReservationActionRequest request, CreditCaller caller) {
+        return settleBatch(request, caller, ReservationStatus.RELEASED, CreditOperation.RELEASE, "released_on");
+    }
+
+    /**
+     * Renew the lease on in-flight holds. Each RESERVED hold whose lease has not yet lapsed gets
+     * expiresOn = now + ttl (never shortened, never past its lifetime cap); lapsed, settled or unknown
+     * holds are reported per item.
+     * The balance is untouched, so this is one UPDATE and one SELECT regardless of batch size.
+     * Holds of other accounts than the one the caller acts for are reported as not found.
+     */
+    @Transactional
+    public BatchReservationResponse extendBatch(BatchReservationExtendRequest request, CreditCaller caller) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(request.getReservationIds()));
+        if (ids.isEmpty()) {
+            return new BatchReservationResponse(List.of());
+        }
+        if (ids.size() > properties.getReservation().getMaxBatchSize()) {
+            throw new IllegalArgumentException("Batch exceeds maximum size of "
+                    + properties.getReservation().getMaxBatchSize());
+        }
+        long ttlSeconds = request.getTtlSeconds() != null && request.getTtlSeconds() > 0
+                ? Math.min(request.getTtlSeconds(), properties.getReservation().getMaxExtendSeconds())
+                : properties.getReservation().getTtlSeconds();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Timestamp expiresOn = new Timestamp(now.getTime() + ttlSeconds * 1000L);
+
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids)
+                .addValue("accountId", accessPolicy.scope(caller, request.getAccountId()))
+                .addValue("now", now)
+                .addValue("expiresOn", expiresOn)
+                .addValue("maxLifetime", properties.getReservation().getMaxLifetimeSeconds());
+        int extended = namedJdbcTemplate.update(EXTEND_RESERVATIONS, params);
+
+        Map<String, Map<String, Object>> rows = new HashMap<>();
+        for (Map<String, Object> row : namedJdbcTemplate.queryForList(SELECT_RESERVATIONS, params)) {
+            rows.put((String) row.get("reservation_id"), row);
+        }
+
+        List<ReservationOutcome> outcomes = new ArrayList<>(ids.size());
+        for (String reservationId : ids) {
+            Map<String, Object> row = rows.get(reservationId);
+            if (row == null) {
+                ReservationOutcome outcome = new ReservationOutcome(reservationId, null, null,
+                        ReservationOutcome.NOT_FOUND);
+                outcome.setMessage("Reservation not found");
+                outcomes.add(outcome);
+                continue;
+            }
+            String status = (String) row.get("status");
+            Timestamp currentExpiry = (Timestamp) row.get("expires_on");
+            ReservationOutcome outcome = new ReservationOutcome(reservationId, (String) row.get("reference_id"),
+                    (BigDecimal) row.get("reserved_amount"), status);
+            if (!ReservationStatus.RESERVED.name().equals(status)) {
+                outcome.setStatus(ReservationOutcome.REJECTED);
+                outcome.setMessage("Reservation is already " + status);
+            } else if (!currentExpiry.after(now)) {
+                outcome.setStatus(ReservationOutcome.REJECTED);
+                outcome.setMessage("Reservation lease has lapsed");
+            } else {
+                outcome.setExpiresOn(currentExpiry);
+                expiryService.track(reservationId, currentExpiry);
+            }
+            outcomes.add(outcome);
+        }
+
+        logger.info("Extended {} of {} reservations to {}", extended, ids.size(), expiresOn);
+        return new BatchReservationResponse(outcomes);
+    }
+
+    private BatchReservationResponse settleBatch(BatchReservationActionRequest request, CreditCaller caller,
+                                                 ReservationStatus target, CreditOperation operation,
+                                                 String timestampColumn) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(request.getReservationIds()));
+        if (ids.isEmpty()) {
+            return new BatchReservationResponse(List.of());
+        }
+        if (request.getMode() == null) {
+            request.setMode(BatchReservationMode.ALL_OR_NOTHING);
+        }
+        if (ids.size() > properties.getReservation().getMaxBatchSize()) {
+            throw new IllegalArgumentException("Batch exceeds maximum size of "
+                    + properties.getReservation().getMaxBatchSize());
+        }
+
+        // Holds of accounts the caller does not act for are not locked and read as not found
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids)
+                .addValue("accountId", accessPolicy.scope(caller, request.getAccountId()));
+        Map<String, Map<String, Object>> rows = new HashMap<>();
+        for (Map<String, Object> row : namedJdbcTemplate.queryForList(LOCK_RESERVATIONS, params)) {
+            rows.put((String) row.get("reservation_id"), row);
+        }
+
+        Map<String, ReservationOutcome> outcomes = new LinkedHashMap<>();
+        // Sorted, so accounts are locked in id order whatever the request order (as reserve does)
+        Map<Long, List<CreditMutation>> byAccount = new TreeMap<>();
+        List<Object[]> statusRows = new ArrayList<>();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (String reservationId : ids) {
+            Map<String, Object> row = rows.get(reservationId);
+            if (row == null) {
+                ReservationOutcome outcome = new ReservationOutcome(reservationId, null, null,
+                        ReservationOutcome.NOT_FOUND);
+                outcome.setMessage("Reservation not found");
+                outcomes.put(reservationId, outcome);
+                continue;
+            }
+            String status = (String) row.get("status");
+            BigDecimal amount = (BigDecimal) row.get("reserved_amount");
+            String referenceId = (String) row.get("reference_id");
+            if (!ReservationStatus.RESERVED.name().equals(status)) {
+                // A retried confirm/release of an already settled hold reports the settled state
+                ReservationOutcome outcome = new ReservationOutcome(reservationId, referenceId, amount,
+                        target.name().equals(status) ? status : ReservationOutcome.REJECTED);
+                outcome.setMessage("Reservation is already " + status);
+                outcomes.put(reservationId, outcome);
+                continue;
+            }
+            Long accountId = ((Number) row.get("account_id")).longValue();
+            byAccount.computeIfAbsent(accountId, key -> new ArrayList<>())
+                    .add(CreditMutation.of(accountId, operation, amount)
+                            .reservationId(reservationId)
+                            .reference(referenceId, null)
+                            .description("Reservation " + reservationId + " " + target.name().toLowerCase()));
+            statusRows.add(new Object[] { target.name(), now, now, reservationId });
+            outcomes.put(reservationId, new ReservationOutcome(reservationId, referenceId, amount, target.name()));
+        }
+
+        if (request.getMode() == BatchReservationMode.ALL_OR_NOTHING) {
+            for (ReservationOutcome outcome : outcomes.values()) {
+                if (!outcome.isApplied()) {
+                    throw new CreditOperationException(null, "Reservation " + outcome.getReservationId()
+                            + " cannot be " + target.name().toLowerCase() + ": " + outcome.getMessage());
+                }
+            }
+        }
+
+        if (!statusRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE credit_reservations SET status = ?, " + timestampColumn
+                    + " = ?, modified_on = ? WHERE reservation_id = ? AND status = 'RESERVED'", statusRows);
+            for (List<CreditMutation> parts : byAccount.values()) {
+                List<CreditMutationResult> results = mutationEngine.applyGrouped(parts);
+                for (int i = 0; i < results.size(); i++) {
+                    outcomes.get(parts.get(i).getReservationId()).setTransactionId(results.get(i).getTransactionId());
+                }
+                expiryService.untrack(parts.stream().map(CreditMutation::getReservationId).toList());
+                if (operation == CreditOperation.CONSUME) {
+                    drawdownService.drawdown(parts.get(0).getAccountId(),
+                            parts.stream().mapToLong(CreditMutation::getAmountMinor).sum());
+                }
+            }
+        }
+
+        logger.info("Batch {} {} of {} reservations", target.name().toLowerCase(), statusRows.size(), ids.size());
+        return new BatchReservationResponse(new ArrayList<>(outcomes.values()));
+    }
+
+    private void validate(BatchReservationRequest request) {
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("At least one reservation item is required");
+        }
+        if (request.getItems().size() > properties.getReservation().getMaxBatchSize()) {
+            throw new IllegalArgumentException("Batch exceeds maximum size of "
+                    + properties.getReservation().getMaxBatchSize());
+        }
+        for (BatchReservationRequest.Item item : request.getItems()) {
+            if (item.getAmount() == null || item.getAmount().signum() <= 0) {
+                throw new IllegalArgumentException("Reservation amount must be positive");
+            }
+            if (Math.max(item.getAmount().stripTrailingZeros().scale(), 0) > CreditAmount.SCALE) {
+                throw new IllegalArgumentException("Reservation amount must have at most "
+                        + CreditAmount.SCALE + " decimals: " + item.getAmount());
+            }
+        }
+        if (request.getMode() == null) {
+            request.setMode(BatchReservationMode.ALL_OR_NOTHING);
+        }
+    }
+
+    private static String describe(BatchReservationRequest.Item item) {
+        if (item.getReferenceType() == null) {
+            return item.getReferenceId() != null ? item.getReferenceId() : "batch item";
+        }
+        return item.getReferenceType() + " " + item.getReferenceId();
+    }
+}
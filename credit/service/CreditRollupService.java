@@ -0,0 +1,349 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.model.credit.TransactionType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Daily (account, day, transaction type) rollups of credit_transactions for dashboards.
+ *
+ * A worker follows credit_transactions by id and adds each batch into credit_daily_rollups with
+ * upserts, recording its watermark in credit_rollup_state in the same transaction, so every row is
+ * counted exactly once even with several nodes running (the state row is locked for the tick).
+ * Auto-increment ids become visible out of order when transactions commit late, so ids skipped below
+ * the watermark are kept as pending gaps and re-checked on every tick; a gap that fills is a late
+ * arrival and is added to its day then. Gaps that stay empty past the grace period were rolled back.
+ *
+ * Reads are index lookups on (account_id, day); subtree figures join the rollups with
+ * account_closure instead of touching raw transactions.
+ */
+@Service
+public class CreditRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditRollupService.class);
+
+    static final String DAILY = "daily";
+
+    private static final String INIT_STATE =
+            "INSERT IGNORE INTO credit_rollup_state (name, watermark_id, pending_gaps, modified_on) VALUES (?, 0, '', ?)";
+
+    private static final String LOCK_STATE =
+            "SELECT watermark_id, pending_gaps FROM credit_rollup_state WHERE name = ? FOR UPDATE";
+
+    private static final String SAVE_STATE =
+            "UPDATE credit_rollup_state SET watermark_id = ?, pending_gaps = ?, modified_on = ? WHERE name = ?";
+
+    private static final String ROW_COLUMNS =
+            "SELECT id, account_id, DATE(created_on) AS day, transaction_type, amount FROM credit_transactions ";
+
+    private static final String NEW_ROWS = ROW_COLUMNS + "WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String GAP_ROWS = ROW_COLUMNS + "WHERE id IN (:ids)";
+
+    private static final String ADD =
+            "INSERT INTO credit_daily_rollups (account_id, day, transaction_type, txn_count, amount_total, modified_on) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE txn_count = txn_count + VALUES(txn_count), "
+            + "amount_total = amount_total + VALUES(amount_total), modified_on = VALUES(modified_on)";
+
+    // Recount from raw rows, but only those the worker has already applied
+    private static final String REBUILD =
+            "INSERT INTO credit_daily_rollups (account_id, day, transaction_type, txn_count, amount_total, modified_on) "
+            + "SELECT account_id, DATE(created_on), transaction_type, COUNT(*), SUM(amount), :now "
+            + "FROM credit_transactions WHERE created_on >= :from AND created_on < :to AND id <= :watermark %s"
+            + "GROUP BY account_id, DATE(created_on), transaction_type ON DUPLICATE KEY UPDATE "
+            + "txn_count = VALUES(txn_count), amount_total = VALUES(amount_total), modified_on = VALUES(modified_on)";
+
+    private static final String ACCOUNT_SERIES =
+            "SELECT day, transaction_type, txn_count, amount_total FROM credit_daily_rollups "
+            + "WHERE account_id = ? AND day >= ? AND day <= ? %s ORDER BY day, transaction_type";
+
+    private static final String SUBTREE_SERIES =
+            "SELECT r.day, r.transaction_type, SUM(r.txn_count) AS txn_count, SUM(r.amount_total) AS amount_total "
+            + "FROM account_closure c JOIN credit_daily_rollups r ON r.account_id = c.descendant_id "
+            + "WHERE c.ancestor_id = ? AND r.day >= ? AND r.day <= ? %s "
+            + "GROUP BY r.day, r.transaction_type ORDER BY r.day, r.transaction_type";
+
+    private static final RowMapper<DailyCreditRollup> ROLLUP_MAPPER = (rs, rowNum) -> new DailyCreditRollup(
+            rs.getDate("day").toLocalDate(),
+            TransactionType.valueOf(rs.getString("transaction_type")),
+            rs.getLong("txn_count"),
+            CreditAmount.toMinor(rs.getBigDecimal("amount_total")));
+
+    private static final class Row {
+        final long id;
+        final long accountId;
+        final Date day;
+        final String type;
+        final long amount;
+
+        Row(long id, long accountId, Date day, String type, long amount) {
+            this.id = id;
+            this.accountId = accountId;
+            this.day = day;
+            this.type = type;
+            this.amount = amount;
+        }
+    }
+
+    private static final class Bucket {
+        final long accountId;
+        final Date day;
+        final String type;
+
+        Bucket(long accountId, Date day, String type) {
+            this.accountId = accountId;
+            this.day = day;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Bucket other && accountId == other.accountId && day.equals(other.day)
+                    && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(accountId, day, type);
+        }
+    }
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(
+            rs.getLong("id"), rs.getLong("account_id"), rs.getDate("day"), rs.getString("transaction_type"),
+            CreditAmount.toMinor(rs.getBigDecimal("amount")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CreditEngineProperties.Rollups config;
+    private final CreditEngineProperties.History history;
+    private final Counter appliedRows;
+    private final Counter lateRows;
+    private final Counter expiredGaps;
+
+    public CreditRollupService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               CreditEngineProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = properties.getRollups();
+        this.history = properties.getHistory();
+        this.appliedRows = Counter.builder("credit.rollups.rows")
+                .description("Credit transactions added to the daily rollups")
+                .register(meterRegistry);
+        this.lateRows = Counter.builder("credit.rollups.late.rows")
+                .description("Credit transactions that committed after the rollup had passed their id")
+                .register(meterRegistry);
+        this.expiredGaps = Counter.builder("credit.rollups.gaps.expired")
+                .description("Skipped ids given up on after the grace period")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initState() {
+        jdbcTemplate.update(INIT_STATE, DAILY, new Timestamp(System.currentTimeMillis()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.credit.rollups.interval-ms:5000}")
+    public void scheduledTick() {
+        if (config.isEnabled()) {
+            tick();
+        }
+    }
+
+    /**
+     * Apply newly committed transactions and late arrivals. Returns the number of rows applied.
+     */
+    public synchronized int tick() {
+        Integer applied = transactionTemplate.execute(status -> {
+            List<Map<String, Object>> state = jdbcTemplate.queryForList(LOCK_STATE, DAILY);
+            if (state.isEmpty()) {
+                return 0;
+            }
+            long watermark = ((Number) state.get(0).get("watermark_id")).longValue();
+            Map<Long, Long> gaps = parseGaps((String) state.get(0).get("pending_gaps"));
+            long now = System.currentTimeMillis();
+            Map<Bucket, long[]> buckets = new HashMap<>();
+            int rows = 0;
+
+            if (!gaps.isEmpty()) {
+                for (Row row : namedJdbcTemplate.query(GAP_ROWS, new MapSqlParameterSource("ids", gaps.keySet()),
+                        ROW_MAPPER)) {
+                    gaps.remove(row.id);
+                    add(buckets, row);
+                    rows++;
+                    lateRows.increment();
+                }
+                long expiry = now - config.getGapGraceSeconds() * 1000L;
+                for (Iterator<Long> it = gaps.values().iterator(); it.hasNext(); ) {
+                    if (it.next() < expiry) {
+                        it.remove();
+                        expiredGaps.increment();
+                    }
+                }
+            }
+
+            int batchSize = Math.max(1, config.getBatchSize());
+            for (int batch = 0; batch < Math.max(1, config.getMaxBatchesPerTick()); batch++) {
+                List<Row> fresh = jdbcTemplate.query(NEW_ROWS, ROW_MAPPER, watermark, batchSize);
+                for (Row row : fresh) {
+                    trackGaps(gaps, watermark, row.id, now);
+                    watermark = row.id;
+                    add(buckets, row);
+                    rows++;
+                }
+                if (fresh.size() < batchSize) {
+                    break;
+                }
+            }
+
+            if (!buckets.isEmpty()) {
+                Timestamp modifiedOn = new Timestamp(now);
+                List<Object[]> upserts = new ArrayList<>(buckets.size());
+                buckets.forEach((bucket, totals) -> upserts.add(new Object[] {
+                        bucket.accountId, bucket.day, bucket.type, totals[0], CreditAmount.toBigDecimal(totals[1]),
+                        modifiedOn }));
+                jdbcTemplate.batchUpdate(ADD, upserts);
+            }
+            jdbcTemplate.update(SAVE_STATE, watermark, formatGaps(gaps), new Timestamp(now), DAILY);
+            appliedRows.increment(rows);
+            return rows;
+        });
+        return applied == null ? 0 : applied;
+    }
+
+    /**
+     * Recount [from, to] from the raw rows still in the hot table, e.g. after a manual ledger fix.
+     * Days already archived keep their rollups. Returns the number of buckets written.
+     */
+    public synchronized int rebuild(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        Integer written = transactionTemplate.execute(status -> {
+            List<Map<String, Object>> state = jdbcTemplate.queryForList(LOCK_STATE, DAILY);
+            if (state.isEmpty()) {
+                return 0;
+            }
+            Map<Long, Long> gaps = parseGaps((String) state.get(0).get("pending_gaps"));
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("now", new Timestamp(System.currentTimeMillis()))
+                    .addValue("from", Timestamp.valueOf(from.atStartOfDay()))
+                    .addValue("to", Timestamp.valueOf(to.plusDays(1).atStartOfDay()))
+                    .addValue("watermark", ((Number) state.get(0).get("watermark_id")).longValue());
+            String gapFilter = "";
+            if (!gaps.isEmpty()) {
+                gapFilter = "AND id NOT IN (:gaps) ";
+                params.addValue("gaps", gaps.keySet());
+            }
+            return namedJdbcTemplate.update(String.format(REBUILD, gapFilter), params);
+        });
+        logger.info("Rebuilt credit rollups for {} to {}", from, to);
+        return written == null ? 0 : written;
+    }
+
+    /**
+     * Daily totals of one account over [from, to], optionally for one transaction type.
+     */
+    public List<DailyCreditRollup> accountSeries(Long accountId, LocalDate from, LocalDate to, TransactionType type) {
+        checkRange(from, to);
+        return series(ACCOUNT_SERIES, "AND transaction_type = ?", accountId, from, to, type);
+    }
+
+    /**
+     * Daily totals of an account and everything below it over [from, to].
+     */
+    public List<DailyCreditRollup> subtreeSeries(Long accountId, LocalDate from, LocalDate to, TransactionType type) {
+        checkRange(from, to);
+        return series(SUBTREE_SERIES, "AND r.transaction_type = ?", accountId, from, to, type);
+    }
+
+    private List<DailyCreditRollup> series(String sql, String typeFilter, Long accountId, LocalDate from,
+                                           LocalDate to, TransactionType type) {
+        if (type == null) {
+            return jdbcTemplate.query(String.format(sql, ""), ROLLUP_MAPPER, accountId, Date.valueOf(from),
+                    Date.valueOf(to));
+        }
+        return jdbcTemplate.query(String.format(sql, typeFilter), ROLLUP_MAPPER, accountId, Date.valueOf(from),
+                Date.valueOf(to), type.name());
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= history.getMaxQueryDays()) {
+            throw new IllegalArgumentException("Rollup queries may cover at most " + history.getMaxQueryDays() + " days");
+        }
+    }
+
+    private void trackGaps(Map<Long, Long> gaps, long watermark, long id, long now) {
+        for (long missing = watermark + 1; missing < id; missing++) {
+            if (gaps.size() >= config.getMaxTrackedGaps()) {
+                logger.warn("Credit rollup gap list is full; ids {} to {} will not be re-checked", missing, id - 1);
+                return;
+            }
+            gaps.put(missing, now);
+        }
+    }
+
+    private static void add(Map<Bucket, long[]> buckets, Row row) {
+        long[] totals = buckets.computeIfAbsent(new Bucket(row.accountId, row.day, row.type), k -> new long[2]);
+        totals[0]++;
+        totals[1] += row.amount;
+    }
+
+    private static Map<Long, Long> parseGaps(String value) {
+        Map<Long, Long> gaps = new LinkedHashMap<>();
+        if (value == null || value.isBlank()) {
+            return gaps;
+        }
+        for (String entry : value.split(",")) {
+            int colon = entry.indexOf(':');
+            gaps.put(Long.parseLong(entry.substring(0, colon)), Long.parseLong(entry.substring(colon + 1)));
+        }
+        return gaps;
+    }
+
+    private static String formatGaps(Map<Long, Long> gaps) {
+        StringBuilder value = new StringBuilder();
+        gaps.forEach((id, seen) -> {
+            if (value.length() > 0) {
+                value.append(',');
+            }
+            value.append(id).append(':').append(seen);
+        });
+        return value.toString();
+    }
+}
@@ -0,0 +1,327 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationActionRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationExtendRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationMode;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationResponse;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseResponse;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseSettleRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.ReservationOutcome;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Binary encoding of the internal credit RPC. The doc service carries a copy of this codec; the two
+ * must change together, and the version byte must be bumped on any incompatible change.
+ *
+ * A frame is the magic "CR", a version byte and a count, followed by that many calls (request) or
+ * results (response). A call is: call id, method, idempotency key, method payload. A result is:
+ * call id, HTTP-style status, then the response payload for 200, the message plus requested and
+ * available amounts for 402, or just the message otherwise.
+ *
+ * Integers are unsigned LEB128 varints, signed values zigzag-encoded. Amounts are minor units.
+ * Strings are a varint of length + 1 (0 for null) and UTF-8 bytes; nullable numbers carry a
+ * presence byte.
+ */
+final class CreditRpcCodec {
+
+    static final int VERSION = 1;
+    static final int MAX_CALLS = 1000;
+
+    static final int RESERVE = 1;
+    static final int CONFIRM = 2;
+    static final int RELEASE = 3;
+    static final int EXTEND = 4;
+    static final int LEASE_GRANT = 5;
+    static final int LEASE_SETTLE = 6;
+
+    private static final int MAX_STRING_BYTES = 1 << 20;
+
+    private CreditRpcCodec() {
+    }
+
+    // Requests
+
+    static BatchReservationRequest readReserve(Reader in) {
+        BatchReservationRequest request = new BatchReservationRequest();
+        // Null for the caller's own account; any other account is checked against the caller when run
+        request.setAccountId(in.nullableLong());
+        request.setMode(readMode(in));
+        request.setTtlSeconds(in.nullableLong());
+        int count = in.count();
+        List<BatchReservationRequest.Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BatchReservationRequest.Item item = new BatchReservationRequest.Item();
+            item.setAmount(in.amount());
+            item.setReferenceId(in.string());
+            item.setReferenceType(in.string());
+            item.setNotes(in.string());
+            items.add(item);
+        }
+        request.setItems(items);
+        return request;
+    }
+
+    static BatchReservationActionRequest readAction(Reader in) {
+        BatchReservationActionRequest request = new BatchReservationActionRequest();
+        request.setMode(readMode(in));
+        request.setReservationIds(in.strings());
+        return request;
+    }
+
+    static BatchReservationExtendRequest readExtend(Reader in) {
+        BatchReservationExtendRequest request = new BatchReservationExtendRequest();
+        request.setTtlSeconds(in.nullableLong());
+        request.setReservationIds(in.strings());
+        return request;
+    }
+
+    static CreditLeaseRequest readLeaseGrant(Reader in) {
+        CreditLeaseRequest request = new CreditLeaseRequest();
+        // Null for the caller's own account; any other account is checked against the caller when run
+        request.setAccountId(in.nullableLong());
+        request.setAmount(in.amount());
+        request.setMinAmount(in.amount());
+        request.setTtlSeconds(in.nullableLong());
+        request.setReferenceId(in.string());
+        return request;
+    }
+
+    static CreditLeaseSettleRequest readLeaseSettle(Reader in) {
+        CreditLeaseSettleRequest request = new CreditLeaseSettleRequest();
+        request.setReservationId(in.string());
+        request.setConsumedTotal(in.amount());
+        request.setRelease(in.bool());
+        request.setTtlSeconds(in.nullableLong());
+        return request;
+    }
+
+    private static BatchReservationMode readMode(Reader in) {
+        int mode = in.varint();
+        return mode == 1 ? BatchReservationMode.BEST_EFFORT : BatchReservationMode.ALL_OR_NOTHING;
+    }
+
+    // Responses
+
+    static void writeBatchResponse(Writer out, BatchReservationResponse response) {
+        out.varint(response.getAppliedCount());
+        out.varint(response.getRejectedCount());
+        out.amount(response.getAppliedAmount());
+        List<ReservationOutcome> outcomes = response.getOutcomes() == null ? List.of() : response.getOutcomes();
+        out.varint(outcomes.size());
+        for (ReservationOutcome outcome : outcomes) {
+            out.string(outcome.getReservationId());
+            out.string(outcome.getReferenceId());
+            out.amount(outcome.getAmount());
+            out.string(outcome.getStatus());
+            out.string(outcome.getTransactionId());
+            out.date(outcome.getExpiresOn());
+            out.string(outcome.getMessage());
+        }
+    }
+
+    static void writeLeaseResponse(Writer out, CreditLeaseResponse response) {
+        out.string(response.getReservationId());
+        out.nullableLong(response.getAccountId());
+        out.amount(response.getRemainingAmount());
+        out.amount(response.getConsumedAmount());
+        out.string(response.getStatus());
+        out.date(response.getExpiresOn());
+        out.string(response.getMessage());
+    }
+
+    /**
+     * Sequential reader over one frame. Malformed input surfaces as IllegalArgumentException.
+     */
+    static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        /**
+         * Check magic and version, and return the number of entries in the frame.
+         */
+        int header() {
+            if (data.length < 3 || data[0] != 'C' || data[1] != 'R') {
+                throw new IllegalArgumentException("Not a credit RPC frame");
+            }
+            if (data[2] != VERSION) {
+                throw new IllegalArgumentException("Unsupported credit RPC version " + data[2]);
+            }
+            position = 3;
+            int count = count();
+            if (count > MAX_CALLS) {
+                throw new IllegalArgumentException("Credit RPC frame carries " + count + " calls, at most "
+                        + MAX_CALLS + " are allowed");
+            }
+            return count;
+        }
+
+        int count() {
+            long count = varlong();
+            if (count > data.length - position) {
+                // Every entry takes at least one byte
+                throw new IllegalArgumentException("Credit RPC count exceeds the frame");
+            }
+            return (int) count;
+        }
+
+        int varint() {
+            long value = varlong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Credit RPC varint out of range");
+            }
+            return (int) value;
+        }
+
+        long varlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = next();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Credit RPC varint too long");
+        }
+
+        long zigzag() {
+            long raw = varlong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        boolean bool() {
+            return next() != 0;
+        }
+
+        Long nullableLong() {
+            return bool() ? zigzag() : null;
+        }
+
+        BigDecimal amount() {
+            return bool() ? CreditAmount.toBigDecimal(zigzag()) : null;
+        }
+
+        Date date() {
+            return bool() ? new Date(zigzag()) : null;
+        }
+
+        String string() {
+            int length = varint();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            if (length > MAX_STRING_BYTES || length > data.length - position) {
+                throw new IllegalArgumentException("Credit RPC string exceeds the frame");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        /**
+         * Check that the whole frame has been read.
+         */
+        void end() {
+            if (position != data.length) {
+                throw new IllegalArgumentException("Credit RPC frame has " + (data.length - position)
+                        + " trailing bytes");
+            }
+        }
+
+        List<String> strings() {
+            int count = count();
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(string());
+            }
+            return values;
+        }
+
+        private byte next() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated credit RPC frame");
+            }
+            return data[position++];
+        }
+    }
+
+    static final class Writer {
+        private final ByteArrayOutputStream out;
+
+        Writer(int expectedSize) {
+            this.out = new ByteArrayOutputStream(expectedSize);
+        }
+
+        void header(int count) {
+            out.write('C');
+            out.write('R');
+            out.write(VERSION);
+            varint(count);
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7fL) != 0) {
+                out.write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void bool(boolean value) {
+            out.write(value ? 1 : 0);
+        }
+
+        void nullableLong(Long value) {
+            bool(value != null);
+            if (value != null) {
+                zigzag(value);
+            }
+        }
+
+        void amount(BigDecimal value) {
+            bool(value != null);
+            if (value != null) {
+                zigzag(CreditAmount.toMinor(value));
+            }
+        }
+
+        void date(Date value) {
+            bool(value != null);
+            if (value != null) {
+                zigzag(value.getTime());
+            }
+        }
+
+        void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+}
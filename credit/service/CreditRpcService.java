@@ -0,0 +1,186 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationActionRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationExtendRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BatchReservationResponse;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseResponse;
+import com.code.aplusbinary.accountmanagement.dto.credit.CreditLeaseSettleRequest;
+import com.code.aplusbinary.accountmanagement.exception.CreditConcurrencyException;
+import com.code.aplusbinary.accountmanagement.exception.CreditOperationException;
+import com.code.aplusbinary.accountmanagement.exception.IdempotencyKeyReuseException;
+import com.code.aplusbinary.accountmanagement.exception.InsufficientCreditException;
+import com.code.aplusbinary.accountmanagement.util.CreditCaller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Internal binary RPC for the doc service's reserve / confirm / release / extend and lease calls.
+ * A frame may carry several calls; they run one after another, each in its own transaction and with
+ * its own idempotency key, exactly as the matching REST endpoint would run them, and the results come
+ * back in call order. A failing call is reported in its own result and does not affect the others.
+ *
+ * Every call runs for the authenticated caller. An account named in a reserve or lease frame goes
+ * through the same {@link CreditAccessPolicy} check as on REST, so a frame naming an account the
+ * caller may not act for is answered 403 for that call.
+ */
+@Service
+public class CreditRpcService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditRpcService.class);
+
+    private static final class Call {
+        final long callId;
+        final int method;
+        final String idempotencyKey;
+        final Object request;
+
+        Call(long callId, int method, String idempotencyKey, Object request) {
+            this.callId = callId;
+            this.method = method;
+            this.idempotencyKey = idempotencyKey;
+            this.request = request;
+        }
+    }
+
+    private final CreditReservationBatchService batchService;
+    private final CreditLeaseService leaseService;
+    private final IdempotencyService idempotencyService;
+    private final Counter callCounter;
+    private final Counter failureCounter;
+
+    public CreditRpcService(CreditReservationBatchService batchService,
+                            CreditLeaseService leaseService,
+                            IdempotencyService idempotencyService,
+                            MeterRegistry meterRegistry) {
+        this.batchService = batchService;
+        this.leaseService = leaseService;
+        this.idempotencyService = idempotencyService;
+        this.callCounter = Counter.builder("credit.rpc.calls")
+                .description("Calls received over the internal credit RPC")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("credit.rpc.failures")
+                .description("Internal credit RPC calls answered with an error status")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Decode a request frame, run its calls for {@code caller} and encode the response frame. The
+     * whole frame is decoded and checked before any call runs, so a malformed frame is rejected with
+     * IllegalArgumentException without having applied anything.
+     */
+    public byte[] handle(byte[] frame, CreditCaller caller) {
+        List<Call> calls = decode(frame);
+        CreditRpcCodec.Writer out = new CreditRpcCodec.Writer(64 + frame.length * 2);
+        out.header(calls.size());
+        for (Call call : calls) {
+            callCounter.increment();
+            out.varint(call.callId);
+            try {
+                Object response = execute(caller, call.method, call.idempotencyKey, call.request);
+                out.varint(200);
+                if (response instanceof BatchReservationResponse batch) {
+                    CreditRpcCodec.writeBatchResponse(out, batch);
+                } else {
+                    CreditRpcCodec.writeLeaseResponse(out, (CreditLeaseResponse) response);
+                }
+            } catch (InsufficientCreditException e) {
+                failureCounter.increment();
+                out.varint(402);
+                out.string(e.getMessage());
+                out.amount(e.getRequested());
+                out.amount(e.getAvailable());
+            } catch (CreditConcurrencyException e) {
+                failureCounter.increment();
+                logger.warn("Credit RPC call hit contention: {}", e.getMessage());
+                error(out, 409, e);
+            } catch (CreditOperationException | IdempotencyKeyReuseException e) {
+                failureCounter.increment();
+                error(out, 422, e);
+            } catch (AccessDeniedException e) {
+                failureCounter.increment();
+                error(out, 403, e);
+            } catch (IllegalArgumentException e) {
+                failureCounter.increment();
+                error(out, 400, e);
+            } catch (RuntimeException e) {
+                failureCounter.increment();
+                logger.error("Credit RPC call {} (method {}) failed", call.callId, call.method, e);
+                error(out, 500, e);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static List<Call> decode(byte[] frame) {
+        CreditRpcCodec.Reader in = new CreditRpcCodec.Reader(frame);
+        int count = in.header();
+        List<Call> calls = new ArrayList<>(count);
+        Set<Long> callIds = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            long callId = in.varlong();
+            if (!callIds.add(callId)) {
+                throw new IllegalArgumentException("Credit RPC call id " + callId + " is used twice");
+            }
+            int method = in.varint();
+            String idempotencyKey = in.string();
+            IdempotencyService.checkKey(idempotencyKey);
+            calls.add(new Call(callId, method, idempotencyKey, readRequest(in, method)));
+        }
+        in.end();
+        return calls;
+    }
+
+    private static Object readRequest(CreditRpcCodec.Reader in, int method) {
+        return switch (method) {
+            case CreditRpcCodec.RESERVE -> CreditRpcCodec.readReserve(in);
+            case CreditRpcCodec.CONFIRM, CreditRpcCodec.RELEASE -> CreditRpcCodec.readAction(in);
+            case CreditRpcCodec.EXTEND -> CreditRpcCodec.readExtend(in);
+            case CreditRpcCodec.LEASE_GRANT -> CreditRpcCodec.readLeaseGrant(in);
+            case CreditRpcCodec.LEASE_SETTLE -> CreditRpcCodec.readLeaseSettle(in);
+            default -> throw new IllegalArgumentException("Unknown credit RPC method " + method);
+        };
+    }
+
+    // Same idempotency scopes as CreditReservationController, so a retry may switch between REST and RPC
+    private Object execute(CreditCaller caller, int method, String idempotencyKey, Object request) {
+        Long callerId = caller.getAccountId();
+        return switch (method) {
+            case CreditRpcCodec.RESERVE -> idempotencyService.execute(callerId, "reservations.reserve", idempotencyKey,
+                    request, BatchReservationResponse.class,
+                    () -> batchService.reserveBatch((BatchReservationRequest) request, caller));
+            case CreditRpcCodec.CONFIRM -> idempotencyService.execute(callerId, "reservations.confirm", idempotencyKey,
+                    request, BatchReservationResponse.class,
+                    () -> batchService.confirmBatch((BatchReservationActionRequest) request, caller));
+            case CreditRpcCodec.RELEASE -> idempotencyService.execute(callerId, "reservations.release", idempotencyKey,
+                    request, BatchReservationResponse.class,
+                    () -> batchService.releaseBatch((BatchReservationActionRequest) request, caller));
+            case CreditRpcCodec.EXTEND -> idempotencyService.execute(callerId, "reservations.extend", idempotencyKey,
+                    request, BatchReservationResponse.class,
+                    () -> batchService.extendBatch((BatchReservationExtendRequest) request, caller));
+            case CreditRpcCodec.LEASE_GRANT -> idempotencyService.execute(callerId, "leases.grant", idempotencyKey,
+                    request, CreditLeaseResponse.class, () -> leaseService.grant((CreditLeaseRequest) request, caller));
+            case CreditRpcCodec.LEASE_SETTLE -> idempotencyService.execute(callerId, "leases.settle", idempotencyKey,
+                    request, CreditLeaseResponse.class,
+                    () -> leaseService.settle((CreditLeaseSettleRequest) request, caller));
+            default -> throw new IllegalArgumentException("Unknown credit RPC method " + method);
+        };
+    }
+
+    private static void error(CreditRpcCodec.Writer out, int status, RuntimeException e) {
+        out.varint(status);
+        out.string(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+    }
+}
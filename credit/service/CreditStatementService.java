@@ -0,0 +1,223 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.dto.credit.StatementFormat;
+import com.code.aplusbinary.accountmanagement.util.StreamingXlsxWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Credit statements for an account or its whole subtree, written straight to an output stream.
+ *
+ * Rows come from {@link CreditTransactionHistoryService#stream}, one account after another (the
+ * account itself, then its descendants shallowest first), and are formatted as they arrive, so memory
+ * does not grow with the length of the statement.
+ */
+@Service
+public class CreditStatementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditStatementService.class);
+
+    static final List<String> COLUMNS = List.of("account_id", "transaction_id", "created_on", "transaction_type",
+            "amount", "balance_before", "balance_after", "reserved_before", "reserved_after",
+            "reference_type", "reference_id", "reservation_id", "description");
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+
+    private interface RowWriter extends Closeable {
+        void write(CreditTransactionRecord record) throws IOException;
+    }
+
+    private final CreditTransactionHistoryService historyService;
+    private final AccountHierarchyService hierarchyService;
+    private final ObjectMapper objectMapper;
+
+    public CreditStatementService(CreditTransactionHistoryService historyService,
+                                  AccountHierarchyService hierarchyService,
+                                  ObjectMapper objectMapper) {
+        this.historyService = historyService;
+        this.hierarchyService = hierarchyService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Accounts a statement covers, in output order. Validates the range so errors surface before any
+     * bytes are written.
+     */
+    public List<Long> statementAccounts(Long accountId, boolean subtree, Date from, Date to) {
+        if (accountId == null) {
+            throw new IllegalArgumentException("accountId is required");
+        }
+        historyService.checkStatementRange(from, to);
+        List<Long> accounts = new ArrayList<>();
+        accounts.add(accountId);
+        if (subtree) {
+            accounts.addAll(hierarchyService.descendants(accountId));
+        }
+        return accounts;
+    }
+
+    /**
+     * Write the statement for {@code accountIds} over [from, to). Returns the number of rows written.
+     */
+    public long write(List<Long> accountIds, Date from, Date to, StatementFormat format, OutputStream out)
+            throws IOException {
+        long rows = 0;
+        try (RowWriter writer = open(format, out)) {
+            for (Long accountId : accountIds) {
+                rows += historyService.stream(accountId, from, to, record -> {
+                    try {
+                        writer.write(record);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } catch (UncheckedIOException e) {
+            // Usually the client went away mid-download
+            logger.debug("Statement stream for {} ended early: {}", accountIds.get(0), e.getCause().getMessage());
+            throw e.getCause();
+        }
+        return rows;
+    }
+
+    private RowWriter open(StatementFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case CSV -> csv(out);
+            case NDJSON -> ndjson(out);
+            case XLSX -> xlsx(out);
+        };
+    }
+
+    private static RowWriter csv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\r\n");
+        return new RowWriter() {
+            @Override
+            public void write(CreditTransactionRecord r) throws IOException {
+                writer.write(Long.toString(r.getAccountId()));
+                writer.write(',');
+                writer.write(csvField(r.getTransactionId()));
+                writer.write(',');
+                writer.write(timestamp(r));
+                writer.write(',');
+                writer.write(r.getTransactionType().name());
+                writer.write(',');
+                writer.write(r.getAmount().toPlainString());
+                writer.write(',');
+                writer.write(r.getBalanceBefore().toPlainString());
+                writer.write(',');
+                writer.write(r.getBalanceAfter().toPlainString());
+                writer.write(',');
+                writer.write(r.getReservedBefore().toPlainString());
+                writer.write(',');
+                writer.write(r.getReservedAfter().toPlainString());
+                writer.write(',');
+                writer.write(csvField(r.getReferenceType()));
+                writer.write(',');
+                writer.write(csvField(r.getReferenceId()));
+                writer.write(',');
+                writer.write(csvField(r.getReservationId()));
+                writer.write(',');
+                writer.write(csvField(r.getDescription()));
+                writer.write("\r\n");
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+
+    private RowWriter ndjson(OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are separated by the explicit newline below, not Jackson's default space
+        json.setRootValueSeparator(null);
+        return new RowWriter() {
+            @Override
+            public void write(CreditTransactionRecord r) throws IOException {
+                json.writeStartObject();
+                json.writeNumberField("account_id", r.getAccountId());
+                json.writeStringField("transaction_id", r.getTransactionId());
+                json.writeStringField("created_on", timestamp(r));
+                json.writeStringField("transaction_type", r.getTransactionType().name());
+                json.writeNumberField("amount", r.getAmount());
+                json.writeNumberField("balance_before", r.getBalanceBefore());
+                json.writeNumberField("balance_after", r.getBalanceAfter());
+                json.writeNumberField("reserved_before", r.getReservedBefore());
+                json.writeNumberField("reserved_after", r.getReservedAfter());
+                json.writeStringField("reference_type", r.getReferenceType());
+                json.writeStringField("reference_id", r.getReferenceId());
+                json.writeStringField("reservation_id", r.getReservationId());
+                json.writeStringField("description", r.getDescription());
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+
+            @Override
+            public void close() throws IOException {
+                json.close();
+            }
+        };
+    }
+
+    private static RowWriter xlsx(OutputStream out) throws IOException {
+        StreamingXlsxWriter sheet = new StreamingXlsxWriter(out, COLUMNS);
+        return new RowWriter() {
+            @Override
+            public void write(CreditTransactionRecord r) throws IOException {
+                sheet.row(r.getAccountId(), r.getTransactionId(), timestamp(r), r.getTransactionType().name(),
+                        r.getAmount(), r.getBalanceBefore(), r.getBalanceAfter(), r.getReservedBefore(),
+                        r.getReservedAfter(), r.getReferenceType(), r.getReferenceId(), r.getReservationId(),
+                        r.getDescription());
+            }
+
+            @Override
+            public void close() throws IOException {
+                sheet.close();
+            }
+        };
+    }
+
+    private static String timestamp(CreditTransactionRecord record) {
+        return TIMESTAMP.format(Instant.ofEpochMilli(record.getCreatedOnMillis()).atZone(ZoneId.systemDefault()));
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        // A leading =, +, - or @ would be run as a formula by spreadsheet apps
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+            quote = true;
+        }
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
@@ -0,0 +1,493 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.TransactionType;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressed columnar file holding one archived month of credit_transactions.
+ *
+ * Rows are written sorted by (account_id, id) and cut into row groups. Inside a group every column is
+ * stored contiguously (ids, account ids and timestamps delta-encoded as zig-zag varints, amounts as
+ * varints, strings length-prefixed, transaction types through a per-group dictionary) and the group is
+ * gzipped on its own. A footer lists each group's offset with its account id and created_on ranges, so
+ * reading one account's statement only inflates the groups that can contain it.
+ *
+ * Layout: magic, version, groups..., footer, footer offset, magic.
+ */
+final class CreditTransactionArchiveFile {
+
+    private static final int MAGIC = 0x43545841; // "CTXA"
+    private static final short VERSION = 1;
+    private static final int TRAILER_LENGTH = Long.BYTES + Integer.BYTES;
+
+    private CreditTransactionArchiveFile() {
+    }
+
+    /**
+     * Row count, amount total and id range of a file, used to check an archive against the database.
+     */
+    static final class Summary {
+        final long rows;
+        final long amountTotal;
+        final Long minId;
+        final Long maxId;
+        final String sha256;
+
+        Summary(long rows, long amountTotal, Long minId, Long maxId, String sha256) {
+            this.rows = rows;
+            this.amountTotal = amountTotal;
+            this.minId = minId;
+            this.maxId = maxId;
+            this.sha256 = sha256;
+        }
+    }
+
+    private static final class GroupInfo {
+        final long offset;
+        final int length;
+        final int rows;
+        final long minAccountId;
+        final long maxAccountId;
+        final long minCreatedOn;
+        final long maxCreatedOn;
+
+        GroupInfo(long offset, int length, int rows, long minAccountId, long maxAccountId,
+                  long minCreatedOn, long maxCreatedOn) {
+            this.offset = offset;
+            this.length = length;
+            this.rows = rows;
+            this.minAccountId = minAccountId;
+            this.maxAccountId = maxAccountId;
+            this.minCreatedOn = minCreatedOn;
+            this.maxCreatedOn = maxCreatedOn;
+        }
+    }
+
+    /**
+     * Streams rows into a temporary file next to the target and moves it into place on {@link #finish()}.
+     * Closing an unfinished writer deletes the temporary file.
+     */
+    static final class Writer implements Closeable {
+        private final Path target;
+        private final Path temp;
+        private final int rowGroupSize;
+        private final MessageDigest digest;
+        private final DataOutputStream out;
+        private final List<CreditTransactionRecord> pending = new ArrayList<>();
+        private final List<GroupInfo> groups = new ArrayList<>();
+        private long offset;
+        private long rows;
+        private long amountTotal;
+        private Long minId;
+        private Long maxId;
+        private long lastAccountId = Long.MIN_VALUE;
+        private long lastId = Long.MIN_VALUE;
+        private boolean finished;
+
+        Writer(Path target, int rowGroupSize) throws IOException {
+            this.target = target;
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.rowGroupSize = Math.max(1, rowGroupSize);
+            this.digest = sha256();
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            OutputStream file = Files.newOutputStream(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.out = new DataOutputStream(new DigestOutputStream(new BufferedOutputStream(file, 1 << 16), digest));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            offset = Integer.BYTES + Short.BYTES;
+        }
+
+        void add(CreditTransactionRecord record) throws IOException {
+            if (record.getAccountId() < lastAccountId
+                    || (record.getAccountId() == lastAccountId && record.getId() <= lastId)) {
+                throw new IllegalArgumentException("Archive rows must be sorted by account_id, id");
+            }
+            lastAccountId = record.getAccountId();
+            lastId = record.getId();
+            pending.add(record);
+            rows++;
+            amountTotal += record.getAmountMinor();
+            minId = minId == null ? record.getId() : Math.min(minId, record.getId());
+            maxId = maxId == null ? record.getId() : Math.max(maxId, record.getId());
+            if (pending.size() >= rowGroupSize) {
+                flushGroup();
+            }
+        }
+
+        Summary finish() throws IOException {
+            flushGroup();
+            long footerOffset = offset;
+            out.writeInt(groups.size());
+            for (GroupInfo group : groups) {
+                out.writeLong(group.offset);
+                out.writeInt(group.length);
+                out.writeInt(group.rows);
+                out.writeLong(group.minAccountId);
+                out.writeLong(group.maxAccountId);
+                out.writeLong(group.minCreatedOn);
+                out.writeLong(group.maxCreatedOn);
+            }
+            out.writeLong(footerOffset);
+            out.writeInt(MAGIC);
+            out.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            return new Summary(rows, amountTotal, minId, maxId, HexFormat.of().formatHex(digest.digest()));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void flushGroup() throws IOException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            byte[] bytes = encodeGroup(pending);
+            long minCreated = Long.MAX_VALUE;
+            long maxCreated = Long.MIN_VALUE;
+            for (CreditTransactionRecord record : pending) {
+                minCreated = Math.min(minCreated, record.getCreatedOnMillis());
+                maxCreated = Math.max(maxCreated, record.getCreatedOnMillis());
+            }
+            groups.add(new GroupInfo(offset, bytes.length, pending.size(), pending.get(0).getAccountId(),
+                    pending.get(pending.size() - 1).getAccountId(), minCreated, maxCreated));
+            out.write(bytes);
+            offset += bytes.length;
+            pending.clear();
+        }
+    }
+
+    /**
+     * Rows of one account created in [fromMillis, toMillis), in id order.
+     */
+    static List<CreditTransactionRecord> read(Path file, long accountId, long fromMillis, long toMillis)
+            throws IOException {
+        List<CreditTransactionRecord> matches = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (GroupInfo group : footer(channel, file)) {
+                if (accountId < group.minAccountId || accountId > group.maxAccountId
+                        || group.maxCreatedOn < fromMillis || group.minCreatedOn >= toMillis) {
+                    continue;
+                }
+                for (CreditTransactionRecord record : decodeGroup(readGroup(channel, group))) {
+                    if (record.getAccountId() == accountId
+                            && record.getCreatedOnMillis() >= fromMillis && record.getCreatedOnMillis() < toMillis) {
+                        matches.add(record);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Decode every group and total it up; used to verify a freshly written archive.
+     */
+    static Summary summarize(Path file) throws IOException {
+        long rows = 0;
+        long amountTotal = 0;
+        Long minId = null;
+        Long maxId = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (GroupInfo group : footer(channel, file)) {
+                List<CreditTransactionRecord> records = decodeGroup(readGroup(channel, group));
+                if (records.size() != group.rows) {
+                    throw new IOException("Row group at " + group.offset + " of " + file + " is damaged");
+                }
+                for (CreditTransactionRecord record : records) {
+                    rows++;
+                    amountTotal += record.getAmountMinor();
+                    minId = minId == null ? record.getId() : Math.min(minId, record.getId());
+                    maxId = maxId == null ? record.getId() : Math.max(maxId, record.getId());
+                }
+            }
+        }
+        MessageDigest digest = sha256();
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return new Summary(rows, amountTotal, minId, maxId, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private static List<GroupInfo> footer(FileChannel channel, Path file) throws IOException {
+        long size = channel.size();
+        if (size < Integer.BYTES + Short.BYTES + TRAILER_LENGTH) {
+            throw new IOException("Not a credit transaction archive: " + file);
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+        readFully(channel, trailer, size - TRAILER_LENGTH);
+        long footerOffset = trailer.getLong(0);
+        if (trailer.getInt(Long.BYTES) != MAGIC || footerOffset < 0 || footerOffset > size - TRAILER_LENGTH) {
+            throw new IOException("Not a credit transaction archive: " + file);
+        }
+        ByteBuffer footer = ByteBuffer.allocate((int) (size - TRAILER_LENGTH - footerOffset));
+        readFully(channel, footer, footerOffset);
+        footer.flip();
+        int count = footer.getInt();
+        List<GroupInfo> groups = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            groups.add(new GroupInfo(footer.getLong(), footer.getInt(), footer.getInt(), footer.getLong(),
+                    footer.getLong(), footer.getLong(), footer.getLong()));
+        }
+        return groups;
+    }
+
+    private static byte[] readGroup(FileChannel channel, GroupInfo group) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(group.length);
+        readFully(channel, buffer, group.offset);
+        return buffer.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of archive file");
+            }
+        }
+    }
+
+    private static byte[] encodeGroup(List<CreditTransactionRecord> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes, 1 << 16))) {
+            out.writeInt(records.size());
+
+            Map<TransactionType, Integer> dictionary = new HashMap<>();
+            List<TransactionType> types = new ArrayList<>();
+            for (CreditTransactionRecord record : records) {
+                if (dictionary.putIfAbsent(record.getTransactionType(), types.size()) == null) {
+                    types.add(record.getTransactionType());
+                }
+            }
+            out.writeByte(types.size());
+            for (TransactionType type : types) {
+                out.writeUTF(type.name());
+            }
+
+            long previous = 0;
+            for (CreditTransactionRecord record : records) {
+                writeSigned(out, record.getId() - previous);
+                previous = record.getId();
+            }
+            previous = 0;
+            for (CreditTransactionRecord record : records) {
+                writeSigned(out, record.getAccountId() - previous);
+                previous = record.getAccountId();
+            }
+            for (CreditTransactionRecord record : records) {
+                out.writeByte(dictionary.get(record.getTransactionType()));
+            }
+            for (CreditTransactionRecord record : records) {
+                writeSigned(out, record.getAmountMinor());
+            }
+            for (CreditTransactionRecord record : records) {
+                writeSigned(out, record.getBalanceBeforeMinor());
+            }
+            for (CreditTransactionRecord record : records) {
+                writeSigned(out, record.getBalanceAfterMinor());
+            }
+            for (CreditTransactionRecord record : records) {
+                writeSigned(out, record.getReservedBeforeMinor());
+            }
+            for (CreditTransactionRecord record : records) {
+                writeSigned(out, record.getReservedAfterMinor());
+            }
+            for (CreditTransactionRecord record : records) {
+                writeNullable(out, record.getLedgerSeq());
+            }
+            for (CreditTransactionRecord record : records) {
+                writeNullable(out, record.getPackagePurchaseId());
+            }
+            previous = 0;
+            for (CreditTransactionRecord record : records) {
+                writeSigned(out, record.getCreatedOnMillis() - previous);
+                previous = record.getCreatedOnMillis();
+            }
+            for (CreditTransactionRecord record : records) {
+                writeSigned(out, record.getModifiedOnMillis() - record.getCreatedOnMillis());
+            }
+            for (CreditTransactionRecord record : records) {
+                writeString(out, record.getTransactionId());
+            }
+            for (CreditTransactionRecord record : records) {
+                writeString(out, record.getReservationId());
+            }
+            for (CreditTransactionRecord record : records) {
+                writeString(out, record.getReferenceId());
+            }
+            for (CreditTransactionRecord record : records) {
+                writeString(out, record.getReferenceType());
+            }
+            for (CreditTransactionRecord record : records) {
+                writeString(out, record.getDescription());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<CreditTransactionRecord> decodeGroup(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(bytes), 1 << 16))) {
+            int n = in.readInt();
+            int typeCount = in.readUnsignedByte();
+            TransactionType[] types = new TransactionType[typeCount];
+            for (int i = 0; i < typeCount; i++) {
+                types[i] = TransactionType.valueOf(in.readUTF());
+            }
+
+            long[] ids = deltas(in, n);
+            long[] accountIds = deltas(in, n);
+            TransactionType[] rowTypes = new TransactionType[n];
+            for (int i = 0; i < n; i++) {
+                rowTypes[i] = types[in.readUnsignedByte()];
+            }
+            long[] amounts = signed(in, n);
+            long[] balanceBefore = signed(in, n);
+            long[] balanceAfter = signed(in, n);
+            long[] reservedBefore = signed(in, n);
+            long[] reservedAfter = signed(in, n);
+            Long[] ledgerSeqs = nullables(in, n);
+            Long[] purchaseIds = nullables(in, n);
+            long[] createdOn = deltas(in, n);
+            long[] modifiedOn = signed(in, n);
+            String[] transactionIds = strings(in, n);
+            String[] reservationIds = strings(in, n);
+            String[] referenceIds = strings(in, n);
+            String[] referenceTypes = strings(in, n);
+            String[] descriptions = strings(in, n);
+
+            List<CreditTransactionRecord> records = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                records.add(new CreditTransactionRecord(ids[i], transactionIds[i], accountIds[i], rowTypes[i],
+                        amounts[i], balanceBefore[i], balanceAfter[i], reservedBefore[i], reservedAfter[i],
+                        ledgerSeqs[i], reservationIds[i], referenceIds[i], referenceTypes[i], purchaseIds[i],
+                        descriptions[i], createdOn[i], createdOn[i] + modifiedOn[i]));
+            }
+            return records;
+        }
+    }
+
+    private static long[] signed(DataInputStream in, int n) throws IOException {
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = readSigned(in);
+        }
+        return values;
+    }
+
+    private static long[] deltas(DataInputStream in, int n) throws IOException {
+        long[] values = new long[n];
+        long previous = 0;
+        for (int i = 0; i < n; i++) {
+            previous += readSigned(in);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static Long[] nullables(DataInputStream in, int n) throws IOException {
+        Long[] values = new Long[n];
+        for (int i = 0; i < n; i++) {
+            long raw = readSigned(in);
+            values[i] = raw == 0 ? null : (raw > 0 ? raw - 1 : raw);
+        }
+        return values;
+    }
+
+    private static String[] strings(DataInputStream in, int n) throws IOException {
+        String[] values = new String[n];
+        for (int i = 0; i < n; i++) {
+            long length = readVarLong(in);
+            if (length > 0) {
+                byte[] utf8 = new byte[(int) (length - 1)];
+                in.readFully(utf8);
+                values[i] = new String(utf8, StandardCharsets.UTF_8);
+            }
+        }
+        return values;
+    }
+
+    // Null is 0, non-negative values are shifted up by one; negative values are stored as is
+    private static void writeNullable(DataOutputStream out, Long value) throws IOException {
+        writeSigned(out, value == null ? 0 : (value >= 0 ? value + 1 : value));
+    }
+
+    // Length + 1 so that 0 can mean null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, utf8.length + 1L);
+        out.write(utf8);
+    }
+
+    private static void writeSigned(DataOutputStream out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readSigned(DataInputStream in) throws IOException {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in archive");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves closed months of credit_transactions out of the hot table into compressed columnar files, so
+ * the table only ever holds the last {@code hotMonths} months however long the history gets.
+ *
+ * A month is archived oldest-first once it is older than the hot window and everything that still
+ * reads raw history is done with it: in append-only mode every account must have a snapshot past the
+ * month (stragglers are compacted first), and with reconciliation enabled every row must be behind its
+ * account's checkpoint. The file is written and re-read, its row count and amount total must match the
+ * database, and only then is the month recorded in credit_transaction_archives and removed from the
+ * table, by dropping its partition or, on an unpartitioned table, in delete batches.
+ *
+ * The archive directory is local disk here; any mounted object store works the same way.
+ */
+@Service
+public class CreditTransactionArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditTransactionArchiver.class);
+
+    private static final String OLDEST = "SELECT created_on FROM credit_transactions ORDER BY id LIMIT 1";
+
+    private static final String ARCHIVED =
+            "SELECT COUNT(*) FROM credit_transaction_archives WHERE period_start = ?";
+
+    private static final String MONTH_TOTALS =
+            "SELECT COUNT(*) AS row_count, COALESCE(SUM(amount), 0) AS amount_total FROM credit_transactions "
+            + "WHERE created_on >= ? AND created_on < ?";
+
+    private static final String EXPORT =
+            "SELECT " + CreditTransactionHistoryService.RECORD_COLUMNS + " FROM credit_transactions "
+            + "WHERE created_on >= ? AND created_on < ? ORDER BY account_id, id";
+
+    private static final String UNSNAPSHOTTED =
+            "SELECT DISTINCT t.account_id FROM credit_transactions t WHERE t.created_on >= ? AND t.created_on < ? "
+            + "AND t.ledger_seq > COALESCE((SELECT MAX(s.ledger_seq) FROM credit_balance_snapshots s "
+            + "WHERE s.account_id = t.account_id), 0)";
+
+    private static final String UNRECONCILED =
+            "SELECT COUNT(*) FROM credit_transactions t LEFT JOIN credit_reconciliation_checkpoints c "
+            + "ON c.account_id = t.account_id WHERE t.created_on >= ? AND t.created_on < ? "
+            + "AND (c.last_transaction_id IS NULL OR c.last_transaction_id < t.id)";
+
+    private static final String INSERT_ARCHIVE =
+            "INSERT INTO credit_transaction_archives (period_start, period_end, file_path, row_count, amount_total, "
+            + "min_transaction_id, max_transaction_id, file_sha256, archived_on) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_MONTH =
+            "DELETE FROM credit_transactions WHERE created_on >= ? AND created_on < ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingTemplate;
+    private final CreditTransactionPartitionManager partitionManager;
+    private final CreditLedgerCompactor compactor;
+    private final CreditEngineProperties properties;
+    private final CreditEngineProperties.History config;
+
+    public CreditTransactionArchiver(JdbcTemplate jdbcTemplate,
+                                     CreditTransactionPartitionManager partitionManager,
+                                     CreditLedgerCompactor compactor,
+                                     CreditEngineProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole month
+        this.streamingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.partitionManager = partitionManager;
+        this.compactor = compactor;
+        this.properties = properties;
+        this.config = properties.getHistory();
+    }
+
+    @Scheduled(cron = "${app.credit.history.archive-cron:0 15 3 * * *}")
+    public void scheduledArchive() {
+        if (config.isArchiveEnabled()) {
+            archiveClosedMonths();
+        }
+    }
+
+    /**
+     * Archive every month older than the hot window, oldest first. Stops at the first month that cannot
+     * be archived yet, so archived history always stays contiguous. Returns the number of months moved.
+     */
+    public synchronized int archiveClosedMonths() {
+        List<Timestamp> oldest = jdbcTemplate.queryForList(OLDEST, Timestamp.class);
+        if (oldest.isEmpty() || oldest.get(0) == null) {
+            return 0;
+        }
+        YearMonth firstHot = YearMonth.now().minusMonths(Math.max(1, config.getHotMonths()) - 1L);
+        YearMonth month = YearMonth.from(oldest.get(0).toLocalDateTime());
+        int archived = 0;
+        for (; month.isBefore(firstHot); month = month.plusMonths(1)) {
+            if (!archiveMonth(month)) {
+                break;
+            }
+            archived++;
+        }
+        return archived;
+    }
+
+    private boolean archiveMonth(YearMonth month) {
+        Timestamp start = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp end = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+
+        Integer already = jdbcTemplate.queryForObject(ARCHIVED, Integer.class, start);
+        if (already != null && already > 0) {
+            // Written on an earlier run whose purge did not finish
+            purge(month, start, end);
+            return true;
+        }
+        if (!historyReleased(month, start, end)) {
+            return false;
+        }
+
+        Map<String, Object> totals = jdbcTemplate.queryForMap(MONTH_TOTALS, start, end);
+        long rows = ((Number) totals.get("row_count")).longValue();
+        long amountTotal = CreditAmount.toMinor(new BigDecimal(totals.get("amount_total").toString()));
+        if (rows == 0) {
+            partitionManager.dropMonth(month);
+            return true;
+        }
+
+        Path file = Paths.get(config.getArchiveDirectory(), String.valueOf(month.getYear()),
+                "credit_transactions-" + month + ".ctxa");
+        CreditTransactionArchiveFile.Summary written;
+        try (CreditTransactionArchiveFile.Writer writer = new CreditTransactionArchiveFile.Writer(file,
+                config.getRowGroupSize())) {
+            streamingTemplate.query(EXPORT, rs -> {
+                try {
+                    writer.add(CreditTransactionHistoryService.RECORD_MAPPER.mapRow(rs, 0));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, start, end);
+            written = writer.finish();
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not write credit transaction archive for {}", month, e);
+            return false;
+        }
+
+        try {
+            CreditTransactionArchiveFile.Summary reread = CreditTransactionArchiveFile.summarize(file);
+            if (written.rows != rows || reread.rows != rows || written.amountTotal != amountTotal
+                    || reread.amountTotal != amountTotal || !written.sha256.equals(reread.sha256)) {
+                logger.error("Archive {} does not match credit_transactions for {}: {} rows / {} in the table, "
+                        + "{} rows / {} in the file", file, month, rows, CreditAmount.toBigDecimal(amountTotal),
+                        reread.rows, CreditAmount.toBigDecimal(reread.amountTotal));
+                Files.deleteIfExists(file);
+                return false;
+            }
+        } catch (IOException e) {
+            logger.error("Could not verify credit transaction archive {}", file, e);
+            return false;
+        }
+
+        jdbcTemplate.update(INSERT_ARCHIVE, start, end, file.toAbsolutePath().toString(), rows,
+                CreditAmount.toBigDecimal(amountTotal), written.minId, written.maxId, written.sha256,
+                new Timestamp(System.currentTimeMillis()));
+        purge(month, start, end);
+        logger.info("Archived {} credit transactions of {} to {}", rows, month, file);
+        return true;
+    }
+
+    /**
+     * Whether the ledger snapshots and reconciliation checkpoints no longer need the month's raw rows.
+     */
+    private boolean historyReleased(YearMonth month, Timestamp start, Timestamp end) {
+        if (properties.getLedger().getMode() == CreditEngineProperties.LedgerMode.APPEND_ONLY) {
+            for (Long accountId : jdbcTemplate.queryForList(UNSNAPSHOTTED, Long.class, start, end)) {
+                compactor.compactAccount(accountId, 1);
+            }
+            if (!jdbcTemplate.queryForList(UNSNAPSHOTTED, Long.class, start, end).isEmpty()) {
+                logger.warn("Not archiving credit transactions of {}: ledger tails still reach into it", month);
+                return false;
+            }
+        }
+        if (properties.getReconciliation().isEnabled()) {
+            Long unreconciled = jdbcTemplate.queryForObject(UNRECONCILED, Long.class, start, end);
+            if (unreconciled != null && unreconciled > 0) {
+                logger.warn("Not archiving credit transactions of {}: {} rows not reconciled yet", month, unreconciled);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void purge(YearMonth month, Timestamp start, Timestamp end) {
+        if (partitionManager.dropMonth(month)) {
+            return;
+        }
+        int batch = Math.max(1, config.getDeleteBatchSize());
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(DELETE_MONTH, start, end, batch);
+        } while (deleted >= batch);
+    }
+}
@@ -0,0 +1,226 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.exception.CreditOperationException;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.model.credit.TransactionType;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Time-bounded reads of an account's credit_transactions, wherever the rows live.
+ *
+ * Every query carries a created_on range, so on the partitioned table it only touches the months it
+ * asks for and runs on (account_id, created_on). Months the archiver has already moved out are read
+ * from their archive files instead, which makes the hot table's retention invisible to callers.
+ * Statements go through {@link #stream}, which pages with a keyset instead of offsets so every page
+ * costs the same however deep into the history it is.
+ */
+@Service
+public class CreditTransactionHistoryService {
+
+    static final String RECORD_COLUMNS =
+            "id, transaction_id, account_id, transaction_type, amount, balance_before, balance_after, "
+            + "reserved_before, reserved_after, ledger_seq, reservation_id, reference_id, reference_type, "
+            + "package_purchase_id, description, created_on, modified_on";
+
+    private static final String HOT_RANGE =
+            "SELECT " + RECORD_COLUMNS + " FROM credit_transactions WHERE account_id = ? AND created_on >= ? "
+            + "AND created_on < ? ORDER BY created_on, id LIMIT ?";
+
+    // Keyset page on (account_id, created_on, id); the first page starts at id > 0 on the lower bound
+    private static final String KEYSET_PAGE =
+            "SELECT " + RECORD_COLUMNS + " FROM credit_transactions WHERE account_id = ? AND created_on < ? "
+            + "AND (created_on > ? OR (created_on = ? AND id > ?)) ORDER BY created_on, id LIMIT ?";
+
+    private static final String ARCHIVES_IN_RANGE =
+            "SELECT period_start, period_end, file_path FROM credit_transaction_archives "
+            + "WHERE period_end > ? AND period_start < ? ORDER BY period_start";
+
+    static final RowMapper<CreditTransactionRecord> RECORD_MAPPER = CreditTransactionHistoryService::mapRecord;
+
+    private static final int MAX_LIMIT = 10000;
+
+    private static final int PAGE_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingTemplate;
+    private final CreditEngineProperties.History config;
+
+    public CreditTransactionHistoryService(JdbcTemplate jdbcTemplate, CreditEngineProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Integer.MIN_VALUE makes MySQL Connector/J stream rows from a server-side cursor
+        this.streamingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.config = properties.getHistory();
+    }
+
+    /**
+     * Transactions of one account created in [from, to), oldest first, at most {@code limit} rows.
+     */
+    public List<CreditTransactionRecord> findByAccount(Long accountId, Date from, Date to, int limit) {
+        if (accountId == null || from == null || to == null) {
+            throw new IllegalArgumentException("accountId, from and to are required");
+        }
+        if (!from.before(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (Duration.ofMillis(to.getTime() - from.getTime()).toDays() > config.getMaxQueryDays()) {
+            throw new IllegalArgumentException("History queries may cover at most " + config.getMaxQueryDays() + " days");
+        }
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        List<CreditTransactionRecord> records = new ArrayList<>();
+        long hotFrom = from.getTime();
+        for (Map<String, Object> archive : jdbcTemplate.queryForList(ARCHIVES_IN_RANGE,
+                new Timestamp(from.getTime()), new Timestamp(to.getTime()))) {
+            long start = ((Date) archive.get("period_start")).getTime();
+            long end = ((Date) archive.get("period_end")).getTime();
+            Path file = Paths.get((String) archive.get("file_path"));
+            try {
+                records.addAll(CreditTransactionArchiveFile.read(file, accountId,
+                        Math.max(start, from.getTime()), Math.min(end, to.getTime())));
+            } catch (IOException e) {
+                throw new CreditOperationException(accountId, "Could not read credit history archive " + file, e);
+            }
+            // Archived months are gone from the hot table (or about to be); never read them twice
+            if (start <= hotFrom && end > hotFrom) {
+                hotFrom = end;
+            }
+            if (records.size() >= limit) {
+                break;
+            }
+        }
+        records.sort(Comparator.comparingLong(CreditTransactionRecord::getCreatedOnMillis)
+                .thenComparingLong(CreditTransactionRecord::getId));
+        if (records.size() >= limit) {
+            return new ArrayList<>(records.subList(0, limit));
+        }
+        if (hotFrom < to.getTime()) {
+            records.addAll(jdbcTemplate.query(HOT_RANGE, RECORD_MAPPER, accountId, new Timestamp(hotFrom),
+                    new Timestamp(to.getTime()), limit - records.size()));
+        }
+        return records;
+    }
+
+    /**
+     * Check that [from, to) is a valid statement range.
+     */
+    public void checkStatementRange(Date from, Date to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (!from.before(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (Duration.ofMillis(to.getTime() - from.getTime()).toDays() > config.getMaxStatementDays()) {
+            throw new IllegalArgumentException("Statements may cover at most " + config.getMaxStatementDays() + " days");
+        }
+    }
+
+    /**
+     * Hand every transaction of one account created in [from, to) to {@code sink}, oldest first. Memory
+     * stays flat: archived months are read one account-month at a time, and the hot table in keyset
+     * pages that are each streamed from the server row by row. Returns the number of rows delivered.
+     */
+    public long stream(Long accountId, Date from, Date to, Consumer<CreditTransactionRecord> sink) {
+        checkStatementRange(from, to);
+        long delivered = 0;
+        long hotFrom = from.getTime();
+        for (Map<String, Object> archive : jdbcTemplate.queryForList(ARCHIVES_IN_RANGE,
+                new Timestamp(from.getTime()), new Timestamp(to.getTime()))) {
+            long start = ((Date) archive.get("period_start")).getTime();
+            long end = ((Date) archive.get("period_end")).getTime();
+            Path file = Paths.get((String) archive.get("file_path"));
+            List<CreditTransactionRecord> month;
+            try {
+                month = CreditTransactionArchiveFile.read(file, accountId,
+                        Math.max(start, from.getTime()), Math.min(end, to.getTime()));
+            } catch (IOException e) {
+                throw new CreditOperationException(accountId, "Could not read credit history archive " + file, e);
+            }
+            month.sort(Comparator.comparingLong(CreditTransactionRecord::getCreatedOnMillis)
+                    .thenComparingLong(CreditTransactionRecord::getId));
+            for (CreditTransactionRecord record : month) {
+                sink.accept(record);
+            }
+            delivered += month.size();
+            if (start <= hotFrom && end > hotFrom) {
+                hotFrom = end;
+            }
+        }
+        if (hotFrom >= to.getTime()) {
+            return delivered;
+        }
+
+        Timestamp upper = new Timestamp(to.getTime());
+        Timestamp[] lastCreated = { new Timestamp(hotFrom) };
+        long[] lastId = { 0L };
+        int[] pageRows = new int[1];
+        do {
+            pageRows[0] = 0;
+            streamingTemplate.query(KEYSET_PAGE, rs -> {
+                CreditTransactionRecord record = RECORD_MAPPER.mapRow(rs, pageRows[0]);
+                // Keep the exact column value: created_on has sub-millisecond precision
+                lastCreated[0] = rs.getTimestamp("created_on");
+                lastId[0] = record.getId();
+                pageRows[0]++;
+                sink.accept(record);
+            }, accountId, upper, lastCreated[0], lastCreated[0], lastId[0], PAGE_SIZE);
+            delivered += pageRows[0];
+        } while (pageRows[0] == PAGE_SIZE);
+        return delivered;
+    }
+
+    private static CreditTransactionRecord mapRecord(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp createdOn = rs.getTimestamp("created_on");
+        Timestamp modifiedOn = rs.getTimestamp("modified_on");
+        long created = createdOn != null ? createdOn.getTime() : 0L;
+        return new CreditTransactionRecord(
+                rs.getLong("id"),
+                rs.getString("transaction_id"),
+                rs.getLong("account_id"),
+                TransactionType.valueOf(rs.getString("transaction_type")),
+                minor(rs.getBigDecimal("amount")),
+                minor(rs.getBigDecimal("balance_before")),
+                minor(rs.getBigDecimal("balance_after")),
+                minor(rs.getBigDecimal("reserved_before")),
+                minor(rs.getBigDecimal("reserved_after")),
+                nullableLong(rs, "ledger_seq"),
+                rs.getString("reservation_id"),
+                rs.getString("reference_id"),
+                rs.getString("reference_type"),
+                nullableLong(rs, "package_purchase_id"),
+                rs.getString("description"),
+                created,
+                modifiedOn != null ? modifiedOn.getTime() : created);
+    }
+
+    private static Long nullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static long minor(BigDecimal value) {
+        return value == null ? 0L : CreditAmount.toMinor(value);
+    }
+}
@@ -0,0 +1,216 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the monthly RANGE partitions of credit_transactions ahead of the clock.
+ *
+ * The layout comes from sql queries/partition_credit_transactions.sql: monthly partitions named
+ * pYYYYMM and a catch-all p_future. New months are split off p_future before they start, so the split
+ * moves no rows and inserts never land in the catch-all. On a table that has not been partitioned
+ * nothing happens here and the archiver falls back to batched deletes.
+ *
+ * Every node runs the job, so partition DDL only happens while holding the MySQL named lock
+ * {@value #LOCK_NAME}; a node that does not get it at once skips the round. The lock belongs to the
+ * connection, not a transaction, so it survives the implicit commit of each ALTER. The layout is
+ * re-read under the lock, and a partition some other process already added or dropped is skipped.
+ */
+@Service
+public class CreditTransactionPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditTransactionPartitionManager.class);
+
+    static final String FUTURE_PARTITION = "p_future";
+
+    static final String LOCK_NAME = "credit_transactions.partitions";
+
+    // MySQL error codes: duplicate partition name, and DROP of a partition that does not exist
+    private static final int ER_SAME_NAME_PARTITION = 1517;
+    private static final int ER_DROP_PARTITION_NON_EXISTENT = 1507;
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String PARTITIONS =
+            "SELECT PARTITION_NAME FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() "
+            + "AND TABLE_NAME = 'credit_transactions' AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION";
+
+    private static final String SPLIT_FUTURE =
+            "ALTER TABLE credit_transactions REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO ("
+            + "PARTITION %s VALUES LESS THAN ('%s'), PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))";
+
+    private static final String DROP_PARTITION = "ALTER TABLE credit_transactions DROP PARTITION %s";
+
+    private static final String GET_LOCK = "SELECT GET_LOCK(?, 0)";
+
+    private static final String RELEASE_LOCK = "SELECT RELEASE_LOCK(?)";
+
+    private interface Maintenance<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CreditEngineProperties.History config;
+
+    public CreditTransactionPartitionManager(JdbcTemplate jdbcTemplate, CreditEngineProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = properties.getHistory();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensureFuturePartitions();
+    }
+
+    /**
+     * Split off monthly partitions up to {@code futureMonths} ahead of the current month.
+     */
+    @Scheduled(cron = "${app.credit.history.partition-cron:0 5 0 * * *}")
+    public void ensureFuturePartitions() {
+        Integer added = underLock(connection -> {
+            List<String> partitions = partitions(connection);
+            if (!partitions.contains(FUTURE_PARTITION)) {
+                if (!partitions.isEmpty()) {
+                    logger.warn("credit_transactions is partitioned without a {} partition; not adding months",
+                            FUTURE_PARTITION);
+                }
+                return 0;
+            }
+            YearMonth last = null;
+            for (String partition : partitions) {
+                YearMonth month = monthOf(partition);
+                if (month != null && (last == null || month.isAfter(last))) {
+                    last = month;
+                }
+            }
+            YearMonth target = YearMonth.now().plusMonths(Math.max(0, config.getFutureMonths()));
+            YearMonth next = last == null ? YearMonth.now() : last.plusMonths(1);
+            int count = 0;
+            for (; !next.isAfter(target); next = next.plusMonths(1)) {
+                String name = partitionName(next);
+                if (ddl(connection, String.format(SPLIT_FUTURE, name, next.plusMonths(1).atDay(1)),
+                        ER_SAME_NAME_PARTITION)) {
+                    logger.info("Added credit_transactions partition {}", name);
+                    count++;
+                } else {
+                    logger.info("credit_transactions partition {} already exists", name);
+                }
+            }
+            return count;
+        });
+        if (added == null) {
+            logger.debug("Partition maintenance of credit_transactions is running on another node");
+        }
+    }
+
+    public boolean isPartitioned() {
+        return !jdbcTemplate.queryForList(PARTITIONS, String.class).isEmpty();
+    }
+
+    /**
+     * Drop the partition holding exactly {@code month}. Returns false when there is no such partition
+     * or another node holds the maintenance lock, in which case the caller has to delete the rows itself.
+     */
+    boolean dropMonth(YearMonth month) {
+        String name = partitionName(month);
+        Boolean dropped = underLock(connection -> {
+            if (!partitions(connection).contains(name)) {
+                return false;
+            }
+            if (!ddl(connection, String.format(DROP_PARTITION, name), ER_DROP_PARTITION_NON_EXISTENT)) {
+                return false;
+            }
+            logger.info("Dropped credit_transactions partition {}", name);
+            return true;
+        });
+        return Boolean.TRUE.equals(dropped);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_NAME.format(month);
+    }
+
+    /**
+     * Run {@code maintenance} on one connection while holding {@link #LOCK_NAME}. Returns null without
+     * running it when another session holds the lock.
+     */
+    private <T> T underLock(Maintenance<T> maintenance) {
+        return jdbcTemplate.execute((ConnectionCallback<T>) connection -> {
+            if (!acquire(connection)) {
+                return null;
+            }
+            try {
+                return maintenance.run(connection);
+            } finally {
+                try (PreparedStatement release = connection.prepareStatement(RELEASE_LOCK)) {
+                    release.setString(1, LOCK_NAME);
+                    release.execute();
+                }
+            }
+        });
+    }
+
+    private static boolean acquire(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement(GET_LOCK)) {
+            lock.setString(1, LOCK_NAME);
+            try (ResultSet rs = lock.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    /**
+     * Execute a partition ALTER. Returns false instead of failing when MySQL answers with
+     * {@code tolerated}, i.e. the change was already made elsewhere.
+     */
+    private static boolean ddl(Connection connection, String sql, int tolerated) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            return true;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == tolerated) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static List<String> partitions(Connection connection) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(PARTITIONS)) {
+            while (rs.next()) {
+                partitions.add(rs.getString(1));
+            }
+        }
+        return partitions;
+    }
+
+    private static YearMonth monthOf(String partition) {
+        if (partition == null || partition.length() != 7 || partition.charAt(0) != 'p') {
+            return null;
+        }
+        try {
+            return YearMonth.of(Integer.parseInt(partition.substring(1, 5)), Integer.parseInt(partition.substring(5)));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.model.credit.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * One credit_transactions row as read for history and statements, either from the hot table or from
+ * an archive file. Amounts are kept in {@link CreditAmount} minor units.
+ */
+public class CreditTransactionRecord {
+
+    private final long id;
+    private final String transactionId;
+    private final long accountId;
+    private final TransactionType transactionType;
+    private final long amount;
+    private final long balanceBefore;
+    private final long balanceAfter;
+    private final long reservedBefore;
+    private final long reservedAfter;
+    private final Long ledgerSeq;
+    private final String reservationId;
+    private final String referenceId;
+    private final String referenceType;
+    private final Long packagePurchaseId;
+    private final String description;
+    private final long createdOn;
+    private final long modifiedOn;
+
+    public CreditTransactionRecord(long id, String transactionId, long accountId, TransactionType transactionType,
+                                   long amount, long balanceBefore, long balanceAfter, long reservedBefore,
+                                   long reservedAfter, Long ledgerSeq, String reservationId, String referenceId,
+                                   String referenceType, Long packagePurchaseId, String description,
+                                   long createdOn, long modifiedOn) {
+        this.id = id;
+        this.transactionId = transactionId;
+        this.accountId = accountId;
+        this.transactionType = transactionType;
+        this.amount = amount;
+        this.balanceBefore = balanceBefore;
+        this.balanceAfter = balanceAfter;
+        this.reservedBefore = reservedBefore;
+        this.reservedAfter = reservedAfter;
+        this.ledgerSeq = ledgerSeq;
+        this.reservationId = reservationId;
+        this.referenceId = referenceId;
+        this.referenceType = referenceType;
+        this.packagePurchaseId = packagePurchaseId;
+        this.description = description;
+        this.createdOn = createdOn;
+        this.modifiedOn = modifiedOn;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public BigDecimal getAmount() {
+        return CreditAmount.toBigDecimal(amount);
+    }
+
+    public long getAmountMinor() {
+        return amount;
+    }
+
+    public BigDecimal getBalanceBefore() {
+        return CreditAmount.toBigDecimal(balanceBefore);
+    }
+
+    public long getBalanceBeforeMinor() {
+        return balanceBefore;
+    }
+
+    public BigDecimal getBalanceAfter() {
+        return CreditAmount.toBigDecimal(balanceAfter);
+    }
+
+    public long getBalanceAfterMinor() {
+        return balanceAfter;
+    }
+
+    public BigDecimal getReservedBefore() {
+        return CreditAmount.toBigDecimal(reservedBefore);
+    }
+
+    public long getReservedBeforeMinor() {
+        return reservedBefore;
+    }
+
+    public BigDecimal getReservedAfter() {
+        return CreditAmount.toBigDecimal(reservedAfter);
+    }
+
+    public long getReservedAfterMinor() {
+        return reservedAfter;
+    }
+
+    public Long getLedgerSeq() {
+        return ledgerSeq;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public String getReferenceId() {
+        return referenceId;
+    }
+
+    public String getReferenceType() {
+        return referenceType;
+    }
+
+    public Long getPackagePurchaseId() {
+        return packagePurchaseId;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Date getCreatedOn() {
+        return new Date(createdOn);
+    }
+
+    public long getCreatedOnMillis() {
+        return createdOn;
+    }
+
+    public Date getModifiedOn() {
+        return new Date(modifiedOn);
+    }
+
+    public long getModifiedOnMillis() {
+        return modifiedOn;
+    }
+}
@@ -0,0 +1,45 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.model.credit.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Transactions of one type on one day, for an account or summed over a subtree.
+ */
+public class DailyCreditRollup {
+
+    private final LocalDate day;
+    private final TransactionType transactionType;
+    private final long count;
+    private final long amount;
+
+    DailyCreditRollup(LocalDate day, TransactionType transactionType, long count, long amount) {
+        this.day = day;
+        this.transactionType = transactionType;
+        this.count = count;
+        this.amount = amount;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public BigDecimal getAmount() {
+        return CreditAmount.toBigDecimal(amount);
+    }
+
+    public long getAmountMinor() {
+        return amount;
+    }
+}
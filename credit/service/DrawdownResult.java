@@ -0,0 +1,67 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * How one consumption was split over the receiving account's allocations. Whatever no active
+ * allocation covered came out of the account's own credit and is reported as uncovered.
+ */
+public class DrawdownResult {
+
+    public static class Draw {
+        private final String allocationId;
+        private final long amount;
+        private final boolean exhausted;
+
+        Draw(String allocationId, long amount, boolean exhausted) {
+            this.allocationId = allocationId;
+            this.amount = amount;
+            this.exhausted = exhausted;
+        }
+
+        public String getAllocationId() {
+            return allocationId;
+        }
+
+        public BigDecimal getAmount() {
+            return CreditAmount.toBigDecimal(amount);
+        }
+
+        public long getAmountMinor() {
+            return amount;
+        }
+
+        public boolean isExhausted() {
+            return exhausted;
+        }
+    }
+
+    private final Long accountId;
+    private final List<Draw> draws;
+    private final long uncovered;
+
+    DrawdownResult(Long accountId, List<Draw> draws, long uncovered) {
+        this.accountId = accountId;
+        this.draws = draws;
+        this.uncovered = uncovered;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public List<Draw> getDraws() {
+        return draws;
+    }
+
+    public BigDecimal getUncovered() {
+        return CreditAmount.toBigDecimal(uncovered);
+    }
+
+    public long getUncoveredMinor() {
+        return uncovered;
+    }
+}
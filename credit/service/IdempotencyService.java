@@ -0,0 +1,232 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.exception.CreditConcurrencyException;
+import com.code.aplusbinary.accountmanagement.exception.IdempotencyKeyReuseException;
+import com.code.aplusbinary.accountmanagement.util.AfterCommit;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for credit calls that must not be applied twice.
+ *
+ * The key is claimed by inserting it into idempotency_keys in the same transaction as the call itself
+ * and the JSON response is stored before commit. A concurrent retry blocks on the unique key until the
+ * first attempt commits (and then replays its response) or rolls back (and then runs the call itself),
+ * so there is no in-progress state to clean up. Failed calls store nothing; retrying them runs them again.
+ *
+ * Recent responses are kept in a bounded LRU cache, so a replay is a map lookup that never reaches
+ * user_credits or even the key table. Keys are scoped per endpoint and calling account, so two callers
+ * that happen to pick the same key never see each other's responses, and they expire after a TTL.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private static final String CLAIM =
+            "INSERT INTO idempotency_keys (caller_id, scope, idempotency_key, request_hash, expires_on, created_on) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT = "SELECT request_hash, response_body, expires_on FROM idempotency_keys "
+            + "WHERE caller_id = ? AND scope = ? AND idempotency_key = ?";
+
+    private static final String COMPLETE = "UPDATE idempotency_keys SET response_body = ? "
+            + "WHERE caller_id = ? AND scope = ? AND idempotency_key = ?";
+
+    private static final String DELETE_EXPIRED_KEY = "DELETE FROM idempotency_keys "
+            + "WHERE caller_id = ? AND scope = ? AND idempotency_key = ? AND expires_on <= ?";
+
+    private static final String PURGE_EXPIRED = "DELETE FROM idempotency_keys WHERE expires_on <= ? LIMIT ?";
+
+    private static final class Stored {
+        final String requestHash;
+        final Object response;
+        final long expiresAt;
+
+        Stored(String requestHash, Object response, long expiresAt) {
+            this.requestHash = requestHash;
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CreditEngineProperties.Idempotency config;
+    private final Map<String, Stored> cache;
+    private final Counter cacheReplays;
+    private final Counter storedReplays;
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              CreditEngineProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.config = properties.getIdempotency();
+        int cacheSize = Math.max(1, config.getCacheSize());
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        this.cacheReplays = Counter.builder("credit.idempotency.replays")
+                .tag("source", "cache")
+                .description("Idempotent calls answered with a stored response")
+                .register(meterRegistry);
+        this.storedReplays = Counter.builder("credit.idempotency.replays")
+                .tag("source", "database")
+                .description("Idempotent calls answered with a stored response")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run {@code action} once per (caller, scope, key); later calls from the same caller with the same key
+     * and request get the first response back. Without a key the action simply runs.
+     */
+    public <T> T execute(Long callerId, String scope, String key, Object request, Class<T> responseType,
+                         Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        checkKey(key);
+        if (callerId == null) {
+            throw new IllegalArgumentException("Idempotent calls need a calling account");
+        }
+        String requestHash = hash(request);
+        String cacheKey = callerId + ':' + scope + ':' + key;
+        long now = System.currentTimeMillis();
+
+        Stored cached = cache.get(cacheKey);
+        if (cached != null && cached.expiresAt > now) {
+            if (!cached.requestHash.equals(requestHash)) {
+                throw new IdempotencyKeyReuseException(key);
+            }
+            cacheReplays.increment();
+            return responseType.cast(cached.response);
+        }
+
+        return transactionTemplate.execute(status -> {
+            Timestamp expiresOn = new Timestamp(now + config.getTtlSeconds() * 1000L);
+            T replay = claim(callerId, scope, key, requestHash, expiresOn, responseType);
+            if (replay != null) {
+                storedReplays.increment();
+                cache.put(cacheKey, new Stored(requestHash, replay, expiresOn.getTime()));
+                return replay;
+            }
+            T response = action.get();
+            jdbcTemplate.update(COMPLETE, toJson(response), callerId, scope, key);
+            AfterCommit.run(() -> cache.put(cacheKey, new Stored(requestHash, response, expiresOn.getTime())));
+            return response;
+        });
+    }
+
+    /**
+     * Reject a key {@link #execute} would not accept, for callers that validate a whole batch up front.
+     */
+    public static void checkKey(String key) {
+        if (key != null && key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.credit.idempotency.purge-interval-ms:3600000}",
+            initialDelayString = "${app.credit.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_EXPIRED, now, config.getPurgeBatchSize());
+            purged += deleted;
+        } while (deleted >= config.getPurgeBatchSize());
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    /**
+     * Insert the key, or return the stored response if it was already used. Returns null when the
+     * caller now owns the key and should run the call.
+     */
+    private <T> T claim(Long callerId, String scope, String key, String requestHash, Timestamp expiresOn,
+                        Class<T> responseType) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try {
+            jdbcTemplate.update(CLAIM, callerId, scope, key, requestHash, expiresOn, now);
+            return null;
+        } catch (DuplicateKeyException e) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT, callerId, scope, key);
+            if (rows.isEmpty() || jdbcTemplate.update(DELETE_EXPIRED_KEY, callerId, scope, key, now) > 0) {
+                // Purged or expired in the meantime: the key is free again
+                jdbcTemplate.update(CLAIM, callerId, scope, key, requestHash, expiresOn, now);
+                return null;
+            }
+            Map<String, Object> row = rows.get(0);
+            if (!requestHash.equals(row.get("request_hash"))) {
+                throw new IdempotencyKeyReuseException(key);
+            }
+            String body = (String) row.get("response_body");
+            if (body == null) {
+                throw new CreditConcurrencyException(null, "Request with Idempotency-Key " + key
+                        + " is still being processed");
+            }
+            return fromJson(body, responseType);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash request for idempotency check", e);
+        }
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store idempotent response", e);
+        }
+    }
+
+    private <T> T fromJson(String body, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(body, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored idempotent response", e);
+        }
+    }
+}
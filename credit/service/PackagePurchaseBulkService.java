@@ -0,0 +1,328 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.dto.credit.BulkPurchaseActionRequest;
+import com.code.aplusbinary.accountmanagement.dto.credit.BulkPurchaseResponse;
+import com.code.aplusbinary.accountmanagement.dto.credit.PurchaseOutcome;
+import com.code.aplusbinary.accountmanagement.exception.CreditOperationException;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.model.credit.PaymentStatus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approve or refund many package purchases in one call.
+ *
+ * The approver is the authenticated caller, never an id from the request. It may only approve purchases
+ * of the accounts directly below it, so the reseller a purchaser belongs to is always the one that pays:
+ * a grandparent or the root cannot approve past it. The approver pays out of its own balance unless it
+ * is a root of the account tree; an approver missing from account_closure is refused rather than
+ * treated as a root. Refunds are open to the account that approved the purchase and to the purchaser's
+ * ancestors.
+ *
+ * Purchases are locked up front and grouped by the account whose balance decides them: the approver
+ * for approvals, the purchaser for refunds (the credits must still be there to take back). Each group
+ * checks its balance once under a row lock, accepts purchases in request order while they fit, and
+ * writes its credit movements with one guarded update and one batched ledger insert per account.
+ *
+ * Every group runs in a nested transaction (a savepoint), so a group that fails midway rolls back on
+ * its own and is reported per purchase while the other groups still commit.
+ */
+@Service
+public class PackagePurchaseBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PackagePurchaseBulkService.class);
+
+    private static final String REFERENCE_TYPE = "PACKAGE_PURCHASE";
+
+    private static final String LOCK_PURCHASES =
+            "SELECT id, purchase_id, account_id, credits_purchased, payment_status, approved_by_account_id, "
+            + "approver_charged FROM package_purchases WHERE purchase_id IN (:ids) FOR UPDATE";
+
+    private static final String COMPLETE_PURCHASE =
+            "UPDATE package_purchases SET payment_status = 'COMPLETED', completed_on = ?, approved_by_account_id = ?, "
+            + "approver_charged = ?, modified_on = ? WHERE id = ? AND payment_status = 'PENDING'";
+
+    private static final String REFUND_PURCHASE =
+            "UPDATE package_purchases SET payment_status = 'REFUNDED', refunded_on = ?, modified_on = ? "
+            + "WHERE id = ? AND payment_status = 'COMPLETED'";
+
+    private static final class Purchase {
+        final long id;
+        final String purchaseId;
+        final Long accountId;
+        final long credits;
+        final Long approvedBy;
+        final long approverCharged;
+        final PurchaseOutcome outcome;
+
+        Purchase(Map<String, Object> row) {
+            this.id = ((Number) row.get("id")).longValue();
+            this.purchaseId = (String) row.get("purchase_id");
+            this.accountId = ((Number) row.get("account_id")).longValue();
+            this.credits = CreditAmount.toMinor((BigDecimal) row.get("credits_purchased"));
+            this.approvedBy = row.get("approved_by_account_id") != null
+                    ? ((Number) row.get("approved_by_account_id")).longValue()
+                    : null;
+            this.approverCharged = row.get("approver_charged") != null
+                    ? CreditAmount.toMinor((BigDecimal) row.get("approver_charged"))
+                    : 0L;
+            this.outcome = new PurchaseOutcome(purchaseId, accountId, CreditAmount.toBigDecimal(credits),
+                    (String) row.get("payment_status"));
+        }
+
+        CreditMutation mutation(Long accountId, CreditOperation operation, String description) {
+            return CreditMutation.ofMinor(accountId, operation, credits)
+                    .reference(purchaseId, REFERENCE_TYPE)
+                    .packagePurchaseId(id)
+                    .description(description);
+        }
+    }
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate groupTransaction;
+    private final CreditMutationEngine mutationEngine;
+    private final StripedBalanceService stripedBalanceService;
+    private final AccountHierarchyService hierarchyService;
+    private final CreditEngineProperties properties;
+
+    public PackagePurchaseBulkService(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      CreditMutationEngine mutationEngine,
+                                      StripedBalanceService stripedBalanceService,
+                                      AccountHierarchyService hierarchyService,
+                                      CreditEngineProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.groupTransaction = new TransactionTemplate(transactionManager);
+        this.groupTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.mutationEngine = mutationEngine;
+        this.stripedBalanceService = stripedBalanceService;
+        this.hierarchyService = hierarchyService;
+        this.properties = properties;
+    }
+
+    /**
+     * Approve pending purchases on behalf of {@code approver}, the authenticated caller's account, which
+     * must be the direct parent of each purchaser.
+     */
+    @Transactional
+    public BulkPurchaseResponse approveBulk(BulkPurchaseActionRequest request, Long approver) {
+        Map<String, PurchaseOutcome> outcomes = new LinkedHashMap<>();
+        List<Purchase> group = new ArrayList<>();
+        for (Purchase purchase : lockPurchases(request, PaymentStatus.PENDING, outcomes)) {
+            if (!approver.equals(hierarchyService.parentOf(purchase.accountId))) {
+                purchase.outcome.reject("Only the parent account can approve purchases of account "
+                        + purchase.accountId);
+            } else {
+                purchase.outcome.setApproverAccountId(approver);
+                group.add(purchase);
+            }
+        }
+
+        if (!group.isEmpty()) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            runGroup("approval by account " + approver, group, () -> approveGroup(approver, group, now));
+        }
+
+        BulkPurchaseResponse response = new BulkPurchaseResponse(new ArrayList<>(outcomes.values()));
+        logger.info("Bulk approved {} of {} purchases by account {}", response.getAppliedCount(), outcomes.size(),
+                approver);
+        return response;
+    }
+
+    /**
+     * Refund completed purchases on behalf of {@code caller}, which must have approved each purchase or
+     * be above its purchaser in the account tree.
+     */
+    @Transactional
+    public BulkPurchaseResponse refundBulk(BulkPurchaseActionRequest request, Long caller) {
+        Map<String, PurchaseOutcome> outcomes = new LinkedHashMap<>();
+        Map<Long, List<Purchase>> byPurchaser = new LinkedHashMap<>();
+        for (Purchase purchase : lockPurchases(request, PaymentStatus.COMPLETED, outcomes)) {
+            if (!caller.equals(purchase.approvedBy) && !hierarchyService.isAncestor(caller, purchase.accountId)) {
+                purchase.outcome.reject("Account " + caller + " cannot refund purchases of account "
+                        + purchase.accountId);
+                continue;
+            }
+            byPurchaser.computeIfAbsent(purchase.accountId, key -> new ArrayList<>()).add(purchase);
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (Map.Entry<Long, List<Purchase>> group : byPurchaser.entrySet()) {
+            runGroup("refund for account " + group.getKey(), group.getValue(),
+                    () -> refundGroup(group.getKey(), group.getValue(), now));
+        }
+
+        BulkPurchaseResponse response = new BulkPurchaseResponse(new ArrayList<>(outcomes.values()));
+        logger.info("Bulk refunded {} of {} purchases across {} accounts",
+                response.getAppliedCount(), outcomes.size(), byPurchaser.size());
+        return response;
+    }
+
+    private void approveGroup(Long approver, List<Purchase> group, Timestamp now) {
+        // A root approver issues new credit; anyone below pays for the purchase out of its own balance.
+        // An approver whose place in the tree is unknown is refused, never taken for a root.
+        if (!hierarchyService.isInHierarchy(approver)) {
+            throw new CreditOperationException(approver, "Account " + approver + " is not in the account hierarchy");
+        }
+        boolean charged = hierarchyService.parentOf(approver) != null;
+        List<Purchase> accepted = group;
+        if (charged) {
+            boolean striped = stripedBalanceService.isStriped(approver);
+            // Both lock the approver's user_credits row; the debit below stays guarded either way
+            long available = striped
+                    ? stripedBalanceService.lockAvailableMinor(approver)
+                    : mutationEngine.lockAvailableMinor(approver);
+            accepted = acceptWhileAffordable(group, available, "Insufficient approver balance");
+            if (accepted.isEmpty()) {
+                return;
+            }
+            List<CreditMutation> debits = accepted.stream()
+                    .map(p -> p.mutation(approver, CreditOperation.ALLOCATE_OUT,
+                            "Paid for purchase " + p.purchaseId + " of account " + p.accountId))
+                    .toList();
+            if (striped) {
+                stripedBalanceService.debit(debits);
+            } else {
+                mutationEngine.applyGrouped(debits);
+            }
+        }
+
+        Map<Long, List<Purchase>> byPurchaser = new LinkedHashMap<>();
+        accepted.forEach(p -> byPurchaser.computeIfAbsent(p.accountId, key -> new ArrayList<>()).add(p));
+        for (List<Purchase> purchases : byPurchaser.values()) {
+            List<CreditMutationResult> results = mutationEngine.applyGrouped(purchases.stream()
+                    .map(p -> p.mutation(p.accountId, CreditOperation.PURCHASE, "Purchase " + p.purchaseId + " approved"))
+                    .toList());
+            for (int i = 0; i < results.size(); i++) {
+                purchases.get(i).outcome.setTransactionId(results.get(i).getTransactionId());
+            }
+        }
+
+        List<Object[]> rows = new ArrayList<>(accepted.size());
+        for (Purchase purchase : accepted) {
+            rows.add(new Object[] { now, approver, CreditAmount.toBigDecimal(charged ? purchase.credits : 0L), now,
+                    purchase.id });
+            purchase.outcome.setStatus(PaymentStatus.COMPLETED.name());
+        }
+        jdbcTemplate.batchUpdate(COMPLETE_PURCHASE, rows);
+    }
+
+    private void refundGroup(Long purchaser, List<Purchase> group, Timestamp now) {
+        List<Purchase> accepted = acceptWhileAffordable(group, mutationEngine.lockAvailableMinor(purchaser),
+                "Purchased credits are no longer available to refund");
+        if (accepted.isEmpty()) {
+            return;
+        }
+        List<CreditMutationResult> results = mutationEngine.applyGrouped(accepted.stream()
+                .map(p -> p.mutation(purchaser, CreditOperation.REFUND, "Purchase " + p.purchaseId + " refunded"))
+                .toList());
+        for (int i = 0; i < results.size(); i++) {
+            accepted.get(i).outcome.setTransactionId(results.get(i).getTransactionId());
+        }
+
+        // Give paying approvers back what they were charged
+        Map<Long, List<CreditMutation>> returns = new HashMap<>();
+        for (Purchase purchase : accepted) {
+            if (purchase.approvedBy != null && purchase.approverCharged > 0) {
+                returns.computeIfAbsent(purchase.approvedBy, key -> new ArrayList<>())
+                        .add(CreditMutation.ofMinor(purchase.approvedBy, CreditOperation.ALLOCATE_RETURN,
+                                        purchase.approverCharged)
+                                .reference(purchase.purchaseId, REFERENCE_TYPE)
+                                .packagePurchaseId(purchase.id)
+                                .description("Refund of purchase " + purchase.purchaseId + " of account " + purchaser));
+            }
+        }
+        returns.values().forEach(mutationEngine::applyGrouped);
+
+        List<Object[]> rows = new ArrayList<>(accepted.size());
+        for (Purchase purchase : accepted) {
+            rows.add(new Object[] { now, now, purchase.id });
+            purchase.outcome.setStatus(PaymentStatus.REFUNDED.name());
+        }
+        jdbcTemplate.batchUpdate(REFUND_PURCHASE, rows);
+    }
+
+    private static List<Purchase> acceptWhileAffordable(List<Purchase> group, long available, String rejection) {
+        List<Purchase> accepted = new ArrayList<>(group.size());
+        for (Purchase purchase : group) {
+            if (available >= purchase.credits) {
+                accepted.add(purchase);
+                available -= purchase.credits;
+            } else {
+                purchase.outcome.reject(rejection);
+            }
+        }
+        return accepted;
+    }
+
+    private void runGroup(String description, List<Purchase> group, Runnable work) {
+        try {
+            groupTransaction.executeWithoutResult(status -> work.run());
+        } catch (RuntimeException e) {
+            // Only this group's savepoint was rolled back; report it per purchase and carry on
+            logger.warn("Bulk purchase {} failed for {} purchases: {}", description, group.size(), e.getMessage());
+            for (Purchase purchase : group) {
+                if (purchase.outcome.isApplied()) {
+                    purchase.outcome.reject(e.getMessage());
+                }
+            }
+        }
+    }
+
+    private List<Purchase> lockPurchases(BulkPurchaseActionRequest request, PaymentStatus expected,
+                                         Map<String, PurchaseOutcome> outcomes) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(request.getPurchaseIds()));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        if (ids.size() > properties.getPurchases().getMaxBatchSize()) {
+            throw new IllegalArgumentException("Batch exceeds maximum size of "
+                    + properties.getPurchases().getMaxBatchSize());
+        }
+        Map<String, Purchase> rows = new HashMap<>();
+        for (Map<String, Object> row : namedJdbcTemplate.queryForList(LOCK_PURCHASES,
+                new MapSqlParameterSource("ids", ids))) {
+            Purchase purchase = new Purchase(row);
+            rows.put(purchase.purchaseId, purchase);
+        }
+
+        List<Purchase> eligible = new ArrayList<>(rows.size());
+        for (String purchaseId : ids) {
+            Purchase purchase = rows.get(purchaseId);
+            if (purchase == null) {
+                PurchaseOutcome outcome = new PurchaseOutcome(purchaseId, null, null, PurchaseOutcome.NOT_FOUND);
+                outcome.setMessage("Purchase not found");
+                outcomes.put(purchaseId, outcome);
+                continue;
+            }
+            outcomes.put(purchaseId, purchase.outcome);
+            if (!expected.name().equals(purchase.outcome.getStatus())) {
+                purchase.outcome.reject("Purchase is " + purchase.outcome.getStatus() + ", expected " + expected.name());
+                continue;
+            }
+            eligible.add(purchase);
+        }
+        return eligible;
+    }
+}
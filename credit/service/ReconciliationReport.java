@@ -0,0 +1,123 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Outcome of one reconciliation run: how much history was replayed and every user_credits column
+ * that did not match it.
+ */
+public class ReconciliationReport {
+
+    public static class Discrepancy {
+        private final Long accountId;
+        private final String field;
+        private final long expected;
+        private final long actual;
+        private final long lastTransactionId;
+
+        Discrepancy(Long accountId, String field, long expected, long actual, long lastTransactionId) {
+            this.accountId = accountId;
+            this.field = field;
+            this.expected = expected;
+            this.actual = actual;
+            this.lastTransactionId = lastTransactionId;
+        }
+
+        public Long getAccountId() {
+            return accountId;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public BigDecimal getExpected() {
+            return CreditAmount.toBigDecimal(expected);
+        }
+
+        public long getExpectedMinor() {
+            return expected;
+        }
+
+        public BigDecimal getActual() {
+            return CreditAmount.toBigDecimal(actual);
+        }
+
+        public long getActualMinor() {
+            return actual;
+        }
+
+        public BigDecimal getDifference() {
+            return CreditAmount.toBigDecimal(actual - expected);
+        }
+
+        public long getLastTransactionId() {
+            return lastTransactionId;
+        }
+    }
+
+    private final String runId;
+    private final Date startedOn;
+    private final Date finishedOn;
+    private final long accountsChecked;
+    private final long transactionsReplayed;
+    private final long throttledMillis;
+    private final boolean complete;
+    private final List<Discrepancy> discrepancies;
+
+    ReconciliationReport(String runId, Date startedOn, Date finishedOn, long accountsChecked,
+                         long transactionsReplayed, long throttledMillis, boolean complete,
+                         List<Discrepancy> discrepancies) {
+        this.runId = runId;
+        this.startedOn = startedOn;
+        this.finishedOn = finishedOn;
+        this.accountsChecked = accountsChecked;
+        this.transactionsReplayed = transactionsReplayed;
+        this.throttledMillis = throttledMillis;
+        this.complete = complete;
+        this.discrepancies = discrepancies;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public Date getStartedOn() {
+        return startedOn;
+    }
+
+    public Date getFinishedOn() {
+        return finishedOn;
+    }
+
+    public long getAccountsChecked() {
+        return accountsChecked;
+    }
+
+    public long getTransactionsReplayed() {
+        return transactionsReplayed;
+    }
+
+    public long getThrottledMillis() {
+        return throttledMillis;
+    }
+
+    /**
+     * False when the run was interrupted or a range failed; unchecked accounts keep their old checkpoint.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean isInBalance() {
+        return discrepancies.isEmpty();
+    }
+
+    public List<Discrepancy> getDiscrepancies() {
+        return discrepancies;
+    }
+}
@@ -0,0 +1,235 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.model.credit.ReservationStatus;
+import com.code.aplusbinary.accountmanagement.util.HierarchicalTimingWheel;
+import com.code.aplusbinary.accountmanagement.util.AfterCommit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires credit reservations at their deadline instead of polling the whole table.
+ *
+ * Every RESERVED hold is tracked in a {@link HierarchicalTimingWheel} keyed by reservation id, so
+ * each tick only touches holds that are actually due. Due holds are expired in bounded batches:
+ * one locking select, one batched status update and one guarded balance update per account via
+ * {@link CreditMutationEngine}, each hold keeping its own RESERVATION_EXPIRED ledger row. A slow
+ * sweep over the (status, expires_on) index picks up holds created by other nodes or missed
+ * across a restart.
+ */
+@Service
+public class ReservationExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationExpiryService.class);
+
+    private static final String LOAD_PENDING =
+            "SELECT reservation_id, expires_on FROM credit_reservations WHERE status = 'RESERVED' ORDER BY expires_on";
+
+    private static final String SELECT_OVERDUE =
+            "SELECT reservation_id, expires_on FROM credit_reservations "
+            + "WHERE status = 'RESERVED' AND expires_on <= ? ORDER BY expires_on LIMIT ?";
+
+    private static final String LOCK_DUE =
+            "SELECT reservation_id, account_id, reserved_amount, reference_id, expires_on "
+            + "FROM credit_reservations WHERE reservation_id IN (:ids) AND status = 'RESERVED' FOR UPDATE";
+
+    private static final String MARK_EXPIRED =
+            "UPDATE credit_reservations SET status = ?, modified_on = ? "
+            + "WHERE reservation_id = ? AND status = 'RESERVED'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CreditMutationEngine mutationEngine;
+    private final CreditEngineProperties.Expiry config;
+    private final HierarchicalTimingWheel<String> wheel;
+    private final Timer lagTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter expiredCounter;
+
+    public ReservationExpiryService(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    CreditMutationEngine mutationEngine,
+                                    CreditEngineProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mutationEngine = mutationEngine;
+        this.config = properties.getExpiry();
+        this.wheel = new HierarchicalTimingWheel<>(config.getTickMs(), config.getWheelSize(), config.getLevels(),
+                System.currentTimeMillis());
+        this.lagTimer = Timer.builder("credit.reservation.expiry.lag")
+                .description("Delay between a reservation's deadline and its expiry being committed")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("credit.reservation.expiry.batch.size")
+                .description("Reservations expired per batch")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("credit.reservation.expired")
+                .description("Reservations expired and returned to available balance")
+                .register(meterRegistry);
+        Gauge.builder("credit.reservation.expiry.pending", wheel, HierarchicalTimingWheel::size)
+                .description("Reservations currently tracked by the expiry wheel")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPending() {
+        jdbcTemplate.query(LOAD_PENDING, rs -> {
+            wheel.schedule(rs.getString("reservation_id"), rs.getTimestamp("expires_on").getTime());
+        });
+        logger.info("Reservation expiry wheel loaded with {} pending holds", wheel.size());
+    }
+
+    /**
+     * Track a new hold. Inside a transaction the hold is only scheduled once that transaction commits,
+     * so a rolled-back reservation never reaches the wheel.
+     */
+    public void track(String reservationId, Timestamp expiresOn) {
+        AfterCommit.run(() -> wheel.schedule(reservationId, expiresOn.getTime()));
+    }
+
+    /**
+     * Stop tracking holds that were confirmed or released. A stale entry would be harmless (the expiry
+     * select only locks RESERVED rows) but would cost a round trip at its deadline.
+     */
+    public void untrack(Collection<String> reservationIds) {
+        List<String> ids = new ArrayList<>(reservationIds);
+        AfterCommit.run(() -> ids.forEach(wheel::cancel));
+    }
+
+    @Scheduled(fixedDelayString = "${app.credit.expiry.tick-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        List<HierarchicalTimingWheel.Expired<String>> due;
+        while (!(due = wheel.advance(now, config.getBatchSize())).isEmpty()) {
+            Map<String, Long> deadlines = new LinkedHashMap<>();
+            for (HierarchicalTimingWheel.Expired<String> expired : due) {
+                deadlines.put(expired.getKey(), expired.getDeadlineMillis());
+            }
+            expireBatch(deadlines);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.credit.expiry.sweep-interval-ms:60000}",
+            initialDelayString = "${app.credit.expiry.sweep-interval-ms:60000}")
+    public void sweep() {
+        int swept = 0;
+        while (true) {
+            Map<String, Long> deadlines = new LinkedHashMap<>();
+            jdbcTemplate.query(SELECT_OVERDUE, rs -> {
+                deadlines.put(rs.getString("reservation_id"), rs.getTimestamp("expires_on").getTime());
+            }, new Timestamp(System.currentTimeMillis()), config.getBatchSize());
+            if (deadlines.isEmpty()) {
+                break;
+            }
+            int expired = expireBatch(deadlines);
+            swept += expired;
+            if (expired == 0 || deadlines.size() < config.getBatchSize()) {
+                break;
+            }
+        }
+        if (swept > 0) {
+            logger.info("Expiry sweep picked up {} overdue reservations", swept);
+        }
+    }
+
+    /**
+     * Expire one batch in its own transaction. Rows that are no longer RESERVED are skipped; rows whose
+     * deadline moved into the future are put back on the wheel. Returns the number of holds expired.
+     */
+    private int expireBatch(Map<String, Long> deadlines) {
+        try {
+            Integer expired = transactionTemplate.execute(status -> expireInTransaction(deadlines));
+            return expired != null ? expired : 0;
+        } catch (RuntimeException e) {
+            // Retry on the next tick rather than dropping the holds
+            long retryAt = System.currentTimeMillis() + config.getTickMs();
+            deadlines.keySet().forEach(id -> wheel.schedule(id, retryAt));
+            logger.warn("Failed to expire {} reservations, retrying next tick: {}", deadlines.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    private int expireInTransaction(Map<String, Long> deadlines) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Map<String, Object>> rows = namedJdbcTemplate.queryForList(LOCK_DUE,
+                new MapSqlParameterSource("ids", deadlines.keySet()));
+
+        // Sorted, so balances are locked in account id order like every settlement path
+        Map<Long, List<CreditMutation>> byAccount = new TreeMap<>();
+        List<Object[]> statusRows = new ArrayList<>();
+        Map<String, Long> rescheduled = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            String reservationId = (String) row.get("reservation_id");
+            long expiresOn = ((Timestamp) row.get("expires_on")).getTime();
+            if (expiresOn > now.getTime()) {
+                // Extended since it was scheduled
+                rescheduled.put(reservationId, expiresOn);
+                continue;
+            }
+            Long accountId = ((Number) row.get("account_id")).longValue();
+            byAccount.computeIfAbsent(accountId, key -> new ArrayList<>())
+                    .add(CreditMutation.of(accountId, CreditOperation.EXPIRE, (BigDecimal) row.get("reserved_amount"))
+                            .reservationId(reservationId)
+                            .reference((String) row.get("reference_id"), null)
+                            .description("Reservation " + reservationId + " expired"));
+            statusRows.add(new Object[] { ReservationStatus.EXPIRED.name(), now, reservationId });
+        }
+
+        if (!statusRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(MARK_EXPIRED, statusRows);
+            for (List<CreditMutation> parts : byAccount.values()) {
+                mutationEngine.applyGrouped(parts);
+            }
+        }
+
+        AfterCommit.run(() -> {
+            rescheduled.forEach(wheel::schedule);
+            long committedAt = System.currentTimeMillis();
+            for (List<CreditMutation> parts : byAccount.values()) {
+                for (CreditMutation part : parts) {
+                    wheel.cancel(part.getReservationId());
+                    Long deadline = deadlines.get(part.getReservationId());
+                    lagTimer.record(Math.max(0, committedAt - deadline), TimeUnit.MILLISECONDS);
+                }
+            }
+            if (!statusRows.isEmpty()) {
+                batchSizeSummary.record(statusRows.size());
+                expiredCounter.increment(statusRows.size());
+            }
+        });
+
+        if (!statusRows.isEmpty()) {
+            logger.info("Expired {} reservations across {} accounts", statusRows.size(), byAccount.size());
+        }
+        return statusRows.size();
+    }
+}
@@ -0,0 +1,404 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.config.CreditEngineProperties;
+import com.code.aplusbinary.accountmanagement.exception.CreditOperationException;
+import com.code.aplusbinary.accountmanagement.exception.InsufficientCreditException;
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+import com.code.aplusbinary.accountmanagement.util.AfterCommit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Striped balance layout for hot parent accounts.
+ *
+ * A striped account keeps reservations, incoming credits and the bulk of its available balance on its
+ * user_credits row, while part of the credit it hands out to children sits in N credit_balance_stripes
+ * rows. An allocation debits one stripe (starting at a random stripe and probing the others), so N
+ * allocations from the same parent can commit in parallel instead of queueing on one row. Reads sum the
+ * stripes.
+ *
+ * The rebalancer periodically tops every stripe up to {@code app.credit.stripes.stripe-target} from the
+ * account's available balance (or hands an excess back), and folds the per-stripe allocated totals into
+ * user_credits; whatever is left stays on user_credits for reservations, refunds and other operations on
+ * the account itself. When no stripe can cover an allocation the same rebalance runs inline, topping up
+ * the stripe in use by the amount needed.
+ *
+ * Lock order: stripes are only ever locked with SKIP LOCKED by anyone holding the user_credits row, so
+ * the one blocking wait is a stripe holder waiting for user_credits, and no cycle can form. Moves
+ * between user_credits and the stripes are recorded as STRIPE_TRANSFER ledger rows; every ledger row of
+ * a striped account carries the account's total balance (user_credits plus all stripes). Striping only
+ * applies in update-in-place mode, since the append-only ledger has no hot row to begin with.
+ */
+@Service
+public class StripedBalanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripedBalanceService.class);
+
+    private static final String STRIPE_COUNTS =
+            "SELECT account_id, COUNT(*) AS stripes FROM credit_balance_stripes GROUP BY account_id";
+
+    // A stripe someone else is debiting is skipped rather than waited for
+    private static final String PROBE_STRIPE =
+            "SELECT balance FROM credit_balance_stripes WHERE account_id = ? AND stripe_no = ? FOR UPDATE SKIP LOCKED";
+
+    private static final String DEBIT_STRIPE =
+            "UPDATE credit_balance_stripes SET balance = balance - ?, allocated_to_children = allocated_to_children + ?, "
+            + "version = version + 1, modified_on = ? WHERE account_id = ? AND stripe_no = ? AND balance >= ?";
+
+    private static final String READ_ACCOUNT =
+            "SELECT current_balance, reserved_balance, version FROM user_credits WHERE account_id = ?";
+
+    private static final String LOCK_ACCOUNT = READ_ACCOUNT + " FOR UPDATE";
+
+    private static final String LOCK_FREE_STRIPES =
+            "SELECT stripe_no, balance, allocated_to_children FROM credit_balance_stripes "
+            + "WHERE account_id = ? ORDER BY stripe_no FOR UPDATE SKIP LOCKED";
+
+    private static final String LOCK_ALL_STRIPES =
+            "SELECT stripe_no, balance, allocated_to_children FROM credit_balance_stripes "
+            + "WHERE account_id = ? ORDER BY stripe_no FOR UPDATE";
+
+    private static final String SUM_STRIPES =
+            "SELECT COALESCE(SUM(balance), 0) AS balance, COALESCE(SUM(allocated_to_children), 0) AS allocated "
+            + "FROM credit_balance_stripes WHERE account_id = ?";
+
+    private static final String SET_STRIPE =
+            "UPDATE credit_balance_stripes SET balance = ?, allocated_to_children = 0, version = version + 1, "
+            + "modified_on = ? WHERE account_id = ? AND stripe_no = ?";
+
+    private static final String INSERT_STRIPE =
+            "INSERT INTO credit_balance_stripes (account_id, stripe_no, balance, allocated_to_children, version, "
+            + "created_on, modified_on) VALUES (?, ?, 0, 0, 0, ?, ?)";
+
+    private static final String DELETE_STRIPES = "DELETE FROM credit_balance_stripes WHERE account_id = ?";
+
+    // Moves credit between user_credits and the stripes; the account total is unchanged
+    private static final String SHIFT_TO_ACCOUNT =
+            "UPDATE user_credits SET current_balance = current_balance + ?, "
+            + "allocated_to_children = allocated_to_children + ?, version = version + 1, modified_on = ? "
+            + "WHERE account_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CreditMutationEngine mutationEngine;
+    private final CreditEngineProperties properties;
+    private final Map<Long, Integer> stripeCounts = new ConcurrentHashMap<>();
+    private final Counter probeCounter;
+    private final Counter inlineRebalanceCounter;
+
+    public StripedBalanceService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 CreditMutationEngine mutationEngine,
+                                 CreditEngineProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mutationEngine = mutationEngine;
+        this.properties = properties;
+        this.probeCounter = Counter.builder("credit.stripes.probes")
+                .description("Stripe debits that had to move on to another stripe")
+                .register(meterRegistry);
+        this.inlineRebalanceCounter = Counter.builder("credit.stripes.inline.rebalances")
+                .description("Allocations that had to rebalance stripes before they could be applied")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadStripedAccounts() {
+        jdbcTemplate.query(STRIPE_COUNTS, rs -> {
+            stripeCounts.put(rs.getLong("account_id"), rs.getInt("stripes"));
+        });
+        if (isUpdateInPlace()) {
+            for (Long accountId : properties.getStripes().getHotAccountIds()) {
+                if (!stripeCounts.containsKey(accountId)) {
+                    transactionTemplate.executeWithoutResult(status ->
+                            enableStriping(accountId, properties.getStripes().getStripeCount()));
+                }
+            }
+        }
+        logger.info("Striped balances active for {} accounts", stripeCounts.size());
+    }
+
+    public boolean isStriped(Long accountId) {
+        return isUpdateInPlace() && stripeCounts.containsKey(accountId);
+    }
+
+    /**
+     * Create {@code stripes} rows for an account and top them up from its available balance.
+     */
+    @Transactional
+    public void enableStriping(Long accountId, int stripes) {
+        if (stripes < 2) {
+            throw new IllegalArgumentException("A striped account needs at least 2 stripes");
+        }
+        if (stripeCounts.containsKey(accountId)) {
+            return;
+        }
+        lockAccount(accountId);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            rows.add(new Object[] { accountId, i, now, now });
+        }
+        jdbcTemplate.batchUpdate(INSERT_STRIPE, rows);
+        rebalanceLocked(accountId, -1, 0L);
+        AfterCommit.run(() -> stripeCounts.put(accountId, stripes));
+        logger.info("Enabled {} balance stripes for account {}", stripes, accountId);
+    }
+
+    /**
+     * Fold all stripes back into user_credits and drop them.
+     */
+    @Transactional
+    public void disableStriping(Long accountId) {
+        // Stripes before user_credits: a debit holding a stripe may be waiting for the account row
+        List<Map<String, Object>> stripes = jdbcTemplate.queryForList(LOCK_ALL_STRIPES, accountId);
+        long[] account = lockAccount(accountId);
+        long balance = 0L;
+        long allocated = 0L;
+        List<CreditMutation> transfers = new ArrayList<>(stripes.size());
+        for (Map<String, Object> row : stripes) {
+            long stripeBalance = CreditAmount.columnToMinor(row.get("balance"));
+            balance += stripeBalance;
+            allocated += CreditAmount.columnToMinor(row.get("allocated_to_children"));
+            if (stripeBalance > 0) {
+                transfers.add(transfer(accountId, stripeBalance, "Returned from balance stripe " + row.get("stripe_no")));
+            }
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.update(SHIFT_TO_ACCOUNT, CreditAmount.toBigDecimal(balance), CreditAmount.toBigDecimal(allocated),
+                now, accountId);
+        jdbcTemplate.update(DELETE_STRIPES, accountId);
+        if (!transfers.isEmpty()) {
+            mutationEngine.writeLedger(transfers, account[0] + balance, account[1], account[2], null, now);
+        }
+        AfterCommit.run(() -> stripeCounts.remove(accountId));
+        logger.info("Disabled balance stripes for account {}", accountId);
+    }
+
+    /**
+     * Debit a group of same-account ALLOCATE_OUT mutations from one stripe, in the caller's transaction.
+     * An account that is no longer striped is debited on user_credits like any other.
+     */
+    List<CreditMutationResult> debit(List<CreditMutation> parts) {
+        Long accountId = parts.get(0).getAccountId();
+        long total = 0L;
+        for (CreditMutation part : parts) {
+            if (part.getOperation() != CreditOperation.ALLOCATE_OUT || !part.getAccountId().equals(accountId)) {
+                throw new IllegalArgumentException("Striped debits must be same-account allocations");
+            }
+            total = CreditAmount.add(total, part.getAmountMinor());
+        }
+        Integer stripes = stripeCounts.get(accountId);
+        if (stripes == null || !isUpdateInPlace()) {
+            return mutationEngine.applyGrouped(parts);
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        BigDecimal amount = CreditAmount.toBigDecimal(total);
+
+        int first = ThreadLocalRandom.current().nextInt(stripes);
+        for (int probe = 0; probe < stripes; probe++) {
+            int stripe = (first + probe) % stripes;
+            List<BigDecimal> balance = jdbcTemplate.queryForList(PROBE_STRIPE, BigDecimal.class, accountId, stripe);
+            if (!balance.isEmpty() && CreditAmount.columnToMinor(balance.get(0)) >= total) {
+                debitStripe(accountId, stripe, amount, now);
+                return writeLedger(parts, accountId, readAccount(accountId), total, now);
+            }
+            probeCounter.increment();
+        }
+
+        // No free stripe holds enough: top one up from the account under its lock
+        inlineRebalanceCounter.increment();
+        lockAccount(accountId);
+        int stripe = rebalanceLocked(accountId, first, total);
+        if (stripe < 0) {
+            throw new InsufficientCreditException(accountId, amount, CreditAmount.toBigDecimal(availableMinor(accountId)));
+        }
+        debitStripe(accountId, stripe, amount, now);
+        return writeLedger(parts, accountId, lockAccount(accountId), total, now);
+    }
+
+    /**
+     * Available balance of a striped account: its own user_credits available plus every stripe.
+     */
+    @Transactional(readOnly = true)
+    public long availableMinor(Long accountId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT current_balance - reserved_balance AS available FROM user_credits WHERE account_id = ?",
+                accountId);
+        long own = rows.isEmpty() ? 0L : CreditAmount.columnToMinor(rows.get(0).get("available"));
+        return own + CreditAmount.columnToMinor(jdbcTemplate.queryForMap(SUM_STRIPES, accountId).get("balance"));
+    }
+
+    /**
+     * Available balance of a striped account with its user_credits row locked for the rest of the
+     * caller's transaction. Stripes are summed without locks, so a concurrent allocation can still take
+     * from them; stripe debits stay guarded.
+     */
+    public long lockAvailableMinor(Long accountId) {
+        long[] account = lockAccount(accountId);
+        return Math.max(0L, account[0] - account[1])
+                + CreditAmount.columnToMinor(jdbcTemplate.queryForMap(SUM_STRIPES, accountId).get("balance"));
+    }
+
+    @Scheduled(fixedDelayString = "${app.credit.stripes.rebalance-interval-ms:30000}")
+    public void rebalanceAll() {
+        if (!isUpdateInPlace()) {
+            return;
+        }
+        for (Long accountId : stripeCounts.keySet()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    lockAccount(accountId);
+                    rebalanceLocked(accountId, -1, 0L);
+                });
+            } catch (RuntimeException e) {
+                logger.warn("Stripe rebalance for account {} failed: {}", accountId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * With the user_credits row locked: fold the allocation totals of every stripe not in use into
+     * user_credits and bring each of those stripes to the target balance, drawing on (or handing back to)
+     * the account's available balance. When {@code need} is positive, the stripe {@code preferred} (or
+     * else the first free one) is first given {@code need} on top of the target so a pending debit fits.
+     * Returns that stripe, or -1 when there is none or the account cannot cover {@code need}.
+     */
+    private int rebalanceLocked(Long accountId, int preferred, long need) {
+        long[] account = lockAccount(accountId);
+        long available = Math.max(0L, account[0] - account[1]);
+        long stripeTotal = CreditAmount.columnToMinor(jdbcTemplate.queryForMap(SUM_STRIPES, accountId).get("balance"));
+        List<Map<String, Object>> free = jdbcTemplate.queryForList(LOCK_FREE_STRIPES, accountId);
+        if (free.isEmpty()) {
+            return -1;
+        }
+
+        int favoured = -1;
+        if (need > 0) {
+            favoured = ((Number) free.get(0).get("stripe_no")).intValue();
+            for (Map<String, Object> row : free) {
+                if (((Number) row.get("stripe_no")).intValue() == preferred) {
+                    favoured = preferred;
+                }
+            }
+        }
+        long target = CreditAmount.toMinor(properties.getStripes().getStripeTarget());
+        long pool = available;
+        long allocated = 0L;
+        for (Map<String, Object> row : free) {
+            pool += CreditAmount.columnToMinor(row.get("balance"));
+            allocated += CreditAmount.columnToMinor(row.get("allocated_to_children"));
+        }
+
+        // The favoured stripe is served first, then the others up to the target; the rest stays on the account
+        long remaining = pool;
+        long[] balances = new long[free.size()];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < free.size(); i++) {
+                boolean isFavoured = ((Number) free.get(i).get("stripe_no")).intValue() == favoured;
+                if (isFavoured == (pass == 0)) {
+                    balances[i] = Math.min(remaining, isFavoured ? need + target : target);
+                    remaining -= balances[i];
+                }
+            }
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> updates = new ArrayList<>(free.size());
+        List<CreditMutation> transfers = new ArrayList<>();
+        int result = -1;
+        for (int i = 0; i < free.size(); i++) {
+            Map<String, Object> row = free.get(i);
+            int stripe = ((Number) row.get("stripe_no")).intValue();
+            long moved = balances[i] - CreditAmount.columnToMinor(row.get("balance"));
+            if (moved != 0 || CreditAmount.columnToMinor(row.get("allocated_to_children")) != 0) {
+                updates.add(new Object[] { CreditAmount.toBigDecimal(balances[i]), now, accountId, stripe });
+            }
+            if (moved > 0) {
+                transfers.add(transfer(accountId, moved, "Moved to balance stripe " + stripe));
+            } else if (moved < 0) {
+                transfers.add(transfer(accountId, -moved, "Returned from balance stripe " + stripe));
+            }
+            if (stripe == favoured && balances[i] >= need) {
+                result = stripe;
+            }
+        }
+        if (updates.isEmpty()) {
+            return result;
+        }
+        jdbcTemplate.update(SHIFT_TO_ACCOUNT, CreditAmount.toBigDecimal(remaining - available),
+                CreditAmount.toBigDecimal(allocated), now, accountId);
+        jdbcTemplate.batchUpdate(SET_STRIPE, updates);
+        if (!transfers.isEmpty()) {
+            mutationEngine.writeLedger(transfers, account[0] + stripeTotal, account[1], account[2], null, now);
+        }
+        return result;
+    }
+
+    private void debitStripe(Long accountId, int stripe, BigDecimal amount, Timestamp now) {
+        if (jdbcTemplate.update(DEBIT_STRIPE, amount, amount, now, accountId, stripe, amount) != 1) {
+            throw new CreditOperationException(accountId, "Stripe " + stripe + " of account " + accountId
+                    + " could not be debited");
+        }
+    }
+
+    /**
+     * Ledger rows for a stripe debit, with the account's total balance (user_credits plus every stripe,
+     * our own debit included) and its real reserved balance.
+     */
+    private List<CreditMutationResult> writeLedger(List<CreditMutation> parts, Long accountId, long[] account,
+                                                   long total, Timestamp now) {
+        long stripes = CreditAmount.columnToMinor(jdbcTemplate.queryForMap(SUM_STRIPES, accountId).get("balance"));
+        long after = account[0] + stripes;
+        return mutationEngine.writeLedger(parts, after + total, account[1], account[2], null, now);
+    }
+
+    private static CreditMutation transfer(Long accountId, long amount, String description) {
+        return CreditMutation.ofMinor(accountId, CreditOperation.STRIPE_TRANSFER, amount)
+                .reference(null, "STRIPE")
+                .description(description);
+    }
+
+    // current_balance, reserved_balance and version of the account's user_credits row
+    private long[] readAccount(Long accountId) {
+        return account(accountId, jdbcTemplate.queryForList(READ_ACCOUNT, accountId));
+    }
+
+    private long[] lockAccount(Long accountId) {
+        return account(accountId, jdbcTemplate.queryForList(LOCK_ACCOUNT, accountId));
+    }
+
+    private static long[] account(Long accountId, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            throw new CreditOperationException(accountId, "No credit record exists for account " + accountId);
+        }
+        Map<String, Object> row = rows.get(0);
+        return new long[] { CreditAmount.columnToMinor(row.get("current_balance")),
+                CreditAmount.columnToMinor(row.get("reserved_balance")), ((Number) row.get("version")).longValue() };
+    }
+
+    private boolean isUpdateInPlace() {
+        return properties.getLedger().getMode() == CreditEngineProperties.LedgerMode.UPDATE_IN_PLACE;
+    }
+}
@@ -0,0 +1,68 @@
+package com.code.aplusbinary.accountmanagement.service.credit;
+
+import com.code.aplusbinary.accountmanagement.model.credit.CreditAmount;
+
+import java.math.BigDecimal;
+
+/**
+ * Credit totals over an account and everything below it, in {@link CreditAmount} minor units.
+ */
+public class SubtreeCreditSummary {
+
+    private final Long rootAccountId;
+    private final int accountCount;
+    private final long currentBalance;
+    private final long reservedBalance;
+    private final long totalPurchased;
+    private final long totalConsumed;
+
+    public SubtreeCreditSummary(Long rootAccountId, int accountCount, long currentBalance, long reservedBalance,
+                                long totalPurchased, long totalConsumed) {
+        this.rootAccountId = rootAccountId;
+        this.accountCount = accountCount;
+        this.currentBalance = currentBalance;
+        this.reservedBalance = reservedBalance;
+        this.totalPurchased = totalPurchased;
+        this.totalConsumed = totalConsumed;
+    }
+
+    public Long getRootAccountId() {
+        return rootAccountId;
+    }
+
+    public int getAccountCount() {
+        return accountCount;
+    }
+
+    public BigDecimal getCurrentBalance() {
+        return CreditAmount.toBigDecimal(currentBalance);
+    }
+
+    public long getCurrentBalanceMinor() {
+        return currentBalance;
+    }
+
+    public BigDecimal getReservedBalance() {
+        return CreditAmount.toBigDecimal(reservedBalance);
+    }
+
+    public long getReservedBalanceMinor() {
+        return reservedBalance;
+    }
+
+    public BigDecimal getTotalPurchased() {
+        return CreditAmount.toBigDecimal(totalPurchased);
+    }
+
+    public long getTotalPurchasedMinor() {
+        return totalPurchased;
+    }
+
+    public BigDecimal getTotalConsumed() {
+        return CreditAmount.toBigDecimal(totalConsumed);
+    }
+
+    public long getTotalConsumedMinor() {
+        return totalConsumed;
+    }
+}
@@ -0,0 +1,70 @@
+package com.code.aplusbinary.accountmanagement.util;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Who an authenticated credit request comes from: the admin account of the JWT principal (its adminId
+ * claim) and the roles of the token. The principal is read through its adminId bean property, so this
+ * does not depend on the user details class of the service it runs in.
+ */
+public final class CreditCaller {
+
+    // Internal services (the doc service's lease keeper and background settlement) act for any account
+    public static final String SERVICE_ROLE = "CREDIT_SERVICE";
+    public static final String ADMIN_ROLE = "CREDIT_ADMIN";
+
+    private final Long accountId;
+    private final Set<String> roles;
+
+    private CreditCaller(Long accountId, Set<String> roles) {
+        this.accountId = accountId;
+        this.roles = roles;
+    }
+
+    public static CreditCaller current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() != null) {
+            BeanWrapper principal = PropertyAccessorFactory.forBeanPropertyAccess(authentication.getPrincipal());
+            Object adminId = principal.isReadableProperty("adminId") ? principal.getPropertyValue("adminId") : null;
+            if (adminId instanceof Number id) {
+                Set<String> roles = new HashSet<>();
+                for (GrantedAuthority authority : authentication.getAuthorities()) {
+                    String name = authority.getAuthority();
+                    if (name != null) {
+                        roles.add(name.startsWith("ROLE_") ? name.substring(5) : name);
+                    }
+                }
+                return new CreditCaller(id.longValue(), roles);
+            }
+        }
+        throw new AccessDeniedException("Request is not authenticated for a credit account");
+    }
+
+    public static Long accountId() {
+        return current().getAccountId();
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    public boolean isService() {
+        return hasRole(SERVICE_ROLE);
+    }
+
+    public boolean isAdmin() {
+        return hasRole(ADMIN_ROLE);
+    }
+}
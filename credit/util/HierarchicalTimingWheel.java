@@ -0,0 +1,221 @@
+package com.code.aplusbinary.accountmanagement.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel for keyed deadlines (Varghese &amp; Lauck style).
+ *
+ * Level 0 has {@code wheelSize} slots of one tick each; every higher level has the same number of
+ * slots, each covering a full rotation of the level below. Entries are filed by how far away their
+ * deadline is and cascade down a level each time the lower wheel wraps, so schedule and cancel are
+ * O(1) and advancing costs O(expired + cascaded) per tick, independent of how many deadlines are
+ * pending. Deadlines beyond the top level wait in an overflow list that is re-filed on each
+ * top-level rotation.
+ *
+ * Not lock-free: all public methods synchronize on the wheel, which is cheap next to the database
+ * work done per expiry.
+ */
+public class HierarchicalTimingWheel<K> {
+
+    public static final class Expired<K> {
+        private final K key;
+        private final long deadlineMillis;
+
+        Expired(K key, long deadlineMillis) {
+            this.key = key;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+    }
+
+    private static final class Entry<K> {
+        final K key;
+        final long deadlineMillis;
+        final long deadlineTick;
+        boolean cancelled;
+
+        Entry(K key, long deadlineMillis, long deadlineTick) {
+            this.key = key;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final List<List<Entry<K>>> slots;
+    private final List<Entry<K>> overdue = new ArrayList<>();
+    private final List<Entry<K>> overflow = new ArrayList<>();
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * @param tickMillis resolution of the wheel
+     * @param wheelSize  slots per level, rounded up to a power of two
+     * @param levels     number of levels; span is tickMillis * wheelSize^levels
+     * @param nowMillis  wall-clock time the wheel starts at
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long nowMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel geometry");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.slots = new ArrayList<>(levels << bits);
+        for (int i = 0; i < (levels << bits); i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedule (or reschedule) a key. A deadline at or before the current tick fires on the next advance.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        Entry<K> previous = entries.remove(key);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        Entry<K> entry = new Entry<>(key, deadlineMillis, ceilDiv(deadlineMillis, tickMillis));
+        entries.put(key, entry);
+        file(entry);
+    }
+
+    public synchronized boolean cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.cancelled = true;
+        return true;
+    }
+
+    public synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Move the wheel forward to {@code nowMillis} and return every entry whose deadline has passed,
+     * in deadline-tick order. At most {@code limit} entries are returned; when the limit is hit the
+     * wheel stops at the current tick and the remainder is returned by the next call.
+     */
+    public synchronized List<Expired<K>> advance(long nowMillis, int limit) {
+        List<Expired<K>> expired = new ArrayList<>();
+        drain(overdue, expired, limit);
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick && expired.size() < limit) {
+            currentTick++;
+            cascade();
+            List<Entry<K>> bucket = slots.get((int) (currentTick & mask));
+            if (!bucket.isEmpty()) {
+                List<Entry<K>> due = new ArrayList<>(bucket);
+                bucket.clear();
+                for (Entry<K> entry : due) {
+                    if (entry.cancelled) {
+                        continue;
+                    }
+                    if (entry.deadlineTick <= currentTick) {
+                        overdue.add(entry);
+                    } else {
+                        file(entry);
+                    }
+                }
+            }
+            // cascade() may have moved due entries to overdue even when this tick's bucket is empty
+            drain(overdue, expired, limit);
+        }
+        return expired;
+    }
+
+    private void drain(List<Entry<K>> source, List<Expired<K>> sink, int limit) {
+        int taken = 0;
+        for (Entry<K> entry : source) {
+            if (sink.size() >= limit) {
+                break;
+            }
+            taken++;
+            if (entry.cancelled) {
+                continue;
+            }
+            entries.remove(entry.key);
+            sink.add(new Expired<>(entry.key, entry.deadlineMillis));
+        }
+        source.subList(0, taken).clear();
+    }
+
+    /**
+     * When a lower wheel wraps, pull the matching slot of the level above down into finer slots.
+     * Higher levels are cascaded first so their entries can continue falling on the same tick.
+     */
+    private void cascade() {
+        int wrappedLevels = 0;
+        for (int level = 1; level <= levels; level++) {
+            if (((currentTick >> (bits * level - bits)) & mask) != 0) {
+                break;
+            }
+            wrappedLevels = level;
+        }
+        for (int level = Math.min(wrappedLevels, levels - 1); level >= 1; level--) {
+            List<Entry<K>> bucket = slots.get((level << bits) + (int) ((currentTick >> (bits * level)) & mask));
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            List<Entry<K>> moving = new ArrayList<>(bucket);
+            bucket.clear();
+            for (Entry<K> entry : moving) {
+                if (!entry.cancelled) {
+                    file(entry);
+                }
+            }
+        }
+        if (wrappedLevels >= levels && !overflow.isEmpty()) {
+            List<Entry<K>> moving = new ArrayList<>(overflow);
+            overflow.clear();
+            for (Entry<K> entry : moving) {
+                if (!entry.cancelled) {
+                    file(entry);
+                }
+            }
+        }
+    }
+
+    private void file(Entry<K> entry) {
+        long delta = entry.deadlineTick - currentTick;
+        if (delta <= 0) {
+            overdue.add(entry);
+            return;
+        }
+        // Lowest level whose slot for this deadline comes round before (or exactly at) the deadline
+        for (int level = 0; level < levels; level++) {
+            int shift = bits * level;
+            if ((entry.deadlineTick >> shift) - (currentTick >> shift) <= (1L << bits)) {
+                int slot = (int) ((entry.deadlineTick >> shift) & mask);
+                slots.get((level << bits) + slot).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+}
@@ -0,0 +1,14 @@
+package com.code.aplusbinary.accountmanagement.util;
+
+/**
+ * Source of unique string keys for credit rows (transactions, reservations, allocations, purchases).
+ * The default implementation is {@link MonotonicIdGenerator}; register another bean to replace it.
+ */
+public interface IdGenerator {
+
+    String nextId();
+
+    default String nextId(String prefix) {
+        return prefix + nextId();
+    }
+}
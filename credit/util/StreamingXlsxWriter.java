@@ -0,0 +1,163 @@
+package com.code.aplusbinary.accountmanagement.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Minimal streaming .xlsx writer: rows go straight into the zipped sheet XML as inline strings and
+ * numbers, so memory does not grow with the row count. When a sheet reaches Excel's row limit a new
+ * sheet is started with the same header. The workbook parts that list the sheets are written on close.
+ *
+ * Only what a data export needs: no styles beyond the default, no formulas, no shared strings.
+ */
+public class StreamingXlsxWriter implements Closeable {
+
+    private static final int MAX_ROWS_PER_SHEET = 1_048_576;
+
+    private final ZipOutputStream zip;
+    private final Writer xml;
+    private final List<String> header;
+    private int sheets;
+    private int rowsInSheet;
+    private boolean entryOpen;
+    private boolean closed;
+
+    public StreamingXlsxWriter(OutputStream out, List<String> header) throws IOException {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.xml = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        this.header = List.copyOf(header);
+        startSheet();
+    }
+
+    /**
+     * Append one row. Numbers are written as numeric cells, everything else as text; null leaves the
+     * cell empty.
+     */
+    public void row(Object... cells) throws IOException {
+        if (rowsInSheet >= MAX_ROWS_PER_SHEET) {
+            endSheet();
+            startSheet();
+        }
+        writeRow(cells);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        endSheet();
+
+        entry("[Content_Types].xml");
+        xml.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" "
+                + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+        for (int i = 1; i <= sheets; i++) {
+            xml.write("<Override PartName=\"/xl/worksheets/sheet" + i + ".xml\" "
+                    + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        xml.write("</Types>");
+
+        entry("_rels/.rels");
+        xml.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" "
+                + "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" "
+                + "Target=\"xl/workbook.xml\"/></Relationships>");
+
+        entry("xl/workbook.xml");
+        xml.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        for (int i = 1; i <= sheets; i++) {
+            xml.write("<sheet name=\"Sheet" + i + "\" sheetId=\"" + i + "\" r:id=\"rId" + i + "\"/>");
+        }
+        xml.write("</sheets></workbook>");
+
+        entry("xl/_rels/workbook.xml.rels");
+        xml.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheets; i++) {
+            xml.write("<Relationship Id=\"rId" + i + "\" "
+                    + "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" "
+                    + "Target=\"worksheets/sheet" + i + ".xml\"/>");
+        }
+        xml.write("</Relationships>");
+
+        xml.flush();
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private void startSheet() throws IOException {
+        sheets++;
+        rowsInSheet = 0;
+        entry("xl/worksheets/sheet" + sheets + ".xml");
+        xml.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+        writeRow(header.toArray());
+    }
+
+    private void endSheet() throws IOException {
+        xml.write("</sheetData></worksheet>");
+    }
+
+    private void entry(String name) throws IOException {
+        xml.flush();
+        if (entryOpen) {
+            zip.closeEntry();
+        }
+        zip.putNextEntry(new ZipEntry(name));
+        entryOpen = true;
+    }
+
+    private void writeRow(Object[] cells) throws IOException {
+        rowsInSheet++;
+        xml.write("<row>");
+        for (Object cell : cells) {
+            if (cell == null) {
+                xml.write("<c/>");
+            } else if (cell instanceof Number) {
+                xml.write("<c><v>");
+                xml.write(cell instanceof BigDecimal decimal ? decimal.toPlainString() : cell.toString());
+                xml.write("</v></c>");
+            } else {
+                xml.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                escape(cell.toString());
+                xml.write("</t></is></c>");
+            }
+        }
+        xml.write("</row>");
+    }
+
+    private void escape(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> xml.write("&lt;");
+                case '>' -> xml.write("&gt;");
+                case '&' -> xml.write("&amp;");
+                case '"' -> xml.write("&quot;");
+                default -> {
+                    // Control characters other than tab and newlines are not allowed in XML 1.0
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        xml.write(c);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.code.aplusbinary.accountmanagement.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * 128-bit time-ordered identifier: 48 bits of Unix epoch millis, 16 bits of node id and a 64-bit
+ * per-node sequence. The canonical text form is 26 Crockford base32 characters (ULID layout), so
+ * string order, binary order and creation order agree and a key can be range-scanned by time.
+ */
+public final class TimeOrderedId implements Comparable<TimeOrderedId>, Serializable {
+
+    public static final int TEXT_LENGTH = 26;
+    public static final int BINARY_LENGTH = 16;
+
+    private static final long serialVersionUID = 1L;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+        }
+        // Crockford aliases
+        DECODE['O'] = DECODE['o'] = 0;
+        DECODE['I'] = DECODE['i'] = DECODE['L'] = DECODE['l'] = 1;
+    }
+
+    private final long mostSignificantBits;
+    private final long leastSignificantBits;
+
+    public TimeOrderedId(long mostSignificantBits, long leastSignificantBits) {
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+    }
+
+    public static TimeOrderedId of(long timestampMillis, int nodeId, long sequence) {
+        return new TimeOrderedId((timestampMillis << 16) | (nodeId & 0xFFFFL), sequence);
+    }
+
+    /**
+     * Parse the 26-character text form. A key prefix such as {@code "TXN-"} is ignored.
+     */
+    public static TimeOrderedId parse(String text) {
+        if (text == null || text.length() < TEXT_LENGTH) {
+            throw new IllegalArgumentException("Not a time-ordered id: " + text);
+        }
+        int offset = text.length() - TEXT_LENGTH;
+        if (offset > 0 && text.charAt(offset - 1) != '-') {
+            throw new IllegalArgumentException("Not a time-ordered id: " + text);
+        }
+        // 26 chars * 5 bits = 130 bits; the first char only carries the top 3 bits
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < TEXT_LENGTH; i++) {
+            char c = text.charAt(offset + i);
+            int value = c < 128 ? DECODE[c] : -1;
+            if (value < 0 || (i == 0 && value > 7)) {
+                throw new IllegalArgumentException("Not a time-ordered id: " + text);
+            }
+            msb = (msb << 5) | (lsb >>> 59);
+            lsb = (lsb << 5) | value;
+        }
+        return new TimeOrderedId(msb, lsb);
+    }
+
+    public static TimeOrderedId fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != BINARY_LENGTH) {
+            throw new IllegalArgumentException("Time-ordered id must be " + BINARY_LENGTH + " bytes");
+        }
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (bytes[i] & 0xFF);
+            lsb = (lsb << 8) | (bytes[i + 8] & 0xFF);
+        }
+        return new TimeOrderedId(msb, lsb);
+    }
+
+    /**
+     * Big-endian 16-byte form for binary(16) columns; byte order matches time order.
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[BINARY_LENGTH];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) (mostSignificantBits >>> (8 * (7 - i)));
+            bytes[i + 8] = (byte) (leastSignificantBits >>> (8 * (7 - i)));
+        }
+        return bytes;
+    }
+
+    public long getTimestampMillis() {
+        return mostSignificantBits >>> 16;
+    }
+
+    public int getNodeId() {
+        return (int) (mostSignificantBits & 0xFFFFL);
+    }
+
+    public long getSequence() {
+        return leastSignificantBits;
+    }
+
+    public long getMostSignificantBits() {
+        return mostSignificantBits;
+    }
+
+    public long getLeastSignificantBits() {
+        return leastSignificantBits;
+    }
+
+    @Override
+    public int compareTo(TimeOrderedId other) {
+        int cmp = Long.compareUnsigned(mostSignificantBits, other.mostSignificantBits);
+        return cmp != 0 ? cmp : Long.compareUnsigned(leastSignificantBits, other.leastSignificantBits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof TimeOrderedId other
+                && mostSignificantBits == other.mostSignificantBits
+                && leastSignificantBits == other.leastSignificantBits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(mostSignificantBits) * 31 + Long.hashCode(leastSignificantBits);
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[TEXT_LENGTH];
+        long msb = mostSignificantBits;
+        long lsb = leastSignificantBits;
+        for (int i = TEXT_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (lsb & 31)];
+            lsb = (lsb >>> 5) | (msb << 59);
+            msb >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,22 @@
+package com.code.aplusbinary.accountmanagement.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link TimeOrderedId} in a binary(16) column: 16 bytes instead of a varchar key, and
+ * byte order equals time order so the key doubles as a time index.
+ */
+@Converter
+public class TimeOrderedIdBinaryConverter implements AttributeConverter<TimeOrderedId, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(TimeOrderedId attribute) {
+        return attribute == null ? null : attribute.toBytes();
+    }
+
+    @Override
+    public TimeOrderedId convertToEntityAttribute(byte[] dbData) {
+        return dbData == null ? null : TimeOrderedId.fromBytes(dbData);
+    }
+}
@@ -0,0 +1,146 @@
+package com.aplusbinary.binarypixor.doc.client;
+
+import com.aplusbinary.binarypixor.doc.config.CreditRpcConfig;
+import com.aplusbinary.binarypixor.doc.dto.CreditBatchActionRequest;
+import com.aplusbinary.binarypixor.doc.dto.CreditBatchExtendRequest;
+import com.aplusbinary.binarypixor.doc.dto.CreditBatchReservationRequest;
+import com.aplusbinary.binarypixor.doc.dto.CreditBatchReservationResponse;
+import com.aplusbinary.binarypixor.doc.dto.CreditLeaseRequest;
+import com.aplusbinary.binarypixor.doc.dto.CreditLeaseResponse;
+import com.aplusbinary.binarypixor.doc.dto.CreditLeaseSettleRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Batch credit reservation calls against account-management. One call covers every file in an
+ * upload batch, so reserve / confirm / release cost one round trip each regardless of batch size.
+ * The lease calls serve {@code CreditBudgetLeaseManager}, which takes reservations off the per-document path.
+ * With app.accountmanagement.rpc.enabled the same calls go over the binary {@link CreditRpcClient} instead.
+ */
+@Component
+public class AccountManagementCreditClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountManagementCreditClient.class);
+
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int TRANSPORT_RETRIES = 2;
+
+    private final WebClient webClient;
+    private final CreditRpcClient rpcClient;
+    private final boolean useRpc;
+
+    public AccountManagementCreditClient(@Value("${app.accountmanagement.base-url}") String baseUrl,
+                                         CreditRpcClient rpcClient,
+                                         CreditRpcConfig rpcConfig) {
+        this.webClient = WebClient.builder()
+                .baseUrl(baseUrl)
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+        this.rpcClient = rpcClient;
+        this.useRpc = rpcConfig.isEnabled();
+        logger.info("Account management credit client initialized with base URL: {} ({})", baseUrl,
+                useRpc ? "binary RPC" : "JSON");
+    }
+
+    public CreditBatchReservationResponse reserveBatch(CreditBatchReservationRequest request, String authToken) throws Exception {
+        logger.info("Reserving {} credit holds for account {} ({})",
+                request.getItems().size(), request.getAccountId(), request.getMode());
+        if (useRpc) {
+            return rpcClient.reserveBatch(request, authToken);
+        }
+        return post("/credits/reservations/batch", request, authToken);
+    }
+
+    public CreditBatchReservationResponse confirmBatch(List<String> reservationIds, String authToken) throws Exception {
+        logger.info("Confirming {} credit reservations", reservationIds.size());
+        if (useRpc) {
+            return rpcClient.confirmBatch(reservationIds, authToken);
+        }
+        return post("/credits/reservations/batch/confirm", new CreditBatchActionRequest(reservationIds), authToken);
+    }
+
+    public CreditBatchReservationResponse releaseBatch(List<String> reservationIds, String authToken) throws Exception {
+        logger.info("Releasing {} credit reservations", reservationIds.size());
+        if (useRpc) {
+            return rpcClient.releaseBatch(reservationIds, authToken);
+        }
+        return post("/credits/reservations/batch/release", new CreditBatchActionRequest(reservationIds), authToken);
+    }
+
+    public CreditBatchReservationResponse extendBatch(List<String> reservationIds, long ttlSeconds, String authToken) throws Exception {
+        logger.debug("Extending {} credit reservations by {}s", reservationIds.size(), ttlSeconds);
+        if (useRpc) {
+            return rpcClient.extendBatch(reservationIds, ttlSeconds, authToken);
+        }
+        return post("/credits/reservations/batch/extend", new CreditBatchExtendRequest(reservationIds, ttlSeconds), authToken);
+    }
+
+    public CreditLeaseResponse grantLease(CreditLeaseRequest request, String authToken) throws Exception {
+        logger.debug("Requesting a credit lease of {} for account {}", request.getAmount(), request.getAccountId());
+        if (useRpc) {
+            return rpcClient.grantLease(request, authToken);
+        }
+        return post("/credits/reservations/leases", request, authToken, CreditLeaseResponse.class);
+    }
+
+    public CreditLeaseResponse settleLease(CreditLeaseSettleRequest request, String authToken) throws Exception {
+        logger.debug("Settling credit lease {} at {} consumed (release={})",
+                request.getReservationId(), request.getConsumedTotal(), request.isRelease());
+        if (useRpc) {
+            return rpcClient.settleLease(request, authToken);
+        }
+        return post("/credits/reservations/leases/settle", request, authToken, CreditLeaseResponse.class);
+    }
+
+    private CreditBatchReservationResponse post(String path, Object body, String authToken) throws Exception {
+        return post(path, body, authToken, CreditBatchReservationResponse.class);
+    }
+
+    /**
+     * Every call carries a fresh Idempotency-Key that its own retries reuse, so a retry after a lost
+     * response is answered from account-management's stored result instead of being applied twice.
+     */
+    private <T> T post(String path, Object body, String authToken, Class<T> responseType) throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+        try {
+            return webClient.post()
+                    .uri(path)
+                    .headers(headers -> {
+                        applyAuth(headers, authToken);
+                        headers.set(IDEMPOTENCY_KEY, idempotencyKey);
+                    })
+                    .bodyValue(body)
+                    .retrieve()
+                    .bodyToMono(responseType)
+                    .retryWhen(Retry.backoff(TRANSPORT_RETRIES, Duration.ofMillis(200))
+                            .filter(WebClientRequestException.class::isInstance))
+                    .block();
+        } catch (WebClientResponseException e) {
+            int statusCode = e.getStatusCode().value();
+            String responseBody = e.getResponseBodyAsString();
+            if (statusCode == 402) {
+                throw new Exception("Insufficient credits: " + responseBody);
+            }
+            throw new Exception("Account management error (" + statusCode + ") on " + path + ": " + responseBody);
+        }
+    }
+
+    private static void applyAuth(HttpHeaders headers, String authToken) {
+        if (authToken == null || authToken.isBlank()) {
+            return;
+        }
+        headers.set(HttpHeaders.AUTHORIZATION, authToken.startsWith("Bearer ") ? authToken : "Bearer " + authToken);
+    }
+}
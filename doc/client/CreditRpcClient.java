@@ -0,0 +1,251 @@
+package com.aplusbinary.binarypixor.doc.client;
+
+import com.aplusbinary.binarypixor.doc.dto.CreditBatchReservationRequest;
+import com.aplusbinary.binarypixor.doc.dto.CreditBatchReservationResponse;
+import com.aplusbinary.binarypixor.doc.dto.CreditLeaseRequest;
+import com.aplusbinary.binarypixor.doc.dto.CreditLeaseResponse;
+import com.aplusbinary.binarypixor.doc.dto.CreditLeaseSettleRequest;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Client for account-management's binary credit RPC. Calls can be pipelined: queue several on a
+ * {@link Pipeline} and {@link Pipeline#send()} ships them in one frame, with their results coming back
+ * in order in one response. Independent pipelines may be in flight at the same time; the HTTP
+ * transport multiplexes them over its pooled HTTP/2 connections.
+ */
+@Component
+public class CreditRpcClient {
+
+    private final CreditRpcTransport transport;
+
+    public CreditRpcClient(CreditRpcTransport transport) {
+        this.transport = transport;
+    }
+
+    public Pipeline pipeline(String authToken) {
+        return new Pipeline(authToken);
+    }
+
+    public CreditBatchReservationResponse reserveBatch(CreditBatchReservationRequest request, String authToken) throws Exception {
+        Pipeline pipeline = pipeline(authToken);
+        CompletableFuture<CreditBatchReservationResponse> result = pipeline.reserveBatch(request);
+        return await(pipeline.send().thenCompose(done -> result));
+    }
+
+    public CreditBatchReservationResponse confirmBatch(List<String> reservationIds, String authToken) throws Exception {
+        Pipeline pipeline = pipeline(authToken);
+        CompletableFuture<CreditBatchReservationResponse> result = pipeline.confirmBatch(reservationIds);
+        return await(pipeline.send().thenCompose(done -> result));
+    }
+
+    public CreditBatchReservationResponse releaseBatch(List<String> reservationIds, String authToken) throws Exception {
+        Pipeline pipeline = pipeline(authToken);
+        CompletableFuture<CreditBatchReservationResponse> result = pipeline.releaseBatch(reservationIds);
+        return await(pipeline.send().thenCompose(done -> result));
+    }
+
+    public CreditBatchReservationResponse extendBatch(List<String> reservationIds, long ttlSeconds, String authToken) throws Exception {
+        Pipeline pipeline = pipeline(authToken);
+        CompletableFuture<CreditBatchReservationResponse> result = pipeline.extendBatch(reservationIds, ttlSeconds);
+        return await(pipeline.send().thenCompose(done -> result));
+    }
+
+    public CreditLeaseResponse grantLease(CreditLeaseRequest request, String authToken) throws Exception {
+        Pipeline pipeline = pipeline(authToken);
+        CompletableFuture<CreditLeaseResponse> result = pipeline.grantLease(request);
+        return await(pipeline.send().thenCompose(done -> result));
+    }
+
+    public CreditLeaseResponse settleLease(CreditLeaseSettleRequest request, String authToken) throws Exception {
+        Pipeline pipeline = pipeline(authToken);
+        CompletableFuture<CreditLeaseResponse> result = pipeline.settleLease(request);
+        return await(pipeline.send().thenCompose(done -> result));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Calls queued for one frame. Each call gets its own idempotency key, which a transport retry of
+     * the frame reuses. Not thread-safe; build a pipeline on one thread and send it once.
+     */
+    public final class Pipeline {
+
+        private final String authToken;
+        private final List<Call<?>> calls = new ArrayList<>();
+        private boolean sent;
+
+        private Pipeline(String authToken) {
+            this.authToken = authToken;
+        }
+
+        public CompletableFuture<CreditBatchReservationResponse> reserveBatch(CreditBatchReservationRequest request) {
+            return add(CreditRpcCodec.RESERVE, out -> {
+                out.nullableLong(request.getAccountId());
+                CreditRpcCodec.writeMode(out, request.getMode());
+                out.nullableLong(request.getTtlSeconds());
+                out.varint(request.getItems().size());
+                for (CreditBatchReservationRequest.Item item : request.getItems()) {
+                    out.amount(item.getAmount());
+                    out.string(item.getReferenceId());
+                    out.string(item.getReferenceType());
+                    out.string(item.getNotes());
+                }
+            }, CreditRpcCodec::readBatchResponse);
+        }
+
+        public CompletableFuture<CreditBatchReservationResponse> confirmBatch(List<String> reservationIds) {
+            return add(CreditRpcCodec.CONFIRM, out -> {
+                CreditRpcCodec.writeMode(out, CreditBatchReservationRequest.Mode.BEST_EFFORT);
+                out.strings(reservationIds);
+            }, CreditRpcCodec::readBatchResponse);
+        }
+
+        public CompletableFuture<CreditBatchReservationResponse> releaseBatch(List<String> reservationIds) {
+            return add(CreditRpcCodec.RELEASE, out -> {
+                CreditRpcCodec.writeMode(out, CreditBatchReservationRequest.Mode.BEST_EFFORT);
+                out.strings(reservationIds);
+            }, CreditRpcCodec::readBatchResponse);
+        }
+
+        public CompletableFuture<CreditBatchReservationResponse> extendBatch(List<String> reservationIds, long ttlSeconds) {
+            return add(CreditRpcCodec.EXTEND, out -> {
+                out.nullableLong(ttlSeconds);
+                out.strings(reservationIds);
+            }, CreditRpcCodec::readBatchResponse);
+        }
+
+        public CompletableFuture<CreditLeaseResponse> grantLease(CreditLeaseRequest request) {
+            return add(CreditRpcCodec.LEASE_GRANT, out -> {
+                out.nullableLong(request.getAccountId());
+                out.amount(request.getAmount());
+                out.amount(request.getMinAmount());
+                out.nullableLong(request.getTtlSeconds());
+                out.string(request.getReferenceId());
+            }, CreditRpcCodec::readLeaseResponse);
+        }
+
+        public CompletableFuture<CreditLeaseResponse> settleLease(CreditLeaseSettleRequest request) {
+            return add(CreditRpcCodec.LEASE_SETTLE, out -> {
+                out.string(request.getReservationId());
+                out.amount(request.getConsumedTotal() != null ? request.getConsumedTotal() : BigDecimal.ZERO);
+                out.bool(request.isRelease());
+                out.nullableLong(request.getTtlSeconds());
+            }, CreditRpcCodec::readLeaseResponse);
+        }
+
+        /**
+         * Ship every queued call in one frame. The returned future completes once all call futures have
+         * been completed; a transport failure fails every call of the frame.
+         */
+        public CompletableFuture<Void> send() {
+            if (sent) {
+                throw new IllegalStateException("Credit RPC pipeline already sent");
+            }
+            sent = true;
+            if (calls.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CreditRpcCodec.Writer out = new CreditRpcCodec.Writer(64 * calls.size());
+            out.header(calls.size());
+            for (int i = 0; i < calls.size(); i++) {
+                Call<?> call = calls.get(i);
+                out.varint(i);
+                out.varint(call.method);
+                out.string(call.idempotencyKey);
+                call.payload.accept(out);
+            }
+            return transport.exchange(out.toByteArray(), authToken).handle((frame, failure) -> {
+                if (failure != null) {
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause() : failure;
+                    calls.forEach(call -> call.result.completeExceptionally(cause));
+                } else {
+                    complete(frame);
+                }
+                return null;
+            });
+        }
+
+        private void complete(byte[] frame) {
+            try {
+                CreditRpcCodec.Reader in = new CreditRpcCodec.Reader(frame);
+                int count = in.header();
+                for (int i = 0; i < count; i++) {
+                    int callId = in.varint();
+                    if (callId >= calls.size()) {
+                        throw new IllegalArgumentException("Credit RPC result for unknown call " + callId);
+                    }
+                    calls.get(callId).read(in, in.varint());
+                }
+            } catch (RuntimeException e) {
+                calls.forEach(call -> call.result.completeExceptionally(e));
+            }
+            calls.forEach(call -> call.result.completeExceptionally(
+                    new IllegalStateException("Credit RPC response carried no result for the call")));
+        }
+
+        private <T> CompletableFuture<T> add(int method, Consumer<CreditRpcCodec.Writer> payload,
+                                             Function<CreditRpcCodec.Reader, T> reader) {
+            if (sent) {
+                throw new IllegalStateException("Credit RPC pipeline already sent");
+            }
+            Call<T> call = new Call<>(method, UUID.randomUUID().toString(), payload, reader);
+            calls.add(call);
+            return call.result;
+        }
+    }
+
+    private static final class Call<T> {
+        final int method;
+        final String idempotencyKey;
+        final Consumer<CreditRpcCodec.Writer> payload;
+        final Function<CreditRpcCodec.Reader, T> reader;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Call(int method, String idempotencyKey, Consumer<CreditRpcCodec.Writer> payload,
+             Function<CreditRpcCodec.Reader, T> reader) {
+            this.method = method;
+            this.idempotencyKey = idempotencyKey;
+            this.payload = payload;
+            this.reader = reader;
+        }
+
+        void read(CreditRpcCodec.Reader in, int status) {
+            if (status == 200) {
+                result.complete(reader.apply(in));
+                return;
+            }
+            String message = in.string();
+            if (status == 402) {
+                BigDecimal requested = in.amount();
+                BigDecimal available = in.amount();
+                result.completeExceptionally(new CreditRpcException(status, "Insufficient credits: " + message
+                        + " (requested " + requested + ", available " + available + ")"));
+                return;
+            }
+            result.completeExceptionally(new CreditRpcException(status,
+                    "Account management error (" + status + ") on credit RPC: " + message));
+        }
+    }
+}
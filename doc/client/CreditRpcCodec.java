@@ -0,0 +1,286 @@
+package com.aplusbinary.binarypixor.doc.client;
+
+import com.aplusbinary.binarypixor.doc.dto.CreditBatchReservationRequest;
+import com.aplusbinary.binarypixor.doc.dto.CreditBatchReservationResponse;
+import com.aplusbinary.binarypixor.doc.dto.CreditLeaseResponse;
+import com.aplusbinary.binarypixor.doc.util.FixedPoint;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Binary encoding of account-management's internal credit RPC (/credits/rpc). Mirrors
+ * account-management's CreditRpcCodec; the two must change together.
+ *
+ * A frame is the magic "CR", a version byte and a count, followed by that many calls (request) or
+ * results (response). A call is: call id, method, idempotency key, method payload. A result is:
+ * call id, HTTP-style status, then the response payload for 200, the message plus requested and
+ * available amounts for 402, or just the message otherwise. Integers are LEB128 varints (signed
+ * ones zigzag-encoded), amounts are credit cents, strings are length + 1 (0 for null) and UTF-8.
+ */
+final class CreditRpcCodec {
+
+    static final String CONTENT_TYPE = "application/x-credit-rpc";
+    static final int VERSION = 1;
+
+    static final int RESERVE = 1;
+    static final int CONFIRM = 2;
+    static final int RELEASE = 3;
+    static final int EXTEND = 4;
+    static final int LEASE_GRANT = 5;
+    static final int LEASE_SETTLE = 6;
+
+    private static final int MAX_STRING_BYTES = 1 << 20;
+
+    private CreditRpcCodec() {
+    }
+
+    static void writeMode(Writer out, CreditBatchReservationRequest.Mode mode) {
+        out.varint(mode == CreditBatchReservationRequest.Mode.BEST_EFFORT ? 1 : 0);
+    }
+
+    static CreditBatchReservationRequest.Mode readMode(Reader in) {
+        return in.varint() == 1 ? CreditBatchReservationRequest.Mode.BEST_EFFORT
+                : CreditBatchReservationRequest.Mode.ALL_OR_NOTHING;
+    }
+
+    static void writeBatchResponse(Writer out, CreditBatchReservationResponse response) {
+        out.varint(response.getAppliedCount());
+        out.varint(response.getRejectedCount());
+        out.amount(response.getAppliedAmount());
+        out.varint(response.getOutcomes().size());
+        for (CreditBatchReservationResponse.Outcome outcome : response.getOutcomes()) {
+            out.string(outcome.getReservationId());
+            out.string(outcome.getReferenceId());
+            out.amount(outcome.getAmount());
+            out.string(outcome.getStatus());
+            out.string(outcome.getTransactionId());
+            out.date(outcome.getExpiresOn());
+            out.string(outcome.getMessage());
+        }
+    }
+
+    static CreditBatchReservationResponse readBatchResponse(Reader in) {
+        CreditBatchReservationResponse response = new CreditBatchReservationResponse();
+        response.setAppliedCount(in.varint());
+        response.setRejectedCount(in.varint());
+        response.setAppliedAmount(in.amount());
+        int count = in.count();
+        List<CreditBatchReservationResponse.Outcome> outcomes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CreditBatchReservationResponse.Outcome outcome = new CreditBatchReservationResponse.Outcome();
+            outcome.setReservationId(in.string());
+            outcome.setReferenceId(in.string());
+            outcome.setAmount(in.amount());
+            outcome.setStatus(in.string());
+            outcome.setTransactionId(in.string());
+            outcome.setExpiresOn(in.date());
+            outcome.setMessage(in.string());
+            outcomes.add(outcome);
+        }
+        response.setOutcomes(outcomes);
+        return response;
+    }
+
+    static void writeLeaseResponse(Writer out, CreditLeaseResponse response) {
+        out.string(response.getReservationId());
+        out.nullableLong(response.getAccountId());
+        out.amount(response.getRemainingAmount());
+        out.amount(response.getConsumedAmount());
+        out.string(response.getStatus());
+        out.date(response.getExpiresOn());
+        out.string(response.getMessage());
+    }
+
+    static CreditLeaseResponse readLeaseResponse(Reader in) {
+        CreditLeaseResponse response = new CreditLeaseResponse();
+        response.setReservationId(in.string());
+        response.setAccountId(in.nullableLong());
+        response.setRemainingAmount(in.amount());
+        response.setConsumedAmount(in.amount());
+        response.setStatus(in.string());
+        response.setExpiresOn(in.date());
+        response.setMessage(in.string());
+        return response;
+    }
+
+    static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int header() {
+            if (data.length < 3 || data[0] != 'C' || data[1] != 'R') {
+                throw new IllegalArgumentException("Not a credit RPC frame");
+            }
+            if (data[2] != VERSION) {
+                throw new IllegalArgumentException("Unsupported credit RPC version " + data[2]);
+            }
+            position = 3;
+            return count();
+        }
+
+        int count() {
+            long count = varlong();
+            if (count > data.length - position) {
+                throw new IllegalArgumentException("Credit RPC count exceeds the frame");
+            }
+            return (int) count;
+        }
+
+        int varint() {
+            long value = varlong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Credit RPC varint out of range");
+            }
+            return (int) value;
+        }
+
+        long varlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = next();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Credit RPC varint too long");
+        }
+
+        long zigzag() {
+            long raw = varlong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        boolean bool() {
+            return next() != 0;
+        }
+
+        Long nullableLong() {
+            return bool() ? zigzag() : null;
+        }
+
+        BigDecimal amount() {
+            return bool() ? FixedPoint.toBigDecimal(zigzag(), FixedPoint.CREDIT_SCALE) : null;
+        }
+
+        Date date() {
+            return bool() ? new Date(zigzag()) : null;
+        }
+
+        String string() {
+            int length = varint();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            if (length > MAX_STRING_BYTES || length > data.length - position) {
+                throw new IllegalArgumentException("Credit RPC string exceeds the frame");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        List<String> strings() {
+            int count = count();
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(string());
+            }
+            return values;
+        }
+
+        private byte next() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated credit RPC frame");
+            }
+            return data[position++];
+        }
+    }
+
+    static final class Writer {
+        private final ByteArrayOutputStream out;
+
+        Writer(int expectedSize) {
+            this.out = new ByteArrayOutputStream(expectedSize);
+        }
+
+        void header(int count) {
+            out.write('C');
+            out.write('R');
+            out.write(VERSION);
+            varint(count);
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7fL) != 0) {
+                out.write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void bool(boolean value) {
+            out.write(value ? 1 : 0);
+        }
+
+        void nullableLong(Long value) {
+            bool(value != null);
+            if (value != null) {
+                zigzag(value);
+            }
+        }
+
+        void amount(BigDecimal value) {
+            bool(value != null);
+            if (value != null) {
+                zigzag(FixedPoint.toUnits(value, FixedPoint.CREDIT_SCALE));
+            }
+        }
+
+        void date(Date value) {
+            bool(value != null);
+            if (value != null) {
+                zigzag(value.getTime());
+            }
+        }
+
+        void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        void strings(List<String> values) {
+            varint(values.size());
+            for (String value : values) {
+                string(value);
+            }
+        }
+
+        void raw(byte[] bytes) {
+            out.write(bytes, 0, bytes.length);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.aplusbinary.binarypixor.doc.client;
+
+/**
+ * A credit RPC call answered with an error status. The status follows HTTP semantics (402 for
+ * insufficient credits, 409 contention, 422 rejected, 400 bad request) and the message matches what
+ * the JSON client reports for the same failure.
+ */
+public class CreditRpcException extends Exception {
+
+    private final int status;
+
+    public CreditRpcException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,12 @@
+package com.aplusbinary.binarypixor.doc.client;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Carries one credit RPC frame to account-management and returns the response frame.
+ * Implementations may have any number of exchanges in flight at once.
+ */
+public interface CreditRpcTransport {
+
+    CompletableFuture<byte[]> exchange(byte[] frame, String authToken);
+}
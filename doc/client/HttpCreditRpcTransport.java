@@ -0,0 +1,96 @@
+package com.aplusbinary.binarypixor.doc.client;
+
+import com.aplusbinary.binarypixor.doc.config.CreditRpcConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Credit RPC over HTTP/2. Each pooled client keeps one persistent connection to account-management
+ * and multiplexes every in-flight exchange over it as separate streams, so concurrent uploads share
+ * a warm connection instead of queuing for one. Against a server without HTTP/2 the clients fall
+ * back to HTTP/1.1 keep-alive.
+ */
+@Component
+@ConditionalOnProperty(name = "app.accountmanagement.rpc.transport", havingValue = "http", matchIfMissing = true)
+public class HttpCreditRpcTransport implements CreditRpcTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpCreditRpcTransport.class);
+
+    private static final int TRANSPORT_RETRIES = 2;
+    private static final long RETRY_DELAY_MS = 200;
+
+    private final HttpClient[] clients;
+    private final AtomicInteger next = new AtomicInteger();
+    private final URI endpoint;
+    private final Duration requestTimeout;
+
+    public HttpCreditRpcTransport(@Value("${app.accountmanagement.base-url}") String baseUrl, CreditRpcConfig config) {
+        this.clients = new HttpClient[Math.max(1, config.getConnections())];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofMillis(config.getConnectTimeoutMs()))
+                    .build();
+        }
+        this.endpoint = URI.create(baseUrl.replaceAll("/+$", "") + config.getPath());
+        this.requestTimeout = Duration.ofMillis(config.getRequestTimeoutMs());
+        logger.info("Credit RPC transport initialized for {} with {} connections", endpoint, clients.length);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> exchange(byte[] frame, String authToken) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                .timeout(requestTimeout)
+                .header(HttpHeaders.CONTENT_TYPE, CreditRpcCodec.CONTENT_TYPE)
+                .header(HttpHeaders.ACCEPT, CreditRpcCodec.CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(frame));
+        if (authToken != null && !authToken.isBlank()) {
+            request.header(HttpHeaders.AUTHORIZATION, authToken.startsWith("Bearer ") ? authToken : "Bearer " + authToken);
+        }
+        return send(request.build(), 0);
+    }
+
+    /**
+     * Calls carry idempotency keys, so a frame whose connection failed can be sent again as is.
+     */
+    private CompletableFuture<byte[]> send(HttpRequest request, int attempt) {
+        HttpClient client = clients[Math.floorMod(next.getAndIncrement(), clients.length)];
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(HttpCreditRpcTransport::body)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (!(cause instanceof IOException) || attempt >= TRANSPORT_RETRIES) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    logger.debug("Credit RPC exchange failed ({}), retrying", cause.getMessage());
+                    return CompletableFuture.supplyAsync(() -> null,
+                                    CompletableFuture.delayedExecutor(RETRY_DELAY_MS << attempt, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> send(request, attempt + 1));
+                });
+    }
+
+    private static byte[] body(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            throw new CompletionException(new CreditRpcException(response.statusCode(),
+                    "Account management error (" + response.statusCode() + ") on credit RPC: "
+                    + new String(response.body(), StandardCharsets.UTF_8)));
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,357 @@
+package com.aplusbinary.binarypixor.doc.client;
+
+import com.aplusbinary.binarypixor.doc.config.CreditRpcConfig;
+import com.aplusbinary.binarypixor.doc.dto.CreditBatchReservationRequest;
+import com.aplusbinary.binarypixor.doc.dto.CreditBatchReservationResponse;
+import com.aplusbinary.binarypixor.doc.dto.CreditLeaseResponse;
+import com.aplusbinary.binarypixor.doc.util.FixedPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for account-management, for tests and local runs without the credit service.
+ * Frames go through the real codec in both directions and are answered from in-memory balances:
+ * every account starts with app.accountmanagement.rpc.local-balance, reservations hold credit until
+ * confirmed or released, and idempotency keys replay the first answer. Expiry is not simulated.
+ */
+@Component
+@ConditionalOnProperty(name = "app.accountmanagement.rpc.transport", havingValue = "local")
+public class LocalCreditRpcTransport implements CreditRpcTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalCreditRpcTransport.class);
+
+    private static final class Account {
+        long balance;
+        long reserved;
+    }
+
+    private static final class Reservation {
+        final Long accountId;
+        final String referenceId;
+        long held;
+        long consumed;
+        String status = "RESERVED";
+        Date expiresOn;
+
+        Reservation(Long accountId, String referenceId, long held, Date expiresOn) {
+            this.accountId = accountId;
+            this.referenceId = referenceId;
+            this.held = held;
+            this.expiresOn = expiresOn;
+        }
+    }
+
+    private static final class Rejection extends RuntimeException {
+        final int status;
+        final long requested;
+        final long available;
+
+        Rejection(int status, String message, long requested, long available) {
+            super(message);
+            this.status = status;
+            this.requested = requested;
+            this.available = available;
+        }
+    }
+
+    private final long openingBalance;
+    private final Map<Long, Account> accounts = new HashMap<>();
+    private final Map<String, Reservation> reservations = new HashMap<>();
+    private final Map<String, byte[]> replies = new HashMap<>();
+
+    public LocalCreditRpcTransport(CreditRpcConfig config) {
+        this.openingBalance = FixedPoint.toUnits(config.getLocalBalance(), FixedPoint.CREDIT_SCALE);
+        logger.warn("Credit RPC is answered by the in-process stand-in; no credit is actually charged");
+    }
+
+    @Override
+    public CompletableFuture<byte[]> exchange(byte[] frame, String authToken) {
+        try {
+            return CompletableFuture.completedFuture(handle(frame));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(new CreditRpcException(400,
+                    "Account management error (400) on credit RPC: " + e.getMessage()));
+        }
+    }
+
+    private synchronized byte[] handle(byte[] frame) {
+        CreditRpcCodec.Reader in = new CreditRpcCodec.Reader(frame);
+        int count = in.header();
+        CreditRpcCodec.Writer out = new CreditRpcCodec.Writer(256);
+        out.header(count);
+        for (int i = 0; i < count; i++) {
+            long callId = in.varlong();
+            int method = in.varint();
+            String key = in.string();
+            String replayKey = key == null ? null : method + ":" + key;
+            // Decode before answering so the reader stays aligned even on a replay
+            Consumer<CreditRpcCodec.Writer> call = decode(in, method);
+            out.varint(callId);
+            byte[] previous = replayKey == null ? null : replies.get(replayKey);
+            if (previous != null) {
+                out.raw(previous);
+                continue;
+            }
+            CreditRpcCodec.Writer result = new CreditRpcCodec.Writer(64);
+            try {
+                result.varint(200);
+                call.accept(result);
+            } catch (Rejection e) {
+                result = new CreditRpcCodec.Writer(64);
+                result.varint(e.status);
+                result.string(e.getMessage());
+                if (e.status == 402) {
+                    result.amount(FixedPoint.toBigDecimal(e.requested, FixedPoint.CREDIT_SCALE));
+                    result.amount(FixedPoint.toBigDecimal(e.available, FixedPoint.CREDIT_SCALE));
+                }
+            }
+            byte[] bytes = result.toByteArray();
+            if (replayKey != null) {
+                replies.put(replayKey, bytes);
+            }
+            out.raw(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Read one call's payload and return the handler that writes its 200 response.
+     */
+    private Consumer<CreditRpcCodec.Writer> decode(CreditRpcCodec.Reader in, int method) {
+        switch (method) {
+            case CreditRpcCodec.RESERVE: {
+                Long accountId = in.nullableLong();
+                CreditBatchReservationRequest.Mode mode = CreditRpcCodec.readMode(in);
+                Long ttlSeconds = in.nullableLong();
+                int count = in.count();
+                List<CreditBatchReservationRequest.Item> items = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    CreditBatchReservationRequest.Item item = new CreditBatchReservationRequest.Item();
+                    item.setAmount(in.amount());
+                    item.setReferenceId(in.string());
+                    item.setReferenceType(in.string());
+                    item.setNotes(in.string());
+                    items.add(item);
+                }
+                return out -> CreditRpcCodec.writeBatchResponse(out,
+                        reserve(accountId, mode, ttlSeconds, items));
+            }
+            case CreditRpcCodec.CONFIRM:
+            case CreditRpcCodec.RELEASE: {
+                CreditRpcCodec.readMode(in);
+                List<String> ids = in.strings();
+                boolean confirm = method == CreditRpcCodec.CONFIRM;
+                return out -> CreditRpcCodec.writeBatchResponse(out, finish(ids, confirm));
+            }
+            case CreditRpcCodec.EXTEND: {
+                Long ttlSeconds = in.nullableLong();
+                List<String> ids = in.strings();
+                return out -> CreditRpcCodec.writeBatchResponse(out, extend(ids, ttlSeconds));
+            }
+            case CreditRpcCodec.LEASE_GRANT: {
+                Long accountId = in.nullableLong();
+                long amount = units(in.amount());
+                long minAmount = units(in.amount());
+                Long ttlSeconds = in.nullableLong();
+                String referenceId = in.string();
+                return out -> CreditRpcCodec.writeLeaseResponse(out,
+                        grant(accountId, amount, minAmount, ttlSeconds, referenceId));
+            }
+            case CreditRpcCodec.LEASE_SETTLE: {
+                String reservationId = in.string();
+                long consumedTotal = units(in.amount());
+                boolean release = in.bool();
+                Long ttlSeconds = in.nullableLong();
+                return out -> CreditRpcCodec.writeLeaseResponse(out,
+                        settle(reservationId, consumedTotal, release, ttlSeconds));
+            }
+            default:
+                throw new IllegalArgumentException("Unknown credit RPC method " + method);
+        }
+    }
+
+    private CreditBatchReservationResponse reserve(Long accountId, CreditBatchReservationRequest.Mode mode,
+                                                   Long ttlSeconds, List<CreditBatchReservationRequest.Item> items) {
+        Account account = account(accountId);
+        long total = 0L;
+        for (CreditBatchReservationRequest.Item item : items) {
+            total += units(item.getAmount());
+        }
+        long available = account.balance - account.reserved;
+        if (mode == CreditBatchReservationRequest.Mode.ALL_OR_NOTHING && total > available) {
+            throw new Rejection(402, "Insufficient credits for account " + accountId, total, available);
+        }
+        Date expiresOn = expiry(ttlSeconds);
+        CreditBatchReservationResponse response = new CreditBatchReservationResponse();
+        for (CreditBatchReservationRequest.Item item : items) {
+            long amount = units(item.getAmount());
+            CreditBatchReservationResponse.Outcome outcome = new CreditBatchReservationResponse.Outcome();
+            outcome.setReferenceId(item.getReferenceId());
+            outcome.setAmount(item.getAmount());
+            if (amount > account.balance - account.reserved) {
+                outcome.setStatus("REJECTED");
+                outcome.setMessage("Insufficient credits");
+            } else {
+                String reservationId = "RSV-" + UUID.randomUUID();
+                account.reserved += amount;
+                reservations.put(reservationId, new Reservation(accountId, item.getReferenceId(), amount, expiresOn));
+                outcome.setReservationId(reservationId);
+                outcome.setStatus("RESERVED");
+                outcome.setExpiresOn(expiresOn);
+            }
+            response.getOutcomes().add(outcome);
+        }
+        return summarize(response);
+    }
+
+    private CreditBatchReservationResponse finish(List<String> reservationIds, boolean confirm) {
+        CreditBatchReservationResponse response = new CreditBatchReservationResponse();
+        for (String reservationId : reservationIds) {
+            Reservation reservation = reservations.get(reservationId);
+            CreditBatchReservationResponse.Outcome outcome = new CreditBatchReservationResponse.Outcome();
+            outcome.setReservationId(reservationId);
+            if (reservation == null || !"RESERVED".equals(reservation.status)) {
+                outcome.setStatus("REJECTED");
+                outcome.setMessage(reservation == null ? "Unknown reservation" : "Reservation is " + reservation.status);
+            } else {
+                Account account = account(reservation.accountId);
+                account.reserved -= reservation.held;
+                if (confirm) {
+                    account.balance -= reservation.held;
+                    reservation.consumed += reservation.held;
+                }
+                outcome.setReferenceId(reservation.referenceId);
+                outcome.setAmount(FixedPoint.toBigDecimal(reservation.held, FixedPoint.CREDIT_SCALE));
+                reservation.held = 0L;
+                reservation.status = confirm ? "CONFIRMED" : "RELEASED";
+                outcome.setStatus(reservation.status);
+            }
+            response.getOutcomes().add(outcome);
+        }
+        return summarize(response);
+    }
+
+    private CreditBatchReservationResponse extend(List<String> reservationIds, Long ttlSeconds) {
+        CreditBatchReservationResponse response = new CreditBatchReservationResponse();
+        Date expiresOn = expiry(ttlSeconds);
+        for (String reservationId : reservationIds) {
+            Reservation reservation = reservations.get(reservationId);
+            CreditBatchReservationResponse.Outcome outcome = new CreditBatchReservationResponse.Outcome();
+            outcome.setReservationId(reservationId);
+            if (reservation == null || !"RESERVED".equals(reservation.status)) {
+                outcome.setStatus("REJECTED");
+                outcome.setMessage(reservation == null ? "Unknown reservation" : "Reservation is " + reservation.status);
+            } else {
+                if (expiresOn.after(reservation.expiresOn)) {
+                    reservation.expiresOn = expiresOn;
+                }
+                outcome.setReferenceId(reservation.referenceId);
+                outcome.setAmount(FixedPoint.toBigDecimal(reservation.held, FixedPoint.CREDIT_SCALE));
+                outcome.setStatus(reservation.status);
+                outcome.setExpiresOn(reservation.expiresOn);
+            }
+            response.getOutcomes().add(outcome);
+        }
+        return summarize(response);
+    }
+
+    private CreditLeaseResponse grant(Long accountId, long amount, long minAmount, Long ttlSeconds, String referenceId) {
+        Account account = account(accountId);
+        long available = account.balance - account.reserved;
+        long granted = Math.min(amount, available);
+        if (granted <= 0 || granted < minAmount) {
+            throw new Rejection(402, "Insufficient credits for account " + accountId, Math.max(minAmount, 1L),
+                    available);
+        }
+        String reservationId = "RSV-" + UUID.randomUUID();
+        Reservation lease = new Reservation(accountId, referenceId, granted, expiry(ttlSeconds));
+        account.reserved += granted;
+        reservations.put(reservationId, lease);
+        return lease(reservationId, lease, null);
+    }
+
+    private CreditLeaseResponse settle(String reservationId, long consumedTotal, boolean release, Long ttlSeconds) {
+        Reservation lease = reservations.get(reservationId);
+        if (lease == null) {
+            throw new Rejection(422, "Unknown credit lease " + reservationId, 0L, 0L);
+        }
+        Account account = account(lease.accountId);
+        long delta = Math.max(0L, consumedTotal - lease.consumed);
+        long fromHold = Math.min(delta, lease.held);
+        long late = delta - fromHold;
+        lease.held -= fromHold;
+        account.reserved -= fromHold;
+        account.balance -= delta;
+        lease.consumed += delta;
+        if (release && "RESERVED".equals(lease.status)) {
+            account.reserved -= lease.held;
+            lease.held = 0L;
+            lease.status = lease.consumed > 0 ? "CONFIRMED" : "RELEASED";
+        } else if ("RESERVED".equals(lease.status)) {
+            Date renewed = expiry(ttlSeconds);
+            if (renewed.after(lease.expiresOn)) {
+                lease.expiresOn = renewed;
+            }
+        }
+        return lease(reservationId, lease, late > 0
+                ? FixedPoint.toBigDecimal(late, FixedPoint.CREDIT_SCALE) + " settled after the lease had ended" : null);
+    }
+
+    private CreditLeaseResponse lease(String reservationId, Reservation lease, String message) {
+        CreditLeaseResponse response = new CreditLeaseResponse();
+        response.setReservationId(reservationId);
+        response.setAccountId(lease.accountId);
+        response.setRemainingAmount(FixedPoint.toBigDecimal(lease.held, FixedPoint.CREDIT_SCALE));
+        response.setConsumedAmount(FixedPoint.toBigDecimal(lease.consumed, FixedPoint.CREDIT_SCALE));
+        response.setStatus(lease.status);
+        response.setExpiresOn(lease.expiresOn);
+        response.setMessage(message);
+        return response;
+    }
+
+    private static CreditBatchReservationResponse summarize(CreditBatchReservationResponse response) {
+        int applied = 0;
+        long amount = 0L;
+        for (CreditBatchReservationResponse.Outcome outcome : response.getOutcomes()) {
+            if (!"REJECTED".equals(outcome.getStatus())) {
+                applied++;
+                amount += units(outcome.getAmount());
+            }
+        }
+        response.setAppliedCount(applied);
+        response.setRejectedCount(response.getOutcomes().size() - applied);
+        response.setAppliedAmount(FixedPoint.toBigDecimal(amount, FixedPoint.CREDIT_SCALE));
+        return response;
+    }
+
+    private Account account(Long accountId) {
+        if (accountId == null) {
+            throw new Rejection(400, "accountId is required", 0L, 0L);
+        }
+        return accounts.computeIfAbsent(accountId, id -> {
+            Account account = new Account();
+            account.balance = openingBalance;
+            return account;
+        });
+    }
+
+    private static Date expiry(Long ttlSeconds) {
+        return new Date(System.currentTimeMillis() + (ttlSeconds != null ? ttlSeconds : 900L) * 1000L);
+    }
+
+    private static long units(BigDecimal amount) {
+        return FixedPoint.toUnits(amount, FixedPoint.CREDIT_SCALE);
+    }
+}
@@ -0,0 +1,87 @@
+package com.aplusbinary.binarypixor.doc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.credit.budget")
+public class CreditBudgetConfig {
+
+    private boolean enabled = true;
+    // Size each lease to cover this many documents at the account's recent cost per document
+    private int documentsPerLease = 50;
+    private BigDecimal minLeaseAmount = new BigDecimal("10");
+    private BigDecimal maxLeaseAmount = new BigDecimal("1000");
+    // Weight of the newest document cost in the moving average
+    private double costSmoothing = 0.2;
+    private long settleIntervalMs = 30000;
+    private long leaseTtlSeconds = 900;
+    // Leases with no debits for this long are settled and returned
+    private long idleReturnMs = 600000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getDocumentsPerLease() {
+        return documentsPerLease;
+    }
+
+    public void setDocumentsPerLease(int documentsPerLease) {
+        this.documentsPerLease = documentsPerLease;
+    }
+
+    public BigDecimal getMinLeaseAmount() {
+        return minLeaseAmount;
+    }
+
+    public void setMinLeaseAmount(BigDecimal minLeaseAmount) {
+        this.minLeaseAmount = minLeaseAmount;
+    }
+
+    public BigDecimal getMaxLeaseAmount() {
+        return maxLeaseAmount;
+    }
+
+    public void setMaxLeaseAmount(BigDecimal maxLeaseAmount) {
+        this.maxLeaseAmount = maxLeaseAmount;
+    }
+
+    public double getCostSmoothing() {
+        return costSmoothing;
+    }
+
+    public void setCostSmoothing(double costSmoothing) {
+        this.costSmoothing = costSmoothing;
+    }
+
+    public long getSettleIntervalMs() {
+        return settleIntervalMs;
+    }
+
+    public void setSettleIntervalMs(long settleIntervalMs) {
+        this.settleIntervalMs = settleIntervalMs;
+    }
+
+    public long getLeaseTtlSeconds() {
+        return leaseTtlSeconds;
+    }
+
+    public void setLeaseTtlSeconds(long leaseTtlSeconds) {
+        this.leaseTtlSeconds = leaseTtlSeconds;
+    }
+
+    public long getIdleReturnMs() {
+        return idleReturnMs;
+    }
+
+    public void setIdleReturnMs(long idleReturnMs) {
+        this.idleReturnMs = idleReturnMs;
+    }
+}
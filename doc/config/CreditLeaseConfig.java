@@ -0,0 +1,68 @@
+package com.aplusbinary.binarypixor.doc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.credit.lease")
+public class CreditLeaseConfig {
+
+    private boolean enabled = true;
+    // How often in-flight reservations are renewed; keep well below extendSeconds
+    private long renewIntervalMs = 300000;
+    private long extendSeconds = 900;
+    // Jobs still PROCESSING this long after their log was created are taken as crashed and not renewed
+    private long maxJobSeconds = 21600;
+    private int batchSize = 200;
+    // Bearer token used for background calls to account-management (no user request to borrow one from)
+    // Its roles claim needs CREDIT_SERVICE, which lets it act on reservations of every account
+    private String serviceToken;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getRenewIntervalMs() {
+        return renewIntervalMs;
+    }
+
+    public void setRenewIntervalMs(long renewIntervalMs) {
+        this.renewIntervalMs = renewIntervalMs;
+    }
+
+    public long getExtendSeconds() {
+        return extendSeconds;
+    }
+
+    public void setExtendSeconds(long extendSeconds) {
+        this.extendSeconds = extendSeconds;
+    }
+
+    public long getMaxJobSeconds() {
+        return maxJobSeconds;
+    }
+
+    public void setMaxJobSeconds(long maxJobSeconds) {
+        this.maxJobSeconds = maxJobSeconds;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public String getServiceToken() {
+        return serviceToken;
+    }
+
+    public void setServiceToken(String serviceToken) {
+        this.serviceToken = serviceToken;
+    }
+}
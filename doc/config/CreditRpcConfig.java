@@ -0,0 +1,79 @@
+package com.aplusbinary.binarypixor.doc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.accountmanagement.rpc")
+public class CreditRpcConfig {
+
+    // Route reservation and lease calls over the binary endpoint instead of JSON
+    private boolean enabled = false;
+    // "http" talks to account-management; "local" answers from an in-memory stand-in (tests only)
+    private String transport = "http";
+    private String path = "/credits/rpc";
+    // Each connection multiplexes any number of calls over HTTP/2; more connections spread the load
+    private int connections = 2;
+    private long connectTimeoutMs = 2000;
+    private long requestTimeoutMs = 10000;
+    // Opening balance of every account in the local stand-in
+    private BigDecimal localBalance = new BigDecimal("1000");
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getTransport() {
+        return transport;
+    }
+
+    public void setTransport(String transport) {
+        this.transport = transport;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(long connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public long getRequestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    public void setRequestTimeoutMs(long requestTimeoutMs) {
+        this.requestTimeoutMs = requestTimeoutMs;
+    }
+
+    public BigDecimal getLocalBalance() {
+        return localBalance;
+    }
+
+    public void setLocalBalance(BigDecimal localBalance) {
+        this.localBalance = localBalance;
+    }
+}
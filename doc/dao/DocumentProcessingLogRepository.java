@@ -0,0 +1,27 @@
+package com.aplusbinary.binarypixor.doc.dao;
+
+import com.aplusbinary.binarypixor.doc.model.DocumentProcessingLog;
+import com.aplusbinary.binarypixor.doc.model.ProcessingStatusType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DocumentProcessingLogRepository extends JpaRepository<DocumentProcessingLog, Long> {
+
+    Optional<DocumentProcessingLog> findByProcessingId(String processingId);
+
+    /**
+     * Reservation ids of log entries in the given status created after {@code since}, served from
+     * idx_status without loading entities.
+     */
+    @Query("SELECT l.reservationId FROM DocumentProcessingLog l "
+            + "WHERE l.processingStatus = :status AND l.reservationId IS NOT NULL AND l.createdOn > :since")
+    List<String> findReservationIdsByStatusCreatedAfter(@Param("status") ProcessingStatusType status,
+                                                        @Param("since") Date since);
+}
@@ -0,0 +1,41 @@
+package com.aplusbinary.binarypixor.doc.dao;
+
+import com.aplusbinary.binarypixor.doc.model.Invoice;
+import com.aplusbinary.binarypixor.doc.model.ProcessingStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Content-hash lookups for duplicate upload detection, served from the (account_management_id,
+ * content_hash) indexes on invoices and temp_invoices.
+ */
+@Repository
+public interface DuplicateInvoiceRepository extends org.springframework.data.repository.Repository<Invoice, Long> {
+
+    @Query("SELECT i FROM Invoice i WHERE i.accountManagementId = :accountManagementId "
+            + "AND i.contentHash = :contentHash AND (i.status IS NULL OR i.status NOT IN :deadStatuses) "
+            + "ORDER BY i.id DESC")
+    List<Invoice> findInvoicesByContentHash(@Param("accountManagementId") String accountManagementId,
+                                            @Param("contentHash") String contentHash,
+                                            @Param("deadStatuses") Collection<ProcessingStatus> deadStatuses,
+                                            Pageable pageable);
+
+    /**
+     * Temp invoices for the same file that are still live: not expired and not in one of the dead
+     * statuses.
+     */
+    @Query("SELECT t.id FROM TempInvoice t WHERE t.accountManagementId = :accountManagementId "
+            + "AND t.contentHash = :contentHash AND (t.status IS NULL OR t.status NOT IN :deadStatuses) "
+            + "AND (t.expiresAt IS NULL OR t.expiresAt > :now)")
+    List<Long> findLiveTempInvoiceIds(@Param("accountManagementId") String accountManagementId,
+                                      @Param("contentHash") String contentHash,
+                                      @Param("deadStatuses") Collection<ProcessingStatus> deadStatuses,
+                                      @Param("now") LocalDateTime now,
+                                      Pageable pageable);
+}
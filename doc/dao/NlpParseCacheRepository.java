@@ -0,0 +1,28 @@
+package com.aplusbinary.binarypixor.doc.dao;
+
+import com.aplusbinary.binarypixor.doc.model.NlpParseCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+@Repository
+public interface NlpParseCacheRepository extends JpaRepository<NlpParseCacheEntry, String> {
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE NlpParseCacheEntry e SET e.hitCount = e.hitCount + 1, e.lastHitOn = :now WHERE e.cacheKey = :cacheKey")
+    int recordHit(@Param("cacheKey") String cacheKey, @Param("now") Date now);
+
+    /**
+     * Drop entries not hit since the cutoff, served from idx_nlp_cache_last_hit_on.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM NlpParseCacheEntry e WHERE e.lastHitOn < :cutoff")
+    int deleteIdleSince(@Param("cutoff") Date cutoff);
+}
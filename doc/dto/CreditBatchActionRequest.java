@@ -0,0 +1,36 @@
+package com.aplusbinary.binarypixor.doc.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request body for account-management batch confirm / release, keyed by reservationId.
+ */
+public class CreditBatchActionRequest {
+
+    private CreditBatchReservationRequest.Mode mode = CreditBatchReservationRequest.Mode.BEST_EFFORT;
+    private List<String> reservationIds = new ArrayList<>();
+
+    public CreditBatchActionRequest() {
+    }
+
+    public CreditBatchActionRequest(List<String> reservationIds) {
+        this.reservationIds = reservationIds;
+    }
+
+    public CreditBatchReservationRequest.Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(CreditBatchReservationRequest.Mode mode) {
+        this.mode = mode;
+    }
+
+    public List<String> getReservationIds() {
+        return reservationIds;
+    }
+
+    public void setReservationIds(List<String> reservationIds) {
+        this.reservationIds = reservationIds;
+    }
+}
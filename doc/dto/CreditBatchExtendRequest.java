@@ -0,0 +1,37 @@
+package com.aplusbinary.binarypixor.doc.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request body for account-management batch lease renewal.
+ */
+public class CreditBatchExtendRequest {
+
+    private Long ttlSeconds;
+    private List<String> reservationIds = new ArrayList<>();
+
+    public CreditBatchExtendRequest() {
+    }
+
+    public CreditBatchExtendRequest(List<String> reservationIds, Long ttlSeconds) {
+        this.reservationIds = reservationIds;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public Long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(Long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public List<String> getReservationIds() {
+        return reservationIds;
+    }
+
+    public void setReservationIds(List<String> reservationIds) {
+        this.reservationIds = reservationIds;
+    }
+}
@@ -0,0 +1,109 @@
+package com.aplusbinary.binarypixor.doc.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request body for account-management POST /credits/reservations/batch.
+ */
+public class CreditBatchReservationRequest {
+
+    public enum Mode {
+        ALL_OR_NOTHING,
+        BEST_EFFORT
+    }
+
+    private Long accountId;
+    private Mode mode = Mode.ALL_OR_NOTHING;
+    private Long ttlSeconds;
+    private List<Item> items = new ArrayList<>();
+
+    public CreditBatchReservationRequest() {
+    }
+
+    public CreditBatchReservationRequest(Long accountId, Mode mode) {
+        this.accountId = accountId;
+        this.mode = mode;
+    }
+
+    public CreditBatchReservationRequest addItem(BigDecimal amount, String referenceId, String referenceType) {
+        Item item = new Item();
+        item.setAmount(amount);
+        item.setReferenceId(referenceId);
+        item.setReferenceType(referenceType);
+        items.add(item);
+        return this;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(Long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    public static class Item {
+        private BigDecimal amount;
+        private String referenceId;
+        private String referenceType;
+        private String notes;
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public String getReferenceId() {
+            return referenceId;
+        }
+
+        public void setReferenceId(String referenceId) {
+            this.referenceId = referenceId;
+        }
+
+        public String getReferenceType() {
+            return referenceType;
+        }
+
+        public void setReferenceType(String referenceType) {
+            this.referenceType = referenceType;
+        }
+
+        public String getNotes() {
+            return notes;
+        }
+
+        public void setNotes(String notes) {
+            this.notes = notes;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.aplusbinary.binarypixor.doc.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Per-item outcomes returned by the account-management batch reservation endpoints.
+ */
+public class CreditBatchReservationResponse {
+
+    private List<Outcome> outcomes = new ArrayList<>();
+    private int appliedCount;
+    private int rejectedCount;
+    private BigDecimal appliedAmount;
+
+    public List<Outcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public void setOutcomes(List<Outcome> outcomes) {
+        this.outcomes = outcomes;
+    }
+
+    public int getAppliedCount() {
+        return appliedCount;
+    }
+
+    public void setAppliedCount(int appliedCount) {
+        this.appliedCount = appliedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public void setRejectedCount(int rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+
+    public BigDecimal getAppliedAmount() {
+        return appliedAmount;
+    }
+
+    public void setAppliedAmount(BigDecimal appliedAmount) {
+        this.appliedAmount = appliedAmount;
+    }
+
+    public static class Outcome {
+        private String reservationId;
+        private String referenceId;
+        private BigDecimal amount;
+        private String status;
+        private String transactionId;
+        private Date expiresOn;
+        private String message;
+
+        @JsonIgnore
+    public boolean isApplied() {
+            return !"REJECTED".equals(status) && !"NOT_FOUND".equals(status);
+        }
+
+        public String getReservationId() {
+            return reservationId;
+        }
+
+        public void setReservationId(String reservationId) {
+            this.reservationId = reservationId;
+        }
+
+        public String getReferenceId() {
+            return referenceId;
+        }
+
+        public void setReferenceId(String referenceId) {
+            this.referenceId = referenceId;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public String getTransactionId() {
+            return transactionId;
+        }
+
+        public void setTransactionId(String transactionId) {
+            this.transactionId = transactionId;
+        }
+
+        public Date getExpiresOn() {
+            return expiresOn;
+        }
+
+        public void setExpiresOn(Date expiresOn) {
+            this.expiresOn = expiresOn;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.aplusbinary.binarypixor.doc.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Request body for an account-management credit lease grant.
+ */
+public class CreditLeaseRequest {
+
+    private Long accountId;
+    private BigDecimal amount;
+    private BigDecimal minAmount;
+    private Long ttlSeconds;
+    private String referenceId;
+
+    public CreditLeaseRequest() {
+    }
+
+    public CreditLeaseRequest(Long accountId, BigDecimal amount, BigDecimal minAmount, Long ttlSeconds, String referenceId) {
+        this.accountId = accountId;
+        this.amount = amount;
+        this.minAmount = minAmount;
+        this.ttlSeconds = ttlSeconds;
+        this.referenceId = referenceId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public Long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(Long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public String getReferenceId() {
+        return referenceId;
+    }
+
+    public void setReferenceId(String referenceId) {
+        this.referenceId = referenceId;
+    }
+}
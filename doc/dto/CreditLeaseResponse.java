@@ -0,0 +1,74 @@
+package com.aplusbinary.binarypixor.doc.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Response from account-management lease grant and settle calls.
+ */
+public class CreditLeaseResponse {
+
+    private String reservationId;
+    private Long accountId;
+    private BigDecimal remainingAmount;
+    private BigDecimal consumedAmount;
+    private String status;
+    private Date expiresOn;
+    private String message;
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public BigDecimal getRemainingAmount() {
+        return remainingAmount;
+    }
+
+    public void setRemainingAmount(BigDecimal remainingAmount) {
+        this.remainingAmount = remainingAmount;
+    }
+
+    public BigDecimal getConsumedAmount() {
+        return consumedAmount;
+    }
+
+    public void setConsumedAmount(BigDecimal consumedAmount) {
+        this.consumedAmount = consumedAmount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Date getExpiresOn() {
+        return expiresOn;
+    }
+
+    public void setExpiresOn(Date expiresOn) {
+        this.expiresOn = expiresOn;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,56 @@
+package com.aplusbinary.binarypixor.doc.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Request body for settling a credit lease. consumedTotal is cumulative, so retries are safe.
+ */
+public class CreditLeaseSettleRequest {
+
+    private String reservationId;
+    private BigDecimal consumedTotal;
+    private boolean release;
+    private Long ttlSeconds;
+
+    public CreditLeaseSettleRequest() {
+    }
+
+    public CreditLeaseSettleRequest(String reservationId, BigDecimal consumedTotal, boolean release, Long ttlSeconds) {
+        this.reservationId = reservationId;
+        this.consumedTotal = consumedTotal;
+        this.release = release;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public BigDecimal getConsumedTotal() {
+        return consumedTotal;
+    }
+
+    public void setConsumedTotal(BigDecimal consumedTotal) {
+        this.consumedTotal = consumedTotal;
+    }
+
+    public boolean isRelease() {
+        return release;
+    }
+
+    public void setRelease(boolean release) {
+        this.release = release;
+    }
+
+    public Long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(Long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+}
@@ -107,6 +107,9 @@ public class DocumentProcessingLog {
     @Column(name = "gpt_api_called")
     private Boolean gptApiCalled = false;
 
+    @Column(name = "nlp_cache_hit")
+    private Boolean nlpCacheHit = false;
+
     @Column(name = "s3_stored")
     private Boolean s3Stored = false;
 
@@ -159,6 +162,19 @@ public class DocumentProcessingLog {
         this.modifiedOn = new Date();
     }
 
+    /**
+     * The parse was served from the NLP parse cache: no GPT call was made, so it costs nothing.
+     */
+    public void recordNlpCacheHit() {
+        this.nlpCacheHit = true;
+        this.gptApiCalled = false;
+        this.gptInputTokens = 0;
+        this.gptOutputTokens = 0;
+        this.gptInputCost = BigDecimal.ZERO;
+        this.gptOutputCost = BigDecimal.ZERO;
+        this.gptTotalCost = BigDecimal.ZERO;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -376,6 +392,14 @@ public class DocumentProcessingLog {
         this.gptApiCalled = gptApiCalled;
     }
 
+    public Boolean getNlpCacheHit() {
+        return nlpCacheHit;
+    }
+
+    public void setNlpCacheHit(Boolean nlpCacheHit) {
+        this.nlpCacheHit = nlpCacheHit;
+    }
+
     public Boolean getS3Stored() {
         return s3Stored;
     }
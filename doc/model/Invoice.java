@@ -8,7 +8,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices", indexes = {
+    @Index(name = "idx_invoices_account_content_hash", columnList = "account_management_id, content_hash")
+})
 public class Invoice {
 
     @Id
@@ -79,6 +81,10 @@ public class Invoice {
 
     @Column(name = "created_by", columnDefinition="BIGINT", nullable=false)
     private Long createdBy;
+
+    // SHA-256 (hex) of the uploaded file, for duplicate detection per account_management_id (failed uploads ignored)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
     
     @Column(name = "enduser_id", columnDefinition="BIGINT", nullable=true)
     private Long endUserId;
@@ -86,6 +92,10 @@ public class Invoice {
     @Column(name = "modified_by_name", columnDefinition="varchar(250)", nullable=false)
     private String modifiedByName;
 
+    // Parsed from the NLP parse cache rather than a fresh OpenAI call; not persisted
+    @Transient
+    private boolean nlpCacheHit;
+
     // Constructors
     public Invoice() {
     }
@@ -274,6 +284,14 @@ public class Invoice {
         this.createdBy = createdBy;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public Long getEndUserId() {
         return endUserId;
     }
@@ -289,4 +307,12 @@ public class Invoice {
     public void setModifiedByName(String modifiedByName) {
         this.modifiedByName = modifiedByName;
     }
+
+    public boolean isNlpCacheHit() {
+        return nlpCacheHit;
+    }
+
+    public void setNlpCacheHit(boolean nlpCacheHit) {
+        this.nlpCacheHit = nlpCacheHit;
+    }
 }
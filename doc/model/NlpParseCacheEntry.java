@@ -0,0 +1,126 @@
+package com.aplusbinary.binarypixor.doc.model;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+/**
+ * Persistent tier of the LLM parse cache: the OpenAI request and response for one normalized raw
+ * text, keyed by SHA-256 of prompt version, model and text. The invoice is re-parsed from the stored
+ * response on a hit, so the entry never goes stale against the Invoice mapping.
+ */
+@Entity
+@Table(name = "nlp_parse_cache", indexes = {
+    @Index(name = "idx_nlp_cache_last_hit_on", columnList = "last_hit_on")
+})
+public class NlpParseCacheEntry {
+
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @Column(name = "model", nullable = false, length = 100)
+    private String model;
+
+    @Column(name = "prompt_version", nullable = false)
+    private Integer promptVersion;
+
+    @Column(name = "nlp_request", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String nlpRequest;
+
+    @Column(name = "nlp_response", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String nlpResponse;
+
+    @Column(name = "hit_count", nullable = false)
+    private Long hitCount = 0L;
+
+    @Column(name = "created_on", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdOn;
+
+    @Column(name = "last_hit_on", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastHitOn;
+
+    // Constructors
+    public NlpParseCacheEntry() {
+    }
+
+    public NlpParseCacheEntry(String cacheKey, String model, Integer promptVersion, String nlpRequest, String nlpResponse) {
+        this.cacheKey = cacheKey;
+        this.model = model;
+        this.promptVersion = promptVersion;
+        this.nlpRequest = nlpRequest;
+        this.nlpResponse = nlpResponse;
+    }
+
+    @PrePersist
+    protected void onInsert() {
+        this.createdOn = new Date();
+        this.lastHitOn = this.createdOn;
+    }
+
+    // Getters and Setters
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public Integer getPromptVersion() {
+        return promptVersion;
+    }
+
+    public void setPromptVersion(Integer promptVersion) {
+        this.promptVersion = promptVersion;
+    }
+
+    public String getNlpRequest() {
+        return nlpRequest;
+    }
+
+    public void setNlpRequest(String nlpRequest) {
+        this.nlpRequest = nlpRequest;
+    }
+
+    public String getNlpResponse() {
+        return nlpResponse;
+    }
+
+    public void setNlpResponse(String nlpResponse) {
+        this.nlpResponse = nlpResponse;
+    }
+
+    public Long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(Long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(Date createdOn) {
+        this.createdOn = createdOn;
+    }
+
+    public Date getLastHitOn() {
+        return lastHitOn;
+    }
+
+    public void setLastHitOn(Date lastHitOn) {
+        this.lastHitOn = lastHitOn;
+    }
+}
@@ -12,7 +12,9 @@ import java.util.List;
  * before it's finalized and moved to the main Invoice table
  */
 @Entity
-@Table(name = "temp_invoices")
+@Table(name = "temp_invoices", indexes = {
+    @Index(name = "idx_temp_invoices_account_content_hash", columnList = "account_management_id, content_hash")
+})
 public class TempInvoice {
 
     @Id
@@ -95,6 +97,10 @@ public class TempInvoice {
 
     @Column(name = "created_by", columnDefinition="BIGINT", nullable=false)
     private Long createdBy;
+
+    // SHA-256 (hex) of the uploaded file, for duplicate detection per account_management_id (failed uploads ignored)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
     
     @Column(name = "enduser_id", columnDefinition="BIGINT", nullable=true)
     private Long endUserId;
@@ -342,6 +348,14 @@ public class TempInvoice {
         this.createdBy = createdBy;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public Long getEndUserId() {
         return endUserId;
     }
@@ -0,0 +1,26 @@
+package com.aplusbinary.binarypixor.doc.service;
+
+import com.aplusbinary.binarypixor.doc.dto.NLPParsingResult;
+import com.aplusbinary.binarypixor.doc.model.Invoice;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link NLPService}. No thread is held while the OpenAI call is in
+ * flight, so upload and batch pipelines can keep many documents waiting on the model at once.
+ * Failures carry the same exceptions and messages as the blocking methods.
+ */
+public interface AsyncNLPService {
+
+    Mono<Invoice> parseInvoiceEntitiesAsync(String rawText);
+
+    CompletableFuture<NLPParsingResult> parseInvoiceEntitiesWithDataAsync(String rawText);
+
+    /**
+     * Parse several documents with at most {@code concurrency} calls in flight. The returned futures
+     * are in input order; a failed document fails only its own future.
+     */
+    List<CompletableFuture<NLPParsingResult>> parseAllWithDataAsync(List<String> rawTexts, int concurrency);
+}
@@ -0,0 +1,319 @@
+package com.aplusbinary.binarypixor.doc.service.impl;
+
+import com.aplusbinary.binarypixor.doc.client.AccountManagementCreditClient;
+import com.aplusbinary.binarypixor.doc.config.CreditBudgetConfig;
+import com.aplusbinary.binarypixor.doc.config.CreditLeaseConfig;
+import com.aplusbinary.binarypixor.doc.dto.CreditLeaseRequest;
+import com.aplusbinary.binarypixor.doc.dto.CreditLeaseResponse;
+import com.aplusbinary.binarypixor.doc.dto.CreditLeaseSettleRequest;
+import com.aplusbinary.binarypixor.doc.model.OperationPricing;
+import com.aplusbinary.binarypixor.doc.util.FixedPoint;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local credit budgets: instead of a reservation round trip per document, lease a block of credit per
+ * account from account-management and debit it in memory.
+ *
+ * A lease is sized for the next {@code documentsPerLease} documents at the account's smoothed cost per
+ * document. Debits are a CAS on the lease's remaining balance, so the per-document path has no network
+ * call and no lock; only the debit that finds the lease exhausted goes back to account-management for a
+ * new one. A scheduled job reports usage as a cumulative total (safe to retry) and renews each lease;
+ * exhausted, idle and shut-down leases are settled one last time and their remainder handed back.
+ *
+ * {@link #tryDebit} returning false means no lease could be had (insufficient credit or account
+ * management unreachable); the caller falls back to a per-document reservation, which surfaces the
+ * real error.
+ */
+@Service
+public class CreditBudgetLeaseManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditBudgetLeaseManager.class);
+
+    private static final long CLOSED = -1L;
+
+    static final class Lease {
+        final Long accountId;
+        final String reservationId;
+        final long grantedMinor;
+        // Credit left to debit locally; CLOSED once the lease is retired
+        final AtomicLong available;
+        volatile long closedRemainder = CLOSED;
+        // Usage a settlement call has taken to report (guarded by the lease's monitor); never credited back
+        long claimedMinor;
+        // Usage account-management has acknowledged
+        volatile long settledMinor;
+        volatile long expiresAtMillis;
+        volatile long lastDebitMillis;
+
+        Lease(Long accountId, String reservationId, long grantedMinor, long expiresAtMillis) {
+            this.accountId = accountId;
+            this.reservationId = reservationId;
+            this.grantedMinor = grantedMinor;
+            this.available = new AtomicLong(grantedMinor);
+            this.expiresAtMillis = expiresAtMillis;
+            this.lastDebitMillis = System.currentTimeMillis();
+        }
+
+        boolean tryDebit(long amount) {
+            while (true) {
+                long current = available.get();
+                if (current < amount) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - amount)) {
+                    lastDebitMillis = System.currentTimeMillis();
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Give back an unused debit, as long as no settlement has claimed it for reporting. Holds the
+         * monitor so it cannot interleave with {@link #claimSettlement}; debits stay lock-free, and
+         * they only raise usage, so the check still holds when the CAS lands.
+         */
+        synchronized boolean tryCredit(long amount) {
+            while (true) {
+                long current = available.get();
+                if (current == CLOSED || grantedMinor - current - claimedMinor < amount) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current + amount)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Stop local debits. Only the thread that closes the lease records the remainder.
+         */
+        void close() {
+            long remainder = available.getAndSet(CLOSED);
+            if (remainder != CLOSED) {
+                closedRemainder = remainder;
+            }
+        }
+
+        long consumedMinor() {
+            long current = available.get();
+            return grantedMinor - (current != CLOSED ? current : closedRemainder);
+        }
+
+        /**
+         * Usage to report, claimed before the call goes out. A failed call only defers the charge:
+         * totals are cumulative, so the next settlement reports it again.
+         */
+        synchronized long claimSettlement() {
+            long consumed = consumedMinor();
+            claimedMinor = Math.max(claimedMinor, consumed);
+            return consumed;
+        }
+    }
+
+    private final AccountManagementCreditClient creditClient;
+    private final CreditCostEstimator costEstimator;
+    private final CreditBudgetConfig config;
+    private final CreditLeaseConfig leaseConfig;
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Lease> retired = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Object> refillLocks = new ConcurrentHashMap<>();
+    // Smoothed cost per document in credit minor units, stored as double bits
+    private final Map<Long, AtomicLong> costAverages = new ConcurrentHashMap<>();
+
+    public CreditBudgetLeaseManager(AccountManagementCreditClient creditClient,
+                                    CreditCostEstimator costEstimator,
+                                    CreditBudgetConfig config,
+                                    CreditLeaseConfig leaseConfig) {
+        this.creditClient = creditClient;
+        this.costEstimator = costEstimator;
+        this.config = config;
+        this.leaseConfig = leaseConfig;
+    }
+
+    /**
+     * Debit the estimated cost of a document of {@code pageCount} pages under {@code pricing}.
+     */
+    public boolean tryDebit(Long accountId, OperationPricing pricing, int pageCount, String authToken) {
+        return tryDebit(accountId, costEstimator.estimateCreditsRequiredMinor(pricing, pageCount), authToken);
+    }
+
+    /**
+     * Debit {@code cost} from the account's local budget, leasing a new block if needed.
+     */
+    public boolean tryDebit(Long accountId, BigDecimal cost, String authToken) {
+        return tryDebit(accountId, FixedPoint.toUnitsCeiling(cost, FixedPoint.CREDIT_SCALE), authToken);
+    }
+
+    public boolean tryDebit(Long accountId, long costMinor, String authToken) {
+        if (!config.isEnabled() || accountId == null || costMinor <= 0) {
+            return false;
+        }
+        recordCost(accountId, costMinor);
+        Lease lease = leases.get(accountId);
+        if (lease != null && !expiring(lease) && lease.tryDebit(costMinor)) {
+            return true;
+        }
+        lease = refill(accountId, lease, costMinor, authToken);
+        return lease != null && lease.tryDebit(costMinor);
+    }
+
+    /**
+     * Return the cost of a document that was debited but not processed. False when that usage has
+     * already been settled, in which case the caller refunds it through account-management.
+     */
+    public boolean credit(Long accountId, long costMinor) {
+        Lease lease = leases.get(accountId);
+        return lease != null && costMinor > 0 && lease.tryCredit(costMinor);
+    }
+
+    @Scheduled(fixedDelayString = "${app.credit.budget.settle-interval-ms:30000}",
+            initialDelayString = "${app.credit.budget.settle-interval-ms:30000}")
+    public void settleLeases() {
+        if (!config.isEnabled() && leases.isEmpty() && retired.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long renewBeforeMs = config.getLeaseTtlSeconds() * 500L;
+        for (Lease lease : leases.values()) {
+            if (!config.isEnabled() || now - lease.lastDebitMillis > config.getIdleReturnMs()) {
+                retire(lease);
+            } else if (lease.consumedMinor() > lease.settledMinor || lease.expiresAtMillis - now < renewBeforeMs) {
+                settle(lease, false);
+            }
+        }
+        int returned = 0;
+        for (Iterator<Lease> it = retired.iterator(); it.hasNext(); ) {
+            Lease lease = it.next();
+            if (settle(lease, true)) {
+                it.remove();
+                returned++;
+            }
+        }
+        if (returned > 0) {
+            logger.info("Settled and returned {} credit leases; {} active", returned, leases.size());
+        }
+    }
+
+    @PreDestroy
+    public void returnLeases() {
+        leases.values().forEach(this::retire);
+        for (Lease lease : retired) {
+            if (!settle(lease, true)) {
+                // The hold expires on its own; usage that was never reported is lost to billing
+                logger.error("Could not settle credit lease {} for account {} on shutdown: {} consumed, {} settled",
+                        lease.reservationId, lease.accountId, lease.consumedMinor(), lease.settledMinor);
+            }
+        }
+        retired.clear();
+    }
+
+    private Lease refill(Long accountId, Lease stale, long costMinor, String authToken) {
+        synchronized (refillLocks.computeIfAbsent(accountId, key -> new Object())) {
+            Lease current = leases.get(accountId);
+            if (current != null && current != stale && !expiring(current)) {
+                // Another thread refilled while we waited
+                return current;
+            }
+            if (current != null) {
+                retire(current);
+            }
+            long amount = leaseSize(accountId, costMinor);
+            try {
+                CreditLeaseResponse response = creditClient.grantLease(new CreditLeaseRequest(accountId,
+                        FixedPoint.toBigDecimal(amount, FixedPoint.CREDIT_SCALE),
+                        FixedPoint.toBigDecimal(costMinor, FixedPoint.CREDIT_SCALE),
+                        config.getLeaseTtlSeconds(), "doc-budget"), token(authToken));
+                if (response == null || response.getReservationId() == null) {
+                    return null;
+                }
+                Lease lease = new Lease(accountId, response.getReservationId(),
+                        FixedPoint.toUnits(response.getRemainingAmount(), FixedPoint.CREDIT_SCALE),
+                        expiresAt(response));
+                leases.put(accountId, lease);
+                logger.debug("Leased {} credit units for account {} ({})", lease.grantedMinor, accountId,
+                        lease.reservationId);
+                return lease;
+            } catch (Exception e) {
+                logger.warn("Could not lease credit for account {}: {}", accountId, e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private void retire(Lease lease) {
+        if (leases.remove(lease.accountId, lease)) {
+            lease.close();
+            retired.add(lease);
+        }
+    }
+
+    private boolean settle(Lease lease, boolean release) {
+        long consumed = lease.claimSettlement();
+        try {
+            CreditLeaseResponse response = creditClient.settleLease(new CreditLeaseSettleRequest(lease.reservationId,
+                    FixedPoint.toBigDecimal(consumed, FixedPoint.CREDIT_SCALE), release, config.getLeaseTtlSeconds()),
+                    token(null));
+            lease.settledMinor = Math.max(lease.settledMinor, consumed);
+            if (response != null) {
+                lease.expiresAtMillis = expiresAt(response);
+                if (!release && !"RESERVED".equals(response.getStatus())) {
+                    // The hold ended server-side (e.g. expired); stop debiting it and settle the rest late
+                    logger.warn("Credit lease {} is {}; retiring it", lease.reservationId, response.getStatus());
+                    retire(lease);
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to settle credit lease {} ({} consumed): {}", lease.reservationId, consumed, e.getMessage());
+            return false;
+        }
+    }
+
+    private long leaseSize(Long accountId, long costMinor) {
+        AtomicLong average = costAverages.get(accountId);
+        double perDocument = average != null ? Double.longBitsToDouble(average.get()) : costMinor;
+        long size = (long) Math.ceil(perDocument * Math.max(1, config.getDocumentsPerLease()));
+        long min = Math.max(FixedPoint.toUnits(config.getMinLeaseAmount(), FixedPoint.CREDIT_SCALE), costMinor);
+        long max = Math.max(FixedPoint.toUnits(config.getMaxLeaseAmount(), FixedPoint.CREDIT_SCALE), min);
+        return Math.min(Math.max(size, min), max);
+    }
+
+    private void recordCost(Long accountId, long costMinor) {
+        AtomicLong average = costAverages.computeIfAbsent(accountId,
+                key -> new AtomicLong(Double.doubleToLongBits(costMinor)));
+        double alpha = config.getCostSmoothing();
+        while (true) {
+            long bits = average.get();
+            double next = alpha * costMinor + (1 - alpha) * Double.longBitsToDouble(bits);
+            if (average.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    private boolean expiring(Lease lease) {
+        // Leave room for one settlement round so a debit never lands on a hold that is about to lapse
+        return lease.expiresAtMillis - System.currentTimeMillis() < config.getSettleIntervalMs();
+    }
+
+    private long expiresAt(CreditLeaseResponse response) {
+        return response.getExpiresOn() != null
+                ? response.getExpiresOn().getTime()
+                : System.currentTimeMillis() + config.getLeaseTtlSeconds() * 1000L;
+    }
+
+    private String token(String authToken) {
+        return authToken != null && !authToken.isBlank() ? authToken : leaseConfig.getServiceToken();
+    }
+}
@@ -0,0 +1,67 @@
+package com.aplusbinary.binarypixor.doc.service.impl;
+
+import com.aplusbinary.binarypixor.doc.model.CostModel;
+import com.aplusbinary.binarypixor.doc.model.OperationCostMapping;
+import com.aplusbinary.binarypixor.doc.model.OperationPricing;
+import com.aplusbinary.binarypixor.doc.model.PricingConfig;
+import com.aplusbinary.binarypixor.doc.util.FixedPoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+
+/**
+ * Estimates what a document will cost: the credits to reserve for it (operation pricing, scale 4)
+ * and the provider cost behind it (pricing config, scale 6). All arithmetic is done on
+ * {@link FixedPoint} micro units; the BigDecimal variants exist for entity fields and API payloads.
+ */
+@Service
+public class CreditCostEstimator {
+
+    private final long minimumReservationMicros;
+
+    public CreditCostEstimator(@Value("${app.pricing.minimum-reservation:1}") BigDecimal minimumReservation) {
+        this.minimumReservationMicros = FixedPoint.toUnits(minimumReservation, FixedPoint.MICRO_SCALE);
+    }
+
+    /**
+     * Credits to reserve, in credit minor units (hundredths), rounded up and never below the
+     * configured minimum reservation.
+     */
+    public long estimateCreditsRequiredMinor(OperationPricing pricing, int pageCount) {
+        long costMicros = FixedPoint.toUnits(pricing.getCreditCost(), FixedPoint.MICRO_SCALE);
+        long micros = Math.max(Math.multiplyExact(costMicros, billableUnits(pricing.getCostModel(), pageCount)),
+                minimumReservationMicros);
+        return FixedPoint.rescaleCeiling(micros, FixedPoint.MICRO_SCALE, FixedPoint.CREDIT_SCALE);
+    }
+
+    public BigDecimal estimateCreditsRequired(OperationPricing pricing, int pageCount) {
+        return FixedPoint.toBigDecimal(estimateCreditsRequiredMinor(pricing, pageCount), FixedPoint.CREDIT_SCALE);
+    }
+
+    /**
+     * Provider cost of {@code units} (tokens, pages, MB, ... per the config's pricing model) in micro units,
+     * with the mapping's cost multiplier applied when one is given.
+     */
+    public long estimateServiceCostMicros(PricingConfig config, OperationCostMapping mapping, long units) {
+        long micros = Math.multiplyExact(FixedPoint.toUnits(config.getUnitCost(), FixedPoint.MICRO_SCALE), units);
+        if (mapping != null && mapping.getCostMultiplier() != null) {
+            micros = FixedPoint.multiplyCeiling(micros,
+                    FixedPoint.toUnits(mapping.getCostMultiplier(), FixedPoint.MULTIPLIER_SCALE),
+                    FixedPoint.MULTIPLIER_SCALE);
+        }
+        return micros;
+    }
+
+    public BigDecimal estimateServiceCost(PricingConfig config, OperationCostMapping mapping, long units) {
+        return FixedPoint.toBigDecimal(estimateServiceCostMicros(config, mapping, units), FixedPoint.MICRO_SCALE);
+    }
+
+    private static long billableUnits(CostModel costModel, int pageCount) {
+        if (costModel == CostModel.PER_PAGE) {
+            return Math.max(pageCount, 1);
+        }
+        // PER_DOCUMENT, PER_API_CALL and FLAT_RATE all charge once per document
+        return 1L;
+    }
+}
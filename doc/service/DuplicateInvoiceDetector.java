@@ -0,0 +1,79 @@
+package com.aplusbinary.binarypixor.doc.service.impl;
+
+import com.aplusbinary.binarypixor.doc.config.ProcessingConfig;
+import com.aplusbinary.binarypixor.doc.dao.DuplicateInvoiceRepository;
+import com.aplusbinary.binarypixor.doc.model.Invoice;
+import com.aplusbinary.binarypixor.doc.model.ProcessingStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Duplicate upload detection by file content. The upload path hashes the multipart body while writing
+ * its temp file ({@code ContentHash.copy}) and calls {@link #check} before reserving credits, OCR, the
+ * LLM call or S3, so a re-uploaded file costs one indexed lookup instead of a full run that the unique
+ * invoice_number constraint would reject at the end. Matches are scoped to the account the upload is
+ * billed to (account_management_id), so users of one account share the check and other accounts never
+ * match. Uploads that ended in FAILED do not count, so a failed file can be uploaded again. The hash is
+ * then stored on the TempInvoice and carried over to the Invoice.
+ */
+@Service
+public class DuplicateInvoiceDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateInvoiceDetector.class);
+
+    // Terminal states that leave nothing behind worth protecting
+    private static final EnumSet<ProcessingStatus> DEAD_STATUSES = EnumSet.of(ProcessingStatus.FAILED);
+
+    private final ProcessingConfig.Duplicates config;
+    private final DuplicateInvoiceRepository repository;
+
+    public DuplicateInvoiceDetector(ProcessingConfig processingConfig, DuplicateInvoiceRepository repository) {
+        this.config = processingConfig.getDuplicates();
+        this.repository = repository;
+    }
+
+    /**
+     * Empty when the file is new (or detection is off) and processing should go on. With
+     * app.processing.duplicates.action=RETURN_EXISTING, a file already finalized as an invoice returns
+     * that invoice instead. Otherwise a duplicate, or any file still in flight as a live temp invoice,
+     * fails with "Duplicate invoice file: ...".
+     */
+    @Transactional(readOnly = true)
+    public Optional<Invoice> check(String accountManagementId, String contentHash, String fileName) throws Exception {
+        if (!config.isEnabled() || accountManagementId == null || contentHash == null) {
+            return Optional.empty();
+        }
+
+        List<Invoice> invoices = repository.findInvoicesByContentHash(accountManagementId, contentHash,
+                DEAD_STATUSES, PageRequest.of(0, 1));
+        if (!invoices.isEmpty()) {
+            Invoice existing = invoices.get(0);
+            if (config.getAction() == ProcessingConfig.Duplicates.Action.RETURN_EXISTING) {
+                logger.info("Upload '{}' for account {} matches invoice {}, returning the existing invoice",
+                        fileName, accountManagementId, existing.getId());
+                return Optional.of(existing);
+            }
+            logger.info("Rejecting duplicate upload '{}' for account {}: matches invoice {}",
+                    fileName, accountManagementId, existing.getId());
+            throw new Exception("Duplicate invoice file: '" + fileName + "' was already uploaded as invoice "
+                    + existing.getInvoiceNumber());
+        }
+
+        List<Long> tempInvoiceIds = repository.findLiveTempInvoiceIds(accountManagementId, contentHash,
+                DEAD_STATUSES, LocalDateTime.now(), PageRequest.of(0, 1));
+        if (!tempInvoiceIds.isEmpty()) {
+            logger.info("Rejecting duplicate upload '{}' for account {}: matches temp invoice {}",
+                    fileName, accountManagementId, tempInvoiceIds.get(0));
+            throw new Exception("Duplicate invoice file: '" + fileName + "' is already being processed");
+        }
+        return Optional.empty();
+    }
+}
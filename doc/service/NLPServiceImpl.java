@@ -5,7 +5,9 @@ import com.aplusbinary.binarypixor.doc.dto.NLPParsingResult;
 import com.aplusbinary.binarypixor.doc.model.Invoice;
 import com.aplusbinary.binarypixor.doc.model.InvoiceItem;
 import com.aplusbinary.binarypixor.doc.model.Vendor;
+import com.aplusbinary.binarypixor.doc.service.AsyncNLPService;
 import com.aplusbinary.binarypixor.doc.service.NLPService;
+import com.aplusbinary.binarypixor.doc.service.impl.OpenAIRequestScheduler.Priority;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -16,6 +18,9 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -23,18 +28,27 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 @Service
-public class NLPServiceImpl implements NLPService {
+public class NLPServiceImpl implements NLPService, AsyncNLPService {
 
     private static final Logger logger = LoggerFactory.getLogger(NLPServiceImpl.class);
     private static final String OPENAI_API_URL = "https://api.openai.com/v1/chat/completions";
+    // Bump whenever buildPrompt or buildOpenAIRequest changes, so cached parses of the old prompt miss
+    private static final int PROMPT_VERSION = 1;
 
     private final WebClient webClient;
     private final String model;
     private final ObjectMapper objectMapper;
+    private final OpenAIRequestScheduler scheduler;
+    private final NlpParseCache parseCache;
 
-    public NLPServiceImpl(OpenAIConfig openAIConfig) {
+    public NLPServiceImpl(OpenAIConfig openAIConfig, OpenAIRequestScheduler scheduler, NlpParseCache parseCache) {
+        this.scheduler = scheduler;
+        this.parseCache = parseCache;
         this.model = openAIConfig.getModelName();
         this.webClient = WebClient.builder()
                 .baseUrl(OPENAI_API_URL)
@@ -47,92 +61,122 @@ public class NLPServiceImpl implements NLPService {
 
     @Override
     public Invoice parseInvoiceEntities(String rawText) throws Exception {
-        logger.info("Parsing invoice entities from text (length: {})", rawText.length());
+        return await(parseInvoiceEntitiesAsync(rawText).toFuture());
+    }
 
-        String prompt = buildPrompt(rawText);
-        String requestBody = buildOpenAIRequest(prompt);
-        
-        try {
-            String response = webClient.post()
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
+    @Override
+    public NLPParsingResult parseInvoiceEntitiesWithData(String rawText) throws Exception {
+        return await(parseInvoiceEntitiesWithDataAsync(rawText));
+    }
 
-            logger.info("Received AI response: {}", response);
-            
-            return parseResponse(response, rawText);
-            
-        } catch (org.springframework.web.reactive.function.client.WebClientResponseException e) {
-            // Handle specific HTTP errors from OpenAI API
-            int statusCode = e.getStatusCode().value();
-            String responseBody = e.getResponseBodyAsString();
-            
-            if (statusCode == 429) {
-                throw new Exception("OpenAI Rate Limit (429): Too many requests. Wait and try again. Response: " + responseBody);
-            } else if (statusCode == 401) {
-                throw new Exception("OpenAI Authentication Error (401): Invalid API key. Check your OpenAI API key configuration. Response: " + responseBody);
-            } else if (statusCode == 400) {
-                throw new Exception("OpenAI Bad Request (400): Invalid request format. Response: " + responseBody);
-            } else if (statusCode == 500) {
-                throw new Exception("OpenAI Server Error (500): OpenAI service is temporarily unavailable. Try again later. Response: " + responseBody);
-            } else {
-                throw new Exception("OpenAI API Error (" + statusCode + "): " + e.getMessage() + ". Response: " + responseBody);
-            }
-        } catch (Exception e) {
-            // Handle other exceptions (network, timeout, etc.)
-            if (e.getMessage().contains("Connection") || e.getMessage().contains("timeout")) {
-                throw new Exception("Network Error: Cannot connect to OpenAI API. Check your internet connection. Original error: " + e.getMessage());
-            } else {
-                throw new Exception("Unexpected error calling OpenAI API: " + e.getMessage(), e);
-            }
-        }
+    @Override
+    public Mono<Invoice> parseInvoiceEntitiesAsync(String rawText) {
+        logger.info("Parsing invoice entities from text (length: {})", rawText.length());
+        return call(rawText, Priority.INTERACTIVE, (invoice, requestBody, response) -> invoice);
     }
 
     @Override
-    public NLPParsingResult parseInvoiceEntitiesWithData(String rawText) throws Exception {
+    public CompletableFuture<NLPParsingResult> parseInvoiceEntitiesWithDataAsync(String rawText) {
         logger.info("Parsing invoice entities from text with data capture (length: {})", rawText.length());
+        return call(rawText, Priority.INTERACTIVE, NLPParsingResult::new).toFuture();
+    }
 
-        String prompt = buildPrompt(rawText);
-        String requestBody = buildOpenAIRequest(prompt);
-        
-        try {
-            String response = webClient.post()
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
+    @Override
+    public List<CompletableFuture<NLPParsingResult>> parseAllWithDataAsync(List<String> rawTexts, int concurrency) {
+        List<CompletableFuture<NLPParsingResult>> results = new ArrayList<>(rawTexts.size());
+        for (int i = 0; i < rawTexts.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+        Flux.range(0, rawTexts.size())
+                .flatMap(i -> call(rawTexts.get(i), Priority.BATCH, NLPParsingResult::new)
+                        .doOnSuccess(result -> results.get(i).complete(result))
+                        .doOnError(e -> results.get(i).completeExceptionally(e))
+                        .onErrorResume(e -> Mono.empty()), Math.max(1, concurrency))
+                .subscribe();
+        return results;
+    }
 
-            logger.info("Received AI response for data capture: {}", response);
-            
-            Invoice parsedInvoice = parseResponse(response, rawText);
-            
-            // Return result with request/response data for training
-            return new NLPParsingResult(parsedInvoice, requestBody, response);
-            
-        } catch (org.springframework.web.reactive.function.client.WebClientResponseException e) {
+    /**
+     * Parse through the {@link NlpParseCache}, falling back to one OpenAI round trip queued through the
+     * {@link OpenAIRequestScheduler}. Nothing blocks: the request is built on subscription, the response
+     * is parsed on the thread that delivers it, and errors are translated as the blocking API always did.
+     */
+    private <T> Mono<T> call(String rawText, Priority priority, ResultFactory<T> resultFactory) {
+        if (!parseCache.isEnabled()) {
+            return fetch(rawText, priority, null, resultFactory).onErrorMap(this::translateError);
+        }
+        String cacheKey = parseCache.key(rawText, model, PROMPT_VERSION);
+        return parseCache.lookup(cacheKey)
+                .flatMap(entry -> Mono.fromCallable(() -> {
+                    logger.info("NLP parse cache hit for text (length: {})", rawText.length());
+                    Invoice invoice = parseResponse(entry.getNlpResponse(), rawText);
+                    invoice.setNlpCacheHit(true);
+                    return resultFactory.create(invoice, entry.getNlpRequest(), entry.getNlpResponse());
+                }).onErrorResume(e -> Mono.empty()))
+                .switchIfEmpty(Mono.defer(() -> fetch(rawText, priority, cacheKey, resultFactory)))
+                .onErrorMap(this::translateError);
+    }
+
+    private <T> Mono<T> fetch(String rawText, Priority priority, String cacheKey, ResultFactory<T> resultFactory) {
+        return Mono.fromCallable(() -> buildOpenAIRequest(buildPrompt(rawText)))
+                .flatMap(requestBody -> scheduler.submit(priority, scheduler.estimateTokens(requestBody),
+                                () -> webClient.post()
+                                        .bodyValue(requestBody)
+                                        .retrieve()
+                                        .toEntity(String.class))
+                        .defaultIfEmpty("")
+                        .flatMap(response -> Mono.fromCallable(() -> {
+                            logger.info("Received AI response: {}", response);
+                            Invoice invoice = parseResponse(response, rawText);
+                            // Only responses that parse are worth serving again
+                            if (cacheKey != null) {
+                                parseCache.store(cacheKey, model, PROMPT_VERSION, requestBody, response);
+                            }
+                            // Request/response data is passed on for training
+                            return resultFactory.create(invoice, requestBody, response);
+                        })));
+    }
+
+    private interface ResultFactory<T> {
+        T create(Invoice invoice, String requestBody, String response);
+    }
+
+    private Throwable translateError(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
             // Handle specific HTTP errors from OpenAI API
-            int statusCode = e.getStatusCode().value();
-            String responseBody = e.getResponseBodyAsString();
-            
+            int statusCode = responseException.getStatusCode().value();
+            String responseBody = responseException.getResponseBodyAsString();
+
             if (statusCode == 429) {
-                throw new Exception("OpenAI Rate Limit (429): Too many requests. Wait and try again. Response: " + responseBody);
+                return new Exception("OpenAI Rate Limit (429): Too many requests. Wait and try again. Response: " + responseBody);
             } else if (statusCode == 401) {
-                throw new Exception("OpenAI Authentication Error (401): Invalid API key. Check your OpenAI API key configuration. Response: " + responseBody);
+                return new Exception("OpenAI Authentication Error (401): Invalid API key. Check your OpenAI API key configuration. Response: " + responseBody);
             } else if (statusCode == 400) {
-                throw new Exception("OpenAI Bad Request (400): Invalid request format. Response: " + responseBody);
+                return new Exception("OpenAI Bad Request (400): Invalid request format. Response: " + responseBody);
             } else if (statusCode == 500) {
-                throw new Exception("OpenAI Server Error (500): OpenAI service is temporarily unavailable. Try again later. Response: " + responseBody);
+                return new Exception("OpenAI Server Error (500): OpenAI service is temporarily unavailable. Try again later. Response: " + responseBody);
             } else {
-                throw new Exception("OpenAI API Error (" + statusCode + "): " + e.getMessage() + ". Response: " + responseBody);
+                return new Exception("OpenAI API Error (" + statusCode + "): " + e.getMessage() + ". Response: " + responseBody);
             }
-        } catch (Exception e) {
-            // Handle other exceptions (network, timeout, etc.)
-            if (e.getMessage().contains("Connection") || e.getMessage().contains("timeout")) {
-                throw new Exception("Network Error: Cannot connect to OpenAI API. Check your internet connection. Original error: " + e.getMessage());
-            } else {
-                throw new Exception("Unexpected error calling OpenAI API: " + e.getMessage(), e);
+        }
+        // Handle other exceptions (network, timeout, etc.)
+        String message = String.valueOf(e.getMessage());
+        if (message.contains("Connection") || message.contains("timeout")) {
+            return new Exception("Network Error: Cannot connect to OpenAI API. Check your internet connection. Original error: " + message);
+        }
+        return new Exception("Unexpected error calling OpenAI API: " + message, e);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
             }
+            throw e;
         }
     }
 
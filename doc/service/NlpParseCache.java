@@ -0,0 +1,169 @@
+package com.aplusbinary.binarypixor.doc.service.impl;
+
+import com.aplusbinary.binarypixor.doc.config.OpenAIConfig;
+import com.aplusbinary.binarypixor.doc.dao.NlpParseCacheRepository;
+import com.aplusbinary.binarypixor.doc.model.NlpParseCacheEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed cache of OpenAI parse results, so a re-upload, a retry after validation failure or
+ * a duplicate invoice does not pay for the same completion twice.
+ *
+ * The key is SHA-256 of prompt version, model and the normalized raw text (NFKC, whitespace runs
+ * collapsed, trimmed), so OCR spacing noise still hits while any change to prompt or model misses.
+ * Entries live in a bounded in-memory LRU weighed by their request/response size, backed by the
+ * nlp_parse_cache table in docdb. Database work runs on the bounded-elastic scheduler, and a failing
+ * database only turns lookups into misses.
+ */
+@Service
+public class NlpParseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NlpParseCache.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Key, map node and object headers
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+
+    public static final class Entry {
+        private final String nlpRequest;
+        private final String nlpResponse;
+        private final long weight;
+
+        Entry(String nlpRequest, String nlpResponse) {
+            this.nlpRequest = nlpRequest;
+            this.nlpResponse = nlpResponse;
+            this.weight = 2L * (nlpRequest.length() + nlpResponse.length()) + ENTRY_OVERHEAD_BYTES;
+        }
+
+        public String getNlpRequest() {
+            return nlpRequest;
+        }
+
+        public String getNlpResponse() {
+            return nlpResponse;
+        }
+    }
+
+    private final OpenAIConfig.Cache config;
+    private final NlpParseCacheRepository repository;
+    // Access-ordered, guarded by itself
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+
+    public NlpParseCache(OpenAIConfig openAIConfig, NlpParseCacheRepository repository) {
+        this.config = openAIConfig.getCache();
+        this.repository = repository;
+        logger.info("NLP parse cache {} (memory {} MB, persistent {})", config.isEnabled() ? "enabled" : "disabled",
+                config.getMemoryMaxBytes() / (1024 * 1024), config.isPersistent());
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public String key(String rawText, String model, int promptVersion) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(rawText, Normalizer.Form.NFKC)).replaceAll(" ").trim();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((promptVersion + "\n" + model + "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The cached request/response for a key, from memory or else from docdb (then kept in memory);
+     * empty on a miss.
+     */
+    public Mono<Entry> lookup(String key) {
+        Entry cached;
+        synchronized (memory) {
+            cached = memory.get(key);
+        }
+        if (cached != null) {
+            recordHit(key);
+            return Mono.just(cached);
+        }
+        if (!config.isPersistent()) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> repository.findById(key).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(stored -> {
+                    Entry entry = new Entry(stored.getNlpRequest(), stored.getNlpResponse());
+                    remember(key, entry);
+                    recordHit(key);
+                    return entry;
+                })
+                .onErrorResume(e -> {
+                    logger.warn("NLP parse cache lookup failed, treating as a miss: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public void store(String key, String model, int promptVersion, String nlpRequest, String nlpResponse) {
+        remember(key, new Entry(nlpRequest, nlpResponse));
+        if (!config.isPersistent()) {
+            return;
+        }
+        Mono.fromRunnable(() -> repository.save(new NlpParseCacheEntry(key, model, promptVersion, nlpRequest, nlpResponse)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(null, e -> logger.warn("Failed to persist NLP parse cache entry {}: {}", key, e.getMessage()));
+    }
+
+    @Scheduled(cron = "${openai.cache.purge-cron:0 30 3 * * *}")
+    public void purgeIdle() {
+        if (!config.isEnabled() || !config.isPersistent()) {
+            return;
+        }
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(config.getRetentionDays()));
+        int purged = repository.deleteIdleSince(cutoff);
+        if (purged > 0) {
+            logger.info("Purged {} NLP parse cache entries idle since {}", purged, cutoff);
+        }
+    }
+
+    private void remember(String key, Entry entry) {
+        if (entry.weight > config.getMemoryMaxBytes()) {
+            return;
+        }
+        synchronized (memory) {
+            Entry previous = memory.put(key, entry);
+            memoryBytes += entry.weight - (previous != null ? previous.weight : 0);
+            // Evict least recently used until the entries fit again
+            Iterator<Map.Entry<String, Entry>> eldest = memory.entrySet().iterator();
+            while (memoryBytes > config.getMemoryMaxBytes() && eldest.hasNext()) {
+                memoryBytes -= eldest.next().getValue().weight;
+                eldest.remove();
+            }
+        }
+    }
+
+    // Keeps last_hit_on current so the purge only drops entries nobody uses
+    private void recordHit(String key) {
+        if (!config.isPersistent()) {
+            return;
+        }
+        Mono.fromCallable(() -> repository.recordHit(key, new Date()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(null, e -> logger.debug("Failed to record NLP parse cache hit for {}: {}", key, e.getMessage()));
+    }
+}
@@ -0,0 +1,372 @@
+package com.aplusbinary.binarypixor.doc.service.impl;
+
+import com.aplusbinary.binarypixor.doc.config.TesseractConfig;
+import com.sun.jna.Pointer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.tess4j.ITessAPI.TessBaseAPI;
+import net.sourceforge.tess4j.TessAPI1;
+import net.sourceforge.tess4j.util.ImageIOHelper;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pooled Tesseract OCR. A fixed set of worker threads (one per core by default) each own one native
+ * Tesseract handle, initialized with the language data once and reused for every page that worker
+ * runs; handles are never shared between threads.
+ *
+ * A document is split into pages (PDF pages rendered with PDFBox at {@code tesseract.pool.render-dpi},
+ * every frame of a multi-page TIFF) and the pages are OCR'd in parallel across the pool; the text is
+ * reassembled in page order. Rendering stays on the calling thread, as a PDFBox document is not
+ * thread-safe, and at most two pages per worker are rendered ahead of OCR across all documents being
+ * processed, which bounds memory however many uploads arrive at once. The per-page timeout counts from
+ * the moment a worker picks the page up, so time spent queued behind other documents is not held
+ * against it.
+ *
+ * Pool size, active workers, queue depth and per-page latency are published to Micrometer when a
+ * registry is present (ocr.pool.*, ocr.page.latency), and are also available from the getters.
+ */
+@Service
+public class OcrEngineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OcrEngineService.class);
+
+    private static final String PAGE_SEPARATOR = "\n\n";
+
+    private final TesseractConfig config;
+    private final ThreadPoolExecutor executor;
+    // Rendered pages not yet OCR'd, over all documents
+    private final Semaphore renderAhead;
+    private final ThreadLocal<TessBaseAPI> handle;
+    // Every handle created, so shutdown can release them once the workers have stopped
+    private final ConcurrentLinkedQueue<TessBaseAPI> handles = new ConcurrentLinkedQueue<>();
+    private final Timer pageTimer;
+
+    public OcrEngineService(TesseractConfig config, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.config = config;
+        int threads = config.getPool().getThreads() > 0
+                ? config.getPool().getThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger workerIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(config.getPool().getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ocr-worker-" + workerIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.renderAhead = new Semaphore(threads * 2);
+        this.handle = ThreadLocal.withInitial(this::createHandle);
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("ocr.pool.size", executor, ThreadPoolExecutor::getPoolSize)
+                    .description("OCR worker threads")
+                    .register(registry);
+            Gauge.builder("ocr.pool.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .description("OCR workers currently running a page")
+                    .register(registry);
+            Gauge.builder("ocr.pool.queue.depth", executor, pool -> pool.getQueue().size())
+                    .description("Pages waiting for an OCR worker")
+                    .register(registry);
+            this.pageTimer = Timer.builder("ocr.page.latency")
+                    .description("Tesseract time per page")
+                    .register(registry);
+        } else {
+            this.pageTimer = null;
+        }
+
+        // Start every worker and load its language data now rather than on the first upload
+        executor.prestartAllCoreThreads();
+        for (int i = 0; i < threads; i++) {
+            executor.execute(handle::get);
+        }
+        logger.info("OCR engine initialized with {} workers (language: {}, data path: {})",
+                threads, config.getLanguageCode(), config.getDataPath());
+    }
+
+    /**
+     * OCR a PDF or image file and return its text, pages in order separated by a blank line.
+     */
+    public String extractText(File file) throws Exception {
+        return String.join(PAGE_SEPARATOR, extractPages(file));
+    }
+
+    /**
+     * OCR a PDF or image file page by page; the list is in page order.
+     */
+    public List<String> extractPages(File file) throws Exception {
+        long started = System.nanoTime();
+        List<String> pages = isPdf(file) ? ocrPdf(file) : ocrImages(file);
+        logger.info("OCR of {} finished: {} pages in {} ms", file.getName(), pages.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return pages;
+    }
+
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    public int getActiveWorkers() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Share of workers busy right now, 0.0 to 1.0.
+     */
+    public double getUtilization() {
+        int size = executor.getPoolSize();
+        return size == 0 ? 0.0 : (double) executor.getActiveCount() / size;
+    }
+
+    private List<String> ocrPdf(File file) throws Exception {
+        int dpi = config.getPool().getRenderDpi();
+        try (PDDocument document = Loader.loadPDF(file)) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            PageBatch batch = new PageBatch(document.getNumberOfPages());
+            for (int page = 0; page < document.getNumberOfPages(); page++) {
+                batch.submit(renderer.renderImageWithDPI(page, dpi, ImageType.GRAY), dpi);
+            }
+            return batch.await(file.getName());
+        }
+    }
+
+    private List<String> ocrImages(File file) throws Exception {
+        try (InputStream in = Files.newInputStream(file.toPath());
+             ImageInputStream images = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = images != null ? ImageIO.getImageReaders(images) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new Exception("Unsupported image format for OCR: " + file.getName());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(images);
+                // Multi-page TIFFs carry one frame per page
+                int count = reader.getNumImages(true);
+                PageBatch batch = new PageBatch(count);
+                for (int page = 0; page < count; page++) {
+                    batch.submit(toGray(reader.read(page)), 0);
+                }
+                return batch.await(file.getName());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * One page on the pool. Holds a render-ahead permit from submit until the page has run, or until it
+     * is cancelled before a worker picked it up.
+     */
+    private final class PageTask {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int DROPPED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final AtomicReference<BufferedImage> image;
+        private final int dpi;
+        private volatile long startedNanos;
+        private Future<String> result;
+
+        PageTask(BufferedImage image, int dpi) {
+            this.image = new AtomicReference<>(image);
+            this.dpi = dpi;
+        }
+
+        String run() {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                return null;
+            }
+            startedNanos = System.nanoTime();
+            started.countDown();
+            try {
+                return ocrPage(image.getAndSet(null), dpi);
+            } finally {
+                renderAhead.release();
+            }
+        }
+
+        void cancel() {
+            result.cancel(false);
+            if (state.compareAndSet(QUEUED, DROPPED)) {
+                image.set(null);
+                renderAhead.release();
+            }
+        }
+    }
+
+    /**
+     * The pages of one document in flight on the pool.
+     */
+    private final class PageBatch {
+        private final List<PageTask> tasks;
+
+        PageBatch(int pageCount) {
+            this.tasks = new ArrayList<>(pageCount);
+        }
+
+        void submit(BufferedImage image, int dpi) throws Exception {
+            renderAhead.acquire();
+            PageTask task = new PageTask(image, dpi);
+            try {
+                task.result = executor.submit(task::run);
+                tasks.add(task);
+            } catch (RejectedExecutionException e) {
+                renderAhead.release();
+                cancel();
+                throw new Exception("OCR queue is full (" + getQueueDepth() + " pages waiting). Try again later.");
+            }
+        }
+
+        List<String> await(String fileName) throws Exception {
+            long timeoutNanos = TimeUnit.SECONDS.toNanos(config.getPool().getPageTimeoutSeconds());
+            List<String> pages = new ArrayList<>(tasks.size());
+            try {
+                for (int page = 0; page < tasks.size(); page++) {
+                    PageTask task = tasks.get(page);
+                    try {
+                        awaitStart(task);
+                        long remaining = timeoutNanos - (System.nanoTime() - task.startedNanos);
+                        pages.add(task.result.get(Math.max(0L, remaining), TimeUnit.NANOSECONDS));
+                    } catch (TimeoutException e) {
+                        throw new Exception("OCR timed out on page " + (page + 1) + " of " + fileName);
+                    } catch (ExecutionException e) {
+                        throw new Exception("OCR failed on page " + (page + 1) + " of " + fileName + ": "
+                                + e.getCause().getMessage(), e.getCause());
+                    }
+                }
+                return pages;
+            } catch (Exception e) {
+                cancel();
+                throw e;
+            }
+        }
+
+        // Queue time does not count against the page timeout
+        private void awaitStart(PageTask task) throws Exception {
+            while (!task.started.await(1, TimeUnit.SECONDS)) {
+                if (executor.isShutdown()) {
+                    throw new Exception("OCR engine is shutting down");
+                }
+            }
+        }
+
+        private void cancel() {
+            // Queued pages are dropped; a page already running finishes on its worker
+            tasks.forEach(PageTask::cancel);
+        }
+    }
+
+    // Runs on a worker thread, with that worker's handle
+    private String ocrPage(BufferedImage image, int dpi) {
+        long started = System.nanoTime();
+        TessBaseAPI api = handle.get();
+        ByteBuffer pixels = ImageIOHelper.convertImageData(image);
+        int bitsPerPixel = image.getColorModel().getPixelSize();
+        int bytesPerLine = (int) Math.ceil(image.getWidth() * bitsPerPixel / 8.0);
+        TessAPI1.TessBaseAPISetImage(api, pixels, image.getWidth(), image.getHeight(), bitsPerPixel / 8, bytesPerLine);
+        if (dpi > 0) {
+            TessAPI1.TessBaseAPISetSourceResolution(api, dpi);
+        }
+        Pointer text = TessAPI1.TessBaseAPIGetUTF8Text(api);
+        try {
+            return text != null ? text.getString(0, StandardCharsets.UTF_8.name()) : "";
+        } finally {
+            if (text != null) {
+                TessAPI1.TessDeleteText(text);
+            }
+            TessAPI1.TessBaseAPIClear(api);
+            if (pageTimer != null) {
+                pageTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private TessBaseAPI createHandle() {
+        TessBaseAPI api = TessAPI1.TessBaseAPICreate();
+        if (TessAPI1.TessBaseAPIInit3(api, config.getDataPath(), config.getLanguageCode()) != 0) {
+            TessAPI1.TessBaseAPIDelete(api);
+            throw new IllegalStateException("Could not initialize Tesseract with language '"
+                    + config.getLanguageCode() + "' from " + config.getDataPath());
+        }
+        handles.add(api);
+        logger.debug("Tesseract initialized on {}", Thread.currentThread().getName());
+        return api;
+    }
+
+    private static boolean isPdf(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && magic[0] == '%' && magic[1] == 'P' && magic[2] == 'D' && magic[3] == 'F';
+        }
+    }
+
+    private static BufferedImage toGray(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
+        }
+        BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return gray;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("OCR workers did not stop in time; leaving Tesseract handles to the process exit");
+            return;
+        }
+        TessBaseAPI api;
+        while ((api = handles.poll()) != null) {
+            TessAPI1.TessBaseAPIEnd(api);
+            TessAPI1.TessBaseAPIDelete(api);
+        }
+        logger.info("OCR engine shut down");
+    }
+}
@@ -0,0 +1,452 @@
+package com.aplusbinary.binarypixor.doc.service.impl;
+
+import com.aplusbinary.binarypixor.doc.config.OpenAIConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Client-side scheduler in front of the OpenAI calls, so bursts of uploads queue here instead of
+ * turning into 429s.
+ *
+ * Calls wait in a priority queue (interactive uploads ahead of batch work, FIFO within a priority) and
+ * are released while two limits allow it:
+ * <ul>
+ *   <li>a concurrency limit adapted AIMD-style: +1/limit per successful call while the limit is the
+ *       bottleneck, and a multiplicative cut on a 429 (at most once per cooldown);</li>
+ *   <li>the request and token budgets the provider reports in its x-ratelimit-* headers, less a small
+ *       headroom. A call reserves one request and its estimated tokens up front; once a budget is spent
+ *       the queue waits for the reported reset.</li>
+ * </ul>
+ * A 429, 5xx or connection failure is retried with jittered exponential backoff, never sooner than the
+ * provider's Retry-After / reset hint, and a 429 pauses the whole queue until then. Queueing and retries
+ * together are bounded by {@code openai.scheduler.max-wait-ms} so a document never outlives its credit
+ * reservation; after that the last error is passed on unchanged. A 429 for an exhausted quota is not
+ * retried.
+ */
+@Service
+public class OpenAIRequestScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenAIRequestScheduler.class);
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    public enum Priority {
+        INTERACTIVE,
+        BATCH
+    }
+
+    private final OpenAIConfig.Scheduler config;
+    private final PriorityQueue<Pending<?>> queue = new PriorityQueue<>(
+            Comparator.comparing((Pending<?> pending) -> pending.priority).thenComparingLong(pending -> pending.sequence));
+    private final Budget requests = new Budget();
+    private final Budget tokens = new Budget();
+
+    // Guarded by this
+    private long sequence;
+    private double limit;
+    private int inFlight;
+    private long inFlightTokens;
+    private long lastDecreaseNanos;
+    private boolean drainScheduled;
+
+    public OpenAIRequestScheduler(OpenAIConfig openAIConfig) {
+        this.config = openAIConfig.getScheduler();
+        this.limit = Math.max(config.getMinConcurrency(), Math.min(config.getMaxConcurrency(), config.getInitialConcurrency()));
+        this.lastDecreaseNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.getDecreaseCooldownMs());
+        logger.info("OpenAI request scheduler initialized with concurrency {} (range {}-{})",
+                (int) limit, config.getMinConcurrency(), config.getMaxConcurrency());
+    }
+
+    /**
+     * Rough token cost of a chat completion: about four characters per prompt token, plus the
+     * completion allowance.
+     */
+    public long estimateTokens(String requestBody) {
+        return requestBody.length() / 4 + config.getMaxCompletionTokens();
+    }
+
+    /**
+     * Queue a call and emit its response body. {@code call} is invoked once per attempt and must not
+     * start the exchange before it is subscribed. Cancelling the returned Mono drops the call from the
+     * queue, or cancels the exchange in flight.
+     */
+    public <T> Mono<T> submit(Priority priority, long estimatedTokens, Supplier<Mono<ResponseEntity<T>>> call) {
+        return Mono.create(sink -> {
+            Pending<T> pending;
+            synchronized (this) {
+                pending = new Pending<>(priority, sequence++, estimatedTokens, call, sink,
+                        System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getMaxWaitMs()));
+                queue.add(pending);
+            }
+            sink.onCancel(() -> cancel(pending));
+            drain();
+        });
+    }
+
+    private void drain() {
+        List<Pending<?>> ready = new ArrayList<>();
+        List<Pending<?>> expired = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            while (!queue.isEmpty() && inFlight < (int) limit) {
+                Pending<?> next = queue.peek();
+                if (now - next.deadlineNanos > 0) {
+                    queue.poll();
+                    next.finished = true;
+                    expired.add(next);
+                    continue;
+                }
+                long wait = Math.max(requests.waitNanos(1, now, config.getBudgetHeadroom()),
+                        tokens.waitNanos(next.estimatedTokens, now, config.getBudgetHeadroom()));
+                if (wait > 0) {
+                    scheduleDrain(wait);
+                    break;
+                }
+                queue.poll();
+                requests.take(1);
+                tokens.take(next.estimatedTokens);
+                inFlight++;
+                inFlightTokens += next.estimatedTokens;
+                next.running = true;
+                next.attempts++;
+                ready.add(next);
+            }
+        }
+        expired.forEach(pending -> pending.sink.error(new Exception("OpenAI request was not sent within "
+                + config.getMaxWaitMs() + " ms: rate limit queue is saturated")));
+        ready.forEach(this::dispatch);
+    }
+
+    private <T> void dispatch(Pending<T> pending) {
+        Disposable subscription = Mono.defer(pending.call)
+                .subscribe(response -> onSuccess(pending, response), error -> onFailure(pending, error));
+        boolean cancelled;
+        synchronized (this) {
+            pending.subscription = subscription;
+            cancelled = pending.cancelled;
+        }
+        if (cancelled) {
+            subscription.dispose();
+        }
+    }
+
+    private <T> void onSuccess(Pending<T> pending, ResponseEntity<T> response) {
+        synchronized (this) {
+            if (pending.finished) {
+                return;
+            }
+            pending.finished = true;
+            // Only grow while the limit is what holds calls back
+            boolean saturated = inFlight >= (int) limit;
+            release(pending);
+            observe(response.getHeaders(), System.nanoTime());
+            if (saturated) {
+                limit = Math.min(config.getMaxConcurrency(), limit + 1.0 / limit);
+            }
+        }
+        pending.sink.success(response.getBody());
+        drain();
+    }
+
+    private <T> void onFailure(Pending<T> pending, Throwable error) {
+        long retryNanos = -1;
+        synchronized (this) {
+            if (pending.finished) {
+                return;
+            }
+            release(pending);
+            long now = System.nanoTime();
+            HttpHeaders headers = error instanceof WebClientResponseException e ? e.getHeaders() : null;
+            if (headers != null) {
+                observe(headers, now);
+            }
+            if (isRetryable(error) && pending.attempts < config.getMaxAttempts()) {
+                long hint = retryHintNanos(headers);
+                long delay = Math.max(backoffNanos(pending.attempts), hint);
+                if (now + delay - pending.deadlineNanos < 0) {
+                    retryNanos = delay;
+                }
+                if (isRateLimited(error)) {
+                    decrease(now);
+                    if (hint > 0) {
+                        requests.pauseUntil(now + hint);
+                    }
+                }
+            }
+            if (retryNanos < 0) {
+                pending.finished = true;
+            }
+        }
+        if (retryNanos >= 0) {
+            logger.debug("OpenAI call failed on attempt {} ({}), retrying in {} ms",
+                    pending.attempts, error.getMessage(), TimeUnit.NANOSECONDS.toMillis(retryNanos));
+            Schedulers.parallel().schedule(() -> requeue(pending), retryNanos, TimeUnit.NANOSECONDS);
+        } else {
+            pending.sink.error(error);
+        }
+        drain();
+    }
+
+    private void requeue(Pending<?> pending) {
+        synchronized (this) {
+            if (pending.finished) {
+                return;
+            }
+            // Keeps its original sequence, so a retry goes back to the front of its priority
+            queue.add(pending);
+        }
+        drain();
+    }
+
+    private void cancel(Pending<?> pending) {
+        Disposable subscription;
+        synchronized (this) {
+            if (pending.finished) {
+                return;
+            }
+            pending.finished = true;
+            pending.cancelled = true;
+            queue.remove(pending);
+            subscription = pending.subscription;
+            if (pending.running) {
+                release(pending);
+            }
+        }
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        drain();
+    }
+
+    // Caller holds the lock
+    private void release(Pending<?> pending) {
+        if (pending.running) {
+            pending.running = false;
+            inFlight--;
+            inFlightTokens -= pending.estimatedTokens;
+        }
+    }
+
+    // Caller holds the lock
+    private void decrease(long now) {
+        if (now - lastDecreaseNanos < TimeUnit.MILLISECONDS.toNanos(config.getDecreaseCooldownMs())) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        double previous = limit;
+        limit = Math.max(config.getMinConcurrency(), limit * config.getConcurrencyDecrease());
+        logger.warn("OpenAI rate limited: concurrency limit {} -> {}", (int) previous, (int) limit);
+    }
+
+    // Caller holds the lock
+    private void scheduleDrain(long delayNanos) {
+        if (drainScheduled) {
+            return;
+        }
+        drainScheduled = true;
+        Schedulers.parallel().schedule(() -> {
+            synchronized (this) {
+                drainScheduled = false;
+            }
+            drain();
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Take the provider's view of both budgets. Its remaining counts do not include calls still in
+     * flight here, so those are subtracted again.
+     */
+    private void observe(HttpHeaders headers, long now) {
+        Long requestLimit = longHeader(headers, "x-ratelimit-limit-requests");
+        Long requestsLeft = longHeader(headers, "x-ratelimit-remaining-requests");
+        if (requestLimit != null && requestsLeft != null) {
+            requests.observe(requestLimit, requestsLeft - inFlight,
+                    durationNanos(headers.getFirst("x-ratelimit-reset-requests")), now);
+        }
+        Long tokenLimit = longHeader(headers, "x-ratelimit-limit-tokens");
+        Long tokensLeft = longHeader(headers, "x-ratelimit-remaining-tokens");
+        if (tokenLimit != null && tokensLeft != null) {
+            tokens.observe(tokenLimit, tokensLeft - inFlightTokens,
+                    durationNanos(headers.getFirst("x-ratelimit-reset-tokens")), now);
+        }
+    }
+
+    private long backoffNanos(int attempts) {
+        long backoff = Math.min(config.getRetryMaxMs(), config.getRetryBaseMs() << Math.min(attempts - 1, 20));
+        // Equal jitter: half fixed, half random, so retries from one burst spread out
+        long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        return TimeUnit.MILLISECONDS.toNanos(jittered);
+    }
+
+    /**
+     * Earliest sensible retry per the provider: Retry-After, else the reset time of whichever budget
+     * it reports as spent. 0 when there is no hint.
+     */
+    private static long retryHintNanos(HttpHeaders headers) {
+        if (headers == null) {
+            return 0;
+        }
+        Long retryAfter = longHeader(headers, HttpHeaders.RETRY_AFTER);
+        if (retryAfter != null) {
+            return TimeUnit.SECONDS.toNanos(retryAfter);
+        }
+        long hint = 0;
+        if (Long.valueOf(0).equals(longHeader(headers, "x-ratelimit-remaining-requests"))) {
+            hint = durationNanos(headers.getFirst("x-ratelimit-reset-requests"));
+        }
+        if (Long.valueOf(0).equals(longHeader(headers, "x-ratelimit-remaining-tokens"))) {
+            hint = Math.max(hint, durationNanos(headers.getFirst("x-ratelimit-reset-tokens")));
+        }
+        return hint;
+    }
+
+    private static boolean isRateLimited(Throwable error) {
+        return error instanceof WebClientResponseException e && e.getStatusCode().value() == 429;
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientRequestException) {
+            return true;
+        }
+        if (error instanceof WebClientResponseException e) {
+            int status = e.getStatusCode().value();
+            if (status == 429) {
+                // Out of quota (billing), not out of rate: waiting will not help
+                return !e.getResponseBodyAsString().contains("insufficient_quota");
+            }
+            return status == 500 || status == 502 || status == 503 || status == 504;
+        }
+        return false;
+    }
+
+    private static Long longHeader(HttpHeaders headers, String name) {
+        String value = headers.getFirst(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse OpenAI's reset durations ("20ms", "1s", "6m0s", "1h2m3.5s"); 0 if absent or unreadable.
+     */
+    static long durationNanos(String value) {
+        if (value == null) {
+            return 0;
+        }
+        double nanos = 0;
+        Matcher matcher = DURATION_PART.matcher(value);
+        while (matcher.find()) {
+            double amount = Double.parseDouble(matcher.group(1));
+            nanos += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000_000_000d;
+                case "m" -> amount * 60_000_000_000d;
+                case "s" -> amount * 1_000_000_000d;
+                default -> amount * 1_000_000d;
+            };
+        }
+        return (long) nanos;
+    }
+
+    /**
+     * One provider budget (requests or tokens per minute). Until the provider has reported a limit it
+     * does not hold calls back. Guarded by the scheduler's lock.
+     */
+    private static final class Budget {
+        long limit;
+        long remaining;
+        long resetAtNanos = System.nanoTime();
+        boolean paused;
+
+        long waitNanos(long cost, long now, double headroom) {
+            if (now - resetAtNanos >= 0) {
+                remaining = limit;
+                paused = false;
+            }
+            if (paused) {
+                return resetAtNanos - now;
+            }
+            if (limit <= 0) {
+                return 0;
+            }
+            long reserve = (long) Math.ceil(limit * headroom);
+            // A call bigger than the whole budget still goes once the window is fresh
+            if (remaining - cost >= reserve || remaining >= limit) {
+                return 0;
+            }
+            return Math.max(resetAtNanos - now, 1);
+        }
+
+        void take(long cost) {
+            if (limit > 0) {
+                remaining -= cost;
+            }
+        }
+
+        void observe(long limit, long remaining, long resetNanos, long now) {
+            this.limit = limit;
+            this.remaining = remaining;
+            long resetAt = now + resetNanos;
+            if (!paused || resetAt - resetAtNanos > 0) {
+                resetAtNanos = resetAt;
+            }
+        }
+
+        void pauseUntil(long untilNanos) {
+            if (!paused || untilNanos - resetAtNanos > 0) {
+                resetAtNanos = untilNanos;
+            }
+            paused = true;
+            remaining = 0;
+        }
+    }
+
+    private static final class Pending<T> {
+        final Priority priority;
+        final long sequence;
+        final long estimatedTokens;
+        final Supplier<Mono<ResponseEntity<T>>> call;
+        final MonoSink<T> sink;
+        final long deadlineNanos;
+
+        // Guarded by the scheduler's lock
+        int attempts;
+        boolean running;
+        boolean finished;
+        boolean cancelled;
+        Disposable subscription;
+
+        Pending(Priority priority, long sequence, long estimatedTokens, Supplier<Mono<ResponseEntity<T>>> call,
+                MonoSink<T> sink, long deadlineNanos) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.estimatedTokens = estimatedTokens;
+            this.call = call;
+            this.sink = sink;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.aplusbinary.binarypixor.doc.service.impl;
+
+import com.aplusbinary.binarypixor.doc.client.AccountManagementCreditClient;
+import com.aplusbinary.binarypixor.doc.config.CreditLeaseConfig;
+import com.aplusbinary.binarypixor.doc.dao.DocumentProcessingLogRepository;
+import com.aplusbinary.binarypixor.doc.dto.CreditBatchReservationResponse;
+import com.aplusbinary.binarypixor.doc.model.ProcessingStatusType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Keeps credit reservations alive while their documents are still being processed.
+ *
+ * Slow OCR or an LLM call stuck behind rate limits can outlive the reservation TTL. Instead of raising
+ * the TTL for everyone, this renews the hold of every PROCESSING document in batches on a fixed
+ * interval, so the TTL can stay short and holds from crashed or abandoned jobs lapse quickly. Jobs older
+ * than app.credit.lease.max-job-seconds are no longer renewed, so a job that crashed without leaving
+ * PROCESSING does not keep its hold forever.
+ */
+@Service
+public class ReservationLeaseKeeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationLeaseKeeper.class);
+
+    private final DocumentProcessingLogRepository processingLogRepository;
+    private final AccountManagementCreditClient creditClient;
+    private final CreditLeaseConfig config;
+
+    public ReservationLeaseKeeper(DocumentProcessingLogRepository processingLogRepository,
+                                  AccountManagementCreditClient creditClient,
+                                  CreditLeaseConfig config) {
+        this.processingLogRepository = processingLogRepository;
+        this.creditClient = creditClient;
+        this.config = config;
+    }
+
+    @Scheduled(fixedDelayString = "${app.credit.lease.renew-interval-ms:300000}",
+            initialDelayString = "${app.credit.lease.renew-interval-ms:300000}")
+    public void renewInFlightReservations() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Date since = new Date(System.currentTimeMillis() - config.getMaxJobSeconds() * 1000L);
+        List<String> reservationIds = new ArrayList<>(new LinkedHashSet<>(processingLogRepository
+                .findReservationIdsByStatusCreatedAfter(ProcessingStatusType.PROCESSING, since)));
+        if (reservationIds.isEmpty()) {
+            return;
+        }
+
+        int batchSize = Math.max(1, config.getBatchSize());
+        int renewed = 0;
+        for (int from = 0; from < reservationIds.size(); from += batchSize) {
+            List<String> batch = reservationIds.subList(from, Math.min(from + batchSize, reservationIds.size()));
+            renewed += renew(batch);
+        }
+        logger.info("Renewed {} of {} in-flight credit reservations", renewed, reservationIds.size());
+    }
+
+    private int renew(List<String> batch) {
+        try {
+            CreditBatchReservationResponse response = creditClient.extendBatch(
+                    batch, config.getExtendSeconds(), config.getServiceToken());
+            if (response == null) {
+                return 0;
+            }
+            for (CreditBatchReservationResponse.Outcome outcome : response.getOutcomes()) {
+                if (!outcome.isApplied()) {
+                    // The job will fail at confirm; nothing to recover here
+                    logger.warn("Could not renew reservation {}: {}", outcome.getReservationId(), outcome.getMessage());
+                }
+            }
+            return response.getAppliedCount();
+        } catch (Exception e) {
+            // Next round retries; the remaining TTL covers a missed renewal as long as the interval is short enough
+            logger.error("Failed to renew {} credit reservations: {}", batch.size(), e.getMessage());
+            return 0;
+        }
+    }
+}
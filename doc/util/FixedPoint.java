@@ -0,0 +1,71 @@
+package com.aplusbinary.binarypixor.doc.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Primitive fixed-point helpers for pricing math. Values are {@code long} counts of 10^-scale units,
+ * so estimates run without allocating; {@link BigDecimal} is only created at entity and API
+ * boundaries. Pricing columns use scales 2 (credits), 4 (credit cost, multipliers) and 6 (unit cost),
+ * so everything is carried at {@link #MICRO_SCALE} internally and rounded once at the end.
+ */
+public final class FixedPoint {
+
+    public static final int CREDIT_SCALE = 2;
+    public static final int MULTIPLIER_SCALE = 4;
+    public static final int MICRO_SCALE = 6;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L
+    };
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Convert to units of 10^-scale, rounding half-up if the value carries more decimals.
+     */
+    public static long toUnits(BigDecimal value, int scale) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value.scale() == scale) {
+            return value.unscaledValue().longValueExact();
+        }
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convert to units of 10^-scale, rounding extra decimals up; for amounts we reserve or charge.
+     */
+    public static long toUnitsCeiling(BigDecimal value, int scale) {
+        if (value == null) {
+            return 0L;
+        }
+        return value.setScale(scale, RoundingMode.CEILING).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long units, int scale) {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    /**
+     * Change scale; narrowing rounds up (towards positive infinity), which is the safe direction for
+     * amounts we reserve or charge.
+     */
+    public static long rescaleCeiling(long units, int fromScale, int toScale) {
+        if (toScale >= fromScale) {
+            return Math.multiplyExact(units, POWERS_OF_TEN[toScale - fromScale]);
+        }
+        return Math.floorDiv(units, POWERS_OF_TEN[fromScale - toScale])
+                + (Math.floorMod(units, POWERS_OF_TEN[fromScale - toScale]) == 0 ? 0 : 1);
+    }
+
+    /**
+     * Multiply a value by a factor expressed in 10^-factorScale units, keeping the value's scale and
+     * rounding the dropped digits up.
+     */
+    public static long multiplyCeiling(long units, long factor, int factorScale) {
+        return rescaleCeiling(Math.multiplyExact(units, factor), factorScale, 0);
+    }
+}
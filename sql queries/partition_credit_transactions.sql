@@ -0,0 +1,87 @@
+-- Range-partition credit_transactions by month on created_on.
+--
+-- MySQL requires every unique key of a partitioned table to contain the partitioning column and does
+-- not allow foreign keys on it, so:
+--   * the primary key becomes (id, created_on); id stays AUTO_INCREMENT and therefore unique
+--   * transaction_id and (account_id, ledger_seq) stay globally unique through the unpartitioned
+--     credit_transaction_keys table, which CreditMutationEngine writes with every ledger row; on
+--     credit_transactions they become plain indexes
+--   * foreign keys to am_account and package_purchases are dropped (their indexes stay)
+--
+-- Older history lands in p_history; CreditTransactionPartitionManager keeps adding monthly partitions
+-- ahead of time by splitting p_future (one node at a time, under GET_LOCK), and CreditTransactionArchiver
+-- moves closed months out. Rows of credit_transaction_keys are kept when a month is archived.
+-- Take a backup first: the ALTER ... PARTITION BY rebuilds the table.
+
+SET @schema = DATABASE();
+
+-- Move the unique keys to a side table first; the backfill fails on any existing duplicate
+CREATE TABLE IF NOT EXISTS credit_transaction_keys (
+  transaction_id VARCHAR(100) NOT NULL,
+  account_id BIGINT NOT NULL,
+  ledger_seq BIGINT NULL,
+  created_on DATETIME(6) NULL,
+  PRIMARY KEY (transaction_id),
+  UNIQUE KEY uk_transaction_key_account_ledger_seq (account_id, ledger_seq)
+);
+
+INSERT INTO credit_transaction_keys (transaction_id, account_id, ledger_seq, created_on)
+SELECT t.transaction_id, t.account_id, t.ledger_seq, t.created_on
+  FROM credit_transactions t
+ WHERE NOT EXISTS (SELECT 1 FROM credit_transaction_keys k WHERE k.transaction_id = t.transaction_id);
+
+-- Drop the foreign keys JPA generated (names are not stable across environments)
+SELECT IFNULL(CONCAT('ALTER TABLE credit_transactions ',
+              GROUP_CONCAT(CONCAT('DROP FOREIGN KEY `', CONSTRAINT_NAME, '`') SEPARATOR ', ')), 'DO 0')
+  INTO @sql
+  FROM information_schema.TABLE_CONSTRAINTS
+ WHERE TABLE_SCHEMA = @schema AND TABLE_NAME = 'credit_transactions' AND CONSTRAINT_TYPE = 'FOREIGN KEY';
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Drop the single-column unique keys (transaction_id, id) and the old ledger_seq key
+SELECT IFNULL(CONCAT('ALTER TABLE credit_transactions ',
+              GROUP_CONCAT(DISTINCT CONCAT('DROP INDEX `', INDEX_NAME, '`') SEPARATOR ', ')), 'DO 0')
+  INTO @sql
+  FROM information_schema.STATISTICS
+ WHERE TABLE_SCHEMA = @schema AND TABLE_NAME = 'credit_transactions'
+   AND NON_UNIQUE = 0 AND INDEX_NAME <> 'PRIMARY';
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+UPDATE credit_transactions SET created_on = COALESCE(modified_on, NOW()) WHERE created_on IS NULL;
+
+ALTER TABLE credit_transactions
+  MODIFY created_on DATETIME(6) NOT NULL,
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (id, created_on),
+  ADD KEY idx_transaction_transaction_id (transaction_id),
+  ADD KEY idx_transaction_account_ledger_seq (account_id, ledger_seq),
+  ADD KEY idx_transaction_account_created (account_id, created_on),
+  ADD KEY idx_transaction_package_purchase (package_purchase_id);
+
+ALTER TABLE credit_transactions
+PARTITION BY RANGE COLUMNS (created_on) (
+  PARTITION p_history VALUES LESS THAN ('2026-01-01'),
+  PARTITION p202601 VALUES LESS THAN ('2026-02-01'),
+  PARTITION p202602 VALUES LESS THAN ('2026-03-01'),
+  PARTITION p202603 VALUES LESS THAN ('2026-04-01'),
+  PARTITION p202604 VALUES LESS THAN ('2026-05-01'),
+  PARTITION p202605 VALUES LESS THAN ('2026-06-01'),
+  PARTITION p202606 VALUES LESS THAN ('2026-07-01'),
+  PARTITION p202607 VALUES LESS THAN ('2026-08-01'),
+  PARTITION p202608 VALUES LESS THAN ('2026-09-01'),
+  PARTITION p202609 VALUES LESS THAN ('2026-10-01'),
+  PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+  PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+  PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+  PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- Check the layout
+SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS
+  FROM information_schema.PARTITIONS
+ WHERE TABLE_SCHEMA = @schema AND TABLE_NAME = 'credit_transactions'
+ ORDER BY PARTITION_ORDINAL_POSITION;